@@ -0,0 +1,26 @@
+package dunbar.c482pa.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs the benchmarks with the GC profiler attached, so every result reports the allocation rate next to the
+ * throughput and latency percentiles. Accepts the usual JMH command line options, for example a benchmark name
+ * pattern or -p size=1000 to run a single catalog size. */
+public class BenchmarkMain {
+    /** Prevents instantiation of this launcher class. */
+    private BenchmarkMain() {
+    }
+
+    /** Parses the JMH options and runs the selected benchmarks.
+     * @param args JMH command line options*/
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
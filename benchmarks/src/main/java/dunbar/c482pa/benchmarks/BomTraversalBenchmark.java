@@ -0,0 +1,91 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Part;
+import dunbar.c482pa.Model.Product;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Measures walking the bill of materials in both directions: from a product to its parts, and from a part to the
+ * products using it, and reading the cached rollup that replaces the walk from a product to its parts. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class BomTraversalBenchmark {
+    /**Number of parts, and of products, in the catalog*/
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /**IDs used in turn*/
+    private int[] ids;
+    /**Position of the next ID to use*/
+    private int next = 0;
+
+    /** Loads the catalog and builds the indexes before measuring. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalog.load(size);
+        ids = Catalog.randomIds(size, 1 << 16);
+        Inventory.lookupPart(1);
+    }
+
+    /** Moves to the next ID of the sequence.
+     * @return Returns the ID to use*/
+    private int nextId() {
+        next = (next + 1) & (ids.length - 1);
+        return ids[next];
+    }
+
+    /** Adds up the price of the parts of one product. */
+    @Benchmark
+    public double productPartCost() {
+        double cost = 0;
+        for (Part part : Inventory.lookupProduct(nextId()).getAllAssociatedParts()) {
+            cost += part.getPrice();
+        }
+        return cost;
+    }
+
+    /** Reads the cached cost rollup of one product. */
+    @Benchmark
+    public double productRollupCost() {
+        return Inventory.lookupProduct(nextId()).getRollup().getTotalPartCost();
+    }
+
+    /** Finds the products using one part through the reverse index. */
+    @Benchmark
+    public ObservableList<Product> whereUsed() {
+        return Inventory.whereUsed(nextId());
+    }
+
+    /** Adds up the part cost of every product in the catalog. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double totalPartCost() {
+        double cost = 0;
+        List<Product> products = Inventory.getAllProducts();
+        for (int i = 0; i < products.size(); i++) {
+            for (Part part : products.get(i).getAllAssociatedParts()) {
+                cost += part.getPrice();
+            }
+        }
+        return cost;
+    }
+}
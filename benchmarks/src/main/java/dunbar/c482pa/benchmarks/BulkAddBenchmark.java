@@ -0,0 +1,76 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Measures adding a batch of new parts to a loaded catalog, one part at a time and with Inventory.addParts().
+ * The batch is removed again after every invocation, outside the measured time. */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class BulkAddBenchmark {
+    /**Number of parts added by each invocation*/
+    private static final int BATCH = 10_000;
+
+    /**Number of parts, and of products, in the catalog*/
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /**Parts added by the next invocation*/
+    private List<Part> batch;
+
+    /** Loads the catalog before measuring. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalog.load(size);
+        Inventory.lookupPart(1);
+    }
+
+    /** Builds fresh parts with IDs above the catalog for the next invocation. */
+    @Setup(Level.Invocation)
+    public void buildBatch() {
+        batch = new ArrayList<>(BATCH);
+        for (int i = 1; i <= BATCH; i++) {
+            batch.add(Catalog.part(size + i));
+        }
+    }
+
+    /** Removes the parts added by the last invocation. */
+    @TearDown(Level.Invocation)
+    public void removeBatch() {
+        Inventory.deleteParts(batch);
+    }
+
+    @Benchmark
+    public int addPartsOneByOne() {
+        for (Part part : batch) {
+            Inventory.addPart(part);
+        }
+        return Inventory.getAllParts().size();
+    }
+
+    @Benchmark
+    public int addPartsInBatch() {
+        Inventory.addParts(batch);
+        return Inventory.getAllParts().size();
+    }
+}
@@ -0,0 +1,76 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.InHouse;
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Outsourced;
+import dunbar.c482pa.Model.Part;
+import dunbar.c482pa.Model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Builds synthetic catalogs in the static Inventory for the benchmarks.
+ * Part and product IDs run from 1 to the catalog size. Names combine a word from a short list with the ID, so a
+ * word query matches about one item in eight and a full name matches one item. Every product lists
+ * PARTS_PER_PRODUCT parts chosen at random. The same seed always builds the same catalog. */
+final class Catalog {
+    /**Number of associated parts listed by each product*/
+    static final int PARTS_PER_PRODUCT = 4;
+    /**Words used to build part and product names*/
+    static final String[] WORDS = {"Gear", "Shaft", "Bearing", "Housing", "Bolt", "Washer", "Spring", "Bracket"};
+    /**Seed of the random choices, fixed so runs are comparable*/
+    private static final long SEED = 0xC482L;
+
+    /** Prevents instantiation of this utility class. */
+    private Catalog() {
+    }
+
+    /** Fills the empty Inventory with a catalog.
+     * @param size Number of parts, and of products, to add*/
+    static void load(int size) {
+        if (!Inventory.getAllParts().isEmpty() || !Inventory.getAllProducts().isEmpty()) {
+            throw new IllegalStateException("The inventory is already loaded; each benchmark needs its own fork");
+        }
+        List<Part> parts = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            parts.add(part(id));
+        }
+        Inventory.addParts(parts);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Product> products = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            Product product = new Product(id, WORDS[(id * 7) % WORDS.length] + " Assembly " + id, 25.00, 5, 1, 10);
+            for (int i = 0; i < PARTS_PER_PRODUCT; i++) {
+                product.addAssociatedPart(parts.get(random.nextInt(size)));
+            }
+            products.add(product);
+        }
+        Inventory.addProducts(products);
+    }
+
+    /** Builds the catalog part with a given ID.
+     * @param id ID of the part
+     * @return Returns an InHouse part for even IDs and an Outsourced part for odd IDs*/
+    static Part part(int id) {
+        String name = WORDS[id % WORDS.length] + " " + id;
+        if (id % 2 == 0) {
+            return new InHouse(id, name, 10.00, 5, 1, 10, id % 50);
+        }
+        return new Outsourced(id, name, 5.00, 5, 1, 10, "Supplier " + (id % 200));
+    }
+
+    /** Draws a fixed sequence of IDs for the benchmarks to cycle through, so no random numbers are drawn while
+     * measuring.
+     * @param size Largest ID to draw
+     * @param count Number of IDs to draw, a power of two
+     * @return Returns the drawn IDs*/
+    static int[] randomIds(int size, int count) {
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1 + random.nextInt(size);
+        }
+        return ids;
+    }
+}
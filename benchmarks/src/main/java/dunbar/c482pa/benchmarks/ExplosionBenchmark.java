@@ -0,0 +1,84 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.BomExplosion;
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/** Measures exploding nested bills of materials into part requirements. The catalog's products are split into
+ * LEVELS levels, and every product above the bottom level uses three products of the level below as
+ * sub-assemblies. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ExplosionBenchmark {
+    /**Number of sub-assembly levels*/
+    private static final int LEVELS = 10;
+
+    /**Number of parts, and of products, in the catalog*/
+    @Param({"1000", "10000"})
+    public int size;
+
+    /**IDs of the top level products*/
+    private int[] topIds;
+    /**Position of the next top level product to explode*/
+    private int next = 0;
+    /**Bottom level product changed to make explosions stale*/
+    private Product bottom;
+
+    /** Loads the catalog and links its products into levels before measuring. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalog.load(size);
+        int width = size / LEVELS;
+        for (int level = 1; level < LEVELS; level++) {
+            for (int i = 0; i < width; i++) {
+                Product product = Inventory.lookupProduct(level * width + i + 1);
+                for (int k = 0; k < 3; k++) {
+                    product.addSubAssembly(Inventory.lookupProduct((level - 1) * width + (i * 7 + k * 13) % width + 1), k + 1);
+                }
+            }
+        }
+        topIds = new int[width];
+        for (int i = 0; i < width; i++) {
+            topIds[i] = (LEVELS - 1) * width + i + 1;
+        }
+        bottom = Inventory.lookupProduct(1);
+    }
+
+    /** Explodes one top level product whose explosion is memoized. */
+    @Benchmark
+    public BomExplosion explodeMemoized() {
+        next = next + 1 == topIds.length ? 0 : next + 1;
+        return Inventory.explode(topIds[next], 10);
+    }
+
+    /** Changes a bottom level product, then explodes every top level product, re-exploding the assemblies above the
+     * change. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long explodeAllAfterChange() {
+        bottom.addAssociatedPart(Inventory.lookupPart(1));
+        bottom.deleteAssociatedPart(Inventory.lookupPart(1));
+        long total = 0;
+        for (int id : topIds) {
+            total += Inventory.explode(id, 1).size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,100 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Part;
+import dunbar.c482pa.Model.Product;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Measures ID lookups and name searches against catalogs of increasing size. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class LookupBenchmark {
+    /**Number of parts, and of products, in the catalog*/
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /**IDs looked up in turn*/
+    private int[] ids;
+    /**Full part names searched for in turn*/
+    private String[] names;
+    /**Position of the next ID or name to use*/
+    private int next = 0;
+
+    /** Loads the catalog and builds the indexes before measuring. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalog.load(size);
+        ids = Catalog.randomIds(size, 1 << 16);
+        names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            names[i] = Catalog.part(ids[i]).getName();
+        }
+        Inventory.lookupPart(1);
+    }
+
+    /** Moves to the next position of the ID and name sequences.
+     * @return Returns the position to use*/
+    private int advance() {
+        next = (next + 1) & (ids.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Part lookupPartById() {
+        return Inventory.lookupPart(ids[advance()]);
+    }
+
+    @Benchmark
+    public Product lookupProductById() {
+        return Inventory.lookupProduct(ids[advance()]);
+    }
+
+    /** Searches for a word held by about one part name in eight. */
+    @Benchmark
+    public List<Part> searchPartsByWord() {
+        return Inventory.searchParts("bearing");
+    }
+
+    /** Searches for a full part name, which matches one or a few parts. */
+    @Benchmark
+    public List<Part> searchPartsByName() {
+        return Inventory.searchParts(names[advance()]);
+    }
+
+    /** Searches for a two letter query, which is answered by scanning every name. */
+    @Benchmark
+    public List<Part> searchPartsShortQuery() {
+        return Inventory.searchParts("ng");
+    }
+
+    /** Searches through lookupPart(String), which the search boxes used before SearchService and which appends
+     * its results to the shared filteredParts list. */
+    @Benchmark
+    public ObservableList<Part> lookupPartByName() {
+        Inventory.getFilteredParts().clear();
+        return Inventory.lookupPart(names[advance()]);
+    }
+
+    @Benchmark
+    public List<Product> searchProductsByWord() {
+        return Inventory.searchProducts("assembly 1");
+    }
+}
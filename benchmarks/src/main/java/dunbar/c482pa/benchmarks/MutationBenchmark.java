@@ -0,0 +1,81 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Part;
+import dunbar.c482pa.Model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/** Measures single item mutations. Each benchmark undoes its own change, so the catalog keeps its size while
+ * measuring. The inventory is kept in memory only, so no log writes are included. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class MutationBenchmark {
+    /**Number of parts, and of products, in the catalog*/
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /**IDs used in turn*/
+    private int[] ids;
+    /**Position of the next ID to use*/
+    private int next = 0;
+
+    /** Loads the catalog and builds the indexes before measuring. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalog.load(size);
+        ids = Catalog.randomIds(size, 1 << 16);
+        Inventory.lookupPart(1);
+    }
+
+    /** Moves to the next ID of the sequence.
+     * @return Returns the ID to use*/
+    private int nextId() {
+        next = (next + 1) & (ids.length - 1);
+        return ids[next];
+    }
+
+    /** Deletes a part and adds it back at the end of the list. The deletion searches the list for the part, so it
+     * dominates the cost on large catalogs. */
+    @Benchmark
+    public boolean deleteAndReAddPart() {
+        Part part = Inventory.lookupPart(nextId());
+        boolean deleted = Inventory.deletePart(part);
+        Inventory.addPart(part);
+        return deleted;
+    }
+
+    /** Replaces a part with itself, which runs the full update path including index maintenance. */
+    @Benchmark
+    public Part updatePart() {
+        int index = nextId() - 1;
+        Part part = Inventory.getAllParts().get(index);
+        Inventory.updatePart(index, part);
+        return part;
+    }
+
+    /** Associates a part with a stored product and removes the association again. */
+    @Benchmark
+    public boolean addAndDeleteAssociatedPart() {
+        int id = nextId();
+        Product product = Inventory.lookupProduct(id);
+        Part part = Inventory.lookupPart(id);
+        product.addAssociatedPart(part);
+        return product.deleteAssociatedPart(part);
+    }
+}
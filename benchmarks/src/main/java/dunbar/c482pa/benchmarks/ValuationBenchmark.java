@@ -0,0 +1,79 @@
+package dunbar.c482pa.benchmarks;
+
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Measures exact inventory valuation: the Money.total() kernel over ten million primitive prices and stock counts,
+ * the same sum over doubles for comparison, and Inventory.getPartValuationCents() over a loaded catalog. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ValuationBenchmark {
+    /**Number of prices in the kernel columns*/
+    private static final int COLUMN_SIZE = 10_000_000;
+
+    /**Number of parts, and of products, in the catalog*/
+    @Param({"100000", "1000000"})
+    public int size;
+
+    /**Price of each item in cents*/
+    private long[] cents;
+    /**Price of each item in dollars*/
+    private double[] dollars;
+    /**Stock of each item*/
+    private int[] stock;
+
+    /** Loads the catalog and fills the kernel columns before measuring. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalog.load(size);
+        SplittableRandom random = new SplittableRandom(0xC482L);
+        cents = new long[COLUMN_SIZE];
+        dollars = new double[COLUMN_SIZE];
+        stock = new int[COLUMN_SIZE];
+        for (int i = 0; i < COLUMN_SIZE; i++) {
+            cents[i] = random.nextInt(100_000);
+            dollars[i] = Money.toDouble(cents[i]);
+            stock[i] = random.nextInt(1000);
+        }
+    }
+
+    /** Values ten million items exactly. */
+    @Benchmark
+    public long totalCents() {
+        return Money.total(cents, stock, COLUMN_SIZE);
+    }
+
+    /** Values ten million items in doubles, which rounds at every step. */
+    @Benchmark
+    public double totalDollars() {
+        double total = 0;
+        for (int i = 0; i < COLUMN_SIZE; i++) {
+            total += dollars[i] * stock[i];
+        }
+        return total;
+    }
+
+    /** Values every part of the catalog through the Inventory. */
+    @Benchmark
+    public long valueParts() {
+        return Inventory.getPartValuationCents();
+    }
+}
@@ -2,31 +2,17 @@ package dunbar.c482pa.Controllers;
 
 import dunbar.c482pa.Model.InHouse;
 import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Money;
 import dunbar.c482pa.Model.Outsourced;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.Region;
-import javafx.stage.Stage;
 import java.io.IOException;
-import java.net.URL;
-import java.util.ResourceBundle;
 
 /** The AddPartWindowController controls the interface used to add new parts to the Inventory.
- * It implements the Initializable interface to automatically generate a valid part ID for the new part. */
-public class AddPartWindowController implements Initializable {
-
-    /** Holds the main window to display scenes*/
-    private Stage stage;
-    /** Holds the scene for the window*/
-    private Parent scene;
-    /** Initializes the ID for the next part to 1.
-     * Used in initialize()*/
-    private int nextID = 1;
+ * The window is reset each time it is shown, which clears the fields and generates a valid part ID for the new part. */
+public class AddPartWindowController {
 
     /**Text field for the part ID*/
     @FXML
@@ -63,30 +49,19 @@ public class AddPartWindowController implements Initializable {
     private TextField priceText;
 
 
-    /** Generates a unique part ID based on other parts currently in inventory.
-     * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
-     * @param resourceBundle The resources used to localize the root object, or null if the root object was not localized.*/
-    @Override
-    public void initialize(URL url, ResourceBundle resourceBundle) {
-        int i = 0;
-        int numParts = Inventory.getAllParts().size();
-
-        for(i = 0; i < numParts; i++)
-            if(nextID == (Inventory.getAllParts()).get(i).getId()){
-                nextID++;
-                i = 0;
-            }
-        idText.setText(String.valueOf(nextID));
-    }
-
-    /** Loads the specified scene for a new window.
-     * @param event An action even for a button press in the GUI
-     * @param newAddress The package address for the desired FXML file*/
-    private void changeWindowButton (ActionEvent event, String newAddress) throws IOException{
-        stage = (Stage)((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load((getClass().getResource(newAddress)));
-        stage.setScene(new Scene(scene));
-        stage.show();
+    /** Clears the fields left by the previous visit and generates a unique part ID based on other parts currently in
+     * inventory. Called each time the window is shown, since the window is loaded once and reused.
+     * The lowest free ID is retrieved from the Inventory part ID allocator in constant time.*/
+    void reset() {
+        idText.setText(String.valueOf(Inventory.nextPartId()));
+        nameText.clear();
+        invText.clear();
+        priceText.clear();
+        maxText.clear();
+        minText.clear();
+        locationText.clear();
+        inHouseRadio.setSelected(true);
+        locationLabel.setText("Machine ID");
     }
 
     /** Changes the label for the location text box.
@@ -109,7 +84,7 @@ public class AddPartWindowController implements Initializable {
      * @param event Event generated by pressing the cancel button*/
     @FXML
     void onActionReturnToMain(ActionEvent event) throws IOException {
-        changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+        SceneCache.showMainWindow(event);
     }
 
     /** Saves the new part and returns to the main window when the Save button is pressed.
@@ -122,7 +97,7 @@ public class AddPartWindowController implements Initializable {
             int id = Integer.parseInt(idText.getText());
             String name = "fill";
             int stock = 0;
-            double price = 0.00;
+            long priceCents = 0;
             int max = 0;
             int min = 0;
             int machineId = 0;
@@ -160,9 +135,8 @@ public class AddPartWindowController implements Initializable {
             }
 
             try {
-                price = Double.parseDouble(priceText.getText());
-                price = Math.floor(price * 100) / 100;  //Truncates price values to two decimal places.
-                if (price < 0) {
+                priceCents = Money.parseCents(priceText.getText());  //Parses the exact price, truncated to two decimal places.
+                if (priceCents < 0) {
                     throw new Exception();
                 }
             } catch (NumberFormatException notADouble) {
@@ -204,8 +178,8 @@ public class AddPartWindowController implements Initializable {
                     if (machineId < 0) {
                         throw new Exception();
                     }
-                    //Passes values from the text fields into the constructor for a new InHouse part
-                    Inventory.addPart(new InHouse(id, name, price, stock, min, max, machineId));
+                    //Passes values from the text fields into the factory for a new InHouse part
+                    Inventory.addPart(InHouse.ofCents(id, name, priceCents, stock, min, max, machineId));
                 } catch (NumberFormatException notInt) {
                     Alert alert = new Alert(Alert.AlertType.ERROR, "Please enter valid machine ID. This includes whole numbers greater than 0");
                     alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE);
@@ -223,8 +197,8 @@ public class AddPartWindowController implements Initializable {
                     if (companyName.isEmpty()) {
                         throw new Exception();
                     }
-                    //Passes values from the text fields into the constructor for a new Outsourced part
-                    Inventory.addPart(new Outsourced(id, name, price, stock, min, max, companyName));
+                    //Passes values from the text fields into the factory for a new Outsourced part
+                    Inventory.addPart(Outsourced.ofCents(id, name, priceCents, stock, min, max, companyName));
                 }
                 catch(Exception badCompany){
                     Alert alert = new Alert(Alert.AlertType.ERROR, "Please enter a company name");
@@ -234,7 +208,7 @@ public class AddPartWindowController implements Initializable {
                 }
             }
         //Loads the main window
-        changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+        SceneCache.showMainWindow(event);
     }
         catch (Exception badStock) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Invalid inventory/ max and min combination. Ensure amount in stock is equal to or between max and min.");
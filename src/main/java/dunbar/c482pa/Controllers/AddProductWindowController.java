@@ -1,21 +1,17 @@
 package dunbar.c482pa.Controllers;
 
 import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Money;
 import dunbar.c482pa.Model.Part;
 import dunbar.c482pa.Model.Product;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Region;
-import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Optional;
@@ -23,17 +19,13 @@ import java.util.ResourceBundle;
 
 /**The AddProductWindowController controls the interface used to add new products to the Inventory.
  * It includes methods for associating a part with the new Product. The Initializable interface is implemented to
- * populate a table of parts that can be associated with the product, and to automatically generate a unique product ID. */
+ * populate a table of parts that can be associated with the product, and the window is reset each time it is shown to
+ * automatically generate a unique product ID. */
 public class AddProductWindowController implements Initializable {
-    /** Holds the main window to display scenes*/
-    private Stage stage;
-    /** Holds the scene for the window*/
-    private Parent scene;
     /**Holds the list of associated parts before saving them to the new product's associatedParts list*/
     private ObservableList<Part> partHolder = FXCollections.observableArrayList();
-    /** Initializes the ID for the next product to 1.
-     * Used in initialize()*/
-    private int nextID = 1;
+    /**Runs the part table searches in the background*/
+    private SearchService<Part> partSearchService;
     /**Table for all available parts*/
     @FXML
     private TableView<Part> availablePartsTable;
@@ -86,39 +78,34 @@ public class AddProductWindowController implements Initializable {
     @FXML
     private TableColumn<Part, Double> usedPartsPriceCol;
 
-    /** Loads the specified scene for a new window.
-     * @param event An action even for a button press in the GUI
-     * @param newAddress The package address for the desired FXML file*/
-    private void changeWindowButton (ActionEvent event, String newAddress) throws IOException{
-        stage = (Stage)((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load((getClass().getResource(newAddress)));
-        stage.setScene(new Scene(scene));
-        stage.show();
-    }
-
-    /** Populates the part table and generates a unique Product ID when the window is loaded.
+    /** Populates the part table when the window is loaded.
      *@param url The location used to resolve relative paths for the root object, or null if the location is not known.
      *@param resourceBundle The resources used to localize the root object, or null if the root object was not localized.*/
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        partHolder.clear();
         availablePartsTable.setItems(Inventory.getAllParts());
-        allPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        allPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        allPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        allPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        int i = 0;
-        int numProds = Inventory.getAllProducts().size();
+        CellFactories.installPartColumns(allPartsIDCol, allPartsInvCol, allPartsNameCol, allPartsPriceCol);
+        InventorySortPolicy.installOnPartTable(availablePartsTable, allPartsIDCol, allPartsInvCol, allPartsNameCol, allPartsPriceCol);
+        CellFactories.installPartColumns(usedPartsIDCol, usedPartsInvCol, usedPartsNameCol, usedPartsPriceCol);
+        partSearchService = new SearchService<>(availablePartsTable, Inventory.getAllParts(), Inventory::searchParts, Part::getName);
+    }
 
-        //Compares nextID to each element in allProducts and grabs the next free ID number,  starting with number 1.
-        for(i = 0; i < numProds; i++)
-            if(nextID == (Inventory.getAllProducts()).get(i).getId()){
-                nextID++;
-                i = 0;
-            }
-        idText.setText(String.valueOf(nextID));
+    /** Clears the fields, part search and associated parts left by the previous visit and generates a unique Product ID.
+     * Called each time the window is shown, since the window is loaded once and reused.*/
+    void reset() {
+        partHolder.clear();
+        partsInProductTable.setItems(partHolder);
+        partsInProductTable.getSelectionModel().clearSelection();
+        partSearch.clear();
+        partSearchService.reset();
+        nameText.clear();
+        invText.clear();
+        priceText.clear();
+        maxText.clear();
+        minText.clear();
 
+        //Grabs the next free ID number, starting with number 1, from the Inventory product ID allocator
+        idText.setText(String.valueOf(Inventory.nextProductId()));
     }
 
     /**Associates a Part with the Product when the Add part button is pressed.
@@ -130,10 +117,6 @@ public class AddProductWindowController implements Initializable {
         partHolder.add(selectedPart);
 
         partsInProductTable.setItems(partHolder);
-        usedPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        usedPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        usedPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        usedPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
     }
 
     /**Disassociates a Part from the Product when the Remove Associated Part button is pressed.
@@ -151,62 +134,25 @@ public class AddProductWindowController implements Initializable {
         if(result.isPresent() && result.get() == yesButton) {
             partHolder.remove(partsInProductTable.getSelectionModel().getSelectedItem());
             partsInProductTable.setItems(partHolder);
-            usedPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-            usedPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-            usedPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-            usedPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
         }
 
     }
 
     /**Implements search and filtering functionality for the part table.
-     * Every time a key is pressed in the part search text box, runs the appropriate Inventory lookupPart()
-     * method based on the type of input (integer vs string) then filters the part table contents accordingly.
+     * Every time a key is pressed in the part search text box, hands the text to the part search service, which
+     * runs the appropriate Inventory search in the background once typing pauses and then filters the part table
+     * contents accordingly.
      * @param event Event generated by typing in the part search text box*/
     @FXML
     void onActionSearchParts(KeyEvent event) {
-        String search = partSearch.getText();
-        int partID = 0;
-        ObservableList<Part> filter = FXCollections.observableArrayList();  //Establishes a local filter list for the search.
-
-        availablePartsTable.getSelectionModel().clearSelection();   //Clears any previous selections in the part table
-
-        if(!(Inventory.getFilteredParts().isEmpty())){  //Clears the FilteredParts field from Inventory
-            Inventory.getFilteredParts().clear();
-        }
-
-        try{
-            //Attempts to run Inventory.lookupPart() using a part ID. If the input string cannot be parsed as an integer, throws an exception.
-            partID = Integer.parseInt(search);
-            if(!(Inventory.lookupPart(partID) == null)) {
-                filter.add(Inventory.lookupPart(partID));
-            }
-        }
-        //If the input was not an integer, runs Inventory.lookupPart() using a string instead.
-        catch(NumberFormatException notInt) {
-            filter = Inventory.lookupPart(search);
-        }
-        //Regenerates the part table using the filtered list. If the list is empty, outputs an error message.
-        availablePartsTable.setItems(filter);
-        allPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        allPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        allPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        allPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        if(filter.size() == 1){
-            availablePartsTable.getSelectionModel().select(filter.get(0));
-        }
-        if(filter.size() == 0){
-            Alert notFound = new Alert(Alert.AlertType.ERROR, "Item not found!");
-            notFound.show();
-        }
+        partSearchService.search(partSearch.getText());
     }
 
     /** Returns to the Main window when the cancel button is pressed.
      * @param event Event generated by pressing the cancel button*/
     @FXML
     void onActionReturnToMain(ActionEvent event) throws IOException {
-        changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+        SceneCache.showMainWindow(event);
     }
 
     /** Saves the new product and returns to the main window when the Save button is pressed.
@@ -219,7 +165,7 @@ public class AddProductWindowController implements Initializable {
             int id = Integer.parseInt(idText.getText());
             String name = "fill";
             int inventory = 0;
-            double price = 0;
+            long priceCents = 0;
             int max = 0;
             int min = 0;
             Product newProd;
@@ -256,9 +202,8 @@ public class AddProductWindowController implements Initializable {
             }
 
             try {
-                price = Double.parseDouble(priceText.getText());
-                price = Math.floor(price * 100) / 100;  //Truncates price values to two decimal places.
-                if (price < 0) {
+                priceCents = Money.parseCents(priceText.getText());  //Parses the exact price, truncated to two decimal places.
+                if (priceCents < 0) {
                     throw new Exception();
                 }
             } catch (NumberFormatException notADouble) {
@@ -294,12 +239,10 @@ public class AddProductWindowController implements Initializable {
                 throw new Exception();
             }
 
-            Inventory.addProduct(new Product(id, name, price, inventory, min, max));    //Generates the Product Object
+            Inventory.addProduct(Product.ofCents(id, name, priceCents, inventory, min, max));    //Generates the Product Object
             newProd = Inventory.getAllProducts().get(Inventory.getAllProducts().size() - 1);
-            for (Part part : partHolder) {      //Populates the associatedParts list
-                newProd.addAssociatedPart(part);
-            }
-            changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+            newProd.addAssociatedParts(partHolder);     //Populates the associatedParts list with a single change
+            SceneCache.showMainWindow(event);
         }
         catch (Exception badStock) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Invalid inventory/ max and min combination. Ensure amount in stock is equal to or between max and min.");
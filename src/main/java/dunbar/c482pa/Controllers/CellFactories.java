@@ -0,0 +1,69 @@
+package dunbar.c482pa.Controllers;
+
+import dunbar.c482pa.Model.Part;
+import dunbar.c482pa.Model.Product;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.util.Callback;
+
+/** This class holds the cell value factories shared by the part and product tables.
+ * Each factory reads the matching property of a Part or Product directly instead of looking it up by name through
+ * reflection, and the properties are kept on the items, so redrawing a cell does not create new objects. The
+ * factories only need to be installed once per column, since they keep working when the items of a table are
+ * replaced. */
+final class CellFactories {
+    /**Reads the ID of a part*/
+    private static final Callback<TableColumn.CellDataFeatures<Part, Integer>, ObservableValue<Integer>> PART_ID =
+            cell -> cell.getValue().idProperty();
+    /**Reads the stock of a part*/
+    private static final Callback<TableColumn.CellDataFeatures<Part, Integer>, ObservableValue<Integer>> PART_STOCK =
+            cell -> cell.getValue().stockProperty();
+    /**Reads the name of a part*/
+    private static final Callback<TableColumn.CellDataFeatures<Part, String>, ObservableValue<String>> PART_NAME =
+            cell -> cell.getValue().nameProperty();
+    /**Reads the price of a part*/
+    private static final Callback<TableColumn.CellDataFeatures<Part, Double>, ObservableValue<Double>> PART_PRICE =
+            cell -> cell.getValue().priceProperty();
+    /**Reads the ID of a product*/
+    private static final Callback<TableColumn.CellDataFeatures<Product, Integer>, ObservableValue<Integer>> PRODUCT_ID =
+            cell -> cell.getValue().idProperty();
+    /**Reads the stock of a product*/
+    private static final Callback<TableColumn.CellDataFeatures<Product, Integer>, ObservableValue<Integer>> PRODUCT_STOCK =
+            cell -> cell.getValue().stockProperty();
+    /**Reads the name of a product*/
+    private static final Callback<TableColumn.CellDataFeatures<Product, String>, ObservableValue<String>> PRODUCT_NAME =
+            cell -> cell.getValue().nameProperty();
+    /**Reads the price of a product*/
+    private static final Callback<TableColumn.CellDataFeatures<Product, Double>, ObservableValue<Double>> PRODUCT_PRICE =
+            cell -> cell.getValue().priceProperty();
+
+    /** Prevents instantiation of this utility class. */
+    private CellFactories() {
+    }
+
+    /** Installs the cell value factories on the columns of a part table.
+     * @param idCol Column showing the part ID
+     * @param invCol Column showing the amount in stock
+     * @param nameCol Column showing the part name
+     * @param priceCol Column showing the part price*/
+    static void installPartColumns(TableColumn<Part, Integer> idCol, TableColumn<Part, Integer> invCol,
+                                   TableColumn<Part, String> nameCol, TableColumn<Part, Double> priceCol) {
+        idCol.setCellValueFactory(PART_ID);
+        invCol.setCellValueFactory(PART_STOCK);
+        nameCol.setCellValueFactory(PART_NAME);
+        priceCol.setCellValueFactory(PART_PRICE);
+    }
+
+    /** Installs the cell value factories on the columns of a product table.
+     * @param idCol Column showing the product ID
+     * @param invCol Column showing the amount in stock
+     * @param nameCol Column showing the product name
+     * @param priceCol Column showing the product price*/
+    static void installProductColumns(TableColumn<Product, Integer> idCol, TableColumn<Product, Integer> invCol,
+                                      TableColumn<Product, String> nameCol, TableColumn<Product, Double> priceCol) {
+        idCol.setCellValueFactory(PRODUCT_ID);
+        invCol.setCellValueFactory(PRODUCT_STOCK);
+        nameCol.setCellValueFactory(PRODUCT_NAME);
+        priceCol.setCellValueFactory(PRODUCT_PRICE);
+    }
+}
@@ -0,0 +1,72 @@
+package dunbar.c482pa.Controllers;
+
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.InventoryColumn;
+import dunbar.c482pa.Model.Part;
+import dunbar.c482pa.Model.Product;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/** This class installs the sort policies of the tables that show the whole inventory.
+ * The default TableView sort copies every item into an array and sorts the copies, which builds every part or product
+ * loaded from a snapshot. These policies hand the clicked column to Inventory instead, which sorts the unread rows by
+ * their snapshot columns without building them, so sorting a large inventory builds no rows. Tables showing
+ * search results, which hold only the matching items, are sorted as usual. */
+final class InventorySortPolicy {
+    /** Prevents instantiation of this utility class. */
+    private InventorySortPolicy() {
+    }
+
+    /** Installs the sort policy of a table showing the parts.
+     * @param table Table showing Inventory.getAllParts() or search results
+     * @param idCol Column showing the part ID
+     * @param invCol Column showing the amount in stock
+     * @param nameCol Column showing the part name
+     * @param priceCol Column showing the part price*/
+    static void installOnPartTable(TableView<Part> table, TableColumn<Part, Integer> idCol, TableColumn<Part, Integer> invCol,
+                                   TableColumn<Part, String> nameCol, TableColumn<Part, Double> priceCol) {
+        install(table, Inventory.getAllParts(), Map.of(idCol, InventoryColumn.ID, invCol, InventoryColumn.STOCK,
+                nameCol, InventoryColumn.NAME, priceCol, InventoryColumn.PRICE), Inventory::sortParts);
+    }
+
+    /** Installs the sort policy of a table showing the products.
+     * @param table Table showing Inventory.getAllProducts() or search results
+     * @param idCol Column showing the product ID
+     * @param invCol Column showing the amount in stock
+     * @param nameCol Column showing the product name
+     * @param priceCol Column showing the product price*/
+    static void installOnProductTable(TableView<Product> table, TableColumn<Product, Integer> idCol, TableColumn<Product, Integer> invCol,
+                                      TableColumn<Product, String> nameCol, TableColumn<Product, Double> priceCol) {
+        install(table, Inventory.getAllProducts(), Map.of(idCol, InventoryColumn.ID, invCol, InventoryColumn.STOCK,
+                nameCol, InventoryColumn.NAME, priceCol, InventoryColumn.PRICE), Inventory::sortProducts);
+    }
+
+    /** Installs a sort policy that sorts the inventory list in Inventory and any other items as usual.
+     * Only the first column of the sort order is used for the inventory list.
+     * @param table Table to install the policy on
+     * @param inventoryItems Inventory list the table shows when its search box is empty
+     * @param columns Field shown by each column
+     * @param sorter Sorts the inventory list by a field, in ascending order if the flag is true
+     * @param <T> Type of the table items*/
+    private static <T> void install(TableView<T> table, ObservableList<T> inventoryItems,
+                                    Map<TableColumn<T, ?>, InventoryColumn> columns, BiConsumer<InventoryColumn, Boolean> sorter) {
+        table.setSortPolicy(sorted -> {
+            if (sorted.getItems() != inventoryItems) {
+                return TableView.DEFAULT_SORT_POLICY.call(sorted);
+            }
+            if (sorted.getSortOrder().isEmpty()) {
+                return true;        //Leaves the inventory in its current order
+            }
+            TableColumn<T, ?> column = sorted.getSortOrder().get(0);
+            InventoryColumn field = columns.get(column);
+            if (field == null) {
+                return TableView.DEFAULT_SORT_POLICY.call(sorted);
+            }
+            sorter.accept(field, column.getSortType() == TableColumn.SortType.ASCENDING);
+            return true;
+        });
+    }
+}
@@ -7,12 +7,8 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.stage.Stage;
 import java.io.IOException;
@@ -28,8 +24,6 @@ import java.util.ResourceBundle;
 public class MainWindowController implements Initializable {
     /** Holds the main window to display scenes*/
     private Stage stage;
-    /** Holds the scene for the window*/
-    private Parent scene;
     /**Table column for part IDs*/
     @FXML
     private TableColumn<Part, Integer> partIDCol;
@@ -67,15 +61,11 @@ public class MainWindowController implements Initializable {
     @FXML
     private TextField productTableSearch;
 
-    /** Loads the specified scene for a new window.
-     * @param event An action even for a button press in the GUI
-     * @param newAddress The package address for the desired FXML file*/
-    private void changeWindowButton (ActionEvent event, String newAddress) throws IOException{
-        stage = (Stage)((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load((getClass().getResource(newAddress)));
-        stage.setScene(new Scene(scene));
-        stage.show();
-    }
+    /**Runs the part table searches in the background*/
+    private SearchService<Part> partSearchService;
+
+    /**Runs the product table searches in the background*/
+    private SearchService<Product> productSearchService;
 
     /** Initializes and populates the Parts and Products tables when the main window is opened.
      * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
@@ -83,26 +73,43 @@ public class MainWindowController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         partTable.setItems(Inventory.getAllParts());
-        partIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        CellFactories.installPartColumns(partIDCol, partInvCol, partNameCol, partPriceCol);
+        InventorySortPolicy.installOnPartTable(partTable, partIDCol, partInvCol, partNameCol, partPriceCol);
 
         productTable.setItems(Inventory.getAllProducts());
-        prodIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        prodInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        prodNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        prodPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        CellFactories.installProductColumns(prodIDCol, prodInvCol, prodNameCol, prodPriceCol);
+        InventorySortPolicy.installOnProductTable(productTable, prodIDCol, prodInvCol, prodNameCol, prodPriceCol);
+
+        partSearchService = new SearchService<>(partTable, Inventory.getAllParts(), Inventory::searchParts, Part::getName);
+        productSearchService = new SearchService<>(productTable, Inventory.getAllProducts(), Inventory::searchProducts, Product::getName);
+    }
+
+    /** Clears the search boxes and shows every part and product again when the main window is shown again.
+     * The window is loaded once and reused, so the searches of the previous visit would otherwise still be shown.*/
+    void reset() {
+        partTableSearch.clear();
+        productTableSearch.clear();
+        partSearchService.reset();
+        productSearchService.reset();
     }
 
     /**Deletes a part from the Part table when a part is selected and the Delete button is pressed.
-     * Done by invoking the Inventory deletePart() method.
+     * Done by invoking the Inventory deletePart() method. Parts that are still associated with a product cannot be
+     * deleted; the products using the part are found with Inventory.whereUsed().
      * @param event Event generated by pressing the Delete button*/
     @FXML
     void onActionDeletePart(ActionEvent event) throws NullPointerException {
+        String deletedPart = null;
+        ObservableList<Product> usedBy = FXCollections.observableArrayList();
         try {
             Part selectedPart = partTable.getSelectionModel().getSelectedItem();
-            String deletedPart = selectedPart.getName();
+            deletedPart = selectedPart.getName();
+
+            //Flags an error if the selected part is associated with a Product
+            usedBy = Inventory.whereUsed(selectedPart.getId());
+            if (!usedBy.isEmpty()) {
+                throw new Exception();
+            }
 
             //Establishes a Yes/No confirmation button when a part is selected and the Delete button is pressed
             Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION, "Delete part: " + deletedPart + "?");
@@ -122,16 +129,26 @@ public class MainWindowController implements Initializable {
         } catch (NullPointerException noItemSelected) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select an item from the table to delete");
             alert.show();
+        } catch (Exception inUse) {
+            StringBuilder products = new StringBuilder();
+            for (Product product : usedBy) {
+                products.append(products.length() == 0 ? "" : ", ").append(product.getName());
+            }
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Part: " + deletedPart + " cannot be deleted because it is used by: " + products);
+            alert.show();
         }
         partTable.getSelectionModel().clearSelection();
     }
 
     /**Deletes a product from the Product table when a product is selected and the Delete button is pressed.
-     * Done by invoking the Inventory deleteProduct() method.
+     * Done by invoking the Inventory deleteProduct() method. Products that still have associated parts, or that are
+     * used as a sub-assembly by another product, cannot be deleted; the products using it are found with
+     * Inventory.whereUsedAsSubAssembly().
      * @param event Event generated by pressing the Delete button */
     @FXML
     void onActionDeleteProd(ActionEvent event) throws NullPointerException {
         String deletedProd = null;
+        ObservableList<Product> usedBy = FXCollections.observableArrayList();
         try {
             Product selectedProd = productTable.getSelectionModel().getSelectedItem();
             deletedProd = selectedProd.getName();
@@ -141,6 +158,12 @@ public class MainWindowController implements Initializable {
                 throw new Exception();
             }
 
+            //Flags an error if the selected Product is a sub-assembly of another Product
+            usedBy = Inventory.whereUsedAsSubAssembly(selectedProd.getId());
+            if (!usedBy.isEmpty()) {
+                throw new Exception();
+            }
+
             //Establishes a Yes/No confirmation button when a product is selected  and the delete button is pressed
             Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION, "Delete product: " + deletedProd + "?");
             ButtonType yesButton = new ButtonType("Yes");
@@ -160,8 +183,18 @@ public class MainWindowController implements Initializable {
         } catch (NullPointerException noItemSelected) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select an item from the table to delete");
             alert.show();
-        } catch (Exception hasParts) {
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Product: " + deletedProd + " cannot be deleted due to associated parts");
+        } catch (Exception cannotDelete) {
+            Alert alert;
+            if (usedBy.isEmpty()) {
+                alert = new Alert(Alert.AlertType.ERROR, "Product: " + deletedProd + " cannot be deleted due to associated parts");
+            }
+            else {
+                StringBuilder products = new StringBuilder();
+                for (Product product : usedBy) {
+                    products.append(products.length() == 0 ? "" : ", ").append(product.getName());
+                }
+                alert = new Alert(Alert.AlertType.ERROR, "Product: " + deletedProd + " cannot be deleted because it is used by: " + products);
+            }
             alert.show();
         }
         productTable.getSelectionModel().clearSelection();
@@ -180,14 +213,16 @@ public class MainWindowController implements Initializable {
      * @param event Event generated by pressing the Add part button*/
     @FXML
     void onActionToAddPartWindow(ActionEvent event) throws IOException{
-        changeWindowButton(event, "/dunbar/c482pa/AddPartWindow.fxml");
+        SceneCache.<AddPartWindowController>getController(SceneCache.ADD_PART_WINDOW).reset();
+        SceneCache.show(event, SceneCache.ADD_PART_WINDOW);
     }
 
     /** Changes the application to the Add Product window when the Add product button is pressed.
      * @param event Event generated by pressing the Add product button*/
     @FXML
     void onActionToAddProdWindow(ActionEvent event) throws IOException{
-        changeWindowButton(event, "/dunbar/c482pa/AddProductWindow.fxml");
+        SceneCache.<AddProductWindowController>getController(SceneCache.ADD_PRODUCT_WINDOW).reset();
+        SceneCache.show(event, SceneCache.ADD_PRODUCT_WINDOW);
     }
 
     /** Changes the application to the Modify Product window when the Modify product button is pressed.
@@ -195,18 +230,12 @@ public class MainWindowController implements Initializable {
     @FXML
     void onActionToModProdWindow(ActionEvent event) throws IOException, NullPointerException {
         try {
-            //Invokes the ModifyProductWindowController loadProduct() method to populate the fields for the selected Product
-            FXMLLoader loader = new FXMLLoader();
-            loader.setLocation(getClass().getResource("/dunbar/c482pa/ModifyProductWindow.fxml"));
-            loader.load();
-            ModifyProductWindowController mpwController = loader.getController();
-            mpwController.loadProduct(productTable.getSelectionModel().getSelectedItem());
+            //Invokes the ModifyProductWindowController reset() method to populate the fields for the selected Product
+            ModifyProductWindowController mpwController = SceneCache.getController(SceneCache.MODIFY_PRODUCT_WINDOW);
+            mpwController.reset(productTable.getSelectionModel().getSelectedItem());
 
-            //Loads the Modify Product window
-            stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-            Parent scene = loader.getRoot();
-            stage.setScene(new Scene(scene));
-            stage.show();
+            //Shows the Modify Product window
+            SceneCache.show(event, SceneCache.MODIFY_PRODUCT_WINDOW);
         }
         //Flags an error if the Modify button is pressed and no Product was selected.
         catch(NullPointerException noItemSelected) {
@@ -220,18 +249,12 @@ public class MainWindowController implements Initializable {
     @FXML
     void onActionToModifyPartWindow(ActionEvent event) throws IOException{
         try {
-            //Invokes the ModifyPartWindowController loadPart() method to populate fields for the selected part
-            FXMLLoader loader = new FXMLLoader();
-            loader.setLocation(getClass().getResource("/dunbar/c482pa/ModifyPartWindow.fxml"));
-            loader.load();
-            ModifyPartWindowController mpwController = loader.getController();
-            mpwController.loadPart(partTable.getSelectionModel().getSelectedItem());
+            //Invokes the ModifyPartWindowController reset() method to populate fields for the selected part
+            ModifyPartWindowController mpwController = SceneCache.getController(SceneCache.MODIFY_PART_WINDOW);
+            mpwController.reset(partTable.getSelectionModel().getSelectedItem());
 
-            //Loads the Modify Part Window
-            stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-            Parent scene = loader.getRoot();
-            stage.setScene(new Scene(scene));
-            stage.show();
+            //Shows the Modify Part Window
+            SceneCache.show(event, SceneCache.MODIFY_PART_WINDOW);
         }
         //Flags an error when the Modify Part button is pressed without a part selected.
         catch(NullPointerException noItemSelected) {
@@ -241,86 +264,23 @@ public class MainWindowController implements Initializable {
     }
 
     /**Implements search and filtering functionality for the part table.
-     * Every time a key is pressed in the part search text box, runs the appropriate Inventory lookupPart()
-     * method based on the type of input (integer vs string) then filters the part table contents accordingly.
+     * Every time a key is pressed in the part search text box, hands the text to the part search service, which
+     * runs the appropriate Inventory search in the background once typing pauses and then filters the part table
+     * contents accordingly.
      * @param event Event generated by typing in the part search text box*/
     @FXML
-    void onActionPartSearch(KeyEvent event) throws NumberFormatException{
-        String search = partTableSearch.getText();
-        int partID = 0;
-        ObservableList<Part> filter = FXCollections.observableArrayList();  //Establishes a local filter list for the search.
-
-        partTable.getSelectionModel().clearSelection();     //Clears any previous selections in the part table
-
-        if(!(Inventory.getFilteredParts().isEmpty())){      //Clears the FilteredParts field from Inventory
-            Inventory.getFilteredParts().clear();
-        }
-
-        try{
-            //Attempts to run Inventory.lookupPart() using a part ID. If the input string cannot be parsed as an integer, throws an exception.
-            partID = Integer.parseInt(search);
-            if(!(Inventory.lookupPart(partID) == null)) {
-                filter.add(Inventory.lookupPart(partID));
-            }
-        }
-        //If the input was not an integer, runs Inventory.lookupPart() using a string instead.
-        catch(NumberFormatException notInt) {
-            filter = Inventory.lookupPart(search);
-        }
-        //Regenerates the part table using the filtered list. If the list is empty, outputs an error message.
-        partTable.setItems(filter);
-        partIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-        if(filter.size() == 1){
-            partTable.getSelectionModel().select(filter.get(0));
-        }
-        if(filter.size() == 0){
-            Alert notFound = new Alert(Alert.AlertType.ERROR, "Item not found!");
-            notFound.show();
-        }
+    void onActionPartSearch(KeyEvent event) {
+        partSearchService.search(partTableSearch.getText());
     }
 
     /**Implements search and filtering functionality for the product table.
-     * Every time a key is pressed in the product search text box, runs the appropriate Inventory lookupProduct()
-     * method based on the type of input (integer vs string) then filters the part table contents accordingly.
+     * Every time a key is pressed in the product search text box, hands the text to the product search service, which
+     * runs the appropriate Inventory search in the background once typing pauses and then filters the product table
+     * contents accordingly.
      * @param event Event generated by typing in the product search text box*/
     @FXML
-    void onActionProductSearch(KeyEvent event) throws NumberFormatException {
-        String search = productTableSearch.getText();
-        int productID = 0;
-        ObservableList<Product> filter = FXCollections.observableArrayList();   //Establishes a local filter list for the search.
-
-        productTable.getSelectionModel().clearSelection();   //Clears any previous selections in the product table
-
-        if(!(Inventory.getFilteredProducts().isEmpty())){   //Clears the FilteredParts field from Inventory
-            Inventory.getFilteredProducts().clear();
-        }
-        //Attempts to run Inventory.lookupProduct() using a product ID. If the input string cannot be parsed as an integer, throws an exception.
-        try{
-            productID = Integer.parseInt(search);
-            if(!(Inventory.lookupProduct(productID) == null)) {
-                filter.add(Inventory.lookupProduct(productID));
-            }
-        }
-        //If the input was not an integer, runs Inventory.lookupProduct() using a string instead.
-        catch(NumberFormatException notInt) {
-            filter = Inventory.lookupProduct(search);
-        }
-        //Regenerates the product table using the filtered list. If the list is empty, outputs an error message.
-        productTable.setItems(filter);
-        prodIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        prodInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        prodNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        prodPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-        if(filter.size() == 1){
-            productTable.getSelectionModel().select(filter.get(0));
-        }
-        if(filter.size() == 0){
-            Alert notFound = new Alert(Alert.AlertType.ERROR, "Item not found!");
-            notFound.show();
-        }
+    void onActionProductSearch(KeyEvent event) {
+        productSearchService.search(productTableSearch.getText());
     }
 
 }
\ No newline at end of file
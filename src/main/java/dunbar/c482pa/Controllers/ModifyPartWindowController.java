@@ -2,26 +2,17 @@ package dunbar.c482pa.Controllers;
 
 import dunbar.c482pa.Model.InHouse;
 import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Money;
 import dunbar.c482pa.Model.Outsourced;
 import dunbar.c482pa.Model.Part;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.Region;
-import javafx.stage.Stage;
 import java.io.IOException;
 
 /** The ModifyPartWindowController controls the interface used to modify existing parts in the Inventory allParts list. */
 public class ModifyPartWindowController {
-    /** Holds the main window to display scenes*/
-    private Stage stage;
-    /** Holds the scene for the window*/
-    private Parent scene;
-    /**Holds the index from the allParts list for the part to be modified*/
-    private int index;
     /**Radio button for In House*/
     @FXML
     private RadioButton inHouseModifyRadio;
@@ -57,18 +48,20 @@ public class ModifyPartWindowController {
     private Label locationLabel;
 
     /** Loads the current values for ID, Name, Stock, Price, Min, Max and MachineID/Company Name for the selected part.
+     * Called each time the window is shown, since the window is loaded once and reused; every field and the location
+     * label are overwritten, so nothing from the previous visit is left behind.
      * @param selectedPart Part object to modify*/
-    public void loadPart(Part selectedPart){
-        index = Inventory.getAllParts().indexOf(selectedPart);
+    void reset(Part selectedPart){
         modifyIDField.setText(String.valueOf(selectedPart.getId()));
         modifyInventoryField.setText(String.valueOf(selectedPart.getStock()));
         modifyMinField.setText(String.valueOf(selectedPart.getMin()));
         modifyMaxField.setText(String.valueOf(selectedPart.getMax()));
         modifyNameField.setText(selectedPart.getName());
-        modifyPriceField.setText(String.valueOf(selectedPart.getPrice()));
+        modifyPriceField.setText(Money.format(selectedPart.getPriceCents()));
 
         if(selectedPart instanceof InHouse){
             inHouseModifyRadio.setSelected(true);
+            locationLabel.setText("Machine ID");
             locationField.setText(String.valueOf(((InHouse) selectedPart).getMachineID()));
         }
         else{
@@ -78,16 +71,6 @@ public class ModifyPartWindowController {
         }
     }
 
-    /**Loads the specified scene for a new window.
-     * @param event An action even for a button press in the GUI
-     * @param newAddress The package address for the desired FXML file*/
-    private void changeWindowButton (ActionEvent event, String newAddress) throws IOException{
-        stage = (Stage)((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load((getClass().getResource(newAddress)));
-        stage.setScene(new Scene(scene));
-        stage.show();
-    }
-
     /** Changes the label for the location text box.
      * Sets the location label to Machine ID when the In House radio button is selected.
      * @param event Event generated by selecting the In House radio button*/
@@ -108,12 +91,12 @@ public class ModifyPartWindowController {
      * @param event Event generated by pressing the cancel button*/
     @FXML
     void onActionReturnToMain(ActionEvent event) throws IOException {
-        changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+        SceneCache.showMainWindow(event);
     }
 
     /** Saves the modified part and returns to the main window when the Save button is pressed.
      * Generates a new Part object based off of the values in the text fields and passes them to the relevant
-     * constructor, then overwrites the original part in the Inventory allParts list using the index value.
+     * constructor, then overwrites the original part in the Inventory allParts list, found by its part ID.
      * @param event Event generated by pressing the Save button*/
     @FXML
     void onActionSaveAndReturn(ActionEvent event) throws IOException, NumberFormatException {
@@ -121,7 +104,7 @@ public class ModifyPartWindowController {
             int id = Integer.parseInt(modifyIDField.getText());
             String name = "fill";
             int stock = 0;
-            double price = 0.00;
+            long priceCents = 0;
             int max = 0;
             int min = 0;
             int machineId = 0;
@@ -160,9 +143,8 @@ public class ModifyPartWindowController {
             }
 
             try{
-                price = Double.parseDouble(modifyPriceField.getText());
-                price = Math.floor(price * 100) / 100;  //Truncates price values to two decimal places.
-                if (price < 0) {
+                priceCents = Money.parseCents(modifyPriceField.getText());  //Parses the exact price, truncated to two decimal places.
+                if (priceCents < 0) {
                     throw new Exception();
                 }
             } catch (NumberFormatException notADouble) {
@@ -204,9 +186,9 @@ public class ModifyPartWindowController {
                     if (machineId < 0) {
                         throw new Exception();
                     }
-                    //Passes values from the text fields into the constructor for a new InHouse part
-                    updatePart = new InHouse(id, name, price, stock, min, max, machineId);
-                    Inventory.updatePart(index, updatePart);
+                    //Passes values from the text fields into the factory for a new InHouse part
+                    updatePart = InHouse.ofCents(id, name, priceCents, stock, min, max, machineId);
+                    Inventory.replacePart(updatePart);
                 } catch (NumberFormatException notInt) {
                     Alert alert = new Alert(Alert.AlertType.ERROR, "Please enter valid machine ID. This includes whole numbers greater than 0");
                     alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE);
@@ -225,9 +207,9 @@ public class ModifyPartWindowController {
                     if (companyName.isEmpty()) {
                         throw new Exception();
                     }
-                    //Passes values from the text fields into the constructor for a new Outsourced part
-                    updatePart = new Outsourced(id, name, price, stock, min, max, companyName);
-                    Inventory.updatePart(index, updatePart);
+                    //Passes values from the text fields into the factory for a new Outsourced part
+                    updatePart = Outsourced.ofCents(id, name, priceCents, stock, min, max, companyName);
+                    Inventory.replacePart(updatePart);
                 }
                 catch(Exception badCompany){
                     Alert alert = new Alert(Alert.AlertType.ERROR, "Please enter a company name");
@@ -237,7 +219,7 @@ public class ModifyPartWindowController {
                 }
             }
             //Loads the main window
-            changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+            SceneCache.showMainWindow(event);
         }
         catch (Exception badStock) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Invalid inventory/ max and min combination. Ensure amount in stock is equal to or between max and min.");
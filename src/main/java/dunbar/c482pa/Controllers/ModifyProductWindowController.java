@@ -1,21 +1,17 @@
 package dunbar.c482pa.Controllers;
 
 import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Money;
 import dunbar.c482pa.Model.Part;
 import dunbar.c482pa.Model.Product;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Region;
-import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Optional;
@@ -25,14 +21,10 @@ import java.util.ResourceBundle;
  * It includes methods for editing the Parts associated with the Product, and updating the Product's fields.
  * The Initializable interface is implemented to populate a table of parts that can be associated with the product.*/
 public class ModifyProductWindowController implements Initializable {
-    /** Holds the main window to display scenes*/
-    private Stage stage;
-    /** Holds the scene for the window*/
-    private Parent scene;
     /**Holds the list of associated parts before saving them to and modifying the product's associatedParts list*/
     private ObservableList<Part> partHolder = FXCollections.observableArrayList();
-    /**Holds the index from the allProducts list for the product to be modified*/
-    private int index;
+    /**Runs the part table searches in the background*/
+    private SearchService<Part> partSearchService;
     /**Table for all available parts*/
     @FXML
     private TableView<Part> partTable;
@@ -91,43 +83,35 @@ public class ModifyProductWindowController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         partTable.setItems(Inventory.getAllParts());
-        allPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        allPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        allPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        allPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-    }
-
-    /** Loads the specified scene for a new window.
-     * @param event An action even for a button press in the GUI
-     * @param newAddress The package address for the desired FXML file*/
-    private void changeWindowButton (ActionEvent event, String newAddress) throws IOException {
-        stage = (Stage)((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load((getClass().getResource(newAddress)));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        CellFactories.installPartColumns(allPartsIDCol, allPartsInvCol, allPartsNameCol, allPartsPriceCol);
+        InventorySortPolicy.installOnPartTable(partTable, allPartsIDCol, allPartsInvCol, allPartsNameCol, allPartsPriceCol);
+        CellFactories.installPartColumns(usedPartsIDCol, usedPartsInvCol, usedPartsNameCol, usedPartsPriceCol);
+        partSearchService = new SearchService<>(partTable, Inventory.getAllParts(), Inventory::searchParts, Part::getName);
     }
 
     /** Loads the current values for ID, Name, Stock, Price, Min, and Max for the selected product, and populates
      *  the associated parts table.
-     * @param selectedProduct Part object to modify*/
-    public void loadProduct(Product selectedProduct){
-        index = Inventory.getAllProducts().indexOf(selectedProduct);
+     * Called each time the window is shown, since the window is loaded once and reused; the part search and the
+     * associated parts held from the previous visit are cleared first.
+     * @param selectedProduct Product object to modify*/
+    void reset(Product selectedProduct){
+        partHolder.clear();
+        searchPart.clear();
+        partSearchService.reset();
+        partsInProductTable.getSelectionModel().clearSelection();
         modifyIDField.setText(String.valueOf(selectedProduct.getId()));
         modifyInventoryField.setText(String.valueOf(selectedProduct.getStock()));
         modifyMinField.setText(String.valueOf(selectedProduct.getMin()));
         modifyMaxField.setText(String.valueOf(selectedProduct.getMax()));
         modifyNameField.setText(selectedProduct.getName());
-        modifyPriceField.setText(String.valueOf(selectedProduct.getPrice()));
-
-        partsInProductTable.setItems(selectedProduct.getAllAssociatedParts());
-        usedPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        usedPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        usedPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        usedPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        modifyPriceField.setText(Money.format(selectedProduct.getPriceCents()));
 
         for(Part part: selectedProduct.getAllAssociatedParts()){
-            partHolder.add(part);
+            if(part != null){       //Parts deleted before the product was loaded are only known by ID
+                partHolder.add(part);
+            }
         }
+        partsInProductTable.setItems(partHolder);
     }
 
     /**Associates a Part with the Product when the Add part button is pressed.
@@ -137,10 +121,6 @@ public class ModifyProductWindowController implements Initializable {
     void onActionAddPart(ActionEvent event) {
         partHolder.add(partTable.getSelectionModel().getSelectedItem());
         partsInProductTable.setItems(partHolder);
-        usedPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        usedPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        usedPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        usedPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
     }
 
     /**Disassociates a Part from the Product when the Remove Associated Part button is pressed.
@@ -158,53 +138,17 @@ public class ModifyProductWindowController implements Initializable {
         if(result.isPresent() && result.get() == yesButton) {
             partHolder.remove(partsInProductTable.getSelectionModel().getSelectedItem());
             partsInProductTable.setItems(partHolder);
-            usedPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-            usedPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-            usedPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-            usedPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
         }
     }
 
     /**Implements search and filtering functionality for the part table.
-     * Every time a key is pressed in the part search text box, runs the appropriate Inventory lookupPart()
-     * method based on the type of input (integer vs string) then filters the part table contents accordingly.
+     * Every time a key is pressed in the part search text box, hands the text to the part search service, which
+     * runs the appropriate Inventory search in the background once typing pauses and then filters the part table
+     * contents accordingly.
      * @param event Event generated by typing in the part search text box*/
     @FXML
     void onActionSearch(KeyEvent event) {
-        String search = searchPart.getText();
-        int partID = 0;
-        ObservableList<Part> filter = FXCollections.observableArrayList();  //Establishes a local filter list for the search.
-
-        partTable.getSelectionModel().clearSelection(); //Clears any previous selections in the part table
-
-        if (!(Inventory.getFilteredParts().isEmpty())) {    //Clears the FilteredParts field from Inventory
-            Inventory.getFilteredParts().clear();
-        }
-
-        try {
-            //Attempts to run Inventory.lookupPart() using a part ID. If the input string cannot be parsed as an integer, throws an exception.
-            partID = Integer.parseInt(search);
-            if (!(Inventory.lookupPart(partID) == null)) {
-                filter.add(Inventory.lookupPart(partID));
-            }
-            //If the input was not an integer, runs Inventory.lookupPart() using a string instead.
-        } catch (NumberFormatException notInt) {
-            filter = Inventory.lookupPart(search);
-        }
-        //Regenerates the part table using the filtered list. If the list is empty, outputs an error message.
-        partTable.setItems(filter);
-        allPartsIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        allPartsInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        allPartsNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        allPartsPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        if (filter.size() == 1) {
-            partTable.getSelectionModel().select(filter.get(0));
-        }
-        if (filter.size() == 0) {
-            Alert notFound = new Alert(Alert.AlertType.ERROR, "Item not found!");
-            notFound.show();
-        }
+        partSearchService.search(searchPart.getText());
     }
 
     /** Returns to the Main window when the cancel button is pressed.
@@ -212,15 +156,16 @@ public class ModifyProductWindowController implements Initializable {
     @FXML
     void onActionReturnToMain(ActionEvent event) throws IOException {
         partHolder.clear();
-        changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+        SceneCache.showMainWindow(event);
     }
 
     /** Updates the product and returns to the main window when the Save button is pressed.
      * Generates a new Product object based off of the values in the text fields and passes them to the relevant
-     * constructor, then overwrites  the existing product in the Inventory allProducts list using the index value.
+     * constructor, then overwrites  the existing product in the Inventory allProducts list, found by its product ID.
      * RUNTIME ERROR: Observed that, when saving a modified product, it would always overwrite the first product in
      * the AllProducts list. Reviewed the code and found that index was being initialized to zero, and I had forgotten
-     * to set it to the correct value in the loadProduct() method. Fixed by adding line 110 above.
+     * to set it to the correct value in the loadProduct() method. Fixed by setting it in loadProduct(), now reset(), and later by
+     * replacing the product by ID, so a change made in the background cannot move it.
      * @param event Event generated by pressing the Save button*/
     @FXML
     void onActionSaveAndReturn(ActionEvent event){
@@ -228,7 +173,7 @@ public class ModifyProductWindowController implements Initializable {
             int id = Integer.parseInt(modifyIDField.getText());
             String name = "fill";
             int inventory = 0;
-            double price = 0;
+            long priceCents = 0;
             int max = 0;
             int min = 0;
             Product updatedProd;
@@ -265,9 +210,8 @@ public class ModifyProductWindowController implements Initializable {
             }
 
             try {
-                price = Double.parseDouble(modifyPriceField.getText());
-                price = Math.floor(price * 100) / 100;   //Truncates price values to two decimal places.
-                if (price < 0) {
+                priceCents = Money.parseCents(modifyPriceField.getText());  //Parses the exact price, truncated to two decimal places.
+                if (priceCents < 0) {
                     throw new Exception();
                 }
             } catch (NumberFormatException notADouble) {
@@ -303,13 +247,18 @@ public class ModifyProductWindowController implements Initializable {
                 throw new Exception();
             }
 
-            updatedProd = new Product(id, name, price, inventory, min, max); //Generates the Product Object
-            for (Part part : partHolder) {
-                updatedProd.addAssociatedPart(part);        //Populates the associatedParts list
+            updatedProd = Product.ofCents(id, name, priceCents, inventory, min, max); //Generates the Product Object
+            updatedProd.addAssociatedParts(partHolder);        //Populates the associatedParts list
+            Product storedProd = Inventory.lookupProduct(id);
+            if (storedProd != null) {
+                //Keeps the sub-assemblies, which this window does not edit
+                for (Product subAssembly : storedProd.getAllSubAssemblies()) {
+                    updatedProd.addSubAssembly(subAssembly, storedProd.getSubAssemblyQuantity(subAssembly.getId()));
+                }
             }
-            Inventory.updateProduct(index, updatedProd);    //Overwrites the product in the allProducts list
+            Inventory.replaceProduct(updatedProd);    //Overwrites the product in the allProducts list
             partHolder.clear();
-            changeWindowButton(event, "/dunbar/c482pa/MainWindow.fxml");
+            SceneCache.showMainWindow(event);
         }
         catch (Exception badStock) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Invalid inventory/ max and min combination. Ensure amount in stock is equal to or between max and min.");
@@ -0,0 +1,77 @@
+package dunbar.c482pa.Controllers;
+
+import javafx.event.ActionEvent;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/** This class loads the FXML file of each window once and keeps its scene and controller for later visits.
+ * Parsing a window's FXML builds every control, cell factory and search service again, so switching windows reuses
+ * the scene loaded on the first visit instead. Controllers keep their state between visits, so each one has a reset
+ * method that clears what the previous visit left behind; callers reset a controller before showing its window.
+ * Scenes are only loaded and shown on the JavaFX Application Thread. */
+public final class SceneCache {
+    /**Address of the main window FXML file*/
+    public static final String MAIN_WINDOW = "/dunbar/c482pa/MainWindow.fxml";
+    /**Address of the Add Part window FXML file*/
+    static final String ADD_PART_WINDOW = "/dunbar/c482pa/AddPartWindow.fxml";
+    /**Address of the Add Product window FXML file*/
+    static final String ADD_PRODUCT_WINDOW = "/dunbar/c482pa/AddProductWindow.fxml";
+    /**Address of the Modify Part window FXML file*/
+    static final String MODIFY_PART_WINDOW = "/dunbar/c482pa/ModifyPartWindow.fxml";
+    /**Address of the Modify Product window FXML file*/
+    static final String MODIFY_PRODUCT_WINDOW = "/dunbar/c482pa/ModifyProductWindow.fxml";
+
+    /**Scene of each loaded FXML file, by address*/
+    private static final Map<String, Scene> scenes = new HashMap<>();
+    /**Controller of each loaded FXML file, by address*/
+    private static final Map<String, Object> controllers = new HashMap<>();
+
+    /** Prevents instantiation of this utility class. */
+    private SceneCache() {
+    }
+
+    /** Retrieves the scene of a window, loading its FXML file on the first call.
+     * @param address The package address of the FXML file
+     * @return Returns the scene showing the window*/
+    public static Scene getScene(String address) throws IOException {
+        Scene scene = scenes.get(address);
+        if (scene == null) {
+            FXMLLoader loader = new FXMLLoader(SceneCache.class.getResource(address));
+            scene = new Scene(loader.load());
+            scenes.put(address, scene);
+            controllers.put(address, loader.getController());
+        }
+        return scene;
+    }
+
+    /** Retrieves the controller of a window, loading its FXML file on the first call.
+     * @param address The package address of the FXML file
+     * @param <C> Type of the controller named by the FXML file
+     * @return Returns the controller of the window*/
+    @SuppressWarnings("unchecked")
+    static <C> C getController(String address) throws IOException {
+        getScene(address);
+        return (C) controllers.get(address);
+    }
+
+    /** Shows a window in the stage of the button that was pressed.
+     * @param event An action event for a button press in the GUI
+     * @param address The package address of the FXML file*/
+    static void show(ActionEvent event, String address) throws IOException {
+        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        stage.setScene(getScene(address));
+        stage.show();
+    }
+
+    /** Clears the search boxes of the main window and shows it in the stage of the button that was pressed.
+     * @param event An action event for a button press in the GUI*/
+    static void showMainWindow(ActionEvent event) throws IOException {
+        SceneCache.<MainWindowController>getController(MAIN_WINDOW).reset();
+        show(event, MAIN_WINDOW);
+    }
+}
@@ -0,0 +1,185 @@
+package dunbar.c482pa.Controllers;
+
+import dunbar.c482pa.Model.RangeQuery;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.scene.control.Alert;
+import javafx.scene.control.TableView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/** This class runs the search box of a part or product table off the JavaFX Application Thread.
+ * Keystrokes are debounced, so a query only runs once typing pauses. Queries run on a shared background thread, and a
+ * query that is overtaken by a newer keystroke is dropped without being shown. When a name query extends the previous
+ * one, the previous results are filtered instead of searching the whole inventory again; ID and range queries such as
+ * "stock<5" are always searched again. The results replace the
+ * table items in a single update on the JavaFX Application Thread.
+ * @param <T> Type of the table items */
+final class SearchService<T> {
+    /**Time typing must pause before a query runs, in milliseconds*/
+    private static final long DEBOUNCE_MILLIS = 150;
+    /**Number of items filtered between checks for a newer query*/
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+    /**Background thread shared by every search box*/
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**Table showing the results*/
+    private final TableView<T> table;
+    /**Items shown when the search box is empty*/
+    private final ObservableList<T> allItems;
+    /**Runs a query against the whole inventory*/
+    private final Function<String, List<T>> search;
+    /**Retrieves the name of an item, used to filter previous results*/
+    private final Function<T, String> nameOf;
+    /**Number of the most recent keystroke; queries for older keystrokes are dropped*/
+    private final AtomicLong generation = new AtomicLong();
+    /**Drops the previous results when the inventory changes, since they may no longer be complete*/
+    private final ListChangeListener<T> invalidator = change -> refinable = false;
+    /**Query waiting for typing to pause, or null*/
+    private ScheduledFuture<?> pending = null;
+    /**Lower case name query of the previous results, or null if they cannot be refined*/
+    private String lastQuery = null;     //Only used on the search thread
+    /**Results of the previous name query*/
+    private List<T> lastResults = null;  //Only used on the search thread
+    /**False after the inventory changed since the previous results were found*/
+    private volatile boolean refinable = false;
+
+    /** Constructor. Creates a search service for a table.
+     * @param table Table showing the results
+     * @param allItems Items shown when the search box is empty
+     * @param search Runs a query against the whole inventory; called on the search thread
+     * @param nameOf Retrieves the name of an item*/
+    SearchService(TableView<T> table, ObservableList<T> allItems, Function<String, List<T>> search, Function<T, String> nameOf) {
+        this.table = table;
+        this.allItems = allItems;
+        this.search = search;
+        this.nameOf = nameOf;
+        allItems.addListener(new WeakListChangeListener<>(invalidator));
+    }
+
+    /** Schedules a search for the current text of the search box, replacing any search that has not run yet.
+     * Must be called on the JavaFX Application Thread.
+     * @param text Text of the search box*/
+    void search(String text) {
+        long current = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = EXECUTOR.schedule(() -> run(text, current), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Drops any search that has not been shown yet and shows every item again, as if the search box was cleared.
+     * Used when a window is shown again, so the results of its previous visit are not left in the table.
+     * Must be called on the JavaFX Application Thread. */
+    void reset() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        table.getSelectionModel().clearSelection();
+        table.setItems(allItems);
+    }
+
+    /** Runs a query on the search thread and hands the results to the JavaFX Application Thread.
+     * @param text Query to run
+     * @param current Keystroke number of the query*/
+    private void run(String text, long current) {
+        if (current != generation.get()) {
+            return;
+        }
+        if (text.isEmpty()) {
+            lastQuery = null;
+            Platform.runLater(() -> show(allItems, current));
+            return;
+        }
+        List<T> results;
+        String needle = text.toLowerCase(Locale.ROOT);
+        boolean isName = !isInteger(text) && RangeQuery.parse(text) == null;
+        if (isName && refinable && lastQuery != null && needle.startsWith(lastQuery)) {
+            results = refine(needle, current);
+            if (results == null) {
+                return;
+            }
+        }
+        else {
+            refinable = true;       //Set before searching, so a change made during the search is not missed
+            results = search.apply(text);
+        }
+        if (isName) {
+            lastQuery = needle;
+            lastResults = results;
+        }
+        else {
+            lastQuery = null;
+        }
+        if (current == generation.get()) {
+            ObservableList<T> shown = FXCollections.observableArrayList(results);
+            Platform.runLater(() -> show(shown, current));
+        }
+    }
+
+    /** Filters the previous results down to the items whose name contains a longer query.
+     * @param needle Lower case query
+     * @param current Keystroke number of the query
+     * @return Returns the matching items in their previous order, or null if a newer query arrived*/
+    private List<T> refine(String needle, long current) {
+        List<T> refined = new ArrayList<>();
+        for (int i = 0; i < lastResults.size(); i++) {
+            if (i % CANCEL_CHECK_INTERVAL == 0 && current != generation.get()) {
+                return null;
+            }
+            T item = lastResults.get(i);
+            String name = nameOf.apply(item);
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(needle)) {
+                refined.add(item);
+            }
+        }
+        return refined;
+    }
+
+    /** Shows results in the table, unless a newer query has been typed since they were requested.
+     * Selects the only result, or reports that nothing was found.
+     * @param results Items to show
+     * @param current Keystroke number of the query*/
+    private void show(ObservableList<T> results, long current) {
+        if (current != generation.get()) {
+            return;
+        }
+        table.getSelectionModel().clearSelection();
+        table.setItems(results);
+        if (results.size() == 1) {
+            table.getSelectionModel().select(results.get(0));
+        }
+        if (results.isEmpty()) {
+            Alert notFound = new Alert(Alert.AlertType.ERROR, "Item not found!");
+            notFound.show();
+        }
+    }
+
+    /** Checks whether a query is a whole number and is therefore looked up as an ID.
+     * @param text Query to check
+     * @return Returns true if the query parses as an integer, otherwise returns false*/
+    private static boolean isInteger(String text) {
+        try {
+            Integer.parseInt(text);
+            return true;
+        } catch (NumberFormatException notInt) {
+            return false;
+        }
+    }
+}
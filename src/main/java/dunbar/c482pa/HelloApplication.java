@@ -0,0 +1,75 @@
+package dunbar.c482pa;
+
+import dunbar.c482pa.Controllers.SceneCache;
+import dunbar.c482pa.Model.InHouse;
+import dunbar.c482pa.Model.Inventory;
+import dunbar.c482pa.Model.Outsourced;
+import dunbar.c482pa.Model.Product;
+import javafx.application.Application;
+import javafx.stage.Stage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//javaDocs located in: src/main/JavaDocs
+
+/** This class creates an inventory application that can be used to track parts and products. Holds the main method for the application.
+ * The parts and products themselves are kept by the Inventory class; this class loads them and shows the main window. */
+public class HelloApplication extends Application {
+
+    /** Brings up the main window of the application.
+     * Implements the start method of the Application interface to launch the main window of the application when launch() is called in main(). Applies the scene defined in MainWindow.fxml to the stage. The scene is loaded through SceneCache, so returning to the main window later reuses it.
+     * @param stage Sets the stage or the initial window of the application. */
+    @Override
+    public void start(Stage stage) throws IOException {
+        Inventory.showChangesOnFxThread();
+        stage.setTitle("");
+        stage.setScene(SceneCache.getScene(SceneCache.MAIN_WINDOW));
+        stage.show();
+    }
+
+    /** Launches the application and loads the saved inventory.
+     * The inventory is saved in the directory named by the c482pa.dataDir system property, or in .c482pa under the
+     * user's home directory. If nothing has been saved yet, the parts and products lists are initialized with sample
+     * inventory items.
+     * @param args Allows various command line arguments to be passed into the application on launch.*/
+    public static void main(String[] args) {
+        Path dataDir = Paths.get(System.getProperty("c482pa.dataDir", Paths.get(System.getProperty("user.home"), ".c482pa").toString()));
+        try {
+            if(Inventory.openJournal(dataDir)){
+                launch();
+                return;
+            }
+        } catch (IOException | UncheckedIOException noJournal) {
+            System.err.println("Inventory could not be loaded from " + dataDir + ", changes will not be saved: " + noJournal.getMessage());
+        }
+
+        addSampleInventory();
+        launch();
+    }
+
+    /** Initializes the parts and products lists with sample inventory items. */
+    private static void addSampleInventory() {
+        InHouse gear1 = new InHouse(1, "Drive Gear", 10.00, 10, 1, 10, 1 );
+        InHouse gear2 = new InHouse(2, "First Gear", 10.00, 10, 1, 10, 1 );
+        Outsourced shaft = new Outsourced(3, "Shaft", 5.00, 10, 1, 10, "Shafts-R-Us");
+
+        Inventory.addPart(gear1);
+        Inventory.addPart(gear2);
+        Inventory.addPart(shaft);
+
+        Product transmission = new Product(1, "Transmission", 25.00, 10, 1, 10);
+        Inventory.addProduct(transmission);
+
+        Product gearSet = new Product(2, "Gear Set", 13.00, 2, 1, 10);
+        Inventory.addProduct(gearSet);
+
+        transmission.addAssociatedPart(gear1);
+        transmission.addAssociatedPart(gear2);
+        transmission.addAssociatedPart(shaft);
+
+        gearSet.addAssociatedPart(gear1);
+        gearSet.addAssociatedPart(gear2);
+    }
+}
@@ -0,0 +1,202 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/** The BillOfMaterials class holds the parts or sub-assemblies of a product as (ID, quantity) pairs.
+ * An item listed many times is stored once with its quantity, so memory and the cost of rolling up a product grow
+ * with the number of distinct items rather than the number of units. Instances never change; Product replaces its
+ * bill with a changed copy, so other threads can read a product's items without locking and always see a
+ * consistent bill. Entries are kept in the order their items were first added.
+ * @param <T> Type of the items, Part or Product */
+final class BillOfMaterials<T> {
+    /**Bill of a product with no associated parts*/
+    static final BillOfMaterials<Part> NO_PARTS = new BillOfMaterials<>(Inventory::lookupPart, new int[0], new int[0], new Object[0]);
+    /**Bill of a product with no sub-assemblies*/
+    static final BillOfMaterials<Product> NO_PRODUCTS = new BillOfMaterials<>(Inventory::lookupProduct, new int[0], new int[0], new Object[0]);
+    /**Number of entries above which entries are found through a hash index instead of a scan*/
+    private static final int SCAN_LIMIT = 16;
+
+    /**Finds the item stored in the Inventory under an ID*/
+    private final IntFunction<? extends T> lookup;
+    /**IDs of the items, one per entry*/
+    private final int[] partIds;
+    /**Number of units of each item, parallel to partIds; always greater than zero*/
+    private final int[] quantities;
+    /**Item object last added under each ID, used when the ID is no longer stored in the Inventory, or null*/
+    private final Object[] parts;
+    /**Units listed before each entry and in it, parallel to partIds*/
+    private final int[] ends;
+    /**Entry index of each part ID, or null for bills small enough to scan*/
+    private final IntIntHashMap entriesById;
+
+    /** Constructor. Creates a bill from entry arrays that are owned by the new bill.
+     * @param lookup Finds the item stored in the Inventory under an ID
+     * @param partIds IDs of the items
+     * @param quantities Number of units of each item, greater than zero
+     * @param parts Item object of each entry, or null entries for items only known by ID*/
+    private BillOfMaterials(IntFunction<? extends T> lookup, int[] partIds, int[] quantities, Object[] parts) {
+        this.lookup = lookup;
+        this.partIds = partIds;
+        this.quantities = quantities;
+        this.parts = parts;
+        ends = new int[partIds.length];
+        int units = 0;
+        for (int i = 0; i < partIds.length; i++) {
+            units += quantities[i];
+            ends[i] = units;
+        }
+        if (partIds.length > SCAN_LIMIT) {
+            entriesById = new IntIntHashMap(partIds.length, -1);
+            for (int i = 0; i < partIds.length; i++) {
+                entriesById.put(partIds[i], i);
+            }
+        }
+        else {
+            entriesById = null;
+        }
+    }
+
+    /** Creates a bill of the same item type from entries read from a snapshot. Items are only known by ID.
+     * @param ids IDs of the items, each listed once
+     * @param counts Number of units of each item, greater than zero
+     * @return Returns the new bill*/
+    BillOfMaterials<T> withEntries(int[] ids, int[] counts) {
+        return new BillOfMaterials<>(lookup, ids.clone(), counts.clone(), new Object[ids.length]);
+    }
+
+    /** Retrieves the number of distinct items in the bill.
+     * @return Returns the number of entries*/
+    int size() {
+        return partIds.length;
+    }
+
+    /** Retrieves the total number of item units in the bill.
+     * @return Returns the sum of every quantity*/
+    int units() {
+        return ends.length == 0 ? 0 : ends[ends.length - 1];
+    }
+
+    /** Retrieves the item ID of an entry.
+     * @param entry Entry index
+     * @return Returns the ID of the part or product*/
+    int partId(int entry) {
+        return partIds[entry];
+    }
+
+    /** Retrieves the quantity of an entry.
+     * @param entry Entry index
+     * @return Returns the number of units of the item*/
+    int quantity(int entry) {
+        return quantities[entry];
+    }
+
+    /** Retrieves the item of an entry, preferring the item stored in the Inventory under its ID, so that a part
+     * replaced in the Modify Part window is shown with its new values.
+     * @param entry Entry index
+     * @return Returns the stored item, or the item last added under the ID if none is stored with it, or null if
+     * neither exists*/
+    @SuppressWarnings("unchecked")
+    T item(int entry) {
+        T stored = lookup.apply(partIds[entry]);
+        return stored != null ? stored : (T) parts[entry];
+    }
+
+    /** Finds the entry holding an item ID.
+     * @param partId ID to find
+     * @return Returns the entry index, or -1 if the item is not in the bill*/
+    int indexOf(int partId) {
+        if (entriesById != null) {
+            return entriesById.get(partId);
+        }
+        for (int i = 0; i < partIds.length; i++) {
+            if (partIds[i] == partId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Retrieves the quantity of an item.
+     * @param partId ID of the item
+     * @return Returns the number of units of the item, or 0 if it is not in the bill*/
+    int quantityOf(int partId) {
+        int entry = indexOf(partId);
+        return entry < 0 ? 0 : quantities[entry];
+    }
+
+    /** Finds the entry holding a unit when every entry is expanded into its quantity of units, in entry order.
+     * @param unit Index of the unit, from 0 to units() - 1
+     * @return Returns the entry index*/
+    int entryOfUnit(int unit) {
+        int entry = Arrays.binarySearch(ends, unit + 1);
+        return entry >= 0 ? entry : -entry - 1;
+    }
+
+    /** Retrieves the index of the first unit of an entry when every entry is expanded into its units.
+     * @param entry Entry index, or size() for the position after the last unit
+     * @return Returns the number of units listed before the entry*/
+    int firstUnit(int entry) {
+        return entry == 0 ? 0 : ends[entry - 1];
+    }
+
+    /** Creates a copy of the bill with changed quantities.
+     * Items whose quantity drops to zero are removed, and items not yet in the bill are appended in the order given.
+     * Removals are limited to the units in the bill, and each delta is replaced with the change actually made.
+     * @param ids IDs of the items to change
+     * @param partObjects Item object of each change that adds units, or null if the item is only known by ID
+     * @param deltas Units added, or removed if negative, parallel to ids; updated to the applied change
+     * @return Returns the changed bill, or this bill if nothing changed*/
+    BillOfMaterials<T> change(int[] ids, T[] partObjects, int[] deltas) {
+        int[] newIds = Arrays.copyOf(partIds, partIds.length + ids.length);
+        int[] newQuantities = Arrays.copyOf(quantities, newIds.length);
+        Object[] newParts = Arrays.copyOf(parts, newIds.length);
+        int size = partIds.length;
+        IntIntHashMap added = null;
+        boolean changed = false;
+        for (int i = 0; i < ids.length; i++) {
+            int entry = indexOf(ids[i]);
+            if (entry < 0 && added != null) {
+                entry = added.get(ids[i]);
+            }
+            if (deltas[i] > 0) {
+                if (entry < 0) {
+                    entry = size++;
+                    newIds[entry] = ids[i];
+                    if (added == null) {
+                        added = new IntIntHashMap(ids.length, -1);
+                    }
+                    added.put(ids[i], entry);
+                }
+                long quantity = (long) newQuantities[entry] + deltas[i];
+                if (quantity > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Quantity of item " + ids[i] + " exceeds " + Integer.MAX_VALUE);
+                }
+                newQuantities[entry] = (int) quantity;
+                if (partObjects[i] != null) {
+                    newParts[entry] = partObjects[i];
+                }
+            }
+            else {
+                deltas[i] = entry < 0 ? 0 : -Math.min(-deltas[i], newQuantities[entry]);
+                if (entry >= 0) {
+                    newQuantities[entry] += deltas[i];
+                }
+            }
+            changed |= deltas[i] != 0;
+        }
+        if (!changed) {
+            return this;
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (newQuantities[i] > 0) {
+                newIds[kept] = newIds[i];
+                newQuantities[kept] = newQuantities[i];
+                newParts[kept] = newParts[i];
+                kept++;
+            }
+        }
+        return new BillOfMaterials<>(lookup, Arrays.copyOf(newIds, kept), Arrays.copyOf(newQuantities, kept), Arrays.copyOf(newParts, kept));
+    }
+}
@@ -0,0 +1,165 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+
+/** The BomExplosion class holds the flattened part requirements of a product: every part needed to build it,
+ * directly or through its sub-assemblies at any depth, with the total quantity of each.
+ * The explosion of one unit is memoized by each product and built from the memoized explosions of its
+ * sub-assemblies, so exploding a deep bill of materials only visits each distinct product once, and a product whose
+ * parts or sub-assemblies change only forces itself and the assemblies containing it to be exploded again.
+ * Explosions never change once computed; parts are listed in ascending ID order. */
+public final class BomExplosion {
+    /**Explosion of a product without parts or sub-assemblies*/
+    private static final BomExplosion EMPTY = new BomExplosion(new int[0], new long[0], 0);
+
+    /**IDs of the required parts, ascending*/
+    private final int[] partIds;
+    /**Number of units of each part, parallel to partIds*/
+    private final long[] quantities;
+    /**Invalidation count of the product when the explosion was computed*/
+    private final int version;
+
+    /** Constructor. Creates an explosion from arrays owned by the new explosion.
+     * @param partIds IDs of the required parts, ascending
+     * @param quantities Number of units of each part
+     * @param version Invalidation count of the product when the explosion was computed*/
+    private BomExplosion(int[] partIds, long[] quantities, int version) {
+        this.partIds = partIds;
+        this.quantities = quantities;
+        this.version = version;
+    }
+
+    /** Explodes one unit of a product from its associated parts and the memoized explosions of its sub-assemblies.
+     * Sub-assemblies that no longer resolve to a product are skipped.
+     * @param product Product to explode
+     * @param version Invalidation count of the product, read before its bills
+     * @param path IDs of the products being exploded above this one, used to detect a cycle
+     * @return Returns the explosion of one unit*/
+    static BomExplosion of(Product product, int version, int[] path) {
+        BillOfMaterials<Part> parts = product.billOfMaterials();
+        BillOfMaterials<Product> subAssemblies = product.subAssemblies();
+        long[] entries = new long[parts.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = ((long) parts.partId(i) << 32) | parts.quantity(i);
+        }
+        Arrays.sort(entries);
+        int[] ids = new int[entries.length];
+        long[] counts = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            ids[i] = (int) (entries[i] >> 32);
+            counts[i] = entries[i] & 0xFFFFFFFFL;
+        }
+        BomExplosion explosion = new BomExplosion(ids, counts, version);
+        if (subAssemblies.size() == 0) {
+            return explosion;
+        }
+        int[] childPath = Arrays.copyOf(path, path.length + 1);
+        childPath[path.length] = product.getId();
+        for (int i = 0; i < subAssemblies.size(); i++) {
+            Product child = subAssemblies.item(i);
+            if (child == null) {
+                continue;
+            }
+            for (int id : childPath) {
+                if (id == child.getId()) {
+                    throw new IllegalStateException("Product " + product.getId() + " contains itself through sub-assembly " + id);
+                }
+            }
+            explosion = explosion.plus(child.explosion(childPath), subAssemblies.quantity(i), version);
+        }
+        return explosion;
+    }
+
+    /** Adds a multiple of another explosion to this one by merging the two sorted part lists.
+     * @param other Explosion to add
+     * @param times Number of units of the other explosion to add
+     * @param version Invalidation count to give the result
+     * @return Returns the combined explosion*/
+    private BomExplosion plus(BomExplosion other, long times, int version) {
+        int[] ids = new int[partIds.length + other.partIds.length];
+        long[] counts = new long[ids.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < partIds.length || j < other.partIds.length) {
+            if (j == other.partIds.length || (i < partIds.length && partIds[i] < other.partIds[j])) {
+                ids[size] = partIds[i];
+                counts[size++] = quantities[i++];
+            }
+            else if (i == partIds.length || other.partIds[j] < partIds[i]) {
+                ids[size] = other.partIds[j];
+                counts[size++] = Math.multiplyExact(other.quantities[j++], times);
+            }
+            else {
+                ids[size] = partIds[i];
+                counts[size++] = Math.addExact(quantities[i++], Math.multiplyExact(other.quantities[j++], times));
+            }
+        }
+        return new BomExplosion(Arrays.copyOf(ids, size), Arrays.copyOf(counts, size), version);
+    }
+
+    /** Scales the explosion of one unit to a number of units.
+     * @param units Number of units, zero or more
+     * @return Returns the part requirements of that many units*/
+    BomExplosion times(int units) {
+        if (units == 1) {
+            return this;
+        }
+        if (units == 0) {
+            return EMPTY;
+        }
+        long[] counts = new long[quantities.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.multiplyExact(quantities[i], units);
+        }
+        return new BomExplosion(partIds, counts, version);
+    }
+
+    /** Retrieves the number of distinct parts required.
+     * @return Returns the number of parts in the explosion*/
+    public int size() {
+        return partIds.length;
+    }
+
+    /** Retrieves the ID of a required part.
+     * @param index Position of the part, from 0 to size() - 1, in ascending ID order
+     * @return Returns the part ID*/
+    public int getPartId(int index) {
+        return partIds[index];
+    }
+
+    /** Retrieves the quantity of a required part.
+     * @param index Position of the part, from 0 to size() - 1, in ascending ID order
+     * @return Returns the number of units of the part*/
+    public long getQuantity(int index) {
+        return quantities[index];
+    }
+
+    /** Retrieves the required quantity of a part by ID.
+     * @param partId ID of the part
+     * @return Returns the number of units of the part, or 0 if the part is not required*/
+    public long getQuantityOf(int partId) {
+        int index = Arrays.binarySearch(partIds, partId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    /** Computes the exact cost of the required parts at their current prices.
+     * Prices are not part of the memoized explosion, since they change without changing any bill of materials, so
+     * they are looked up into a column and multiplied by the quantities in one pass of Money.total(). Parts that
+     * are no longer in the Inventory cost nothing.
+     * @return Returns the sum of price times quantity over the required parts, in cents*/
+    public long getPartCostCents() {
+        long[] prices = new long[partIds.length];
+        for (int i = 0; i < prices.length; i++) {
+            Part part = Inventory.lookupPart(partIds[i]);
+            prices[i] = part != null ? part.getPriceCents() : 0;
+        }
+        return Money.total(prices, quantities, prices.length);
+    }
+
+    /** Retrieves the invalidation count of the product when the explosion was computed.
+     * @return Returns the count, which no longer matches the product's once the explosion is stale*/
+    int version() {
+        return version;
+    }
+}
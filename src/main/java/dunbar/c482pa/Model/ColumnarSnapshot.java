@@ -0,0 +1,583 @@
+package dunbar.c482pa.Model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/** The ColumnarSnapshot class reads and writes inventory snapshots stored column by column.
+ * Each part and product field is stored as a contiguous array of fixed width values, and names are stored once in a
+ * shared string area that the name columns point into. Snapshots are read through a memory-mapped buffer, so opening
+ * one only maps the file; a Part or Product object is only built when its row is read.
+ *
+ * File layout, all values big-endian:
+ * <pre>
+ * header    magic, version, part count, product count, association count, sub-assembly count, strings offset (long)
+ * parts     id[], type[] (1 byte), price[] (long cents), stock[], min[], max[], name[], location[]
+ * products  id[], name[], price[] (long cents), stock[], min[], max[], first association[] (count + 1 entries)
+ * links     associated (part id, quantity)[]
+ * subs      first sub-assembly[] (product count + 1 entries), then sub-assembly (product id, quantity)[]
+ * strings   length prefixed UTF-8 strings, referred to by offset
+ * trailer   length of everything before the trailer (long), magic
+ * </pre>
+ * The location column holds the machine ID of InHouse parts and the string offset of the company name of
+ * Outsourced parts. */
+public final class ColumnarSnapshot {
+    /**Marks the start and the end of a columnar snapshot file*/
+    static final int MAGIC = 0xC482C01A;
+    /**Version of the columnar layout*/
+    private static final int VERSION = 4;
+    /**Size of the fixed header in bytes*/
+    private static final int HEADER = 32;
+    /**Size of the trailer in bytes*/
+    private static final int TRAILER = 12;
+
+    /**Mapped contents of the file*/
+    private final MappedByteBuffer buffer;
+    /**Number of part rows*/
+    private final int partCount;
+    /**Number of product rows*/
+    private final int productCount;
+    /**Start of each part column*/
+    private final int partIds, partTypes, partPrices, partStock, partMin, partMax, partNames, partLocations;
+    /**Start of each product column*/
+    private final int productIds, productNames, productPrices, productStock, productMin, productMax, productLinks;
+    /**Start of the associated part pairs*/
+    private final int links;
+    /**Start of the first sub-assembly column*/
+    private final int productSubs;
+    /**Start of the sub-assembly pairs*/
+    private final int subs;
+    /**Start of the string area*/
+    private final int strings;
+    /**Part row for each part ID, built the first time a product row is read*/
+    private IntIntHashMap partRowsById;
+    /**Supplier ID of each company name read so far, keyed by its offset in the string area*/
+    private final IntIntHashMap supplierIds = new IntIntHashMap(16, -1);
+
+    /** Constructor. Computes the column positions of a mapped snapshot.
+     * @param buffer Mapped contents of the file
+     * @param partCount Number of part rows
+     * @param productCount Number of product rows
+     * @param linkCount Number of associated part pairs
+     * @param strings Start of the string area*/
+    private ColumnarSnapshot(MappedByteBuffer buffer, int partCount, int productCount, int linkCount, int strings) {
+        this.buffer = buffer;
+        this.partCount = partCount;
+        this.productCount = productCount;
+        this.strings = strings;
+        int[] layout = layout(partCount, productCount);
+        partIds = layout[0];
+        partTypes = layout[1];
+        partPrices = layout[2];
+        partStock = layout[3];
+        partMin = layout[4];
+        partMax = layout[5];
+        partNames = layout[6];
+        partLocations = layout[7];
+        productIds = layout[8];
+        productNames = layout[9];
+        productPrices = layout[10];
+        productStock = layout[11];
+        productMin = layout[12];
+        productMax = layout[13];
+        productLinks = layout[14];
+        links = layout[15];
+        productSubs = links + 8 * linkCount;
+        subs = productSubs + 4 * (productCount + 1);
+    }
+
+    /** Computes where each column starts for a given number of rows.
+     * @param partCount Number of part rows
+     * @param productCount Number of product rows
+     * @return Returns the start of each column in file order, followed by the start of the association column*/
+    private static int[] layout(int partCount, int productCount) {
+        long[] widths = {4, 1, 8, 4, 4, 4, 4, 4};
+        int[] starts = new int[16];
+        long position = HEADER;
+        for (int i = 0; i < widths.length; i++) {
+            starts[i] = (int) position;
+            position += widths[i] * partCount;
+        }
+        long[] productWidths = {4, 4, 8, 4, 4, 4};
+        for (int i = 0; i < productWidths.length; i++) {
+            starts[8 + i] = (int) position;
+            position += productWidths[i] * productCount;
+        }
+        starts[14] = (int) position;
+        position += 4L * (productCount + 1);
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshot is too large to map");
+        }
+        starts[15] = (int) position;
+        return starts;
+    }
+
+    /** Maps a snapshot file and checks its header and trailer.
+     * Only the header and trailer are read; rows are read when they are accessed.
+     * @param path Snapshot file to open
+     * @return Returns the opened snapshot*/
+    public static ColumnarSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + TRAILER || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a columnar inventory snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt((int) size - 4) != MAGIC || buffer.getLong((int) size - TRAILER) != size - TRAILER) {
+                throw new IOException("Incomplete or unrecognized columnar inventory snapshot: " + path);
+            }
+            return new ColumnarSnapshot(buffer, buffer.getInt(8), buffer.getInt(12), buffer.getInt(16),
+                    (int) buffer.getLong(24));
+        }
+    }
+
+    /** Retrieves the number of part rows.
+     * @return Returns the number of parts in the snapshot*/
+    public int partCount() {
+        return partCount;
+    }
+
+    /** Retrieves the number of product rows.
+     * @return Returns the number of products in the snapshot*/
+    public int productCount() {
+        return productCount;
+    }
+
+    /** Reads the ID of a part row without building the part.
+     * @param row Part row
+     * @return Returns the part ID*/
+    public int partId(int row) {
+        return buffer.getInt(partIds + 4 * row);
+    }
+
+    /** Reads the stock of a part row without building the part.
+     * @param row Part row
+     * @return Returns the amount of the part in stock*/
+    public int partStock(int row) {
+        return buffer.getInt(partStock + 4 * row);
+    }
+
+    /** Reads the minimum stock of a part row without building the part.
+     * @param row Part row
+     * @return Returns the minimum amount of the part to keep in stock*/
+    public int partMin(int row) {
+        return buffer.getInt(partMin + 4 * row);
+    }
+
+    /** Reads the price of a part row without building the part.
+     * @param row Part row
+     * @return Returns the price of the part*/
+    public double partPrice(int row) {
+        return Money.toDouble(partPriceCents(row));
+    }
+
+    /** Reads the exact price of a part row without building the part.
+     * @param row Part row
+     * @return Returns the price of the part in cents*/
+    public long partPriceCents(int row) {
+        return buffer.getLong(partPrices + 8 * row);
+    }
+
+    /** Reads the name of a part row without building the part.
+     * @param row Part row
+     * @return Returns the name of the part*/
+    public String partName(int row) {
+        return string(buffer.getInt(partNames + 4 * row));
+    }
+
+    /** Reads the type of a part row without building the part.
+     * @param row Part row
+     * @return Returns true for an InHouse part, false for an Outsourced part*/
+    public boolean partIsInHouse(int row) {
+        return buffer.get(partTypes + row) == InventoryCodec.IN_HOUSE;
+    }
+
+    /** Reads the machine ID of an InHouse part row without building the part.
+     * @param row Part row of an InHouse part
+     * @return Returns the machine ID*/
+    public int partMachineId(int row) {
+        return buffer.getInt(partLocations + 4 * row);
+    }
+
+    /** Reads the supplier of an Outsourced part row without building the part.
+     * @param row Part row of an Outsourced part
+     * @return Returns the ID of the company name in the supplier pool, see Outsourced.getSuppliers()*/
+    public int partSupplierId(int row) {
+        return supplierId(buffer.getInt(partLocations + 4 * row));
+    }
+
+    /** Checks the stock of a part row against its min and max without building the part.
+     * The name is only read if the stock is out of range.
+     * @param row Part row
+     * @return Returns the alert for the row, or null if its stock is within min and max*/
+    StockAlert partAlert(int row) {
+        int stock = partStock(row);
+        int min = partMin(row);
+        int max = buffer.getInt(partMax + 4 * row);
+        if (stock >= min && stock <= max) {
+            return null;
+        }
+        return StockAlert.of(false, partId(row), partName(row), stock, min, max);
+    }
+
+    /** Builds the part stored in a row.
+     * @param row Part row
+     * @return Returns a new InHouse or Outsourced part*/
+    public Part materializePart(int row) {
+        int id = partId(row);
+        String name = partName(row);
+        long priceCents = partPriceCents(row);
+        int stock = partStock(row);
+        int min = buffer.getInt(partMin + 4 * row);
+        int max = buffer.getInt(partMax + 4 * row);
+        int location = buffer.getInt(partLocations + 4 * row);
+        if (buffer.get(partTypes + row) == InventoryCodec.IN_HOUSE) {
+            return InHouse.ofCents(id, name, priceCents, stock, min, max, location);
+        }
+        return Outsourced.ofCents(id, name, priceCents, stock, min, max, supplier(location));
+    }
+
+    /** Reads the ID of a product row without building the product.
+     * @param row Product row
+     * @return Returns the product ID*/
+    public int productId(int row) {
+        return buffer.getInt(productIds + 4 * row);
+    }
+
+    /** Reads the name of a product row without building the product.
+     * @param row Product row
+     * @return Returns the name of the product*/
+    public String productName(int row) {
+        return string(buffer.getInt(productNames + 4 * row));
+    }
+
+    /** Reads the price of a product row without building the product.
+     * @param row Product row
+     * @return Returns the price of the product*/
+    public double productPrice(int row) {
+        return Money.toDouble(productPriceCents(row));
+    }
+
+    /** Reads the exact price of a product row without building the product.
+     * @param row Product row
+     * @return Returns the price of the product in cents*/
+    public long productPriceCents(int row) {
+        return buffer.getLong(productPrices + 8 * row);
+    }
+
+    /** Reads the stock of a product row without building the product.
+     * @param row Product row
+     * @return Returns the amount of the product in stock*/
+    public int productStock(int row) {
+        return buffer.getInt(productStock + 4 * row);
+    }
+
+    /** Checks the stock of a product row against its min and max without building the product.
+     * The name is only read if the stock is out of range.
+     * @param row Product row
+     * @return Returns the alert for the row, or null if its stock is within min and max*/
+    StockAlert productAlert(int row) {
+        int stock = productStock(row);
+        int min = buffer.getInt(productMin + 4 * row);
+        int max = buffer.getInt(productMax + 4 * row);
+        if (stock >= min && stock <= max) {
+            return null;
+        }
+        return StockAlert.of(true, productId(row), productName(row), stock, min, max);
+    }
+
+    /** Reads the parts associated with a product row.
+     * @param row Product row
+     * @return Returns the ID and quantity of each associated part, one pair after another*/
+    public int[] productAssociatedParts(int row) {
+        int first = buffer.getInt(productLinks + 4 * row);
+        int end = buffer.getInt(productLinks + 4 * (row + 1));
+        int[] entries = new int[2 * (end - first)];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = buffer.getInt(links + 4 * (2 * first + i));
+        }
+        return entries;
+    }
+
+    /** Reads the sub-assemblies of a product row.
+     * @param row Product row
+     * @return Returns the ID and quantity of each sub-assembly, one pair after another*/
+    public int[] productSubAssemblies(int row) {
+        int first = buffer.getInt(productSubs + 4 * row);
+        int end = buffer.getInt(productSubs + 4 * (row + 1));
+        int[] entries = new int[2 * (end - first)];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = buffer.getInt(subs + 4 * (2 * first + i));
+        }
+        return entries;
+    }
+
+    /** Builds the product stored in a row, resolving its associated parts to part rows of this snapshot.
+     * Associated part IDs without a part row in this snapshot are kept by ID, as sub-assemblies are, and resolve to a
+     * part if one is stored under the ID later.
+     * @param row Product row
+     * @param partAtRow Retrieves the part object for a part row, so that products share the inventory's part objects
+     * @return Returns a new Product with its associated parts*/
+    public Product materializeProduct(int row, IntFunction<Part> partAtRow) {
+        Product product = Product.ofCents(productId(row), productName(row), productPriceCents(row), productStock(row),
+                buffer.getInt(productMin + 4 * row), buffer.getInt(productMax + 4 * row));
+        IntIntHashMap rowsById = partRowsById();
+        int[] associated = productAssociatedParts(row);
+        int[] ids = new int[associated.length / 2];
+        Part[] parts = new Part[ids.length];
+        int[] quantities = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = associated[2 * i];
+            quantities[i] = associated[2 * i + 1];
+            int partRow = rowsById.get(ids[i]);
+            parts[i] = partRow >= 0 ? partAtRow.apply(partRow) : null;
+        }
+        product.addAssociatedUnits(ids, parts, quantities);
+        int[] subAssemblies = productSubAssemblies(row);
+        if (subAssemblies.length > 0) {
+            int[] childIds = new int[subAssemblies.length / 2];
+            int[] childQuantities = new int[childIds.length];
+            for (int i = 0; i < childIds.length; i++) {
+                childIds[i] = subAssemblies[2 * i];
+                childQuantities[i] = subAssemblies[2 * i + 1];
+            }
+            product.setSubAssemblies(BillOfMaterials.NO_PRODUCTS.withEntries(childIds, childQuantities));
+        }
+        return product;
+    }
+
+    /** Builds the map from part ID to part row the first time it is needed. Only the ID column is read.
+     * @return Returns the part row for each part ID, keeping the first row for duplicate IDs*/
+    private synchronized IntIntHashMap partRowsById() {
+        if (partRowsById == null) {
+            IntIntHashMap rowsById = new IntIntHashMap(partCount, -1);
+            for (int row = 0; row < partCount; row++) {
+                if (!rowsById.containsKey(partId(row))) {
+                    rowsById.put(partId(row), row);
+                }
+            }
+            partRowsById = rowsById;
+        }
+        return partRowsById;
+    }
+
+    /** Reads a company name from the string area as its pooled instance in the supplier pool.
+     * Each company name is stored once in the string area, so it is only decoded the first time a part from that
+     * company is built.
+     * @param offset Offset of the company name within the string area
+     * @return Returns the pooled company name*/
+    private String supplier(int offset) {
+        return Outsourced.getSuppliers().get(supplierId(offset));
+    }
+
+    /** Reads the ID of a company name in the supplier pool, decoding the name the first time it is read.
+     * @param offset Offset of the company name within the string area
+     * @return Returns the ID of the company name in the supplier pool*/
+    private synchronized int supplierId(int offset) {
+        int id = supplierIds.get(offset);
+        if (id < 0) {
+            id = Outsourced.getSuppliers().id(string(offset));
+            supplierIds.put(offset, id);
+        }
+        return id;
+    }
+
+    /** Reads a string from the string area.
+     * @param offset Offset of the string within the string area
+     * @return Returns the decoded string*/
+    private String string(int offset) {
+        int position = strings + offset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Writes a columnar snapshot atomically: the data goes to a temporary file that is synced and then renamed.
+     * Positions of the captures that were never read are copied straight from the snapshot they were loaded from.
+     * @param target File to write
+     * @param parts Every part in the inventory in list order
+     * @param products Every product in the inventory in list order
+     * @param associatedParts Associated part ID and quantity pairs of each captured product object, or null at
+     *                        positions that refer to unread snapshot rows
+     * @param subAssemblies Sub-assembly ID and quantity pairs of each captured product object, or null at positions
+     *                      that refer to unread snapshot rows
+     * @param source Snapshot the unread rows refer to, or null if every position holds an object*/
+    static void write(Path target, LazyRowList.Capture<Part> parts, LazyRowList.Capture<Product> products,
+                      int[][] associatedParts, int[][] subAssemblies, ColumnarSnapshot source) throws IOException {
+        int partCount = parts.size;
+        int productCount = products.size;
+        int[][] links = new int[productCount][];
+        long linkCount = 0;
+        for (int i = 0; i < productCount; i++) {
+            links[i] = products.item(i) != null ? associatedParts[i] : source.productAssociatedParts(products.rows[i]);
+            linkCount += links[i].length / 2;
+        }
+        int[][] subs = new int[productCount][];
+        long subCount = 0;
+        for (int i = 0; i < productCount; i++) {
+            subs[i] = products.item(i) != null ? subAssemblies[i] : source.productSubAssemblies(products.rows[i]);
+            subCount += subs[i].length / 2;
+        }
+        int[] layout = layout(partCount, productCount);
+        long stringsOffset = layout[15] + 8 * linkCount + 4L * (productCount + 1) + 8 * subCount;
+        if (stringsOffset > Integer.MAX_VALUE) {
+            throw new IOException("Inventory is too large for a columnar snapshot");
+        }
+
+        //Names are deduplicated into the string area while the columns are written
+        ByteArrayOutputStream stringArea = new ByteArrayOutputStream();
+        Map<String, Integer> stringOffsets = new HashMap<>();
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(partCount);
+            out.writeInt(productCount);
+            out.writeInt((int) linkCount);
+            out.writeInt((int) subCount);
+            out.writeLong(stringsOffset);
+
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                out.writeInt(part != null ? part.getId() : source.partId(parts.rows[i]));
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                boolean inHouse = part != null ? part instanceof InHouse
+                        : source.buffer.get(source.partTypes + parts.rows[i]) == InventoryCodec.IN_HOUSE;
+                out.writeByte(inHouse ? InventoryCodec.IN_HOUSE : InventoryCodec.OUTSOURCED);
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                out.writeLong(part != null ? part.getPriceCents() : source.partPriceCents(parts.rows[i]));
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                out.writeInt(part != null ? part.getStock() : source.partStock(parts.rows[i]));
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                out.writeInt(part != null ? part.getMin() : source.buffer.getInt(source.partMin + 4 * parts.rows[i]));
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                out.writeInt(part != null ? part.getMax() : source.buffer.getInt(source.partMax + 4 * parts.rows[i]));
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                out.writeInt(intern(part != null ? part.getName() : source.partName(parts.rows[i]), stringArea, stringOffsets));
+            }
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.item(i);
+                if (part instanceof InHouse) {
+                    out.writeInt(((InHouse) part).getMachineID());
+                }
+                else if (part != null) {
+                    out.writeInt(intern(((Outsourced) part).getCompanyName(), stringArea, stringOffsets));
+                }
+                else {
+                    int row = parts.rows[i];
+                    int location = source.buffer.getInt(source.partLocations + 4 * row);
+                    boolean inHouse = source.buffer.get(source.partTypes + row) == InventoryCodec.IN_HOUSE;
+                    out.writeInt(inHouse ? location : intern(source.string(location), stringArea, stringOffsets));
+                }
+            }
+
+            for (int i = 0; i < productCount; i++) {
+                Product product = products.item(i);
+                out.writeInt(product != null ? product.getId() : source.productId(products.rows[i]));
+            }
+            for (int i = 0; i < productCount; i++) {
+                Product product = products.item(i);
+                String name = product != null ? product.getName()
+                        : source.string(source.buffer.getInt(source.productNames + 4 * products.rows[i]));
+                out.writeInt(intern(name, stringArea, stringOffsets));
+            }
+            for (int i = 0; i < productCount; i++) {
+                Product product = products.item(i);
+                out.writeLong(product != null ? product.getPriceCents() : source.productPriceCents(products.rows[i]));
+            }
+            for (int i = 0; i < productCount; i++) {
+                Product product = products.item(i);
+                out.writeInt(product != null ? product.getStock()
+                        : source.buffer.getInt(source.productStock + 4 * products.rows[i]));
+            }
+            for (int i = 0; i < productCount; i++) {
+                Product product = products.item(i);
+                out.writeInt(product != null ? product.getMin()
+                        : source.buffer.getInt(source.productMin + 4 * products.rows[i]));
+            }
+            for (int i = 0; i < productCount; i++) {
+                Product product = products.item(i);
+                out.writeInt(product != null ? product.getMax()
+                        : source.buffer.getInt(source.productMax + 4 * products.rows[i]));
+            }
+            int first = 0;
+            for (int i = 0; i < productCount; i++) {
+                out.writeInt(first);
+                first += links[i].length / 2;
+            }
+            out.writeInt(first);
+            for (int[] productLinks : links) {
+                for (int value : productLinks) {
+                    out.writeInt(value);
+                }
+            }
+            first = 0;
+            for (int i = 0; i < productCount; i++) {
+                out.writeInt(first);
+                first += subs[i].length / 2;
+            }
+            out.writeInt(first);
+            for (int[] productSubs : subs) {
+                for (int value : productSubs) {
+                    out.writeInt(value);
+                }
+            }
+
+            stringArea.writeTo(out);
+            out.writeLong(stringsOffset + stringArea.size());
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Adds a string to the string area once and returns its offset.
+     * @param text String to store
+     * @param stringArea String area being written
+     * @param stringOffsets Offsets of the strings already stored
+     * @return Returns the offset of the string within the string area*/
+    private static int intern(String text, ByteArrayOutputStream stringArea, Map<String, Integer> stringOffsets) {
+        String value = text == null ? "" : text;
+        Integer offset = stringOffsets.get(value);
+        if (offset == null) {
+            offset = stringArea.size();
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            stringArea.write(bytes.length >>> 24);
+            stringArea.write(bytes.length >>> 16);
+            stringArea.write(bytes.length >>> 8);
+            stringArea.write(bytes.length);
+            stringArea.write(bytes, 0, bytes.length);
+            stringOffsets.put(value, offset);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,246 @@
+package dunbar.c482pa.Model;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/** The FxListMirror class is a copy of an Inventory list that is only changed on the JavaFX Application Thread.
+ * Inventory changes its own lists on whichever thread calls it, so that imports and other background jobs do not
+ * wait for the user interface. Each change is recorded here, and the recorded changes are replayed on the JavaFX
+ * Application Thread in one update per pulse, so a table showing this list receives a single change event however
+ * many background changes arrived since the last frame. Changes made on the JavaFX Application Thread are shown at
+ * once, together with any that were still waiting. Until the application window starts, changes are replayed
+ * immediately on the calling thread. Rows loaded from a snapshot are only built when they are read, as in the
+ * Inventory lists. A TableView only reads the rows it shows, so reading an unbuilt row builds the rows around it in
+ * one batch, and scrolling builds a page at a time instead of locking the Inventory once per row.
+ * @param <T> Type of the list elements */
+final class FxListMirror<T> extends ObservableListBase<T> {
+    /**True once the JavaFX Application Thread is running and showing the lists*/
+    private static volatile boolean deferred = false;
+    /**Number of positions on each side of an unbuilt row that are built with it*/
+    private static final int PREFETCH_MARGIN = 32;
+
+    /** One recorded change to the source list. */
+    private final class Edit {
+        /**Position of the first element removed or added*/
+        final int from;
+        /**Elements removed from the position, or null*/
+        final List<T> removed;
+        /**Elements added at the position, or null*/
+        final List<T> added;
+        /**Old position of the element placed at each new position, or null if the change is not a reordering*/
+        final int[] order;
+        /**Number of snapshot rows loaded into the empty list, or 0*/
+        final int loadedRows;
+
+        /** Constructor. Records a change.
+         * @param from Position of the first element removed or added
+         * @param removed Elements removed, or null
+         * @param added Elements added, or null
+         * @param order Old position of the element placed at each new position, or null
+         * @param loadedRows Number of snapshot rows loaded, or 0*/
+        Edit(int from, List<T> removed, List<T> added, int[] order, int loadedRows) {
+            this.from = from;
+            this.removed = removed;
+            this.added = added;
+            this.order = order;
+            this.loadedRows = loadedRows;
+        }
+
+        /** Replays the change on the mirror and reports it to the listeners of the mirror. */
+        void apply() {
+            if (order != null) {
+                int[] newPositions = new int[order.length];
+                for (int i = 0; i < order.length; i++) {
+                    newPositions[order[i]] = i;
+                }
+                rows.permute(order);
+                nextPermutation(0, order.length, newPositions);
+                return;
+            }
+            if (loadedRows > 0) {
+                rows.load(loadedRows, rowLoader);
+                nextAdd(0, loadedRows);
+                return;
+            }
+            if (removed != null) {
+                for (int i = 0; i < removed.size(); i++) {
+                    rows.remove(from);
+                }
+                nextRemove(from, removed);
+            }
+            if (added != null) {
+                rows.addAll(from, added);
+                nextAdd(from, from + added.size());
+            }
+        }
+    }
+
+    /**Elements of the mirror*/
+    private final LazyRowList<T> rows = new LazyRowList<>();
+    /**Builds the element for a snapshot row, returning the same object as the source list*/
+    private final IntFunction<T> rowLoader;
+    /**Builds the elements for several snapshot rows at once, returning the same objects as the source list*/
+    private final Function<int[], List<T>> pageLoader;
+    /**Called on the JavaFX Application Thread when setAll() is called on the mirror*/
+    private final Consumer<Collection<? extends T>> setAllHandler;
+    /**Changes recorded and not yet replayed*/
+    private final List<Edit> pending = new ArrayList<>();      //Guarded by itself
+    /**True while a replay of the pending changes is scheduled on the JavaFX Application Thread*/
+    private boolean flushScheduled = false;                     //Guarded by pending
+
+    /** Constructor. Creates a mirror of an empty list and starts recording its changes.
+     * @param source List to mirror, changed only under the Inventory write lock
+     * @param rowLoader Builds the element for a snapshot row loaded into the source list
+     * @param pageLoader Builds the elements for several snapshot rows, in the order given
+     * @param setAllHandler Applies a setAll() call on the mirror, such as a TableView sort, to the source list*/
+    FxListMirror(ObservableList<T> source, IntFunction<T> rowLoader, Function<int[], List<T>> pageLoader,
+                 Consumer<Collection<? extends T>> setAllHandler) {
+        this.rowLoader = rowLoader;
+        this.pageLoader = pageLoader;
+        this.setAllHandler = setAllHandler;
+        source.addListener(this::record);
+    }
+
+    /** Starts replaying changes on the JavaFX Application Thread. Called when the application window starts. */
+    static void deferToFxThread() {
+        deferred = true;
+    }
+
+    /** Checks whether state shown by the user interface can be changed on the calling thread.
+     * @return Returns true on the JavaFX Application Thread, or on any thread before the application window starts*/
+    static boolean canUpdateUi() {
+        return !deferred || Platform.isFxApplicationThread();
+    }
+
+    /** Records that snapshot rows were loaded into the empty source list.
+     * @param rowCount Number of rows loaded*/
+    void load(int rowCount) {
+        if (rowCount > 0) {
+            enqueue(List.of(new Edit(0, null, null, null, rowCount)));
+        }
+    }
+
+    /** Records a change to the source list. Called on the thread that changed it.
+     * @param change Change to record*/
+    private void record(ListChangeListener.Change<? extends T> change) {
+        List<Edit> edits = new ArrayList<>();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                int[] order = new int[change.getList().size()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    order[change.getPermutation(i)] = i;
+                }
+                edits.add(new Edit(0, null, null, order, 0));
+            }
+            else if (change.wasRemoved() || change.wasAdded()) {
+                edits.add(new Edit(change.getFrom(),
+                        change.wasRemoved() ? new ArrayList<>(change.getRemoved()) : null,
+                        change.wasAdded() ? new ArrayList<>(change.getAddedSubList()) : null, null, 0));
+            }
+        }
+        if (!edits.isEmpty()) {
+            enqueue(edits);
+        }
+    }
+
+    /** Queues recorded changes and replays them now, or schedules a replay on the JavaFX Application Thread.
+     * @param edits Changes to queue, in order*/
+    private void enqueue(List<Edit> edits) {
+        boolean now = canUpdateUi();
+        synchronized (pending) {
+            pending.addAll(edits);
+            if (!now) {
+                if (flushScheduled) {
+                    return;
+                }
+                flushScheduled = true;
+            }
+        }
+        if (now) {
+            flush();
+        }
+        else {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /** Replays every pending change. Runs on the JavaFX Application Thread once it has started.
+     * Consecutive additions and removals are published as one change event; reorderings are published on their own. */
+    void flush() {
+        List<Edit> edits;
+        synchronized (pending) {
+            edits = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        int next = 0;
+        while (next < edits.size()) {
+            beginChange();
+            try {
+                if (edits.get(next).order != null) {
+                    edits.get(next++).apply();
+                }
+                else {
+                    while (next < edits.size() && edits.get(next).order == null) {
+                        edits.get(next++).apply();
+                    }
+                }
+            } finally {
+                endChange();
+            }
+        }
+    }
+
+    /** Replaces the contents of the list, as a TableView does when it sorts its items.
+     * The new contents are applied to the source list, and reach the mirror as a recorded change. Must be called on
+     * the JavaFX Application Thread.
+     * @param col New contents of the list
+     * @return Returns true*/
+    @Override
+    public boolean setAll(Collection<? extends T> col) {
+        setAllHandler.accept(col);
+        return true;
+    }
+
+    /** Retrieves an element, building the unbuilt rows within the prefetch margin around it if it is unbuilt.
+     * @param index Position of the element
+     * @return Returns the element*/
+    @Override
+    public T get(int index) {
+        if (!rows.isMaterialized(index)) {
+            rows.prefetch(Math.max(0, index - PREFETCH_MARGIN), Math.min(rows.size(), index + PREFETCH_MARGIN + 1), pageLoader);
+        }
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return rows.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return rows.lastIndexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return rows.contains(o);
+    }
+}
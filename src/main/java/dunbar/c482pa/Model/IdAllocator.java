@@ -0,0 +1,96 @@
+package dunbar.c482pa.Model;
+
+import java.util.BitSet;
+
+/** The IdAllocator class tracks which IDs are in use and finds the lowest free ID, starting from 1.
+ * IDs are kept in a bitset together with a pointer to the lowest free ID, so finding the next free ID does not scan
+ * the inventory. IDs released by deletions become free again and are handed out before higher IDs, matching the
+ * numbering the Add windows have always used. IDs above a fixed limit are kept in a hash map instead, so that a few
+ * very large imported IDs do not allocate a huge bitset. All methods are thread-safe. */
+public class IdAllocator {
+    /**IDs at or above this value are tracked in the overflow map instead of the bitset*/
+    private static final int BITSET_LIMIT = 1 << 24;
+
+    /**Bit i is set while ID i is in use*/
+    private final BitSet used = new BitSet();
+    /**Number of times each ID at or above BITSET_LIMIT is in use*/
+    private final IntIntHashMap overflow = new IntIntHashMap(16, 0);
+    /**Lowest ID that is not in use*/
+    private int lowestFree = 1;
+
+    /** Retrieves the lowest free ID without reserving it.
+     * @return Returns the lowest ID that is not in use*/
+    public synchronized int peek() {
+        return lowestFree;
+    }
+
+    /** Reserves the lowest free ID.
+     * @return Returns the reserved ID*/
+    public synchronized int allocate() {
+        int id = lowestFree;
+        markUsed(id);
+        return id;
+    }
+
+    /** Marks an ID as in use.
+     * @param id ID to mark; IDs below 1 are ignored*/
+    public synchronized void markUsed(int id) {
+        if (id < 1) {
+            return;
+        }
+        if (id >= BITSET_LIMIT) {
+            overflow.addTo(id, 1);
+        }
+        else {
+            used.set(id);
+        }
+        if (id == lowestFree) {
+            advance();
+        }
+    }
+
+    /** Marks an ID as free so it can be handed out again.
+     * @param id ID to release; IDs below 1 are ignored*/
+    public synchronized void release(int id) {
+        if (id < 1) {
+            return;
+        }
+        if (id >= BITSET_LIMIT) {
+            if (overflow.addTo(id, -1) > 0) {
+                return;
+            }
+        }
+        else {
+            used.clear(id);
+        }
+        if (id < lowestFree) {
+            lowestFree = id;
+        }
+    }
+
+    /** Checks whether an ID is in use.
+     * @param id ID to check
+     * @return Returns true if the ID is in use, otherwise returns false*/
+    public synchronized boolean isUsed(int id) {
+        if (id < 1) {
+            return false;
+        }
+        return id >= BITSET_LIMIT ? overflow.containsKey(id) : used.get(id);
+    }
+
+    /** Marks every ID as free. */
+    public synchronized void clear() {
+        used.clear();
+        overflow.clear();
+        lowestFree = 1;
+    }
+
+    /** Moves the lowest free pointer past IDs that are in use. */
+    private void advance() {
+        int next = used.nextClearBit(lowestFree);
+        while (next >= BITSET_LIMIT && overflow.containsKey(next)) {
+            next++;
+        }
+        lowestFree = next;
+    }
+}
@@ -21,6 +21,34 @@ public class InHouse extends Part {
         this.machineID = machineID;
     }
 
+    /** Constructor for InHouse Objects with an exact price, used by ofCents().
+     * @param id ID number of the part
+     * @param name Name of the part
+     * @param priceCents Price of the part in whole cents
+     * @param stock Number of parts in inventory
+     * @param min Minimum number of parts required to be kept in inventory
+     * @param max Maximum number of parts allowed to be kept in inventory
+     * @param machineID ID number of the machine used to manufacture the part*/
+    private InHouse(int id, String name, long priceCents, int stock, int min, int max, int machineID) {
+        super(id, name, priceCents, stock, min, max);
+        this.machineID = machineID;
+    }
+
+    /** Creates an InHouse part from an exact price, such as one parsed by Money.parseCents(), without passing it
+     * through a double.
+     * @param id ID number of the part
+     * @param name Name of the part
+     * @param priceCents Price of the part in whole cents
+     * @param stock Number of parts in inventory
+     * @param min Minimum number of parts required to be kept in inventory
+     * @param max Maximum number of parts allowed to be kept in inventory
+     * @param machineID ID number of the machine used to manufacture the part
+     * @return Returns the new part*/
+    public static InHouse ofCents(int id, String name, long priceCents, int stock, int min, int max, int machineID) {
+
+        return new InHouse(id, name, priceCents, stock, min, max, machineID);
+    }
+
     /** Sets the machine ID of a part
      * @param machineID ID number of the machine used to manufacture the part*/
     public void setMachineID(int machineID) {
@@ -0,0 +1,237 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+
+/** The IntHashMap class is a hash map keyed by primitive int values.
+ * Uses open addressing with linear probing over parallel key and value arrays so that keys are never boxed into
+ * Integer objects. Used by Inventory to index parts and products by ID.
+ * @param <V> Type of the values stored in the map */
+public class IntHashMap<V> {
+    /**Marker for an empty key slot. Keys equal to this value are stored in a dedicated field instead of the table*/
+    private static final int EMPTY = Integer.MIN_VALUE;
+    /**Maximum fraction of the table that can be filled before it is resized*/
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**Key slots of the table*/
+    private int[] keys;
+    /**Value slots of the table, parallel to keys*/
+    private Object[] values;
+    /**Number of entries currently stored in the table*/
+    private int size;
+    /**Number of entries that can be stored before the table is resized*/
+    private int threshold;
+    /**Value stored under the EMPTY marker key, if any*/
+    private V emptyKeyValue;
+    /**True if a value is stored under the EMPTY marker key*/
+    private boolean hasEmptyKey;
+
+    /** Constructor. Creates an empty map with a small default capacity. */
+    public IntHashMap() {
+        this(16);
+    }
+
+    /** Constructor. Creates an empty map able to hold the expected number of entries without resizing.
+     * @param expectedSize Number of entries the map is expected to hold*/
+    public IntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /** Retrieves the value stored for a key.
+     * Reads the table arrays once and probes at most every slot, so a read that overlaps a write on another thread
+     * always finishes, though its result may be wrong or it may throw. StripedIdMap relies on this for its
+     * optimistic reads, which discard such results.
+     * @param key Key to search for
+     * @return Returns the value stored for the key, or null if the key is not in the map*/
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        int[] keys = this.keys;
+        Object[] values = this.values;
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        for (int probes = 0; probes < keys.length && keys[slot] != EMPTY; probes++) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /** Checks whether the map holds a value for a key.
+     * @param key Key to search for
+     * @return Returns true if the key is in the map, otherwise returns false*/
+    public boolean containsKey(int key) {
+        if (key == EMPTY) {
+            return hasEmptyKey;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /** Stores a value for a key, replacing any previous value.
+     * @param key Key to store the value under
+     * @param value Value to store
+     * @return Returns the previous value for the key, or null if there was none*/
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /** Removes the value stored for a key.
+     * @param key Key to remove
+     * @return Returns the value that was removed, or null if the key was not in the map*/
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            if (hasEmptyKey) {
+                hasEmptyKey = false;
+                emptyKeyValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                closeGap(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /** Retrieves the number of entries in the map.
+     * @return Returns the number of entries in the map*/
+    public int size() {
+        return size;
+    }
+
+    /** Checks whether the map is empty.
+     * @return Returns true if the map holds no entries, otherwise returns false*/
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Copies every key in the map into a new array.
+     * @return Returns the keys of the map in no particular order*/
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        if (hasEmptyKey) {
+            result[count++] = EMPTY;
+        }
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /** Removes all entries from the map. */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        emptyKeyValue = null;
+        hasEmptyKey = false;
+        size = 0;
+    }
+
+    /** Spreads the bits of a key so that sequential IDs do not cluster in the table.
+     * @param key Key to hash
+     * @return Returns the mixed hash of the key*/
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Allocates empty key and value arrays of the given capacity.
+     * @param capacity Number of slots, always a power of two*/
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /** Rehashes every entry into a table of a new capacity.
+     * @param capacity New number of slots, always a power of two*/
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /** Empties a slot and shifts later entries of the same probe run back so lookups keep finding them.
+     * @param gap Index of the slot being emptied*/
+    private void closeGap(int gap) {
+        int mask = keys.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == EMPTY) {
+                break;
+            }
+            int home = mix(keys[slot]) & mask;
+            //Moves the entry into the gap only if its home slot is not between the gap and its current slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+}
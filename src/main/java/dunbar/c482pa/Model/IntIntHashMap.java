@@ -0,0 +1,238 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+
+/** The IntIntHashMap class is a hash map from primitive int keys to primitive int values.
+ * Uses the same open addressing layout as IntHashMap, so neither keys nor values are boxed. A configurable missing
+ * value is returned for keys that are not in the map. */
+public class IntIntHashMap {
+    /**Marker for an empty key slot. Keys equal to this value are stored in a dedicated field instead of the table*/
+    private static final int EMPTY = Integer.MIN_VALUE;
+    /**Maximum fraction of the table that can be filled before it is resized*/
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**Value returned by get() for keys that are not in the map*/
+    private final int missingValue;
+    /**Key slots of the table*/
+    private int[] keys;
+    /**Value slots of the table, parallel to keys*/
+    private int[] values;
+    /**Number of entries currently stored in the table*/
+    private int size;
+    /**Number of entries that can be stored before the table is resized*/
+    private int threshold;
+    /**Value stored under the EMPTY marker key, if any*/
+    private int emptyKeyValue;
+    /**True if a value is stored under the EMPTY marker key*/
+    private boolean hasEmptyKey;
+
+    /** Constructor. Creates an empty map that returns -1 for missing keys. */
+    public IntIntHashMap() {
+        this(16, -1);
+    }
+
+    /** Constructor. Creates an empty map able to hold the expected number of entries without resizing.
+     * @param expectedSize Number of entries the map is expected to hold
+     * @param missingValue Value returned by get() for keys that are not in the map*/
+    public IntIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /** Retrieves the value stored for a key.
+     * @param key Key to search for
+     * @return Returns the value stored for the key, or the missing value if the key is not in the map*/
+    public int get(int key) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : missingValue;
+        }
+        int slot = find(key);
+        return slot < 0 ? missingValue : values[slot];
+    }
+
+    /** Checks whether the map holds a value for a key.
+     * @param key Key to search for
+     * @return Returns true if the key is in the map, otherwise returns false*/
+    public boolean containsKey(int key) {
+        return key == EMPTY ? hasEmptyKey : find(key) >= 0;
+    }
+
+    /** Stores a value for a key, replacing any previous value.
+     * @param key Key to store the value under
+     * @param value Value to store
+     * @return Returns the previous value for the key, or the missing value if there was none*/
+    public int put(int key, int value) {
+        if (key == EMPTY) {
+            int previous = hasEmptyKey ? emptyKeyValue : missingValue;
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    /** Adds an amount to the value stored for a key, treating a missing key as zero.
+     * The entry is removed when its value reaches zero.
+     * @param key Key whose value is changed
+     * @param delta Amount to add
+     * @return Returns the new value for the key*/
+    public int addTo(int key, int delta) {
+        int current = containsKey(key) ? get(key) : 0;
+        int updated = current + delta;
+        if (updated == 0) {
+            remove(key);
+        }
+        else {
+            put(key, updated);
+        }
+        return updated;
+    }
+
+    /** Removes the value stored for a key.
+     * @param key Key to remove
+     * @return Returns the value that was removed, or the missing value if the key was not in the map*/
+    public int remove(int key) {
+        if (key == EMPTY) {
+            int previous = hasEmptyKey ? emptyKeyValue : missingValue;
+            if (hasEmptyKey) {
+                hasEmptyKey = false;
+                size--;
+            }
+            return previous;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return missingValue;
+        }
+        int previous = values[slot];
+        closeGap(slot);
+        size--;
+        return previous;
+    }
+
+    /** Retrieves the number of entries in the map.
+     * @return Returns the number of entries in the map*/
+    public int size() {
+        return size;
+    }
+
+    /** Checks whether the map is empty.
+     * @return Returns true if the map holds no entries, otherwise returns false*/
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Removes all entries from the map. */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasEmptyKey = false;
+        size = 0;
+    }
+
+    /** Copies every key in the map into a new array.
+     * @return Returns the keys of the map in no particular order*/
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        if (hasEmptyKey) {
+            result[count++] = EMPTY;
+        }
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /** Finds the slot holding a key.
+     * @param key Key to search for, never the EMPTY marker
+     * @return Returns the slot index, or -1 if the key is not in the table*/
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Spreads the bits of a key so that sequential IDs do not cluster in the table.
+     * @param key Key to hash
+     * @return Returns the mixed hash of the key*/
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Allocates empty key and value arrays of the given capacity.
+     * @param capacity Number of slots, always a power of two*/
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /** Rehashes every entry into a table of a new capacity.
+     * @param capacity New number of slots, always a power of two*/
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /** Empties a slot and shifts later entries of the same probe run back so lookups keep finding them.
+     * @param gap Index of the slot being emptied*/
+    private void closeGap(int gap) {
+        int mask = keys.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == EMPTY) {
+                break;
+            }
+            int home = mix(keys[slot]) & mask;
+            //Moves the entry into the gap only if its home slot is not between the gap and its current slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+    }
+}
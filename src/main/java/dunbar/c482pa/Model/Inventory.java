@@ -1,104 +1,435 @@
 package dunbar.c482pa.Model;
 
-import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
 
 //javaDocs located in: src/main/JavaDocs
 
-/** This class creates an inventory application that can be used to track parts and products. Holds the main method for the application.
+/** This class holds the parts and products tracked by the inventory application, along with their indexes and the
+ * write-ahead log that saves them. The application window is started by HelloApplication.
  * FUTURE ENHANCEMENT: Adding the ability to create a history list for parts and products to track items no longer
  * kept in inventory. Could be used to create an obsolete part database to reference if a customer wanted to buy a
- * replacement that is no longer in inventory. */
-public class Inventory extends Application {
+ * replacement that is no longer in inventory.
+ * Every method can be called from any thread. Changes to the lists are serialized by a write lock, while name
+ * searches, valuations and the rows built for the user interface share a read lock and run alongside each other.
+ * Lookups by ID read lock-striped indexes and never wait for a change to another part or product. Stock
+ * reservations and adjustments change per-item counters by compare-and-set and take no lock at all. The lists returned by
+ * getAllParts() and getAllProducts() are only changed on the JavaFX Application Thread, which receives the changes
+ * made on other threads in batches. */
+public class Inventory {
+    /**Guards the lists and the indexes that are not thread-safe on their own; changes take the write lock and reads take the read lock*/
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**Read lock of lock*/
+    private static final Lock readLock = lock.readLock();
+    /**Write lock of lock*/
+    private static final Lock writeLock = lock.writeLock();
+    /**Backing list of allParts, which builds parts loaded from a snapshot only when they are read*/
+    private static LazyRowList<Part> partRows = new LazyRowList<>();
+    /**Backing list of allProducts, which builds products loaded from a snapshot only when they are read*/
+    private static LazyRowList<Product> productRows = new LazyRowList<>();
     /** List of all Parts in Inventory*/
-    private static ObservableList<Part> allParts = FXCollections.observableArrayList(); //Holds all parts currently stored in application memory
+    private static InventoryList<Part> allParts = new InventoryList<>(partRows, Inventory::partsReordered); //Holds all parts currently stored in application memory
     /**List of all Products in Inventory*/
-    private static ObservableList<Product> allProducts = FXCollections.observableArrayList(); //Holds all products currently stored in application memory
+    private static InventoryList<Product> allProducts = new InventoryList<>(productRows, Inventory::productsReordered); //Holds all products currently stored in application memory
     /**List of filtered parts based off of search inputs*/
     private static ObservableList<Part> filteredParts = FXCollections.observableArrayList(); //Holds the parts that match the filter criteria for the part search bar
     /**List of filtered proucts based off of search inputs*/
     private static ObservableList<Product> filteredProducts = FXCollections.observableArrayList(); //Holds the parts that match the filter criteria for the product search bar
+    /**Copy of allParts shown by the user interface, changed only on the JavaFX Application Thread*/
+    private static final FxListMirror<Part> partsView = new FxListMirror<Part>(allParts, Inventory::partRow, Inventory::partRowsAt, Inventory::setAllParts);
+    /**Copy of allProducts shown by the user interface, changed only on the JavaFX Application Thread*/
+    private static final FxListMirror<Product> productsView = new FxListMirror<Product>(allProducts, Inventory::productRow, Inventory::productRowsAt, Inventory::setAllProducts);
+    /**Index of all Parts in Inventory keyed by part ID*/
+    private static final StripedIdMap<Part> partsById = new StripedIdMap<>(); //Kept in sync with allParts by the add, update and delete methods
+    /**Index of the Parts loaded from a snapshot and not built yet, from part ID to snapshot row*/
+    private static IntIntHashMap unreadPartsById = new IntIntHashMap(); //A row moves to partsById when it is built, holding partRows
+    /**Number of entries in unreadPartsById*/
+    private static volatile int unreadPartCount = 0; //Read by lookupPart() without the lock
+    /**Index of all Products in Inventory keyed by product ID*/
+    private static final StripedIdMap<Product> productsById = new StripedIdMap<>(); //Kept in sync with allProducts by the add, update and delete methods
+    /**Trigram index of part names used by the part name search*/
+    private static NGramIndex<Part> partNames = new NGramIndex<>(Part::getName); //Kept in sync with allParts by the add, update and delete methods
+    /**True while partNames is not maintained because parts loaded from a snapshot are unread*/
+    private static volatile boolean partNamesStale = false; //Rebuilt before its next search once every row has been read
+    /**Trigram index of product names used by the product name search*/
+    private static NGramIndex<Product> productNames = new NGramIndex<>(Product::getName); //Kept in sync with allProducts by the add, update and delete methods
+    /**Reverse index from part ID to the IDs of the products using the part, with the number of times each product lists it*/
+    private static IntHashMap<IntIntHashMap> productsByPart = new IntHashMap<>(); //Kept in sync by the product and associated part hooks
+    /**Reverse index from product ID to the IDs of the products using it as a sub-assembly, with the quantity each uses*/
+    private static IntHashMap<IntIntHashMap> assembliesByProduct = new IntHashMap<>(); //Kept in sync by the product and sub-assembly hooks
+    /**IDs of the products using each part, readable from any thread and used to invalidate product rollups*/
+    private static final StripedIdMap<int[]> usersByPart = new StripedIdMap<>(); //Kept in sync with productsByPart; arrays are replaced, never changed
+    /**IDs of the products using each product as a sub-assembly, readable from any thread and used to invalidate rollups*/
+    private static final StripedIdMap<int[]> usersByAssembly = new StripedIdMap<>(); //Kept in sync with assembliesByProduct; arrays are replaced, never changed
+    /**Parts and products whose stock is outside their min and max, most urgent first*/
+    private static final StockAlertMonitor stockAlerts = new StockAlertMonitor(); //Told of every stock change and every part or product added, replaced or removed
+    /**Parts of each machine and supplier, with their counts, stock and valuation*/
+    private static final PartGroupIndex partGroups = new PartGroupIndex(); //Kept in sync with allParts by the part hooks, and told of every stock and price change
+    /**Stock, price and headroom range indexes of the parts*/
+    private static final RangeIndexSet<Part> partRanges = new RangeIndexSet<>(Part::getId, Part::getStock, Part::getPriceCents, Part::getMin); //Built by the first range search, then kept in sync like partGroups
+    /**Stock, price and headroom range indexes of the products*/
+    private static final RangeIndexSet<Product> productRanges = new RangeIndexSet<>(Product::getId, Product::getStock, Product::getPriceCents, Product::getMin); //Built by the first range search, then kept in sync by the product hooks
+    /**IDs held by the parts in allParts, used to hand out the next free part ID*/
+    private static IdAllocator partIds = new IdAllocator();
+    /**IDs held by the products in allProducts, used to hand out the next free product ID*/
+    private static IdAllocator productIds = new IdAllocator();
+    /**True after a snapshot was loaded and the indexes have not been built from it yet*/
+    private static volatile boolean indexesStale = false; //While true, mutations skip index maintenance and the next index read rebuilds every index
+    /**Columnar snapshot the unread rows of allParts and allProducts are loaded from, or null*/
+    private static ColumnarSnapshot loadedSnapshot = null;
+    /**Write-ahead log that persists every mutation, or null if the inventory is only kept in memory*/
+    private static volatile InventoryJournal journal = null;
+    /**Sequence number of the last log record queued by the thread holding the write lock, which it waits for once it releases the lock, or 0*/
+    private static long unsyncedSeq = 0; //Guarded by the write lock
+    /**True while the journal is loading saved state, so that the loaded mutations are not logged again*/
+    private static volatile boolean replaying = false;
+    /**Number of parts added under an ID that was already indexed*/
+    private static int duplicatePartIds = 0; //Removal only rescans allParts for a replacement entry when this is non-zero
+    /**Number of products added under an ID that was already indexed*/
+    private static int duplicateProductIds = 0; //Removal only rescans allProducts for a replacement entry when this is non-zero
+    /**Number of parts or products copied into primitive columns at a time by the valuations*/
+    private static final int VALUATION_BLOCK = 4096;
 
     /** Adds a Part object to the allParts Observable List.
      * Accepts a Part object and appends it to allParts.
      * @param newPart Part to add
      * */
     public static void addPart(Part newPart) {
-
-        allParts.add(newPart);
+        writeLock.lock();
+        try {
+            allParts.add(newPart);
+            partAdded(newPart);
+            log(InventoryJournal.ADD_PART, out -> InventoryCodec.writePart(out, newPart));
+        } finally {
+            unlockWrite();
+        }
     }
 
     /** Adds a product to the allProducts Observable list.
      * Accepts a Product object and appends it to allProducts.
      * @param newProduct Product to add*/
     public static void addProduct(Product newProduct){
+        writeLock.lock();
+        try {
+            allProducts.add(newProduct);
+            productAdded(newProduct);
+            int[] associatedEntries = InventoryCodec.associatedEntries(newProduct);
+            logProducts(InventoryJournal.ADD_PRODUCT, List.of(out -> InventoryCodec.writeProduct(out, newProduct, associatedEntries)),
+                    List.of(newProduct));
+        } finally {
+            unlockWrite();
+        }
+    }
 
-        allProducts.add(newProduct);
+    /** Adds several parts to the allParts Observable List.
+     * Accepts a collection of Part objects and appends them to allParts in iteration order. Listeners receive a single
+     * change event for the whole collection, and the parts are persisted with a single log sync.
+     * @param newParts Parts to add*/
+    public static void addParts(Collection<? extends Part> newParts) {
+        writeLock.lock();
+        try {
+            if(newParts.isEmpty()){
+                return;
+            }
+            List<Part> added = new ArrayList<>(newParts);
+            allParts.addAll(added);
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(added.size());
+            for(Part part : added){
+                partAdded(part);
+                records.add(out -> InventoryCodec.writePart(out, part));
+            }
+            logAll(InventoryJournal.ADD_PART, records);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Adds several products to the allProducts Observable List.
+     * Accepts a collection of Product objects and appends them to allProducts in iteration order. Listeners receive a
+     * single change event for the whole collection, and the products are persisted with a single log sync.
+     * @param newProducts Products to add*/
+    public static void addProducts(Collection<? extends Product> newProducts) {
+        writeLock.lock();
+        try {
+            if(newProducts.isEmpty()){
+                return;
+            }
+            List<Product> added = new ArrayList<>(newProducts);
+            allProducts.addAll(added);
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(added.size());
+            for(Product product : added){
+                productAdded(product);
+                int[] associatedEntries = InventoryCodec.associatedEntries(product);
+                records.add(out -> InventoryCodec.writeProduct(out, product, associatedEntries));
+            }
+            logProducts(InventoryJournal.ADD_PRODUCT, records, added);
+        } finally {
+            unlockWrite();
+        }
     }
 
     /** Searches the allParts observable list for a specified part.
-     * Accepts a part ID value and searches the allParts list for a part with a matching ID.
+     * Accepts a part ID value and retrieves the part with a matching ID from the part ID index in constant time,
+     * without waiting for changes to other parts. A part loaded from a snapshot is built from its row the first
+     * time it is looked up.
      * @param partID ID of the part to search for.
      * @return Returns the desired part, or null if the part was not found*/
     public static Part lookupPart(int partID) {
 
-        int index = -1;
+        ensureIndexes();
+        Part part = partsById.get(partID);
+        return part != null || unreadPartCount == 0 ? part : readPart(partID);
+    }
 
-        for(Part part: allParts){
-            index++;
-            if(part.getId() == partID){
-                return allParts.get(index);
+    /** Builds a part that is indexed by its snapshot row, if it has not been built since partsById was checked.
+     * @param partID ID of the part
+     * @return Returns the part, or null if the part was not found*/
+    private static Part readPart(int partID){
+        readLock.lock();
+        try {
+            synchronized(partRows){     //Rows are built holding partRows, which guards unreadPartsById under the read lock
+                int row = unreadPartsById.get(partID);
+                return row < 0 ? partsById.get(partID) : partRows.row(row);     //Building the row moves it to partsById
             }
+        } finally {
+            readLock.unlock();
         }
-        return null;
     }
 
     /** Searches the allProducts observable list for a specified product.
-     * Accepts a product ID value and searches the allProducts list for a product with a matching ID.
+     * Accepts a product ID value and retrieves the product with a matching ID from the product ID index in constant time,
+     * without waiting for changes to other products.
      * @param productID ID of the product to search for.
      * @return Returns the desired Product, or null if the product was not found */
     public static Product lookupProduct(int productID){
 
-        int index = -1;
-
-        for(Product product : allProducts){
-            index++;
-            if(product.getId() == productID) {
-                return allProducts.get(index);
-            }
-        }
-        return null;
+        ensureIndexes();
+        return productsById.get(productID);
     }
 
     /** Searches the allParts observable list for a specified part.
-     * Accepts a string and searches the allParts list for a part with a name that contains the input string.
+     * Accepts a string and uses the part name trigram index to find parts with a name that contains the input string,
+     * ignoring case. While parts loaded from a snapshot have not been read, their name column is scanned instead.
+     * Matches are appended to filteredParts in the order they appear in allParts.
      * @param partName string to search for
      * @return Returns a list of all parts whose name contains the input string. If no parts contain the input string, returns an empty list.*/
     public static ObservableList<Part> lookupPart(String partName){
-       for(Part part: allParts){
-           if((part.getName()).toLowerCase().contains(partName.toLowerCase())){
-               filteredParts.add(part);
-           }
-       }
+       ensureIndexes();
+       filteredParts.addAll(searchPartNames(partName));
        return filteredParts;
     }
 
     /** Searches the allProducts observable list for a specified product.
-     * Accepts a string and searches the allParts list for a part with a name that contains the input string.
+     * Accepts a string and uses the product name trigram index to find products with a name that contains the input
+     * string, ignoring case. Matches are appended to filteredProducts in the order they appear in allProducts.
      * @param productName string to search for
      * @return Returns a list of all products whose name contains the input string. If no parts contain the input string, returns an empty list.*/
     public static ObservableList<Product> lookupProduct(String productName){
-        for(Product product:allProducts){
-            if((product.getName()).toLowerCase().contains(productName.toLowerCase())){
-                filteredProducts.add(product);
+        ensureIndexes();
+        filteredProducts.addAll(searchProductNames(productName));
+        return filteredProducts;
+    }
+
+    /** Finds the parts matching a search box query without changing filteredParts.
+     * A query that is a whole number is looked up as a part ID, and a range query such as "stock<5" is answered by
+     * lookupParts(RangeQuery). Any other query is searched as part of a part name, ignoring case.
+     * While a loaded snapshot has not been indexed yet, the query is answered from the ID and name columns of the
+     * unread rows, so only the matching parts are built. Name queries keep scanning the name column until every row
+     * has been read, since a name index would have to build every part. Safe to call from a background thread.
+     * @param query Text typed in a part search box
+     * @return Returns a new list of the matching parts in the order they appear in allParts, or in ascending order of
+     * the searched field for a range query*/
+    public static List<Part> searchParts(String query){
+        RangeQuery range = RangeQuery.parse(query);
+        if(range != null){
+            return lookupParts(range);
+        }
+        int id;
+        try {
+            id = Integer.parseInt(query);
+        } catch (NumberFormatException notInt) {
+            return searchPartNames(query);
+        }
+        if(indexesStale){
+            return scanParts(part -> part.getId() == id, row -> loadedSnapshot.partId(row) == id, 1);
+        }
+        Part part = lookupPart(id);
+        return part == null ? new ArrayList<>() : new ArrayList<>(List.of(part));
+    }
+
+    /** Finds the parts whose name contains a query, ignoring case.
+     * @param query Text to search for
+     * @return Returns a new list of the matching parts in the order they appear in allParts*/
+    private static List<Part> searchPartNames(String query){
+        if(partNamesStale && !indexesStale && unreadPartCount == 0){
+            ensurePartNames();
+        }
+        LazyRowList.Capture<Part> parts;
+        ColumnarSnapshot snapshot;
+        readLock.lock();
+        try {
+            if(!indexesStale && unreadPartCount == 0 && !partNamesStale){
+                return partNames.search(query);
             }
+            parts = partRows.capture();
+            snapshot = loadedSnapshot;
+        } finally {
+            readLock.unlock();
         }
-        return filteredProducts;
+        String needle = query.toLowerCase(Locale.ROOT);
+        return partsAt(parts, parts.matching(part -> nameContains(part.getName(), needle),
+                row -> nameContains(snapshot.partName(row), needle), Integer.MAX_VALUE));
+    }
+
+    /** Finds the parts matching a filter without building the unread rows that do not match.
+     * The list is copied under the read lock and scanned without it, so writers only wait for the copy.
+     * @param partFilter Tests a part that has been built
+     * @param rowFilter Tests the snapshot row of a part that has not been read
+     * @param limit Maximum number of parts to return
+     * @return Returns a new list of the matching parts in the order they appear in allParts*/
+    private static List<Part> scanParts(Predicate<Part> partFilter, IntPredicate rowFilter, int limit){
+        LazyRowList.Capture<Part> parts;
+        readLock.lock();
+        try {
+            parts = partRows.capture();
+        } finally {
+            readLock.unlock();
+        }
+        return partsAt(parts, parts.matching(partFilter, rowFilter, limit));
+    }
+
+    /** Retrieves the parts at positions of a captured parts list, building only the unread rows among them, under
+     * one short hold of the read lock.
+     * @param parts Captured parts list
+     * @param positions Positions to retrieve, in the order to return them
+     * @return Returns a new list of the parts at the positions*/
+    private static List<Part> partsAt(LazyRowList.Capture<Part> parts, int[] positions){
+        int[] unread = new int[positions.length];
+        int count = 0;
+        for(int position : positions){
+            if(parts.item(position) == null){
+                unread[count++] = parts.rows[position];
+            }
+        }
+        List<Part> built = count == 0 ? List.of() : partRowsAt(Arrays.copyOf(unread, count));
+        List<Part> found = new ArrayList<>(positions.length);
+        int next = 0;
+        for(int position : positions){
+            Part part = parts.item(position);
+            found.add(part != null ? part : built.get(next++));
+        }
+        return found;
+    }
+
+    /** Finds the products matching a search box query without changing filteredProducts.
+     * A query that is a whole number is looked up as a product ID, and a range query such as "price>=10" is answered
+     * by lookupProducts(RangeQuery). Any other query is searched as part of a product name, ignoring case. Safe to
+     * call from a background thread.
+     * @param query Text typed in a product search box
+     * @return Returns a new list of the matching products in the order they appear in allProducts, or in ascending
+     * order of the searched field for a range query*/
+    public static List<Product> searchProducts(String query){
+        RangeQuery range = RangeQuery.parse(query);
+        if(range != null){
+            return lookupProducts(range);
+        }
+        int id;
+        try {
+            id = Integer.parseInt(query);
+        } catch (NumberFormatException notInt) {
+            return searchProductNames(query);
+        }
+        if(indexesStale){
+            return scanProducts(product -> product.getId() == id, row -> loadedSnapshot.productId(row) == id, 1);
+        }
+        Product product = lookupProduct(id);
+        return product == null ? new ArrayList<>() : new ArrayList<>(List.of(product));
+    }
+
+    /** Finds the products whose name contains a query, ignoring case.
+     * @param query Text to search for
+     * @return Returns a new list of the matching products in the order they appear in allProducts*/
+    private static List<Product> searchProductNames(String query){
+        LazyRowList.Capture<Product> products;
+        ColumnarSnapshot snapshot;
+        readLock.lock();
+        try {
+            if(!indexesStale){
+                return productNames.search(query);
+            }
+            products = productRows.capture();
+            snapshot = loadedSnapshot;
+        } finally {
+            readLock.unlock();
+        }
+        String needle = query.toLowerCase(Locale.ROOT);
+        return productsAt(products, products.matching(product -> nameContains(product.getName(), needle),
+                row -> nameContains(snapshot.productName(row), needle), Integer.MAX_VALUE));
+    }
+
+    /** Finds the products matching a filter without building the unread rows that do not match.
+     * The list is copied under the read lock and scanned without it, as in scanParts().
+     * @param productFilter Tests a product that has been built
+     * @param rowFilter Tests the snapshot row of a product that has not been read
+     * @param limit Maximum number of products to return
+     * @return Returns a new list of the matching products in the order they appear in allProducts*/
+    private static List<Product> scanProducts(Predicate<Product> productFilter, IntPredicate rowFilter, int limit){
+        LazyRowList.Capture<Product> products;
+        readLock.lock();
+        try {
+            products = productRows.capture();
+        } finally {
+            readLock.unlock();
+        }
+        return productsAt(products, products.matching(productFilter, rowFilter, limit));
+    }
+
+    /** Retrieves the products at positions of a captured products list, as partsAt() does for parts.
+     * @param products Captured products list
+     * @param positions Positions to retrieve, in the order to return them
+     * @return Returns a new list of the products at the positions*/
+    private static List<Product> productsAt(LazyRowList.Capture<Product> products, int[] positions){
+        int[] unread = new int[positions.length];
+        int count = 0;
+        for(int position : positions){
+            if(products.item(position) == null){
+                unread[count++] = products.rows[position];
+            }
+        }
+        List<Product> built = count == 0 ? List.of() : productRowsAt(Arrays.copyOf(unread, count));
+        List<Product> found = new ArrayList<>(positions.length);
+        int next = 0;
+        for(int position : positions){
+            Product product = products.item(position);
+            found.add(product != null ? product : built.get(next++));
+        }
+        return found;
+    }
+
+    /** Checks whether a name contains a lower case query, ignoring case as the name indexes do.
+     * @param name Name to check, or null
+     * @param needle Lower case query
+     * @return Returns true if the name contains the query, otherwise returns false*/
+    private static boolean nameContains(String name, String needle){
+        return name != null && name.toLowerCase(Locale.ROOT).contains(needle);
     }
 
     /** Replaces a part in the allParts list with another part.
@@ -106,8 +437,17 @@ public class Inventory extends Application {
      * @param index the index of the part to be replaced
      * @param selectedPart the part that is replacing the current part in the list */
     public static void updatePart(int index, Part selectedPart){
-
-        allParts.set(index, selectedPart);
+        writeLock.lock();
+        try {
+            Part oldPart = allParts.set(index, selectedPart);
+            partReplaced(oldPart, selectedPart);
+            log(InventoryJournal.UPDATE_PART, out -> {
+                out.writeInt(index);
+                InventoryCodec.writePart(out, selectedPart);
+            });
+        } finally {
+            unlockWrite();
+        }
     }
 
     /** Replaces a product in the allProducts list with another product
@@ -115,37 +455,1939 @@ public class Inventory extends Application {
      * @param index the index of the product to be replaced
      * @param newProduct the product that is replacing the current product in the list*/
     public static void updateProduct(int index, Product newProduct){
+        writeLock.lock();
+        try {
+            Product oldProduct = allProducts.set(index, newProduct);
+            productReplaced(oldProduct, newProduct);
+            int[] associatedEntries = InventoryCodec.associatedEntries(newProduct);
+            logProducts(InventoryJournal.UPDATE_PRODUCT, List.of(out -> {
+                out.writeInt(index);
+                InventoryCodec.writeProduct(out, newProduct, associatedEntries);
+            }), List.of(newProduct));
+        } finally {
+            unlockWrite();
+        }
+    }
 
-        allProducts.set(index, newProduct);
+    /** Replaces the part holding the same ID as another part.
+     * Unlike updatePart(), the part to replace is found by ID under the write lock, so the right part is replaced
+     * even if other threads have moved it in the list since it was shown.
+     * @param newPart Part that takes the place of the stored part with its ID
+     * @return Returns true if a part with the ID was found and replaced, otherwise returns false*/
+    public static boolean replacePart(Part newPart){
+        writeLock.lock();
+        try {
+            Part oldPart = lookupPart(newPart.getId());
+            int index = oldPart == null ? -1 : allParts.indexOf(oldPart);
+            if(index < 0){
+                return false;
+            }
+            updatePart(index, newPart);
+            return true;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Replaces the product holding the same ID as another product.
+     * Unlike updateProduct(), the product to replace is found by ID under the write lock, so the right product is
+     * replaced even if other threads have moved it in the list since it was shown.
+     * @param newProduct Product that takes the place of the stored product with its ID
+     * @return Returns true if a product with the ID was found and replaced, otherwise returns false*/
+    public static boolean replaceProduct(Product newProduct){
+        writeLock.lock();
+        try {
+            ensureIndexes();
+            Product oldProduct = productsById.get(newProduct.getId());
+            int index = oldProduct == null ? -1 : allProducts.indexOf(oldProduct);
+            if(index < 0){
+                return false;
+            }
+            updateProduct(index, newProduct);
+            return true;
+        } finally {
+            unlockWrite();
+        }
     }
 
     /** Removes a part from the allParts list.
      * @param selectedPart Part to be removed
      * @return Returns true if the part was found and removed, otherwise returns false*/
     public static boolean deletePart(Part selectedPart){
-        return allParts.remove(selectedPart);
+        writeLock.lock();
+        try {
+            int index = allParts.indexOf(selectedPart);
+            if(index < 0){
+                return false;
+            }
+            removePartAt(index);
+            return true;
+        } finally {
+            unlockWrite();
+        }
     }
 
     /** Removes a part from the allProducts list.
      * @param selectedProduct Product to be removed
      * @return Returns true if the product was found and removed, otherwise returns false*/
     public static boolean deleteProduct(Product selectedProduct){
+        writeLock.lock();
+        try {
+            int index = allProducts.indexOf(selectedProduct);
+            if(index < 0){
+                return false;
+            }
+            removeProductAt(index);
+            return true;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Removes the part at a position of the allParts list. Unlike deletePart(), this removes that exact position
+     * when equal parts are held more than once. The part's ID is logged with the position, so the delete is replayed
+     * on the same part.
+     * @param index Position of the part to remove
+     * @return Returns the part that was removed*/
+    static Part removePartAt(int index){
+        writeLock.lock();
+        try {
+            Part removed = allParts.remove(index);
+            partRemoved(removed);
+            log(InventoryJournal.DELETE_PART_BY_ID, deleteRecord(removed.getId(), index));
+            return removed;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Removes the product at a position of the allProducts list. Unlike deleteProduct(), this removes that exact
+     * position when equal products are held more than once.
+     * @param index Position of the product to remove
+     * @return Returns the product that was removed*/
+    static Product removeProductAt(int index){
+        writeLock.lock();
+        try {
+            Product removed = allProducts.remove(index);
+            productRemoved(removed);
+            log(InventoryJournal.DELETE_PRODUCT_BY_ID, deleteRecord(removed.getId(), index));
+            return removed;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Replays a logged part delete. The part at the logged position is removed if it still has the logged ID;
+     * otherwise the part indexed under the ID is removed, so a delete is never applied to a different part.
+     * @param partID ID of the deleted part
+     * @param index Position the part was deleted from*/
+    static void replayPartDelete(int partID, int index){
+        writeLock.lock();
+        try {
+            if(index < allParts.size() && allParts.get(index).getId() == partID){
+                removePartAt(index);
+            }
+            else {
+                Part part = lookupPart(partID);
+                if(part != null){
+                    deletePart(part);
+                }
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Replays a logged part update. The part at the logged position is replaced if it has the ID of the new part;
+     * otherwise the part indexed under the ID is, since reorderings that were not logged can move parts.
+     * @param index Position the part was replaced at
+     * @param newPart Part that replaced it*/
+    static void replayPartUpdate(int index, Part newPart){
+        writeLock.lock();
+        try {
+            if(index >= allParts.size() || allParts.get(index).getId() != newPart.getId()){
+                int found = allParts.indexOf(lookupPart(newPart.getId()));
+                index = found < 0 ? index : found;
+            }
+            updatePart(index, newPart);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Replays a logged product update, as replayPartUpdate() does for parts.
+     * @param index Position the product was replaced at
+     * @param newProduct Product that replaced it*/
+    static void replayProductUpdate(int index, Product newProduct){
+        writeLock.lock();
+        try {
+            if(index >= allProducts.size() || allProducts.get(index).getId() != newProduct.getId()){
+                int found = allProducts.indexOf(lookupProduct(newProduct.getId()));
+                index = found < 0 ? index : found;
+            }
+            updateProduct(index, newProduct);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Replays a logged product delete, as replayPartDelete() does for parts.
+     * @param productID ID of the deleted product
+     * @param index Position the product was deleted from*/
+    static void replayProductDelete(int productID, int index){
+        writeLock.lock();
+        try {
+            if(index < allProducts.size() && allProducts.get(index).getId() == productID){
+                removeProductAt(index);
+            }
+            else {
+                Product product = lookupProduct(productID);
+                if(product != null){
+                    deleteProduct(product);
+                }
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Creates the body of a delete record.
+     * @param id ID of the deleted item
+     * @param index Position the item was deleted from
+     * @return Returns the record writer*/
+    private static InventoryJournal.RecordWriter deleteRecord(int id, int index){
+        return out -> {
+            out.writeInt(id);
+            out.writeInt(index);
+        };
+    }
+
+    /** Replaces several parts in the allParts list.
+     * Accepts a map from list index to the Part placed at that index, overwriting the existing parts. Listeners
+     * receive a single change event, and the updates are persisted with a single log sync. Every index is checked
+     * before any part is replaced.
+     * @param updates Parts to store, keyed by the index of the part each one replaces*/
+    public static void updateParts(Map<Integer, ? extends Part> updates){
+        writeLock.lock();
+        try {
+            for(int index : updates.keySet()){
+                Objects.checkIndex(index, allParts.size());
+            }
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(updates.size());
+            allParts.batch(() -> {
+                for(Map.Entry<Integer, ? extends Part> update : updates.entrySet()){
+                    int index = update.getKey();
+                    Part newPart = update.getValue();
+                    partReplaced(allParts.set(index, newPart), newPart);
+                    records.add(out -> {
+                        out.writeInt(index);
+                        InventoryCodec.writePart(out, newPart);
+                    });
+                }
+            });
+            logAll(InventoryJournal.UPDATE_PART, records);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Replaces several products in the allProducts list.
+     * Accepts a map from list index to the Product placed at that index, overwriting the existing products. Listeners
+     * receive a single change event, and the updates are persisted with a single log sync. Every index is checked
+     * before any product is replaced.
+     * @param updates Products to store, keyed by the index of the product each one replaces*/
+    public static void updateProducts(Map<Integer, ? extends Product> updates){
+        writeLock.lock();
+        try {
+            for(int index : updates.keySet()){
+                Objects.checkIndex(index, allProducts.size());
+            }
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(updates.size());
+            List<Product> stored = new ArrayList<>(updates.size());
+            allProducts.batch(() -> {
+                for(Map.Entry<Integer, ? extends Product> update : updates.entrySet()){
+                    int index = update.getKey();
+                    Product newProduct = update.getValue();
+                    productReplaced(allProducts.set(index, newProduct), newProduct);
+                    stored.add(newProduct);
+                    int[] associatedEntries = InventoryCodec.associatedEntries(newProduct);
+                    records.add(out -> {
+                        out.writeInt(index);
+                        InventoryCodec.writeProduct(out, newProduct, associatedEntries);
+                    });
+                }
+            });
+            logProducts(InventoryJournal.UPDATE_PRODUCT, records, stored);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Removes several parts from the allParts list.
+     * Listeners receive a single change event, and the removals are persisted with a single log sync.
+     * @param parts Parts to be removed
+     * @return Returns the number of parts that were found and removed*/
+    public static int deleteParts(Collection<? extends Part> parts){
+        writeLock.lock();
+        try {
+            Set<Part> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+            targets.addAll(parts);
+            int[] indexes = partRows.indexesOf(targets);
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(indexes.length);
+            allParts.batch(() -> {
+                //Removes from the back so the logged indexes stay valid when replayed in order
+                for(int i = indexes.length - 1; i >= 0; i--){
+                    Part removed = allParts.remove(indexes[i]);
+                    partRemoved(removed);
+                    records.add(deleteRecord(removed.getId(), indexes[i]));
+                }
+            });
+            logAll(InventoryJournal.DELETE_PART_BY_ID, records);
+            return indexes.length;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Removes several products from the allProducts list.
+     * Listeners receive a single change event, and the removals are persisted with a single log sync.
+     * @param products Products to be removed
+     * @return Returns the number of products that were found and removed*/
+    public static int deleteProducts(Collection<? extends Product> products){
+        writeLock.lock();
+        try {
+            Set<Product> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+            targets.addAll(products);
+            int[] indexes = productRows.indexesOf(targets);
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(indexes.length);
+            allProducts.batch(() -> {
+                for(int i = indexes.length - 1; i >= 0; i--){
+                    Product removed = allProducts.remove(indexes[i]);
+                    productRemoved(removed);
+                    records.add(deleteRecord(removed.getId(), indexes[i]));
+                }
+            });
+            logAll(InventoryJournal.DELETE_PRODUCT_BY_ID, records);
+            return indexes.length;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Reserves stock of a part for an order.
+     * The reserved stock still counts as stock until the order is committed, and cannot be reserved again or removed
+     * by adjustStock(). A reservation must leave at least the part's min units unreserved. Runs without locking, so
+     * any number of threads can reserve stock at once. Reservations are not persisted, so they end when the
+     * application exits.
+     * @param partId ID of the part
+     * @param quantity Amount to reserve, greater than zero
+     * @return Returns true if the stock was reserved, or false if the part was not found or too little stock is left*/
+    public static boolean reserve(int partId, int quantity){
+        checkQuantity(quantity);
+        Part part = lookupPart(partId);
+        if(part == null || !part.reserveStock(quantity)){
+            return false;
+        }
+        invalidateRollups(partId);
+        return true;
+    }
+
+    /** Removes reserved stock of a part from its stock, as when a reserved order ships.
+     * Runs without locking, and the new stock is persisted.
+     * @param partId ID of the part
+     * @param quantity Reserved amount to take, greater than zero
+     * @return Returns true if the stock was taken, or false if the part was not found or less than quantity is reserved*/
+    public static boolean commit(int partId, int quantity){
+        checkQuantity(quantity);
+        Part part = lookupPart(partId);
+        if(part == null || !part.commitStock(quantity)){
+            return false;
+        }
+        logStock(InventoryJournal.PART_STOCK, part.getId(), part::getStock);
+        return true;
+    }
+
+    /** Returns reserved stock of a part to its unreserved stock, as when a reserved order is cancelled.
+     * Runs without locking.
+     * @param partId ID of the part
+     * @param quantity Reserved amount to release, greater than zero
+     * @return Returns true if the stock was released, or false if the part was not found or less than quantity is reserved*/
+    public static boolean release(int partId, int quantity){
+        checkQuantity(quantity);
+        Part part = lookupPart(partId);
+        if(part == null || !part.releaseStock(quantity)){
+            return false;
+        }
+        invalidateRollups(partId);
+        return true;
+    }
+
+    /** Adds to or removes from the stock of a part, as when stock is received or counted.
+     * A removal must leave at least the part's min units unreserved, and an addition cannot take the stock above the
+     * part's max. Runs without locking, and the new stock is persisted.
+     * @param partId ID of the part
+     * @param delta Amount added, or removed if negative
+     * @return Returns true if the stock was changed, or false if the part was not found or the change would pass min or max*/
+    public static boolean adjustStock(int partId, int delta){
+        Part part = lookupPart(partId);
+        if(part == null || !part.adjustStock(delta)){
+            return false;
+        }
+        logStock(InventoryJournal.PART_STOCK, part.getId(), part::getStock);
+        return true;
+    }
+
+    /** Adds to or removes from the stock of a product within the product's min and max.
+     * Runs without locking, and the new stock is persisted.
+     * @param productId ID of the product
+     * @param delta Amount added, or removed if negative
+     * @return Returns true if the stock was changed, or false if the product was not found or the change would pass min or max*/
+    public static boolean adjustProductStock(int productId, int delta){
+        Product product = lookupProduct(productId);
+        if(product == null || !product.adjustStock(delta)){
+            return false;
+        }
+        logStock(InventoryJournal.PRODUCT_STOCK, product.getId(), product::getStock);
+        return true;
+    }
+
+    /** Builds units of a product from its associated parts and sub-assemblies.
+     * Each associated part and sub-assembly uses its quantity in the product's bills of materials per product built;
+     * sub-assemblies are taken from their own stock, not built. The stock of every part, then of every sub-assembly,
+     * is reserved in ascending ID order, the product stock is raised, and only then is the reserved stock taken; if
+     * any part or sub-assembly lacks stock above its min, or the product would pass its max, the reservations already
+     * made are released and nothing changes. Runs without locking the Inventory, so many builds can run at once, and
+     * the new stock of the product, its parts and its sub-assemblies is persisted in a single log record.
+     * @param productId ID of the product to build
+     * @param quantity Number of units to build, greater than zero
+     * @return Returns true if the units were built, or false if the product or one of its parts or sub-assemblies was
+     * not found, a part or sub-assembly lacks stock, or the product stock would pass its max*/
+    public static boolean buildProduct(int productId, int quantity){
+        checkQuantity(quantity);
+        Product product = lookupProduct(productId);
+        if(product == null){
+            return false;
+        }
+        BillOfMaterials<Part> bill = product.billOfMaterials();
+        long[] entries = sortedEntries(bill);
+        int[] partIds = new int[entries.length];
+        Part[] parts = new Part[entries.length];
+        int[] needed = new int[entries.length];
+        for(int i = 0; i < entries.length; i++){
+            partIds[i] = (int) (entries[i] >> 32);
+            long units = (entries[i] & 0xFFFFFFFFL) * quantity;
+            parts[i] = lookupPart(partIds[i]);
+            if(parts[i] == null || units > Integer.MAX_VALUE){
+                return false;
+            }
+            needed[i] = (int) units;
+        }
+        long[] childEntries = sortedEntries(product.subAssemblies());
+        int[] childIds = new int[childEntries.length];
+        Product[] children = new Product[childEntries.length];
+        int[] childNeeded = new int[childEntries.length];
+        for(int i = 0; i < childEntries.length; i++){
+            childIds[i] = (int) (childEntries[i] >> 32);
+            long units = (childEntries[i] & 0xFFFFFFFFL) * quantity;
+            children[i] = lookupProduct(childIds[i]);
+            if(children[i] == null || units > Integer.MAX_VALUE){
+                return false;
+            }
+            childNeeded[i] = (int) units;
+        }
+
+        int reserved = 0;
+        while(reserved < parts.length && parts[reserved].reserveStock(needed[reserved])){
+            reserved++;
+        }
+        int childrenReserved = 0;
+        if(reserved == parts.length){
+            while(childrenReserved < children.length && children[childrenReserved].reserveStock(childNeeded[childrenReserved])){
+                childrenReserved++;
+            }
+        }
+        if(childrenReserved < children.length || reserved < parts.length || !product.adjustStock(quantity)){
+            for(int i = 0; i < reserved; i++){
+                parts[i].releaseStock(needed[i]);
+                invalidateRollups(partIds[i]);      //Rollups read while the stock was reserved count it as taken
+            }
+            for(int i = 0; i < childrenReserved; i++){
+                children[i].releaseStock(childNeeded[i]);
+                invalidateAssemblyRollups(childIds[i]);
+            }
+            return false;
+        }
+        for(int i = 0; i < parts.length; i++){
+            if(!parts[i].commitStock(needed[i])){
+                throw new IllegalStateException("Stock reserved for building product " + productId
+                        + " was taken from part " + partIds[i] + " by another caller");
+            }
+        }
+        for(int i = 0; i < children.length; i++){
+            if(!children[i].commitStock(childNeeded[i])){
+                throw new IllegalStateException("Stock reserved for building product " + productId
+                        + " was taken from product " + childIds[i] + " by another caller");
+            }
+        }
+        logBuild(product, parts, children);
+        return true;
+    }
+
+    /** Packs the entries of a bill of materials as ID and quantity pairs sorted by ID, so items are reserved in the
+     * same order by every build and two builds cannot each wait on stock the other reserved.
+     * @param bill Bill of materials to sort
+     * @return Returns each entry as the ID in the high 32 bits and the quantity in the low 32 bits, ascending*/
+    private static long[] sortedEntries(BillOfMaterials<?> bill){
+        long[] entries = new long[bill.size()];
+        for(int i = 0; i < entries.length; i++){
+            entries[i] = ((long) bill.partId(i) << 32) | bill.quantity(i);
+        }
+        Arrays.sort(entries);
+        return entries;
+    }
+
+    /** Checks that an order quantity is positive.
+     * @param quantity Quantity to check*/
+    private static void checkQuantity(int quantity){
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be greater than zero: " + quantity);
+        }
+    }
+
+    /** Records that the quantities of a product's associated parts changed.
+     * Called by Product after its bill of materials was changed. Only products already stored in the inventory are
+     * logged, since products being assembled in the Add and Modify windows are logged in full when they are added or
+     * updated.
+     * @param product Product whose associated parts changed
+     * @param partIds IDs of the changed parts
+     * @param deltas Units added to each part, or removed if negative, parallel to partIds; zero entries are skipped*/
+    static void associationsChanged(Product product, int[] partIds, int[] deltas){
+        if(!product.isStored()){
+            return;     //Checked before locking, since products are built from snapshot rows under the read lock
+        }
+        writeLock.lock();
+        try {
+            if(product.isStored()){
+                List<InventoryJournal.RecordWriter> records = new ArrayList<>(partIds.length);
+                for(int i = 0; i < partIds.length; i++){
+                    int partId = partIds[i];
+                    int delta = deltas[i];
+                    if(delta == 0){
+                        continue;
+                    }
+                    if(!indexesStale){
+                        addWhereUsed(partId, product.getId(), delta);
+                    }
+                    records.add(out -> {
+                        out.writeInt(product.getId());
+                        out.writeInt(partId);
+                        out.writeInt(delta);
+                    });
+                }
+                if(!indexesStale){
+                    invalidateAssemblies(product.getId());
+                }
+                logAll(InventoryJournal.ASSOCIATED_QUANTITY, records);
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Changes the quantities of a product's sub-assemblies.
+     * Called by Product. Runs under the write lock, so two products can never be made sub-assemblies of each
+     * other at the same time. Changes to stored products are indexed, logged, and make the memoized explosions of
+     * every assembly containing the product stale.
+     * @param product Product whose sub-assemblies change
+     * @param productIds IDs of the changed sub-assemblies
+     * @param children Product object of each change that adds units, or null if only the ID is known
+     * @param deltas Units added, or removed if negative, parallel to productIds
+     * @return Returns the number of units added or removed
+     * @throws IllegalArgumentException if an added sub-assembly is the product or already contains it*/
+    static int changeSubAssemblies(Product product, int[] productIds, Product[] children, int[] deltas){
+        writeLock.lock();
+        try {
+            for(int i = 0; i < productIds.length; i++){
+                if(deltas[i] > 0 && containsAssembly(productIds[i], children[i], product.getId())){
+                    throw new IllegalArgumentException("Product " + productIds[i] + " cannot be a sub-assembly of product "
+                            + product.getId() + " because it is or contains that product");
+                }
+            }
+            BillOfMaterials<Product> old = product.subAssemblies();
+            BillOfMaterials<Product> changed = old.change(productIds, children, deltas);
+            if(changed == old){
+                return 0;
+            }
+            product.setSubAssemblies(changed);
+            int units = 0;
+            List<InventoryJournal.RecordWriter> records = new ArrayList<>(productIds.length);
+            for(int i = 0; i < productIds.length; i++){
+                int childId = productIds[i];
+                int delta = deltas[i];
+                units += Math.abs(delta);
+                if(delta == 0 || !product.isStored()){
+                    continue;
+                }
+                if(!indexesStale){
+                    addAssembly(childId, product.getId(), delta);
+                }
+                records.add(out -> {
+                    out.writeInt(product.getId());
+                    out.writeInt(childId);
+                    out.writeInt(delta);
+                });
+            }
+            if(product.isStored()){
+                if(!indexesStale){
+                    invalidateAssemblies(product.getId());
+                }
+                logAll(InventoryJournal.SUB_ASSEMBLY_QUANTITY, records);
+            }
+            return units;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Checks whether a product is, or contains at any depth, the product with a given ID.
+     * @param productId ID of the product to search from
+     * @param product Product object to use if no product is stored with the ID, or null
+     * @param targetId ID to search for
+     * @return Returns true if the target ID is reachable through sub-assemblies, otherwise returns false*/
+    private static boolean containsAssembly(int productId, Product product, int targetId){
+        if(productId == targetId){
+            return true;
+        }
+        Product start = lookupProduct(productId);
+        List<Product> pending = new ArrayList<>();
+        pending.add(start != null ? start : product);
+        IntIntHashMap visited = new IntIntHashMap(16, 0);
+        visited.put(productId, 1);
+        while(!pending.isEmpty()){
+            Product current = pending.remove(pending.size() - 1);
+            if(current == null){
+                continue;
+            }
+            BillOfMaterials<Product> bill = current.subAssemblies();
+            for(int i = 0; i < bill.size(); i++){
+                int childId = bill.partId(i);
+                if(childId == targetId){
+                    return true;
+                }
+                if(!visited.containsKey(childId)){
+                    visited.put(childId, 1);
+                    pending.add(bill.item(i));
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Calculates the parts needed to build units of a product, following its sub-assemblies to any depth.
+     * The explosion of one unit of each product is memoized and reused by every assembly containing it until the
+     * parts or sub-assemblies below it change, so exploding a deep bill of materials repeatedly stays fast.
+     * @param productId ID of the product to explode
+     * @param units Number of units, zero or more
+     * @return Returns the total quantity of each part needed, or null if the product was not found
+     * @throws ArithmeticException if a quantity does not fit in a long*/
+    public static BomExplosion explode(int productId, int units){
+        if(units < 0){
+            throw new IllegalArgumentException("Units must not be negative: " + units);
+        }
+        Product product = lookupProduct(productId);
+        return product == null ? null : product.explosion(new int[0]).times(units);
+    }
+
+    /** Values the parts in stock exactly, without building any part loaded from a snapshot.
+     * The parts list is copied under the read lock and valued without it. Price and stock are copied a block at a
+     * time into primitive columns, which Money.total() multiplies and adds up in one tight loop, so valuing millions
+     * of parts takes milliseconds.
+     * @return Returns the sum of price times stock over every part, in cents*/
+    public static long getPartValuationCents(){
+        LazyRowList.Capture<Part> parts;
+        ColumnarSnapshot snapshot;
+        readLock.lock();
+        try {
+            parts = partRows.capture();
+            snapshot = loadedSnapshot;
+        } finally {
+            readLock.unlock();
+        }
+        long[] prices = new long[VALUATION_BLOCK];
+        int[] stock = new int[VALUATION_BLOCK];
+        long total = 0;
+        for(int from = 0; from < parts.size; from += VALUATION_BLOCK){
+            int to = Math.min(parts.size, from + VALUATION_BLOCK);
+            parts.columns(from, to, Part::getPriceCents, row -> snapshot.partPriceCents(row),
+                    Part::getStock, row -> snapshot.partStock(row), prices, stock);
+            total += Money.total(prices, stock, to - from);
+        }
+        return total;
+    }
+
+    /** Values the products in stock exactly, as getPartValuationCents() does for parts.
+     * @return Returns the sum of price times stock over every product, in cents*/
+    public static long getProductValuationCents(){
+        LazyRowList.Capture<Product> products;
+        ColumnarSnapshot snapshot;
+        readLock.lock();
+        try {
+            products = productRows.capture();
+            snapshot = loadedSnapshot;
+        } finally {
+            readLock.unlock();
+        }
+        long[] prices = new long[VALUATION_BLOCK];
+        int[] stock = new int[VALUATION_BLOCK];
+        long total = 0;
+        for(int from = 0; from < products.size; from += VALUATION_BLOCK){
+            int to = Math.min(products.size, from + VALUATION_BLOCK);
+            products.columns(from, to, Product::getPriceCents, row -> snapshot.productPriceCents(row),
+                    Product::getStock, row -> snapshot.productStock(row), prices, stock);
+            total += Money.total(prices, stock, to - from);
+        }
+        return total;
+    }
+
+    /** Finds the InHouse parts made on a machine from the machine index, in time proportional to the number found.
+     * Only the matching parts are built. As with lookupPart(int), one part is returned for each ID.
+     * @param machineId Machine ID to search for
+     * @return Returns a new list of the matching parts in ascending ID order*/
+    public static List<Part> lookupPartsByMachine(int machineId){
+        ensureIndexes();
+        return groupParts(partGroups.machineMembers(machineId),
+                part -> part instanceof InHouse && ((InHouse) part).getMachineID() == machineId);
+    }
+
+    /** Finds the Outsourced parts bought from a company from the supplier index, in time proportional to the number
+     * found. The company name must match exactly. Only the matching parts are built. As with lookupPart(int), one
+     * part is returned for each ID.
+     * @param companyName Company name to search for
+     * @return Returns a new list of the matching parts in ascending ID order*/
+    public static List<Part> lookupPartsBySupplier(String companyName){
+        ensureIndexes();
+        int supplierId = Outsourced.getSuppliers().find(companyName);
+        if(supplierId < 0){
+            return new ArrayList<>();
+        }
+        return groupParts(partGroups.supplierMembers(supplierId),
+                part -> part instanceof Outsourced && ((Outsourced) part).getSupplierId() == supplierId);
+    }
+
+    /** Looks up the parts of a machine or supplier group.
+     * @param ids IDs of the parts in the group, in ascending order
+     * @param filter Tests that a part looked up by ID is the part in the group, and not another part with its ID
+     * @return Returns a new list of the parts found*/
+    private static List<Part> groupParts(int[] ids, Predicate<Part> filter){
+        List<Part> parts = new ArrayList<>(ids.length);
+        for(int id : ids){
+            Part part = lookupPart(id);
+            if(part != null && filter.test(part)){
+                parts.add(part);
+            }
+        }
+        return parts;
+    }
+
+    /** Finds the parts whose stock, price or headroom lies within a range, from the range indexes.
+     * The indexes are built from the snapshot columns by the first range search, without building any part, and are
+     * kept up to date afterwards, so a search takes logarithmic time plus time proportional to the number of parts
+     * found. Only the matching parts are built. As with lookupPart(int), one part is returned for each ID.
+     * @param query Field and bounds to search, such as RangeQuery.parse("stock&lt;5")
+     * @return Returns a new list of the matching parts in ascending order of the field, then of ID*/
+    public static List<Part> lookupParts(RangeQuery query){
+        int[] ids = partRangeIds(query);
+        List<Part> parts = new ArrayList<>(ids.length);
+        IntIntHashMap seen = new IntIntHashMap(ids.length, 0);     //Parts sharing an ID are each indexed under it
+        for(int id : ids){
+            if(seen.put(id, 1) == 0){
+                Part part = lookupPart(id);
+                if(part != null && query.matches(part)){
+                    parts.add(part);
+                }
+            }
+        }
+        return parts;
+    }
+
+    /** Finds the products whose stock, price or headroom lies within a range, as lookupParts(RangeQuery) does for
+     * parts.
+     * @param query Field and bounds to search
+     * @return Returns a new list of the matching products in ascending order of the field, then of ID*/
+    public static List<Product> lookupProducts(RangeQuery query){
+        int[] ids = productRangeIds(query);
+        List<Product> products = new ArrayList<>(ids.length);
+        IntIntHashMap seen = new IntIntHashMap(ids.length, 0);
+        for(int id : ids){
+            if(seen.put(id, 1) == 0){
+                Product product = lookupProduct(id);
+                if(product != null && query.matches(product)){
+                    products.add(product);
+                }
+            }
+        }
+        return products;
+    }
+
+    /** Searches the part range indexes, building them first if this is the first range search since they were
+     * dropped.
+     * @param query Field and bounds to search
+     * @return Returns the IDs of the parts indexed within the range*/
+    private static int[] partRangeIds(RangeQuery query){
+        ensureIndexes();
+        if(!partRanges.isBuilt()){
+            buildPartRanges();
+        }
+        return partRanges.ids(query);
+    }
+
+    /** Builds the part range indexes from the stored parts and, for the snapshot rows that have not been read, from
+     * the snapshot columns. The parts list is copied under the read lock and indexed without it. */
+    private static void buildPartRanges(){
+        partRanges.build(readLock, () -> {
+            LazyRowList.Capture<Part> parts = partRows.capture();
+            ColumnarSnapshot snapshot = loadedSnapshot;
+            return loader -> {
+                for(int i = 0; i < parts.size; i++){
+                    Part part = parts.item(i);
+                    if(part != null){
+                        loader.add(part);
+                    }
+                    else {
+                        int row = parts.rows[i];
+                        loader.addRow(row, snapshot.partId(row), snapshot.partStock(row), snapshot.partPriceCents(row), snapshot.partMin(row));
+                    }
+                }
+            };
+        });
+    }
+
+    /** Searches the product range indexes, building them first if this is the first range search since they were
+     * dropped.
+     * @param query Field and bounds to search
+     * @return Returns the IDs of the products indexed within the range*/
+    private static int[] productRangeIds(RangeQuery query){
+        ensureIndexes();
+        if(!productRanges.isBuilt()){
+            buildProductRanges();
+        }
+        return productRanges.ids(query);
+    }
+
+    /** Builds the product range indexes from the stored products, which are all built once the indexes are. The
+     * products list is copied under the read lock and indexed without it. */
+    private static void buildProductRanges(){
+        productRanges.build(readLock, () -> {
+            List<Product> products = new ArrayList<>(allProducts);
+            return loader -> {
+                for(Product product : products){
+                    loader.add(product);
+                }
+            };
+        });
+    }
+
+    /** Retrieves the number of parts made on a machine, their combined stock and its exact value, without building
+     * any part. Includes every stock and price change that finished before the call.
+     * @param machineId Machine ID
+     * @return Returns the totals, which are zero if no part is made on the machine*/
+    public static PartGroupTotals getMachineTotals(int machineId){
+        ensureIndexes();
+        return partGroups.machineTotals(machineId);
+    }
+
+    /** Retrieves the number of parts bought from a company, their combined stock and its exact value, without
+     * building any part. The company name must match exactly.
+     * @param companyName Company name
+     * @return Returns the totals, which are zero if no part is bought from the company*/
+    public static PartGroupTotals getSupplierTotals(String companyName){
+        ensureIndexes();
+        int supplierId = Outsourced.getSuppliers().find(companyName);
+        return supplierId < 0 ? PartGroupTotals.EMPTY : partGroups.supplierTotals(supplierId);
+    }
+
+    /** Retrieves the totals of every machine that makes at least one part, in time proportional to the number of
+     * machines.
+     * @return Returns a new map of the totals, ordered by machine ID*/
+    public static Map<Integer, PartGroupTotals> getTotalsByMachine(){
+        ensureIndexes();
+        return new TreeMap<>(partGroups.machineTotals());
+    }
+
+    /** Retrieves the totals of every company that sells at least one part, in time proportional to the number of
+     * companies.
+     * @return Returns a new map of the totals, ordered by company name*/
+    public static Map<String, PartGroupTotals> getTotalsBySupplier(){
+        ensureIndexes();
+        Map<String, PartGroupTotals> totals = new TreeMap<>();
+        partGroups.supplierTotals().forEach((supplierId, groupTotals) -> totals.put(Outsourced.getSuppliers().get(supplierId), groupTotals));
+        return totals;
+    }
+
+    /** Sorts the allParts list by one field, as a TableView does when a column header is clicked.
+     * The field is read from the snapshot columns for rows that have not been read, so sorting does not build any
+     * parts. The sort is stable. Only the column and direction are persisted, and the sort is run again when the log is
+     * replayed, so a sort costs one small log record however many parts are moved.
+     * @param column Field to sort by
+     * @param ascending True to sort in ascending order, false for descending*/
+    public static void sortParts(InventoryColumn column, boolean ascending){
+        writeLock.lock();
+        try {
+            ColumnarSnapshot snapshot = loadedSnapshot;
+            int[] order;
+            if(column == InventoryColumn.ID){
+                order = partRows.sortOrder(Part::getId, row -> snapshot.partId(row), ascending);
+            }
+            else if(column == InventoryColumn.NAME){
+                order = partRows.sortOrderByText(Part::getName, row -> snapshot.partName(row), ascending);
+            }
+            else if(column == InventoryColumn.STOCK){
+                order = partRows.sortOrder(Part::getStock, row -> snapshot.partStock(row), ascending);
+            }
+            else {
+                order = partRows.sortOrder(Part::getPriceCents, row -> snapshot.partPriceCents(row), ascending);
+            }
+            if(order != null){
+                allParts.permute(order);
+                partsReordered(order);
+                log(InventoryJournal.SORT_PARTS, sortRecord(column, ascending));
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Sorts the allProducts list by one field without building any products, as sortParts() does for parts.
+     * @param column Field to sort by
+     * @param ascending True to sort in ascending order, false for descending*/
+    public static void sortProducts(InventoryColumn column, boolean ascending){
+        writeLock.lock();
+        try {
+            ColumnarSnapshot snapshot = loadedSnapshot;
+            int[] order;
+            if(column == InventoryColumn.ID){
+                order = productRows.sortOrder(Product::getId, row -> snapshot.productId(row), ascending);
+            }
+            else if(column == InventoryColumn.NAME){
+                order = productRows.sortOrderByText(Product::getName, row -> snapshot.productName(row), ascending);
+            }
+            else if(column == InventoryColumn.STOCK){
+                order = productRows.sortOrder(Product::getStock, row -> snapshot.productStock(row), ascending);
+            }
+            else {
+                order = productRows.sortOrder(Product::getPriceCents, row -> snapshot.productPriceCents(row), ascending);
+            }
+            if(order != null){
+                allProducts.permute(order);
+                productsReordered(order);
+                log(InventoryJournal.SORT_PRODUCTS, sortRecord(column, ascending));
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Updates the name index after allParts was reordered. The order itself is not logged: sortParts() logs the
+     * column and direction it sorted by, and other reorderings, such as a setAll() from the user interface, only
+     * change how the parts are shown until the next snapshot. Replayed updates and deletes find their part by ID
+     * when its logged position no longer holds it.
+     * @param order Old index of the part placed at each new index*/
+    private static void partsReordered(int[] order){
+        if(!indexesStale && !partNamesStale){
+            partNames.reorder(allParts);
+        }
+    }
+
+    /** Updates the name index after allProducts was reordered. As with partsReordered(), the order is not logged.
+     * @param order Old index of the product placed at each new index*/
+    private static void productsReordered(int[] order){
+        if(!indexesStale){
+            productNames.reorder(allProducts);
+        }
+    }
+
+    /** Creates the body of a sort record.
+     * @param column Field sorted by
+     * @param ascending True if sorted in ascending order
+     * @return Returns the record writer*/
+    private static InventoryJournal.RecordWriter sortRecord(InventoryColumn column, boolean ascending){
+        return out -> {
+            out.writeByte(column.ordinal());
+            out.writeBoolean(ascending);
+        };
+    }
+
+    /** Applies a setAll() call on the parts shown by the user interface, such as a TableView sort, to allParts.
+     * Called on the JavaFX Application Thread. Waiting changes are shown first, so the new contents are compared with
+     * the current parts.
+     * @param parts New contents of the list*/
+    private static void setAllParts(Collection<? extends Part> parts){
+        writeLock.lock();
+        try {
+            partsView.flush();
+            allParts.setAll(parts);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Applies a setAll() call on the products shown by the user interface, such as a TableView sort, to allProducts.
+     * @param products New contents of the list*/
+    private static void setAllProducts(Collection<? extends Product> products){
+        writeLock.lock();
+        try {
+            productsView.flush();
+            allProducts.setAll(products);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Retrieves the part built from a snapshot row, for the parts shown by the user interface.
+     * Each row is built once while holding partRows, so both lists receive the same object.
+     * @param row Snapshot row to read
+     * @return Returns the part for the row*/
+    private static Part partRow(int row){
+        readLock.lock();
+        try {
+            return partRows.row(row);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Retrieves the parts built from several snapshot rows, for a page of the parts shown by the user interface.
+     * @param rows Snapshot rows to read
+     * @return Returns the part for each row, in the order given*/
+    private static List<Part> partRowsAt(int[] rows){
+        readLock.lock();
+        try {
+            List<Part> parts = new ArrayList<>(rows.length);
+            for(int row : rows){
+                parts.add(partRows.row(row));
+            }
+            return parts;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Retrieves the products built from several snapshot rows, for a page of the products shown by the user interface.
+     * @param rows Snapshot rows to read
+     * @return Returns the product for each row, in the order given*/
+    private static List<Product> productRowsAt(int[] rows){
+        readLock.lock();
+        try {
+            List<Product> products = new ArrayList<>(rows.length);
+            for(int row : rows){
+                products.add(productRows.row(row));
+            }
+            return products;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Retrieves the product built from a snapshot row, for the products shown by the user interface.
+     * @param row Snapshot row to read
+     * @return Returns the product for the row*/
+    private static Product productRow(int row){
+        readLock.lock();
+        try {
+            return productRows.row(row);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Copies allParts and allProducts as they are at one moment, for reading every item without holding the read
+     * lock.
+     * @param parts Receives the parts in order
+     * @param products Receives the products in order*/
+    static void copyInventory(List<Part> parts, List<Product> products){
+        readLock.lock();
+        try {
+            parts.addAll(allParts);
+            products.addAll(allProducts);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Starts delivering changes to the lists returned by getAllParts() and getAllProducts() on the JavaFX
+     * Application Thread. Called when the application window starts; until then the lists are changed on the thread
+     * making each change. */
+    public static void showChangesOnFxThread(){
+        FxListMirror.deferToFxThread();
+    }
+
+    /** Opens the write-ahead log in a directory and loads the inventory saved there.
+     * Every mutation made after this call is persisted before the mutating method returns. The journal is flushed
+     * and closed when the JVM shuts down.
+     * @param dataDir Directory holding the snapshot and log files
+     * @return Returns true if saved inventory was loaded, or false if the directory held no saved inventory*/
+    public static boolean openJournal(Path dataDir) throws IOException {
+        replaying = true;
+        try {
+            journal = InventoryJournal.open(dataDir);
+        } finally {
+            replaying = false;
+        }
+        InventoryJournal opened = journal;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                opened.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the inventory journal: " + e.getMessage());
+            }
+        }, "inventory-journal-close"));
+        return !journal.isEmpty();
+    }
+
+    /** Releases the write lock. If the calling thread no longer holds it, waits until the log records it queued
+     * are on disk and starts a snapshot if one is due. The change is visible to readers and other writers while its
+     * records are synced, so no lock is held across a sync, and the mutating method still returns only once its
+     * change is persisted. */
+    private static void unlockWrite(){
+        long seq = 0;
+        if(lock.getWriteHoldCount() == 1){
+            seq = unsyncedSeq;
+            unsyncedSeq = 0;
+        }
+        writeLock.unlock();
+        if(seq != 0){
+            awaitDurable(seq);
+        }
+    }
+
+    /** Waits until the log records queued up to a sequence number are on disk, then starts a snapshot if one is due.
+     * Called without holding the read or write lock.
+     * @param seq Sequence number of the last record to wait for*/
+    private static void awaitDurable(long seq){
+        InventoryJournal current = journal;
+        if(current == null){
+            return;
+        }
+        current.awaitDurable(seq);
+        if(current.isCheckpointDue()){
+            checkpointIfDue();
+        }
+    }
+
+    /** Queues a mutation for the write-ahead log, if persistence is enabled. Called under the write lock; the
+     * record is waited for once the lock is released.
+     * @param type Log record type
+     * @param writer Writes the fields of the record*/
+    private static void log(byte type, InventoryJournal.RecordWriter writer){
+        logAll(type, List.of(writer));
+    }
+
+    /** Queues several mutations of the same type for the write-ahead log, to be synced together, if persistence is
+     * enabled. Called under the write lock.
+     * @param type Log record type
+     * @param writers Write the fields of each record, in log order*/
+    private static void logAll(byte type, List<InventoryJournal.RecordWriter> writers){
+        if(journal == null || replaying){
+            return;
+        }
+        long seq = journal.enqueue(type, writers);
+        if(seq != 0){
+            unsyncedSeq = seq;
+        }
+    }
+
+    /** Queues product records for the write-ahead log, followed by the sub-assemblies of the stored products.
+     * Both are queued under the write lock, which a checkpoint waits for, so a snapshot never holds sub-assemblies
+     * that the log after it adds again.
+     * @param type ADD_PRODUCT or UPDATE_PRODUCT
+     * @param writers Write the fields of each product record, in log order
+     * @param products Products stored by the records*/
+    private static void logProducts(byte type, List<InventoryJournal.RecordWriter> writers, List<Product> products){
+        if(journal == null || replaying){
+            return;
+        }
+        logAll(type, writers);
+        List<InventoryJournal.RecordWriter> subAssemblyRecords = new ArrayList<>();
+        for(Product product : products){
+            BillOfMaterials<Product> bill = product.subAssemblies();
+            for(int i = 0; i < bill.size(); i++){
+                int childId = bill.partId(i);
+                int quantity = bill.quantity(i);
+                subAssemblyRecords.add(out -> {
+                    out.writeInt(product.getId());
+                    out.writeInt(childId);
+                    out.writeInt(quantity);
+                });
+            }
+        }
+        logAll(InventoryJournal.SUB_ASSEMBLY_QUANTITY, subAssemblyRecords);
+    }
+
+    /** Persists the stock of a part or product after a change made without locking the Inventory.
+     * The stock is read when the record is written, so the last record for an item always holds its final stock even
+     * when several threads change it at once.
+     * @param type PART_STOCK or PRODUCT_STOCK
+     * @param id ID of the part or product
+     * @param stock Reads the current stock*/
+    private static void logStock(byte type, int id, IntSupplier stock){
+        InventoryJournal current = journal;
+        if(current == null || replaying){
+            return;
+        }
+        awaitDurable(current.enqueueLatest(type, out -> {
+            out.writeInt(id);
+            out.writeInt(stock.getAsInt());
+        }));
+    }
+
+    /** Persists the stock of a product and the parts and sub-assemblies used to build it in one log record, so a
+     * crash cannot keep only part of a build. The stock values are read when the record is written, as in logStock().
+     * @param product Product that was built
+     * @param parts Parts whose stock was used
+     * @param children Sub-assemblies whose stock was used*/
+    private static void logBuild(Product product, Part[] parts, Product[] children){
+        InventoryJournal current = journal;
+        if(current == null || replaying){
+            return;
+        }
+        awaitDurable(current.enqueueLatest(InventoryJournal.PRODUCT_BUILT, out -> {
+            out.writeInt(product.getId());
+            out.writeInt(product.getStock());
+            out.writeInt(parts.length);
+            for(Part part : parts){
+                out.writeInt(part.getId());
+                out.writeInt(part.getStock());
+            }
+            out.writeInt(children.length);
+            for(Product child : children){
+                out.writeInt(child.getId());
+                out.writeInt(child.getStock());
+            }
+        }));
+    }
+
+    /** Starts writing a snapshot in the background if the log has grown enough since the last one.
+     * Holds the read lock while capturing the lists, so the capture holds exactly the changes whose records were
+     * queued before the new log generation starts, since changes are queued under the write lock. */
+    private static void checkpointIfDue(){
+        readLock.lock();
+        try {
+            if(journal.isCheckpointDue()){
+                //Captures the current positions on this thread without building unread rows; the snapshot is written in the background
+                LazyRowList.Capture<Part> parts = partRows.capture();
+                LazyRowList.Capture<Product> products = productRows.capture();
+                int[][] associatedParts = new int[products.size][];
+                int[][] subAssemblies = new int[products.size][];
+                for(int i = 0; i < products.size; i++){
+                    if(products.item(i) != null){
+                        associatedParts[i] = InventoryCodec.associatedEntries(products.item(i));
+                        subAssemblies[i] = InventoryCodec.subAssemblyEntries(products.item(i));
+                    }
+                }
+                journal.checkpoint(parts, products, associatedParts, subAssemblies, loadedSnapshot);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Finds every product that uses a part.
+     * Answered from the reverse part-to-product index, in time proportional to the number of products found.
+     * @param partId ID of the part to search for
+     * @return Returns a list of the products that have the part associated with them. If no product uses the part, returns an empty list.*/
+    public static ObservableList<Product> whereUsed(int partId){
+        ensureIndexes();
+        readLock.lock();
+        try {
+            ObservableList<Product> users = FXCollections.observableArrayList();
+            IntIntHashMap products = productsByPart.get(partId);
+            if(products != null){
+                for(int productId : products.keys()){
+                    Product product = productsById.get(productId);
+                    if(product != null){
+                        users.add(product);
+                    }
+                }
+            }
+            return users;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Finds every product that uses a product as a sub-assembly.
+     * Answered from the reverse sub-assembly index, in time proportional to the number of products found.
+     * @param productId ID of the sub-assembly to search for
+     * @return Returns a list of the products that use the product directly. If no product uses it, returns an empty list.*/
+    public static ObservableList<Product> whereUsedAsSubAssembly(int productId){
+        ensureIndexes();
+        readLock.lock();
+        try {
+            ObservableList<Product> users = FXCollections.observableArrayList();
+            IntIntHashMap assemblies = assembliesByProduct.get(productId);
+            if(assemblies != null){
+                for(int assemblyId : assemblies.keys()){
+                    Product assembly = productsById.get(assemblyId);
+                    if(assembly != null){
+                        users.add(assembly);
+                    }
+                }
+            }
+            return users;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Changes the number of times a product lists a part in the reverse part-to-product index.
+     * @param partId ID of the associated part
+     * @param productId ID of the product
+     * @param delta Number of associations added, or removed if negative*/
+    private static void addWhereUsed(int partId, int productId, int delta){
+        IntIntHashMap products = productsByPart.get(partId);
+        if(products == null){
+            if(delta <= 0){
+                return;
+            }
+            products = new IntIntHashMap(4, 0);
+            productsByPart.put(partId, products);
+        }
+        boolean wasUser = products.containsKey(productId);
+        products.addTo(productId, delta);
+        if(wasUser != products.containsKey(productId)){
+            usersByPart.put(partId, products.keys());
+        }
+        if(products.isEmpty()){
+            productsByPart.remove(partId);
+            usersByPart.remove(partId);
+        }
+    }
+
+    /** Changes the number of units of a sub-assembly a product uses in the reverse sub-assembly index.
+     * @param childId ID of the sub-assembly
+     * @param productId ID of the product using it
+     * @param delta Units added, or removed if negative*/
+    private static void addAssembly(int childId, int productId, int delta){
+        IntIntHashMap assemblies = assembliesByProduct.get(childId);
+        if(assemblies == null){
+            if(delta <= 0){
+                return;
+            }
+            assemblies = new IntIntHashMap(4, 0);
+            assembliesByProduct.put(childId, assemblies);
+        }
+        boolean wasUser = assemblies.containsKey(productId);
+        assemblies.addTo(productId, delta);
+        if(wasUser != assemblies.containsKey(productId)){
+            usersByAssembly.put(childId, assemblies.keys());
+        }
+        if(assemblies.isEmpty()){
+            assembliesByProduct.remove(childId);
+            usersByAssembly.remove(childId);
+        }
+    }
+
+    /** Adds or removes every sub-assembly of a product in the reverse sub-assembly index.
+     * @param product Product whose sub-assemblies are counted
+     * @param delta 1 to add the product's sub-assemblies, -1 to remove them*/
+    private static void indexSubAssemblies(Product product, int delta){
+        BillOfMaterials<Product> bill = product.subAssemblies();
+        for(int i = 0; i < bill.size(); i++){
+            addAssembly(bill.partId(i), product.getId(), bill.quantity(i) * delta);
+        }
+    }
+
+    /** Marks the memoized explosion and the rollup of every product containing a product, at any depth, as stale.
+     * Called under the write lock after the parts or sub-assemblies of the product changed, or after a product
+     * with its ID was added, replaced or removed.
+     * @param productId ID of the changed product*/
+    private static void invalidateAssemblies(int productId){
+        IntIntHashMap visited = null;
+        int[] pending = {productId};
+        int size = 1;
+        while(size > 0){
+            IntIntHashMap assemblies = assembliesByProduct.get(pending[--size]);
+            if(assemblies == null){
+                continue;
+            }
+            for(int assemblyId : assemblies.keys()){
+                if(visited == null){
+                    visited = new IntIntHashMap(16, 0);
+                }
+                if(visited.containsKey(assemblyId)){
+                    continue;
+                }
+                visited.put(assemblyId, 1);
+                Product assembly = productsById.get(assemblyId);
+                if(assembly != null){
+                    assembly.invalidateExplosion();
+                    assembly.invalidateRollup();
+                }
+                if(size == pending.length){
+                    pending = Arrays.copyOf(pending, size * 2);
+                }
+                pending[size++] = assemblyId;
+            }
+        }
+    }
+
+    /** Marks the rollup of every product using a part as stale, and of every product containing those as a
+     * sub-assembly. Called after the part's price or stock changed, or after a part with its ID was added or removed. Reads only the lock-free reverse index, so it can follow the
+     * stock methods without locking the Inventory.
+     * @param partId ID of the changed part*/
+    static void invalidateRollups(int partId){
+        int[] users = usersByPart.get(partId);
+        if(users == null){
+            return;
+        }
+        for(int productId : users){
+            Product product = productsById.get(productId);
+            if(product != null){
+                product.invalidateRollup();
+            }
+            invalidateAssemblyRollups(productId);
+        }
+    }
+
+    /** Marks the rollup of every product containing a product, at any depth, as stale. Called after the product's
+     * stock changed or its rollup was invalidated, since the rollups of its assemblies include both. Reads only the
+     * lock-free reverse index, so it can follow the stock methods without locking the Inventory.
+     * @param productId ID of the changed product*/
+    static void invalidateAssemblyRollups(int productId){
+        int[] pending = {productId};
+        int size = 1;
+        IntIntHashMap visited = null;
+        while(size > 0){
+            int[] users = usersByAssembly.get(pending[--size]);
+            if(users == null){
+                continue;
+            }
+            for(int assemblyId : users){
+                if(visited == null){
+                    visited = new IntIntHashMap(16, 0);
+                }
+                if(visited.containsKey(assemblyId)){
+                    continue;
+                }
+                visited.put(assemblyId, 1);
+                Product assembly = productsById.get(assemblyId);
+                if(assembly != null){
+                    assembly.invalidateRollup();
+                }
+                if(size == pending.length){
+                    pending = Arrays.copyOf(pending, size * 2);
+                }
+                pending[size++] = assemblyId;
+            }
+        }
+    }
+
+    /** Adds or removes every part association of a product in the reverse part-to-product index.
+     * @param product Product whose associated parts are counted
+     * @param delta 1 to add the product's associations, -1 to remove them*/
+    private static void indexAssociations(Product product, int delta){
+        BillOfMaterials<Part> bill = product.billOfMaterials();
+        for(int i = 0; i < bill.size(); i++){
+            addWhereUsed(bill.partId(i), product.getId(), bill.quantity(i) * delta);
+        }
+    }
+
+    /** Retrieves the lowest part ID not held by any part in the inventory, starting from 1.
+     * Runs in constant time regardless of the number of parts. The ID is not reserved until a part using it is added.
+     * @return Returns the next free part ID*/
+    public static int nextPartId(){
+
+        return partIds.peek();
+    }
 
-        return allProducts.remove(selectedProduct);
+    /** Retrieves the lowest product ID not held by any product in the inventory, starting from 1.
+     * Runs in constant time regardless of the number of products. The ID is not reserved until a product using it is added.
+     * @return Returns the next free product ID*/
+    public static int nextProductId(){
+
+        return productIds.peek();
+    }
+
+    /** Loads the rows of a columnar snapshot into the empty parts and products lists.
+     * Rows are only built into Part and Product objects when they are read, and the indexes are rebuilt the first
+     * time they are needed.
+     * @param snapshot Snapshot to load*/
+    static void loadSnapshot(ColumnarSnapshot snapshot){
+        writeLock.lock();
+        try {
+            loadedSnapshot = snapshot;
+            for(int row = 0; row < snapshot.partCount(); row++){
+                partIds.markUsed(snapshot.partId(row));        //Reads only the ID column, so no parts are built
+            }
+            for(int row = 0; row < snapshot.productCount(); row++){
+                productIds.markUsed(snapshot.productId(row));
+            }
+            unreadPartsById = new IntIntHashMap();
+            unreadPartCount = 0;
+            partRows.load(snapshot.partCount(), row -> partBuilt(row, snapshot.materializePart(row)));
+            productRows.load(snapshot.productCount(), row -> {
+                Product product = snapshot.materializeProduct(row, partRows::row);
+                product.setStored(true);
+                return product;
+            });
+            partsView.load(snapshot.partCount());
+            productsView.load(snapshot.productCount());
+            indexesStale = true;
+            List<StockAlert> alerts = new ArrayList<>();
+            for(int row = 0; row < snapshot.partCount(); row++){
+                StockAlert alert = snapshot.partAlert(row);     //Reads only the stock columns unless the row raises an alert
+                if(alert != null){
+                    alerts.add(alert);
+                }
+            }
+            for(int row = 0; row < snapshot.productCount(); row++){
+                StockAlert alert = snapshot.productAlert(row);
+                if(alert != null){
+                    alerts.add(alert);
+                }
+            }
+            stockAlerts.loaded(alerts);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Checks whether parts and products can be looked up by ID without rebuilding the indexes in the middle of a
+     * change. Rebuilding is only unsafe on a thread that holds the read or write lock after a snapshot was loaded.
+     * @return Returns true if the indexes are built, or if the calling thread holds neither lock*/
+    static boolean canLookUpWithoutRebuild(){
+        return !indexesStale || !lock.isWriteLockedByCurrentThread() && lock.getReadHoldCount() == 0;
+    }
+
+    /** Reports a possible stock change of a part to the stock alerts, the machine and supplier totals, the range
+     * indexes and the rollups of the products using it. Called by the part after every change.
+     * @param part Part whose stock changed*/
+    static void stockChanged(Part part){
+        stockAlerts.partChanged(part);
+        partGroups.partChanged(part);
+        partRanges.changed(part);
+        invalidateRollups(part.getId());
+    }
+
+    /** Reports a price change of a part to the machine and supplier totals, the range indexes and the rollups of the
+     * products using it. Called by the part after every change.
+     * @param part Part whose price changed*/
+    static void priceChanged(Part part){
+        partGroups.partChanged(part);
+        partRanges.changed(part);
+        invalidateRollups(part.getId());
+    }
+
+    /** Reports a change to the min or max of a part to the stock alerts, the headroom index and the rollups of the
+     * products using it. Called by the part after every change.
+     * @param part Part whose min or max changed*/
+    static void limitsChanged(Part part){
+        stockAlerts.partChanged(part);
+        partRanges.changed(part);
+        invalidateRollups(part.getId());
+    }
+
+    /** Reports a possible stock change of a product to the stock alerts, the range indexes and the rollups of the
+     * products using it as a sub-assembly. Called by the product after every change.
+     * @param product Product whose stock changed*/
+    static void stockChanged(Product product){
+        stockAlerts.productChanged(product);
+        productRanges.changed(product);
+        invalidateAssemblyRollups(product.getId());
+    }
+
+    /** Reports a price change of a product to the range indexes. Called by the product after every change.
+     * @param product Product whose price changed*/
+    static void priceChanged(Product product){
+        productRanges.changed(product);
+    }
+
+    /** Reports a change to the min or max of a product to the stock alerts, the headroom index and the rollups of the
+     * products using it as a sub-assembly. Called by the product after every change.
+     * @param product Product whose min or max changed*/
+    static void limitsChanged(Product product){
+        stockAlerts.productChanged(product);
+        productRanges.changed(product);
+        invalidateAssemblyRollups(product.getId());
+    }
+
+    /** Rebuilds every index from the parts and products lists if a snapshot was loaded since they were last built.
+     * Only takes the write lock when the indexes need rebuilding, so it must not be called holding the read lock. */
+    private static void ensureIndexes(){
+        if(indexesStale){
+            rebuildIndexes();
+        }
+    }
+
+    /** Rebuilds every index from the parts and products lists, unless another thread already did. */
+    private static void rebuildIndexes(){
+        writeLock.lock();
+        try {
+            if(!indexesStale){
+                return;
+            }
+            int builtParts = 0;
+            for(int i = 0; i < partRows.size(); i++){
+                if(partRows.unreadRow(i) < 0){
+                    builtParts++;
+                }
+            }
+            partsById.clear(builtParts);
+            unreadPartsById = new IntIntHashMap(partRows.size() - builtParts, -1);
+            productsById.clear(allProducts.size());
+            partNames.clear();
+            partNamesStale = true;
+            partGroups.clear();
+            partRanges.clear();
+            productRanges.clear();
+            productNames.clear();
+            duplicatePartIds = 0;
+            duplicateProductIds = 0;
+            partIds.clear();
+            productIds.clear();
+            productsByPart = new IntHashMap<>();
+            assembliesByProduct = new IntHashMap<>();
+            usersByPart.clear(16);
+            usersByAssembly.clear(16);
+            //Unread rows are indexed from the ID column alone, so indexing does not build any part
+            for(int i = 0; i < partRows.size(); i++){
+                int row = partRows.unreadRow(i);
+                if(row < 0){
+                    Part part = partRows.get(i);
+                    partIds.markUsed(part.getId());
+                    indexPart(part);
+                    partGroups.added(part);
+                }
+                else {
+                    int id = loadedSnapshot.partId(row);
+                    partIds.markUsed(id);
+                    indexPartRow(id, row);
+                    boolean inHouse = loadedSnapshot.partIsInHouse(row);
+                    partGroups.rowLoaded(row, inHouse, inHouse ? loadedSnapshot.partMachineId(row) : loadedSnapshot.partSupplierId(row),
+                            id, loadedSnapshot.partStock(row), loadedSnapshot.partPriceCents(row));
+                }
+            }
+            unreadPartCount = unreadPartsById.size();
+            for(Product product : allProducts){
+                product.setStored(true);
+                productIds.markUsed(product.getId());
+                indexProduct(product);
+                productNames.add(product);
+                indexAssociations(product, 1);
+                indexSubAssemblies(product, 1);
+            }
+            indexesStale = false;       //Cleared last, so lookups that skip the lock never read a half built index
+            stockAlerts.checkQueued();  //Checks the items changed while the indexes were stale
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Updates the indexes after a part was added to allParts.
+     * @param part Part that was added*/
+    private static void partAdded(Part part){
+        partIds.markUsed(part.getId());
+        if(indexesStale){
+            stockAlerts.partStored(part, true);
+            return;
+        }
+        indexPart(part);
+        if(!partNamesStale){
+            partNames.add(part);
+        }
+        partGroups.added(part);
+        partRanges.added(part);
+        invalidateRollups(part.getId());
+        stockAlerts.partChanged(part);
+    }
+
+    /** Updates the indexes after a part in allParts was replaced.
+     * @param oldPart Part that was replaced
+     * @param newPart Part that took its place*/
+    private static void partReplaced(Part oldPart, Part newPart){
+        if(oldPart.getId() != newPart.getId()){
+            partIds.markUsed(newPart.getId());
+        }
+        if(indexesStale){
+            if(oldPart.getId() != newPart.getId()){
+                partIds.release(oldPart.getId());
+            }
+            stockAlerts.partStored(oldPart, false);
+            stockAlerts.partStored(newPart, true);
+            return;
+        }
+        if(oldPart.getId() == newPart.getId() && partsById.get(oldPart.getId()) == oldPart){
+            partsById.put(newPart.getId(), newPart);     //Same ID in the same list position, so the entry is swapped in place
+        }
+        else {
+            unindexPart(oldPart);
+            indexPart(newPart);
+        }
+        if(!partNamesStale){
+            partNames.replace(oldPart, newPart);
+        }
+        partGroups.removed(oldPart);
+        partGroups.added(newPart);
+        partRanges.removed(oldPart);
+        partRanges.added(newPart);
+        invalidateRollups(oldPart.getId());
+        if(oldPart.getId() != newPart.getId()){
+            invalidateRollups(newPart.getId());
+        }
+        if(oldPart.getId() != newPart.getId() && !isPartIdIndexed(oldPart.getId())){
+            partIds.release(oldPart.getId());
+        }
+        stockAlerts.partChanged(oldPart);
+        stockAlerts.partChanged(newPart);
+    }
+
+    /** Updates the indexes after a part was removed from allParts.
+     * @param part Part that was removed*/
+    private static void partRemoved(Part part){
+        if(indexesStale){
+            partIds.release(part.getId());
+            stockAlerts.partStored(part, false);
+            return;
+        }
+        unindexPart(part);
+        if(!partNamesStale){
+            partNames.remove(part);
+        }
+        partGroups.removed(part);
+        partRanges.removed(part);
+        invalidateRollups(part.getId());
+        if(!isPartIdIndexed(part.getId())){
+            partIds.release(part.getId());      //Another part may still hold the same ID
+        }
+        stockAlerts.partChanged(part);
+    }
+
+    /** Updates the indexes after a product was added to allProducts.
+     * @param product Product that was added*/
+    private static void productAdded(Product product){
+        product.setStored(true);
+        productIds.markUsed(product.getId());
+        if(indexesStale){
+            stockAlerts.productStored(product, true);
+            return;
+        }
+        indexProduct(product);
+        productNames.add(product);
+        indexAssociations(product, 1);
+        indexSubAssemblies(product, 1);
+        productRanges.added(product);
+        invalidateAssemblies(product.getId());
+        stockAlerts.productChanged(product);
+    }
+
+    /** Updates the indexes after a product in allProducts was replaced.
+     * @param oldProduct Product that was replaced
+     * @param newProduct Product that took its place*/
+    private static void productReplaced(Product oldProduct, Product newProduct){
+        oldProduct.setStored(false);
+        newProduct.setStored(true);
+        if(oldProduct.getId() != newProduct.getId()){
+            productIds.markUsed(newProduct.getId());
+        }
+        if(indexesStale){
+            if(oldProduct.getId() != newProduct.getId()){
+                productIds.release(oldProduct.getId());
+            }
+            stockAlerts.productStored(oldProduct, false);
+            stockAlerts.productStored(newProduct, true);
+            return;
+        }
+        if(oldProduct.getId() == newProduct.getId() && productsById.get(oldProduct.getId()) == oldProduct){
+            productsById.put(newProduct.getId(), newProduct);  //Same ID in the same list position, so the entry is swapped in place
+        }
+        else {
+            unindexProduct(oldProduct);
+            indexProduct(newProduct);
+        }
+        productNames.replace(oldProduct, newProduct);
+        indexAssociations(oldProduct, -1);
+        indexAssociations(newProduct, 1);
+        indexSubAssemblies(oldProduct, -1);
+        indexSubAssemblies(newProduct, 1);
+        productRanges.removed(oldProduct);
+        productRanges.added(newProduct);
+        invalidateAssemblies(oldProduct.getId());
+        invalidateAssemblies(newProduct.getId());
+        if(oldProduct.getId() != newProduct.getId() && !productsById.containsKey(oldProduct.getId())){
+            productIds.release(oldProduct.getId());
+        }
+        stockAlerts.productChanged(oldProduct);
+        stockAlerts.productChanged(newProduct);
+    }
+
+    /** Updates the indexes after a product was removed from allProducts.
+     * @param product Product that was removed*/
+    private static void productRemoved(Product product){
+        product.setStored(false);
+        if(indexesStale){
+            productIds.release(product.getId());
+            stockAlerts.productStored(product, false);
+            return;
+        }
+        unindexProduct(product);
+        productNames.remove(product);
+        indexAssociations(product, -1);
+        indexSubAssemblies(product, -1);
+        productRanges.removed(product);
+        invalidateAssemblies(product.getId());
+        if(!productsById.containsKey(product.getId())){
+            productIds.release(product.getId());    //Another product may still hold the same ID
+        }
+        stockAlerts.productChanged(product);
+    }
+
+    /** Adds a part to the part ID index.
+     * If another part already holds the same ID, the part that was added first stays indexed, matching the order
+     * the list would be searched in.
+     * @param part Part to index*/
+    private static void indexPart(Part part){
+        if(isPartIdIndexed(part.getId())){
+            duplicatePartIds++;
+        }
+        else {
+            partsById.put(part.getId(), part);
+        }
+    }
+
+    /** Adds a snapshot row that has not been read to the part ID index, as indexPart() does for a built part.
+     * @param id ID of the part in the row
+     * @param row Snapshot row of the part*/
+    private static void indexPartRow(int id, int row){
+        if(isPartIdIndexed(id)){
+            duplicatePartIds++;
+        }
+        else {
+            unreadPartsById.put(id, row);
+        }
+    }
+
+    /** Checks whether a part ID is in the part ID index, as a built part or as an unread snapshot row.
+     * @param id ID to check
+     * @return Returns true if a part with the ID is indexed, otherwise returns false*/
+    private static boolean isPartIdIndexed(int id){
+        return partsById.containsKey(id) || unreadPartsById.containsKey(id);
+    }
+
+    /** Moves a part from the unread rows to partsById when its snapshot row is built. Called once for every row
+     * built, always while holding partRows.
+     * @param row Snapshot row that was built
+     * @param part Part built from the row
+     * @return Returns the part*/
+    private static Part partBuilt(int row, Part part){
+        if(unreadPartsById.get(part.getId()) == row){
+            unreadPartsById.remove(part.getId());
+            partsById.put(part.getId(), part);
+            unreadPartCount = unreadPartsById.size();
+        }
+        partGroups.rowBuilt(row, part);
+        partRanges.rowBuilt(row, part);
+        return part;
+    }
+
+    /** Rebuilds the part name index if it was dropped while parts loaded from a snapshot were unread. Only called
+     * once every row has been read, so no part is built. */
+    private static void ensurePartNames(){
+        writeLock.lock();
+        try {
+            if(partNamesStale && !indexesStale && unreadPartCount == 0){
+                for(Part part : allParts){
+                    partNames.add(part);
+                }
+                partNamesStale = false;
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Removes a part from the part ID index.
+     * If another part in allParts shares the removed part's ID, it takes over the index entry.
+     * @param part Part to remove from the index*/
+    private static void unindexPart(Part part){
+        if(partsById.get(part.getId()) != part){
+            if(duplicatePartIds > 0){
+                duplicatePartIds--;
+            }
+            return;
+        }
+        partsById.remove(part.getId());
+        if(duplicatePartIds == 0){
+            return;
+        }
+        List<Part> others = partRows.matching(other -> other.getId() == part.getId(),
+                row -> loadedSnapshot.partId(row) == part.getId(), 1);
+        if(!others.isEmpty()){
+            partsById.put(part.getId(), others.get(0));
+            duplicatePartIds--;
+        }
+    }
+
+    /** Adds a product to the product ID index.
+     * If another product already holds the same ID, the product that was added first stays indexed.
+     * @param product Product to index*/
+    private static void indexProduct(Product product){
+        if(productsById.containsKey(product.getId())){
+            duplicateProductIds++;
+        }
+        else {
+            productsById.put(product.getId(), product);
+        }
+    }
+
+    /** Removes a product from the product ID index.
+     * If another product in allProducts shares the removed product's ID, it takes over the index entry.
+     * @param product Product to remove from the index*/
+    private static void unindexProduct(Product product){
+        if(productsById.get(product.getId()) != product){
+            if(duplicateProductIds > 0){
+                duplicateProductIds--;
+            }
+            return;
+        }
+        productsById.remove(product.getId());
+        if(duplicateProductIds == 0){
+            return;
+        }
+        for(Product other : allProducts){
+            if(other.getId() == product.getId()){
+                productsById.put(other.getId(), other);
+                duplicateProductIds--;
+                return;
+            }
+        }
     }
 
     /** Retrieves the allParts list.
+     * The list is only changed on the JavaFX Application Thread, and should be read there once the application window
+     * has started. Changes made on other threads appear in it at the next pulse.
      * @return Returns the Observable List allParts*/
     public static ObservableList<Part> getAllParts(){
 
-        return allParts;
+        return partsView;
     }
 
     /** Retrieves the allProducts list.
+     * The list is only changed on the JavaFX Application Thread, and should be read there once the application window
+     * has started.
      * @return Returns the Observable list allProducts*/
     public static ObservableList<Product> getAllProducts() {
 
-        return allProducts;
+        return productsView;
+    }
+
+    /** Retrieves the parts and products whose stock is below their min or above their max.
+     * The list is kept current as stock changes, without scanning the inventory: every shortfall below min comes
+     * first, largest first, followed by every excess above max, largest first. Like getAllParts(), it is only
+     * changed on the JavaFX Application Thread once the application window has started, so it can be bound to a table.
+     * @return Returns the read-only list of stock alerts*/
+    public static ObservableList<StockAlert> getStockAlerts(){
+
+        return stockAlerts;
     }
 
     /** Retrieves the filteredParts list.
@@ -163,43 +2405,4 @@ public class Inventory extends Application {
 
         return filteredProducts;
     }
-
-    /** Brings up the main window of the application.
-     * Implements the start method of the Application interface to launch the main window of the application when launch() is called in main(). Applies the scene defined in MainWindow.fxml to the stage.
-     * @param stage Sets the stage or the initial window of the application. */
-    @Override
-    public void start(Stage stage) throws IOException {
-        FXMLLoader fxmlLoader = new FXMLLoader(Inventory.class.getResource("/dunbar/c482pa/MainWindow.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 1100, 600);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
-    }
-
-    /** Launches the application and initializes the parts and products lists with sample inventory items.
-     * @param args Allows various command line arguments to be passed into the application on launch.*/
-    public static void main(String[] args) {
-        InHouse gear1 = new InHouse(1, "Drive Gear", 10.00, 10, 1, 10, 1 );
-        InHouse gear2 = new InHouse(2, "First Gear", 10.00, 10, 1, 10, 1 );
-        Outsourced shaft = new Outsourced(3, "Shaft", 5.00, 10, 1, 10, "Shafts-R-Us");
-
-        allParts.add(gear1);
-        allParts.add(gear2);
-        allParts.add(shaft);
-
-        Product transmission = new Product(1, "Transmission", 25.00, 10, 1, 10);
-        allProducts.add(transmission);
-
-        Product gearSet = new Product(2, "Gear Set", 13.00, 2, 1, 10);
-        allProducts.add(gearSet);
-
-        transmission.addAssociatedPart(gear1);
-        transmission.addAssociatedPart(gear2);
-        transmission.addAssociatedPart(shaft);
-
-        gearSet.addAssociatedPart(gear1);
-        gearSet.addAssociatedPart(gear2);
-
-        launch();
-    }
-}
\ No newline at end of file
+}
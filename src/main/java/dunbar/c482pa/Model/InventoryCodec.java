@@ -0,0 +1,136 @@
+package dunbar.c482pa.Model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/** The InventoryCodec class holds the binary encoding of parts and products shared by the write-ahead log and the
+ * snapshot files. Parts are written with a one byte type tag so that InHouse and Outsourced parts can be rebuilt
+ * with the correct subclass. */
+final class InventoryCodec {
+    /**Type tag for InHouse parts*/
+    static final byte IN_HOUSE = 1;
+    /**Type tag for Outsourced parts*/
+    static final byte OUTSOURCED = 2;
+
+    /** Prevents instantiation of this utility class. */
+    private InventoryCodec() {
+    }
+
+    /** Writes a part, including its type and its machine ID or company name.
+     * @param out Stream to write to
+     * @param part Part to write*/
+    static void writePart(DataOutput out, Part part) throws IOException {
+        if (part instanceof InHouse) {
+            out.writeByte(IN_HOUSE);
+        }
+        else {
+            out.writeByte(OUTSOURCED);
+        }
+        out.writeInt(part.getId());
+        out.writeUTF(nullToEmpty(part.getName()));
+        out.writeLong(part.getPriceCents());
+        out.writeInt(part.getStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+        if (part instanceof InHouse) {
+            out.writeInt(((InHouse) part).getMachineID());
+        }
+        else {
+            out.writeUTF(nullToEmpty(((Outsourced) part).getCompanyName()));
+        }
+    }
+
+    /** Reads a part written by writePart().
+     * @param in Stream to read from
+     * @return Returns a new InHouse or Outsourced part*/
+    static Part readPart(DataInput in) throws IOException {
+        byte type = in.readByte();
+        int id = in.readInt();
+        String name = in.readUTF();
+        long priceCents = in.readLong();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        if (type == IN_HOUSE) {
+            return InHouse.ofCents(id, name, priceCents, stock, min, max, in.readInt());
+        }
+        if (type == OUTSOURCED) {
+            return Outsourced.ofCents(id, name, priceCents, stock, min, max, in.readUTF());
+        }
+        throw new IOException("Unknown part type " + type);
+    }
+
+    /** Writes a product and its associated parts as (part ID, quantity) pairs.
+     * @param out Stream to write to
+     * @param product Product to write
+     * @param associatedEntries Associated part ID and quantity pairs, captured by associatedEntries()*/
+    static void writeProduct(DataOutput out, Product product, int[] associatedEntries) throws IOException {
+        out.writeInt(product.getId());
+        out.writeUTF(nullToEmpty(product.getName()));
+        out.writeLong(product.getPriceCents());
+        out.writeInt(product.getStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+        out.writeInt(associatedEntries.length / 2);
+        for (int value : associatedEntries) {
+            out.writeInt(value);
+        }
+    }
+
+    /** Captures the parts currently associated with a product.
+     * @param product Product to read the associated parts from
+     * @return Returns the ID and quantity of each associated part, one pair after another*/
+    static int[] associatedEntries(Product product) {
+
+        return entries(product.billOfMaterials());
+    }
+
+    /** Captures the sub-assemblies currently used by a product.
+     * @param product Product to read the sub-assemblies from
+     * @return Returns the ID and quantity of each sub-assembly, one pair after another*/
+    static int[] subAssemblyEntries(Product product) {
+
+        return entries(product.subAssemblies());
+    }
+
+    /** Copies the entries of a bill of materials.
+     * @param bill Bill to copy
+     * @return Returns the ID and quantity of each entry, one pair after another*/
+    private static int[] entries(BillOfMaterials<?> bill) {
+        int[] entries = new int[2 * bill.size()];
+        for (int i = 0; i < bill.size(); i++) {
+            entries[2 * i] = bill.partId(i);
+            entries[2 * i + 1] = bill.quantity(i);
+        }
+        return entries;
+    }
+
+    /** Reads a product written by writeProduct().
+     * Associated parts are resolved by ID through Inventory.lookupPart(), so the parts must be loaded first.
+     * Part IDs that no longer resolve to a part are kept as entries known only by ID, as the product's bill of
+     * materials held them when it was written.
+     * @param in Stream to read from
+     * @return Returns a new Product with its associated parts*/
+    static Product readProduct(DataInput in) throws IOException {
+        Product product = Product.ofCents(in.readInt(), in.readUTF(), in.readLong(), in.readInt(), in.readInt(), in.readInt());
+        int entries = in.readInt();
+        int[] ids = new int[entries];
+        Part[] parts = new Part[entries];
+        int[] quantities = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            ids[i] = in.readInt();
+            quantities[i] = in.readInt();
+            parts[i] = Inventory.lookupPart(ids[i]);
+        }
+        product.addAssociatedUnits(ids, parts, quantities);
+        return product;
+    }
+
+    /** Replaces a null string with an empty string, since the UTF encoding cannot hold nulls.
+     * @param text String to check
+     * @return Returns the string, or an empty string if it was null*/
+    private static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+}
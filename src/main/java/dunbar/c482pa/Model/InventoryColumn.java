@@ -0,0 +1,14 @@
+package dunbar.c482pa.Model;
+
+/** The InventoryColumn enum names the part and product fields the Inventory lists can be sorted by.
+ * Each one is stored as a column of a columnar snapshot, so Inventory can sort rows by it without building them. */
+public enum InventoryColumn {
+    /**Part or product ID*/
+    ID,
+    /**Part or product name*/
+    NAME,
+    /**Amount in stock*/
+    STOCK,
+    /**Price*/
+    PRICE
+}
@@ -0,0 +1,242 @@
+package dunbar.c482pa.Model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/** The InventoryExporter class writes every part and product in the Inventory to a CSV or NDJSON file.
+ * Parts are written before products, so a file written by the exporter can be read back by InventoryImporter.
+ * Records are written one line at a time, so no text copy of the inventory is built in memory. The part and product
+ * lists are copied together before writing, so other threads can keep changing the inventory while the file is
+ * written, and every product in the file only lists parts that are also in it. */
+public class InventoryExporter {
+    /** Prevents instantiation of this utility class. */
+    private InventoryExporter() {
+    }
+
+    /** Writes the inventory to a file, choosing the format from the file extension.
+     * The file is replaced if it already exists.
+     * @param file CSV or NDJSON file to write
+     * @return Returns the number of records written*/
+    public static int exportFile(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportTo(writer, InventoryFileFormat.forFile(file));
+        }
+    }
+
+    /** Writes the inventory to a stream.
+     * @param out Stream to write to; it is flushed but not closed
+     * @param format Format to write
+     * @return Returns the number of records written*/
+    public static int exportTo(Writer out, InventoryFileFormat format) throws IOException {
+        BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out, 1 << 16);
+        StringBuilder line = new StringBuilder(128);
+        int written = 0;
+        List<Part> parts = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        Inventory.copyInventory(parts, products);
+        if (format == InventoryFileFormat.CSV) {
+            writer.write("type,id,name,price,stock,min,max,location,parts");
+            writer.newLine();
+        }
+        for (Part part : parts) {
+            line.setLength(0);
+            if (format == InventoryFileFormat.CSV) {
+                partCsv(line, part);
+            }
+            else {
+                partJson(line, part);
+            }
+            writer.append(line);
+            writer.newLine();
+            written++;
+        }
+        for (Product product : products) {
+            line.setLength(0);
+            if (format == InventoryFileFormat.CSV) {
+                productCsv(line, product);
+            }
+            else {
+                productJson(line, product);
+            }
+            writer.append(line);
+            writer.newLine();
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+
+    /** Formats a part as a CSV line.
+     * @param line Buffer to append to
+     * @param part Part to format*/
+    private static void partCsv(StringBuilder line, Part part) {
+        line.append(part instanceof InHouse ? "InHouse" : "Outsourced").append(',');
+        commonCsv(line, part.getId(), part.getName(), part.getPriceCents(), part.getStock(), part.getMin(), part.getMax());
+        if (part instanceof InHouse) {
+            line.append(((InHouse) part).getMachineID());
+        }
+        else {
+            csvField(line, ((Outsourced) part).getCompanyName());
+        }
+        line.append(',');
+    }
+
+    /** Formats a product as a CSV line.
+     * @param line Buffer to append to
+     * @param product Product to format*/
+    private static void productCsv(StringBuilder line, Product product) {
+        line.append("Product,");
+        commonCsv(line, product.getId(), product.getName(), product.getPriceCents(), product.getStock(), product.getMin(), product.getMax());
+        line.append(',');
+        int[] entries = InventoryCodec.associatedEntries(product);
+        for (int i = 0; i < entries.length; i += 2) {
+            if (i > 0) {
+                line.append(';');
+            }
+            partEntry(line, entries[i], entries[i + 1]);
+        }
+    }
+
+    /** Formats an associated part as its ID, followed by x and its quantity when the product uses more than one unit,
+     * so each part is listed once however many units are used.
+     * @param line Buffer to append to
+     * @param partId ID of the associated part
+     * @param quantity Number of units used by one product*/
+    private static void partEntry(StringBuilder line, int partId, int quantity) {
+        line.append(partId);
+        if (quantity > 1) {
+            line.append('x').append(quantity);
+        }
+    }
+
+    /** Formats the columns shared by parts and products, each followed by a comma.
+     * @param line Buffer to append to
+     * @param id ID of the item
+     * @param name Name of the item
+     * @param priceCents Price of the item in cents
+     * @param stock Amount in stock
+     * @param min Minimum stock
+     * @param max Maximum stock*/
+    private static void commonCsv(StringBuilder line, int id, String name, long priceCents, int stock, int min, int max) {
+        line.append(id).append(',');
+        csvField(line, name);
+        line.append(',').append(Money.format(priceCents)).append(',').append(stock).append(',').append(min).append(',').append(max).append(',');
+    }
+
+    /** Appends a CSV field, quoting it if it holds a comma, quote or line break.
+     * @param line Buffer to append to
+     * @param text Field to append*/
+    private static void csvField(StringBuilder line, String text) {
+        if (text == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            //Line breaks are replaced since the importer reads one record per line
+            line.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        line.append('"');
+    }
+
+    /** Formats a part as an NDJSON line.
+     * @param line Buffer to append to
+     * @param part Part to format*/
+    private static void partJson(StringBuilder line, Part part) {
+        line.append("{\"type\":\"").append(part instanceof InHouse ? "InHouse" : "Outsourced").append('"');
+        commonJson(line, part.getId(), part.getName(), part.getPriceCents(), part.getStock(), part.getMin(), part.getMax());
+        if (part instanceof InHouse) {
+            line.append(",\"machineID\":").append(((InHouse) part).getMachineID());
+        }
+        else {
+            line.append(",\"companyName\":");
+            jsonString(line, ((Outsourced) part).getCompanyName());
+        }
+        line.append('}');
+    }
+
+    /** Formats a product as an NDJSON line.
+     * @param line Buffer to append to
+     * @param product Product to format*/
+    private static void productJson(StringBuilder line, Product product) {
+        line.append("{\"type\":\"Product\"");
+        commonJson(line, product.getId(), product.getName(), product.getPriceCents(), product.getStock(), product.getMin(), product.getMax());
+        line.append(",\"parts\":[");
+        int[] entries = InventoryCodec.associatedEntries(product);
+        for (int i = 0; i < entries.length; i += 2) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append('"');
+            partEntry(line, entries[i], entries[i + 1]);
+            line.append('"');
+        }
+        line.append("]}");
+    }
+
+    /** Formats the fields shared by parts and products, each preceded by a comma.
+     * @param line Buffer to append to
+     * @param id ID of the item
+     * @param name Name of the item
+     * @param priceCents Price of the item in cents
+     * @param stock Amount in stock
+     * @param min Minimum stock
+     * @param max Maximum stock*/
+    private static void commonJson(StringBuilder line, int id, String name, long priceCents, int stock, int min, int max) {
+        line.append(",\"id\":").append(id).append(",\"name\":");
+        jsonString(line, name);
+        line.append(",\"price\":").append(Money.format(priceCents)).append(",\"stock\":").append(stock)
+                .append(",\"min\":").append(min).append(",\"max\":").append(max);
+    }
+
+    /** Appends a quoted JSON string, escaping quotes, backslashes and control characters.
+     * @param line Buffer to append to
+     * @param text String to append, or null*/
+    private static void jsonString(StringBuilder line, String text) {
+        if (text == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            }
+            else if (c == '\n') {
+                line.append("\\n");
+            }
+            else if (c == '\r') {
+                line.append("\\r");
+            }
+            else if (c == '\t') {
+                line.append("\\t");
+            }
+            else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
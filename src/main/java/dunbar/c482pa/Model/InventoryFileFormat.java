@@ -0,0 +1,31 @@
+package dunbar.c482pa.Model;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/** The InventoryFileFormat enum lists the text formats parts and products can be imported from and exported to.
+ * Both formats hold one record per line, so files can be read and written without holding them in memory.
+ * <p>CSV lines hold the columns type, id, name, price, stock, min, max, location and parts. The type is InHouse,
+ * Outsourced or Product. The location is the machine ID of an InHouse part or the company name of an Outsourced part,
+ * and is left empty for products. The parts column lists the IDs of a product's associated parts separated by
+ * semicolons. A first line starting with the column name type is treated as a header.</p>
+ * <p>NDJSON lines hold one JSON object each, with the fields type, id, name, price, stock, min, max, machineID,
+ * companyName and parts, where parts is an array of part IDs.</p> */
+public enum InventoryFileFormat {
+    /**Comma separated values with one record per line*/
+    CSV,
+    /**Newline delimited JSON with one object per line*/
+    NDJSON;
+
+    /** Chooses the format of a file from its extension.
+     * Files ending in .ndjson, .jsonl or .json are read as NDJSON, every other file as CSV.
+     * @param file File to check
+     * @return Returns the format of the file*/
+    public static InventoryFileFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
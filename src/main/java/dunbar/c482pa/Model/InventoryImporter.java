@@ -0,0 +1,707 @@
+package dunbar.c482pa.Model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** The InventoryImporter class loads parts and products in bulk from CSV or NDJSON files.
+ * Lines are read in chunks, and each chunk is parsed and validated on a pool of worker threads while the next chunks
+ * are being read. Parsed chunks are applied to the Inventory in file order on the calling thread, each as one batch,
+ * so an import fires one list change event and one log sync per chunk instead of one per row. Only a fixed number of
+ * chunks are in flight at a time, so memory use does not grow with the size of the file. Part names repeated in a
+ * file are pooled for the length of the import, and company names through the supplier pool, so rows naming the same
+ * part or supplier share one String instead of each holding a copy of its line.
+ * <p>Rows are checked with the same rules the Add Part and Add Product windows apply. Rows that fail are skipped and
+ * reported in the Result, and the rest of the file is still imported. Products can only list parts that are already
+ * in the inventory or appear earlier in the file.</p>
+ * <p>The Inventory lists are not thread-safe, so an import must be run on the thread that owns them.</p> */
+public class InventoryImporter {
+    /**Number of lines parsed together as one chunk*/
+    private static final int CHUNK_LINES = 4096;
+    /**Maximum number of error messages kept in a Result*/
+    private static final int MAX_ERRORS = 100;
+
+    /**Column holding the record type*/
+    private static final int TYPE = 0;
+    /**Column holding the ID*/
+    private static final int ID = 1;
+    /**Column holding the name*/
+    private static final int NAME = 2;
+    /**Column holding the price*/
+    private static final int PRICE = 3;
+    /**Column holding the amount in stock*/
+    private static final int STOCK = 4;
+    /**Column holding the minimum stock*/
+    private static final int MIN = 5;
+    /**Column holding the maximum stock*/
+    private static final int MAX = 6;
+    /**Column holding the machine ID or company name*/
+    private static final int LOCATION = 7;
+    /**Column holding the semicolon separated associated parts of a product, each an ID with an optional x quantity*/
+    private static final int PARTS = 8;
+    /**Number of columns in a record*/
+    private static final int COLUMNS = 9;
+
+    /** The Result class reports how many rows an import added and why rows were rejected. */
+    public static final class Result {
+        /**Number of parts added to the inventory*/
+        private int partsImported = 0;
+        /**Number of products added to the inventory*/
+        private int productsImported = 0;
+        /**Number of rows that were skipped because they failed validation*/
+        private int rejected = 0;
+        /**Messages describing the first rejected rows*/
+        private final List<String> errors = new ArrayList<>();
+
+        /** Retrieves the number of parts the import added.
+         * @return Returns the number of parts added*/
+        public int getPartsImported() {
+            return partsImported;
+        }
+
+        /** Retrieves the number of products the import added.
+         * @return Returns the number of products added*/
+        public int getProductsImported() {
+            return productsImported;
+        }
+
+        /** Retrieves the number of rows that were skipped.
+         * @return Returns the number of rejected rows*/
+        public int getRejected() {
+            return rejected;
+        }
+
+        /** Retrieves the reasons the first rejected rows were skipped, each prefixed with its line number.
+         * At most 100 messages are kept.
+         * @return Returns an unmodifiable list of error messages*/
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        /** Records a rejected row.
+         * @param line Line number of the row
+         * @param message Reason the row was rejected*/
+        private void reject(int line, String message) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("Line " + line + ": " + message);
+            }
+        }
+    }
+
+    /** Thrown when a row fails validation. */
+    private static final class RowException extends Exception {
+        /**Version of the serialized form*/
+        private static final long serialVersionUID = 1L;
+
+        /** Constructor. Creates an exception with a message describing the invalid value.
+         * @param message Reason the row was rejected*/
+        RowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /** A validated part waiting to be added. */
+    private static final class ParsedPart {
+        /**Line number of the row*/
+        final int line;
+        /**Part built from the row*/
+        final Part part;
+
+        /** Constructor.
+         * @param line Line number of the row
+         * @param part Part built from the row*/
+        ParsedPart(int line, Part part) {
+            this.line = line;
+            this.part = part;
+        }
+    }
+
+    /** A validated product waiting to be added once its associated parts are resolved. */
+    private static final class ParsedProduct {
+        /**Line number of the row*/
+        final int line;
+        /**Product built from the row, without associated parts*/
+        final Product product;
+        /**ID and quantity of each part to associate with the product, one pair after another*/
+        final int[] partEntries;
+
+        /** Constructor.
+         * @param line Line number of the row
+         * @param product Product built from the row
+         * @param partEntries ID and quantity of each part to associate with the product, one pair after another*/
+        ParsedProduct(int line, Product product, int[] partEntries) {
+            this.line = line;
+            this.product = product;
+            this.partEntries = partEntries;
+        }
+    }
+
+    /** The rows of one chunk after parsing, in file order. */
+    private static final class ParsedChunk {
+        /**Valid part rows*/
+        final List<ParsedPart> parts = new ArrayList<>();
+        /**Valid product rows*/
+        final List<ParsedProduct> products = new ArrayList<>();
+        /**Line numbers of the rows that failed validation*/
+        final List<Integer> errorLines = new ArrayList<>();
+        /**Reasons the rows failed validation, parallel to errorLines*/
+        final List<String> errorMessages = new ArrayList<>();
+
+        /** Records a rejected row.
+         * @param line Line number of the row
+         * @param message Reason the row was rejected*/
+        void reject(int line, String message) {
+            errorLines.add(line);
+            errorMessages.add(message);
+        }
+    }
+
+    /** Prevents instantiation of this utility class. */
+    private InventoryImporter() {
+    }
+
+    /** Imports the parts and products in a file, choosing the format from the file extension.
+     * @param file CSV or NDJSON file to read
+     * @return Returns the number of rows imported and the reasons rows were rejected*/
+    public static Result importFile(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, InventoryFileFormat.forFile(file));
+        }
+    }
+
+    /** Imports the parts and products read from a stream.
+     * @param in Stream to read from; it is not closed
+     * @param format Format of the stream
+     * @return Returns the number of rows imported and the reasons rows were rejected*/
+    public static Result importFrom(Reader in, InventoryFileFormat format) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Result result = new Result();
+        StringPool names = new StringPool(false);
+        ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        try {
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            int lineNumber = 0;
+            int firstLine = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && format == InventoryFileFormat.CSV && isHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    submit(parsers, inFlight, lines, firstLine, format, names);
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    firstLine = lineNumber + 1;
+                    //Applies the oldest chunk before reading further, so at most two chunks per thread are held in memory
+                    if (inFlight.size() >= threads * 2) {
+                        apply(await(inFlight.poll()), result);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(parsers, inFlight, lines, firstLine, format, names);
+            }
+            while (!inFlight.isEmpty()) {
+                apply(await(inFlight.poll()), result);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        return result;
+    }
+
+    /** Hands a chunk of lines to the parser threads.
+     * @param parsers Parser thread pool
+     * @param inFlight Chunks being parsed, in file order
+     * @param lines Lines of the chunk
+     * @param firstLine Line number of the first line in the chunk
+     * @param format Format of the lines
+     * @param names Pool of the part and product names of the import*/
+    private static void submit(ExecutorService parsers, ArrayDeque<Future<ParsedChunk>> inFlight, List<String> lines,
+                               int firstLine, InventoryFileFormat format, StringPool names) {
+        inFlight.add(parsers.submit(() -> parse(lines, firstLine, format, names)));
+    }
+
+    /** Waits for a chunk to finish parsing.
+     * @param chunk Chunk being parsed
+     * @return Returns the parsed chunk*/
+    private static ParsedChunk await(Future<ParsedChunk> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Import failed", e.getCause());
+        }
+    }
+
+    /** Parses and validates the lines of a chunk. Runs on a parser thread and does not touch the Inventory.
+     * @param lines Lines of the chunk
+     * @param firstLine Line number of the first line in the chunk
+     * @param format Format of the lines
+     * @param names Pool of the part and product names of the import
+     * @return Returns the valid rows and the errors of the chunk*/
+    private static ParsedChunk parse(List<String> lines, int firstLine, InventoryFileFormat format, StringPool names) {
+        ParsedChunk chunk = new ParsedChunk();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            int lineNumber = firstLine + i;
+            try {
+                String[] fields = format == InventoryFileFormat.CSV ? splitCsv(line) : splitJson(line);
+                parseRecord(fields, lineNumber, chunk, names);
+            } catch (RowException invalid) {
+                chunk.reject(lineNumber, invalid.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    /** Validates a record and adds the part or product it describes to a chunk.
+     * The checks and their messages match the Add Part and Add Product windows.
+     * @param fields Columns of the record
+     * @param line Line number of the record
+     * @param chunk Chunk to add the record to
+     * @param names Pool of the part and product names of the import*/
+    private static void parseRecord(String[] fields, int line, ParsedChunk chunk, StringPool names) throws RowException {
+        String type = fields[TYPE].trim();
+        int id;
+        try {
+            id = Integer.parseInt(fields[ID].trim());
+        } catch (NumberFormatException badId) {
+            throw new RowException("Please enter a valid ID. This includes whole numbers greater than 0");
+        }
+        if (id <= 0) {
+            throw new RowException("Please enter a valid ID. This includes whole numbers greater than 0");
+        }
+
+        String name = fields[NAME];
+        if (name.isEmpty()) {
+            throw new RowException("Please enter a name");
+        }
+        name = names.intern(name);
+
+        int stock;
+        try {
+            stock = Integer.parseInt(fields[STOCK].trim());
+        } catch (NumberFormatException badValue) {
+            stock = -1;
+        }
+        if (stock < 0) {
+            throw new RowException("Please enter a valid Inventory value. This includes whole numbers greater than or equal to zero.");
+        }
+
+        long priceCents;
+        try {
+            priceCents = Money.parseCents(fields[PRICE]);  //Parses the exact price, truncated to two decimal places.
+        } catch (NumberFormatException notAPrice) {
+            priceCents = -1;
+        }
+        if (priceCents < 0) {
+            throw new RowException("Please enter a valid Price. Price should be greater than or equal to zero and formatted \"0.00\" ");
+        }
+
+        int max;
+        int min;
+        try {
+            max = Integer.parseInt(fields[MAX].trim());
+            min = Integer.parseInt(fields[MIN].trim());
+        } catch (NumberFormatException notInt) {
+            max = -1;
+            min = -1;
+        }
+        if (max < 0 || min < 0 || max < min) {
+            throw new RowException("Please enter valid values for max/min. This includes whole numbers greater than or equal to zero. Max cannot be less than min.");
+        }
+        if (stock < min || stock > max) {
+            throw new RowException("Invalid inventory/ max and min combination. Ensure amount in stock is equal to or between max and min.");
+        }
+
+        if (type.equalsIgnoreCase("InHouse")) {
+            int machineId;
+            try {
+                machineId = Integer.parseInt(fields[LOCATION].trim());
+            } catch (NumberFormatException notInt) {
+                machineId = -1;
+            }
+            if (machineId < 0) {
+                throw new RowException("Please enter valid machine ID. This includes whole numbers greater than 0");
+            }
+            chunk.parts.add(new ParsedPart(line, InHouse.ofCents(id, name, priceCents, stock, min, max, machineId)));
+        }
+        else if (type.equalsIgnoreCase("Outsourced")) {
+            String companyName = fields[LOCATION];
+            if (companyName.isEmpty()) {
+                throw new RowException("Please enter a company name");
+            }
+            chunk.parts.add(new ParsedPart(line, Outsourced.ofCents(id, name, priceCents, stock, min, max, companyName)));
+        }
+        else if (type.equalsIgnoreCase("Product")) {
+            chunk.products.add(new ParsedProduct(line, Product.ofCents(id, name, priceCents, stock, min, max), parsePartEntries(fields[PARTS])));
+        }
+        else {
+            throw new RowException("Unknown record type \"" + type + "\". Expected InHouse, Outsourced or Product");
+        }
+    }
+
+    /** Parses the semicolon separated associated parts of a product. Each part is listed as its ID, optionally
+     * followed by x and the number of units used, so 4x2 lists two units of part 4. A part listed more than once has
+     * its quantities added together.
+     * @param text Contents of the parts column
+     * @return Returns the ID and quantity of each listed part in the order listed, one pair after another*/
+    private static int[] parsePartEntries(String text) throws RowException {
+        if (text.isBlank()) {
+            return new int[0];
+        }
+        String[] tokens = text.split(";");
+        int[] entries = new int[2 * tokens.length];
+        int count = 0;
+        for (String token : tokens) {
+            String entry = token.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int times = entry.indexOf('x');
+            try {
+                entries[count] = Integer.parseInt(times < 0 ? entry : entry.substring(0, times).trim());
+                entries[count + 1] = times < 0 ? 1 : Integer.parseInt(entry.substring(times + 1).trim());
+            } catch (NumberFormatException notInt) {
+                throw new RowException("Invalid associated part \"" + entry + "\"");
+            }
+            if (entries[count + 1] <= 0) {
+                throw new RowException("Invalid associated part quantity \"" + entry + "\". Quantities must be greater than zero");
+            }
+            count += 2;
+        }
+        return count == entries.length ? entries : Arrays.copyOf(entries, count);
+    }
+
+    /** Adds the valid rows of a chunk to the Inventory as one batch of parts followed by one batch of products.
+     * Rows whose ID is already used, and products listing parts that are not in the inventory, are rejected. The
+     * rejected rows of the chunk are then recorded in the result.
+     * @param chunk Parsed chunk to apply
+     * @param result Result to record the outcome in*/
+    private static void apply(ParsedChunk chunk, Result result) {
+        List<Part> parts = new ArrayList<>(chunk.parts.size());
+        IntIntHashMap batchPartIds = new IntIntHashMap(chunk.parts.size(), 0);
+        for (ParsedPart parsed : chunk.parts) {
+            int id = parsed.part.getId();
+            if (batchPartIds.containsKey(id) || Inventory.lookupPart(id) != null) {
+                chunk.reject(parsed.line, "Part ID " + id + " is already in use");
+                continue;
+            }
+            batchPartIds.put(id, 1);
+            parts.add(parsed.part);
+        }
+        Inventory.addParts(parts);
+        result.partsImported += parts.size();
+
+        List<Product> products = new ArrayList<>(chunk.products.size());
+        IntIntHashMap batchProductIds = new IntIntHashMap(chunk.products.size(), 0);
+        for (ParsedProduct parsed : chunk.products) {
+            int id = parsed.product.getId();
+            if (batchProductIds.containsKey(id) || Inventory.lookupProduct(id) != null) {
+                chunk.reject(parsed.line, "Product ID " + id + " is already in use");
+                continue;
+            }
+            int[] partIds = new int[parsed.partEntries.length / 2];
+            Part[] associated = new Part[partIds.length];
+            int[] quantities = new int[partIds.length];
+            int missingId = 0;
+            for (int i = 0; i < partIds.length && missingId == 0; i++) {
+                partIds[i] = parsed.partEntries[2 * i];
+                quantities[i] = parsed.partEntries[2 * i + 1];
+                associated[i] = Inventory.lookupPart(partIds[i]);
+                if (associated[i] == null) {
+                    missingId = partIds[i];
+                }
+            }
+            if (missingId != 0) {
+                chunk.reject(parsed.line, "Associated part ID " + missingId + " is not in inventory");
+                continue;
+            }
+            parsed.product.addAssociatedUnits(partIds, associated, quantities);
+            batchProductIds.put(id, 1);
+            products.add(parsed.product);
+        }
+        Inventory.addProducts(products);
+        result.productsImported += products.size();
+
+        //Reports the parse errors and the rejections above in line order
+        Integer[] order = new Integer[chunk.errorLines.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(chunk.errorLines::get));
+        for (int i : order) {
+            result.reject(chunk.errorLines.get(i), chunk.errorMessages.get(i));
+        }
+    }
+
+    /** Checks whether the first line of a CSV file is a header row.
+     * @param line First line of the file
+     * @return Returns true if the first column is the word type, otherwise returns false*/
+    private static boolean isHeader(String line) {
+        int comma = line.indexOf(',');
+        String first = (comma < 0 ? line : line.substring(0, comma)).trim();
+        return first.equalsIgnoreCase("type") || first.equalsIgnoreCase("\"type\"");
+    }
+
+    /** Splits a CSV line into the record columns.
+     * Fields may be quoted with double quotes, with a doubled quote standing for a quote inside the field. Missing
+     * trailing columns are returned as empty strings.
+     * @param line Line to split
+     * @return Returns the columns of the record*/
+    private static String[] splitCsv(String line) throws RowException {
+        String[] fields = new String[COLUMNS];
+        int column = 0;
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    }
+                    else {
+                        quoted = false;
+                    }
+                }
+                else {
+                    field.append(c);
+                }
+            }
+            else if (c == '"') {
+                quoted = true;
+            }
+            else if (c == ',') {
+                if (column == COLUMNS - 1) {
+                    throw new RowException("Too many columns. Expected type, id, name, price, stock, min, max, location, parts");
+                }
+                fields[column++] = field.toString();
+                field.setLength(0);
+            }
+            else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new RowException("Unterminated quoted field");
+        }
+        fields[column++] = field.toString();
+        while (column < COLUMNS) {
+            fields[column++] = "";
+        }
+        return fields;
+    }
+
+    /** Splits an NDJSON line into the record columns.
+     * Accepts a single flat JSON object whose values are strings, numbers, null or arrays of numbers. Unknown fields
+     * are ignored, and missing fields are returned as empty strings.
+     * @param line Line to split
+     * @return Returns the columns of the record*/
+    private static String[] splitJson(String line) throws RowException {
+        String[] fields = new String[COLUMNS];
+        Arrays.fill(fields, "");
+        JsonCursor json = new JsonCursor(line);
+        json.expect('{');
+        if (json.peek() == '}') {
+            json.expect('}');
+            json.end();
+            return fields;
+        }
+        do {
+            String key = json.string();
+            json.expect(':');
+            String value = json.value();
+            int column = columnOf(key);
+            if (column >= 0 && value != null) {
+                fields[column] = value;
+            }
+        } while (json.next(',', '}'));
+        json.end();
+        return fields;
+    }
+
+    /** Finds the column a JSON field is stored in.
+     * @param key Name of the JSON field
+     * @return Returns the column index, or -1 if the field is not part of the record*/
+    private static int columnOf(String key) {
+        switch (key) {
+            case "type": return TYPE;
+            case "id": return ID;
+            case "name": return NAME;
+            case "price": return PRICE;
+            case "stock": return STOCK;
+            case "min": return MIN;
+            case "max": return MAX;
+            case "machineID":
+            case "companyName": return LOCATION;
+            case "parts": return PARTS;
+            default: return -1;
+        }
+    }
+
+    /** Reads the tokens of a single line JSON object. Numbers are returned as their source text, so they are checked
+     * by the same parsing rules as CSV columns. */
+    private static final class JsonCursor {
+        /**Line being read*/
+        private final String text;
+        /**Position of the next character to read*/
+        private int pos = 0;
+
+        /** Constructor.
+         * @param text Line to read*/
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        /** Retrieves the next character that is not white space without consuming it.
+         * @return Returns the next character, or 0 at the end of the line*/
+        char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        /** Consumes an expected character.
+         * @param c Character that must come next*/
+        void expect(char c) throws RowException {
+            if (peek() != c) {
+                throw new RowException("Malformed JSON: expected '" + c + "' at column " + (pos + 1));
+            }
+            pos++;
+        }
+
+        /** Consumes either a separator or a closing character.
+         * @param separator Character that continues the sequence
+         * @param close Character that ends the sequence
+         * @return Returns true if the separator was read, or false if the closing character was read*/
+        boolean next(char separator, char close) throws RowException {
+            char c = peek();
+            if (c == separator || c == close) {
+                pos++;
+                return c == separator;
+            }
+            throw new RowException("Malformed JSON: expected '" + separator + "' or '" + close + "' at column " + (pos + 1));
+        }
+
+        /** Checks that nothing but white space follows the object. */
+        void end() throws RowException {
+            if (peek() != 0) {
+                throw new RowException("Malformed JSON: unexpected text after the object at column " + (pos + 1));
+            }
+        }
+
+        /** Reads a quoted string, decoding escape sequences.
+         * @return Returns the decoded string*/
+        String string() throws RowException {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new RowException("Malformed JSON: bad unicode escape");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException badEscape) {
+                            throw new RowException("Malformed JSON: bad unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: out.append(escaped);
+                }
+            }
+            throw new RowException("Malformed JSON: unterminated string");
+        }
+
+        /** Reads a value. Arrays of numbers are returned as their elements joined by semicolons.
+         * @return Returns the value as text, or null for a JSON null*/
+        String value() throws RowException {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '[') {
+                pos++;
+                StringBuilder joined = new StringBuilder();
+                if (peek() == ']') {
+                    pos++;
+                    return "";
+                }
+                do {
+                    if (joined.length() > 0) {
+                        joined.append(';');
+                    }
+                    joined.append(peek() == '"' ? string() : literal());
+                } while (next(',', ']'));
+                return joined.toString();
+            }
+            String literal = literal();
+            return literal.equals("null") ? null : literal;
+        }
+
+        /** Reads a number or a bare word such as true, false or null.
+         * @return Returns the source text of the literal*/
+        private String literal() throws RowException {
+            int start = pos;
+            while (pos < text.length() && ",}] \t".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new RowException("Malformed JSON: expected a value at column " + (pos + 1));
+            }
+            return text.substring(start, pos);
+        }
+    }
+}
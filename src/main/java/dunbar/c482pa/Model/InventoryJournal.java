@@ -0,0 +1,630 @@
+package dunbar.c482pa.Model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/** The InventoryJournal class persists the Inventory to disk using a write-ahead log and periodic snapshots.
+ * Every mutation is appended to the log as a checksummed binary record. Appending is split in two steps: enqueue()
+ * queues a record and returns its sequence number, and awaitDurable() waits until that record is on disk, so a caller
+ * can queue a record while holding its own locks and release them before waiting. Records queued by concurrent
+ * callers are batched by a background flusher thread that syncs the log once per batch (group commit). When the log
+ * grows past a threshold, a new log generation is started and a snapshot of the full inventory is written in the
+ * background, after which older snapshots and logs are deleted. On startup the
+ * newest valid snapshot is loaded and only the log generations written after it are replayed.
+ *
+ * Files in the data directory are named snapshot-N.dat and wal-N.log. Snapshot N holds the inventory as it was
+ * when log generation N was started. Snapshots are written in the ColumnarSnapshot layout. */
+public class InventoryJournal implements Closeable {
+    /**Log record type for Inventory.addPart()*/
+    static final byte ADD_PART = 1;
+    /**Log record type for Inventory.updatePart()*/
+    static final byte UPDATE_PART = 2;
+    /**Log record type for Inventory.addProduct()*/
+    static final byte ADD_PRODUCT = 4;
+    /**Log record type for Inventory.updateProduct()*/
+    static final byte UPDATE_PRODUCT = 5;
+    /**Log record type for the stock of a part after Inventory.commit() or Inventory.adjustStock()*/
+    static final byte PART_STOCK = 11;
+    /**Log record type for the stock of a product after Inventory.adjustProductStock()*/
+    static final byte PRODUCT_STOCK = 12;
+    /**Log record type for the stock of a product, its parts and its sub-assemblies after Inventory.buildProduct()*/
+    static final byte PRODUCT_BUILT = 13;
+    /**Log record type for a change in the quantity of a part associated with a product*/
+    static final byte ASSOCIATED_QUANTITY = 14;
+    /**Log record type for a change in the quantity of a sub-assembly used by a product*/
+    static final byte SUB_ASSEMBLY_QUANTITY = 15;
+    /**Log record type for Inventory.deletePart(), holding the ID of the part and the position it was removed from*/
+    static final byte DELETE_PART_BY_ID = 16;
+    /**Log record type for Inventory.deleteProduct(), holding the ID of the product and the position it was removed from*/
+    static final byte DELETE_PRODUCT_BY_ID = 17;
+    /**Log record type for Inventory.sortParts(), holding the column and direction*/
+    static final byte SORT_PARTS = 18;
+    /**Log record type for Inventory.sortProducts(), holding the column and direction*/
+    static final byte SORT_PRODUCTS = 19;
+
+    /**Log size in bytes after which a checkpoint is due*/
+    private static final long CHECKPOINT_BYTES = 4L * 1024 * 1024;
+
+    /** Writes the body of a log record. */
+    @FunctionalInterface
+    interface RecordWriter {
+        /** Writes the fields of the record.
+         * @param out Stream to write the record body to*/
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**Directory holding the snapshot and log files*/
+    private final Path dir;
+    /**Guards the pending batch, the sequence numbers and the current log channel*/
+    private final Object lock = new Object();
+    /**Records appended but not yet written to the log*/
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    /**Sequence number of the last appended record*/
+    private long appendedSeq = 0;
+    /**Sequence number of the last record synced to disk*/
+    private long durableSeq = 0;
+    /**Bytes appended to the log since the last checkpoint*/
+    private long bytesSinceCheckpoint = 0;
+    /**Current log generation*/
+    private long generation = 0;
+    /**Channel of the current log generation*/
+    private FileChannel log;
+    /**Channel of the generation ended by the last rotation, until the flusher has synced and closed it, or null*/
+    private FileChannel retiredLog;
+    /**Records appended to the retired generation that the flusher has not written yet*/
+    private byte[] retiredPending;
+    /**Sequence number of the last record appended to the retired generation*/
+    private long retiredSeq;
+    /**First error raised by the flusher thread; once set, every append fails*/
+    private IOException failure;
+    /**True once close() has been called*/
+    private boolean closed = false;
+    /**True while a snapshot is being written in the background*/
+    private volatile boolean checkpointRunning = false;
+    /**Thread that writes and syncs batches of pending records*/
+    private final Thread flusher;
+    /**Executor that writes snapshots in the background*/
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Constructor. Opens a journal in the given directory without loading anything.
+     * @param dir Directory holding the snapshot and log files*/
+    private InventoryJournal(Path dir) {
+        this.dir = dir;
+        this.flusher = new Thread(this::flushLoop, "inventory-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /** Opens the journal in a directory, loads the newest snapshot into the Inventory and replays the log.
+     * The caller is responsible for keeping the Inventory from logging the mutations made during recovery.
+     * @param dir Directory holding the snapshot and log files, created if it does not exist
+     * @return Returns the opened journal*/
+    static InventoryJournal open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        InventoryJournal journal = new InventoryJournal(dir);
+        journal.recover();
+        journal.flusher.start();
+        return journal;
+    }
+
+    /** Checks whether the journal held any state when it was opened.
+     * @return Returns true if a snapshot or log record was loaded, otherwise returns false*/
+    boolean isEmpty() {
+        synchronized (lock) {
+            return generation == 0 && bytesSinceCheckpoint == 0;
+        }
+    }
+
+    /** Queues several records of the same type for the log without waiting for them to reach the disk.
+     * The records are written by a single sync, so bulk changes do not wait for one sync per record. Records are
+     * written in the order they were queued.
+     * @param type Record type
+     * @param writers Write the bodies of the records, in log order
+     * @return Returns the sequence number to pass to awaitDurable(), or 0 if there were no records*/
+    long enqueue(byte type, List<RecordWriter> writers) {
+        if (writers.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> frames = new ArrayList<>(writers.size());
+        for (RecordWriter writer : writers) {
+            frames.add(frame(type, writer));
+        }
+        synchronized (lock) {
+            checkOpen();
+            for (byte[] frame : frames) {
+                pending.write(frame, 0, frame.length);
+                bytesSinceCheckpoint += frame.length;
+            }
+            lock.notifyAll();
+            return ++appendedSeq;
+        }
+    }
+
+    /** Queues a record holding the current value of a counter without waiting for it to reach the disk.
+     * Unlike enqueue(), the record body is written while the journal is locked, so records of values read later
+     * always follow records of values read earlier. Counters changed without a lock can therefore log their
+     * absolute value after each change, and the last record of each counter holds its final value.
+     * @param type Record type
+     * @param writer Reads the counter and writes the body of the record
+     * @return Returns the sequence number to pass to awaitDurable()*/
+    long enqueueLatest(byte type, RecordWriter writer) {
+        synchronized (lock) {
+            checkOpen();
+            byte[] frame = frame(type, writer);
+            pending.write(frame, 0, frame.length);
+            bytesSinceCheckpoint += frame.length;
+            lock.notifyAll();
+            return ++appendedSeq;
+        }
+    }
+
+    /** Waits until every record queued up to a sequence number has been synced to disk.
+     * Must not be called while holding a lock that other threads need in order to make progress, since a sync can
+     * take milliseconds.
+     * @param seq Sequence number returned by enqueue() or enqueueLatest()
+     * @throws UncheckedIOException if the log could not be written*/
+    void awaitDurable(long seq) {
+        synchronized (lock) {
+            boolean interrupted = false;
+            while (durableSeq < seq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null && durableSeq < seq) {
+                throw new UncheckedIOException("Inventory journal write failed", failure);
+            }
+        }
+    }
+
+    /** Checks that records can still be queued. Must be called while holding the lock. */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Inventory journal is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Inventory journal write failed", failure);
+        }
+    }
+
+    /** Checks whether the log has grown enough that a snapshot should be taken.
+     * @return Returns true if a checkpoint is due and none is running, otherwise returns false*/
+    boolean isCheckpointDue() {
+        synchronized (lock) {
+            return !checkpointRunning && bytesSinceCheckpoint >= CHECKPOINT_BYTES;
+        }
+    }
+
+    /** Starts a new log generation and writes a columnar snapshot of the given state in the background.
+     * The captures must describe the inventory as it is at the moment of the call, including every record queued so
+     * far and no record queued later. The call does not wait for the log to be synced.
+     * @param parts Every part in the inventory in list order
+     * @param products Every product in the inventory in list order
+     * @param associatedParts Associated part ID and quantity pairs of each captured product object, parallel to products
+     * @param subAssemblies Sub-assembly ID and quantity pairs of each captured product object, parallel to products
+     * @param source Snapshot that unread rows of the captures refer to, or null*/
+    void checkpoint(LazyRowList.Capture<Part> parts, LazyRowList.Capture<Product> products, int[][] associatedParts,
+                    int[][] subAssemblies, ColumnarSnapshot source) {
+        long snapshotGeneration;
+        synchronized (lock) {
+            if (checkpointRunning || closed) {
+                return;
+            }
+            checkpointRunning = true;
+            try {
+                snapshotGeneration = rotate();
+            } catch (IOException e) {
+                checkpointRunning = false;
+                throw new UncheckedIOException("Could not start a new inventory log", e);
+            }
+        }
+        snapshotWriter.execute(() -> {
+            try {
+                ColumnarSnapshot.write(snapshotPath(snapshotGeneration), parts, products, associatedParts, subAssemblies, source);
+                deleteBefore(snapshotGeneration);
+            } catch (IOException e) {
+                //The previous snapshot and all logs after it are still on disk, so nothing is lost
+                System.err.println("Inventory snapshot failed: " + e.getMessage());
+            } finally {
+                checkpointRunning = false;
+            }
+        });
+    }
+
+    /** Flushes any pending records, waits for a running snapshot and closes the log. */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (retiredLog != null) {
+                retiredLog.close();     //Left open only if the flusher failed
+            }
+            log.close();
+        }
+    }
+
+    /** Frames a record as its length, its CRC32 checksum and its body.
+     * @param type Record type
+     * @param writer Writes the body of the record
+     * @return Returns the framed record*/
+    private static byte[] frame(byte type, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeByte(type);
+            writer.write(out);
+            out.flush();
+            byte[] payload = body.toByteArray();
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+            frame.putInt(payload.length);
+            frame.putInt((int) crc.getValue());
+            frame.put(payload);
+            return frame.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Writes batches of pending records to the log and syncs them until the journal is closed.
+     * Records left for a generation ended by a rotation are written and synced before that generation is closed, and
+     * before any record of the new generation. */
+    private void flushLoop() {
+        while (true) {
+            byte[] batch;
+            long batchSeq;
+            FileChannel channel;
+            boolean retired;
+            synchronized (lock) {
+                while (pending.size() == 0 && retiredLog == null && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                retired = retiredLog != null;
+                if (retired) {
+                    batch = retiredPending;
+                    batchSeq = retiredSeq;
+                    channel = retiredLog;
+                    retiredPending = null;
+                    retiredLog = null;
+                }
+                else if (pending.size() == 0) {
+                    return;
+                }
+                else {
+                    batch = pending.toByteArray();
+                    pending.reset();
+                    batchSeq = appendedSeq;
+                    channel = log;
+                }
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                if (retired) {
+                    channel.close();
+                }
+                synchronized (lock) {
+                    durableSeq = Math.max(durableSeq, batchSeq);
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /** Switches appends to the next log generation without waiting for a sync. Records queued so far are handed to
+     * the flusher, which writes them to the old generation, syncs it and closes it. Must be called while holding the
+     * lock. Only one rotation is outstanding at a time, since a checkpoint does not start while another is running.
+     * @return Returns the number of the new generation*/
+    private long rotate() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        FileChannel next = openLog(generation + 1);
+        retiredLog = log;
+        retiredPending = pending.toByteArray();
+        retiredSeq = appendedSeq;
+        pending.reset();
+        log = next;
+        generation++;
+        bytesSinceCheckpoint = 0;
+        lock.notifyAll();
+        return generation;
+    }
+
+    /** Loads the newest valid snapshot and replays every log generation written after it.
+     * Snapshots left half written under their temporary name by a crash are deleted first. */
+    private void recover() throws IOException {
+        for (long unfinished : generations("snapshot-", ".dat.tmp", false)) {
+            Files.deleteIfExists(dir.resolve("snapshot-" + unfinished + ".dat.tmp"));
+        }
+        long base = 0;
+        for (long candidate : generations("snapshot-", ".dat", true)) {
+            try {
+                Inventory.loadSnapshot(ColumnarSnapshot.open(snapshotPath(candidate)));
+            } catch (IOException incomplete) {
+                continue;
+            }
+            base = candidate;
+            break;
+        }
+        generation = base;
+        for (long logGeneration : generations("wal-", ".log", false)) {
+            if (logGeneration >= base) {
+                replay(logPath(logGeneration));
+                generation = logGeneration;
+            }
+        }
+        log = openLog(generation);
+        bytesSinceCheckpoint = log.size();
+    }
+
+    /** Lists the generation numbers of the files with a given prefix and suffix.
+     * @param prefix File name prefix
+     * @param suffix File name suffix
+     * @param newestFirst True to sort newest first, false to sort oldest first
+     * @return Returns the generation numbers found*/
+    private List<Long> generations(String prefix, String suffix, boolean newestFirst) throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            found.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                        } catch (NumberFormatException notAGeneration) {
+                            //Ignores files that only look like journal files
+                        }
+                    });
+        }
+        found.sort(newestFirst ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        return found;
+    }
+
+    /** Replays every intact record of a log file into the Inventory.
+     * A torn or corrupt record at the end of the file, left by a crash during a write, is truncated away. A record is
+     * torn when the file ends before its declared length, and corrupt when its checksum does not match; records of
+     * any size that pass both checks are kept.
+     * @param path Log file to replay*/
+    private void replay(Path path) throws IOException {
+        long size = Files.size(path);
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > size - validLength - 8) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException end) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(payload)));
+                validLength += 8 + length;
+            }
+        }
+        if (validLength < size) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    /** Applies a single log record to the Inventory.
+     * @param in Stream positioned at the start of the record body*/
+    private static void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_PART:
+                Inventory.addPart(InventoryCodec.readPart(in));
+                break;
+            case UPDATE_PART: {
+                int index = in.readInt();
+                Inventory.replayPartUpdate(index, InventoryCodec.readPart(in));
+                break;
+            }
+            case DELETE_PART_BY_ID: {
+                int partId = in.readInt();
+                Inventory.replayPartDelete(partId, in.readInt());
+                break;
+            }
+            case ADD_PRODUCT:
+                Inventory.addProduct(InventoryCodec.readProduct(in));
+                break;
+            case UPDATE_PRODUCT: {
+                int index = in.readInt();
+                Inventory.replayProductUpdate(index, InventoryCodec.readProduct(in));
+                break;
+            }
+            case DELETE_PRODUCT_BY_ID: {
+                int productId = in.readInt();
+                Inventory.replayProductDelete(productId, in.readInt());
+                break;
+            }
+            case ASSOCIATED_QUANTITY: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                int partId = in.readInt();
+                int delta = in.readInt();
+                if (product != null && delta < 0) {
+                    product.removeAssociatedUnits(partId, -delta);
+                }
+                else if (product != null) {
+                    Part part = Inventory.lookupPart(partId);
+                    if (part != null) {
+                        product.addAssociatedPart(part, delta);
+                    }
+                }
+                break;
+            }
+            case SUB_ASSEMBLY_QUANTITY: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                int childId = in.readInt();
+                int delta = in.readInt();
+                if (product != null) {
+                    product.changeSubAssemblyUnits(childId, delta);
+                }
+                break;
+            }
+            case SORT_PARTS: {
+                InventoryColumn column = InventoryColumn.values()[in.readUnsignedByte()];
+                Inventory.sortParts(column, in.readBoolean());
+                break;
+            }
+            case SORT_PRODUCTS: {
+                InventoryColumn column = InventoryColumn.values()[in.readUnsignedByte()];
+                Inventory.sortProducts(column, in.readBoolean());
+                break;
+            }
+            case PART_STOCK: {
+                Part part = Inventory.lookupPart(in.readInt());
+                int stock = in.readInt();
+                if (part != null) {
+                    part.setStock(stock);
+                }
+                break;
+            }
+            case PRODUCT_STOCK: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                int stock = in.readInt();
+                if (product != null) {
+                    product.setStock(stock);
+                }
+                break;
+            }
+            case PRODUCT_BUILT: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                int stock = in.readInt();
+                if (product != null) {
+                    product.setStock(stock);
+                }
+                int partCount = in.readInt();
+                for (int i = 0; i < partCount; i++) {
+                    Part part = Inventory.lookupPart(in.readInt());
+                    int partStock = in.readInt();
+                    if (part != null) {
+                        part.setStock(partStock);
+                    }
+                }
+                int childCount = in.readInt();
+                for (int i = 0; i < childCount; i++) {
+                    Product child = Inventory.lookupProduct(in.readInt());
+                    int childStock = in.readInt();
+                    if (child != null) {
+                        child.setStock(childStock);
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown inventory log record type " + type);
+        }
+    }
+
+    /** Deletes the snapshots and logs made obsolete by a newer snapshot.
+     * @param snapshotGeneration Generation of the newest complete snapshot*/
+    private void deleteBefore(long snapshotGeneration) throws IOException {
+        for (long old : generations("snapshot-", ".dat", false)) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(snapshotPath(old));
+            }
+        }
+        for (long old : generations("wal-", ".log", false)) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(logPath(old));
+            }
+        }
+    }
+
+    /** Opens a log generation for appending.
+     * @param logGeneration Generation number of the log
+     * @return Returns a channel positioned at the end of the log*/
+    private FileChannel openLog(long logGeneration) throws IOException {
+        FileChannel channel = FileChannel.open(logPath(logGeneration), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    /** Builds the path of a snapshot file.
+     * @param snapshotGeneration Generation number of the snapshot
+     * @return Returns the path of the snapshot file*/
+    private Path snapshotPath(long snapshotGeneration) {
+        return dir.resolve("snapshot-" + snapshotGeneration + ".dat");
+    }
+
+    /** Builds the path of a log file.
+     * @param logGeneration Generation number of the log
+     * @return Returns the path of the log file*/
+    private Path logPath(long logGeneration) {
+        return dir.resolve("wal-" + logGeneration + ".log");
+    }
+}
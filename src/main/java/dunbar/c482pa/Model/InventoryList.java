@@ -0,0 +1,144 @@
+package dunbar.c482pa.Model;
+
+import javafx.collections.ModifiableObservableListBase;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/** The InventoryList class is the observable list behind the Inventory allParts and allProducts lists.
+ * It publishes changes for a LazyRowList, so rows loaded from a snapshot are still only built when they are read,
+ * and adds two things the standard FXCollections wrapper cannot do. Several changes can be grouped with batch(), so
+ * listeners such as a TableView receive one combined change event instead of one per row. And a setAll() call that
+ * only reorders the list, which is how a TableView sorts its items, is published as a permutation and reported to a
+ * listener, so the Inventory can renumber its name indexes.
+ * @param <T> Type of the list elements */
+final class InventoryList<T> extends ModifiableObservableListBase<T> {
+    /**List holding the elements*/
+    private final LazyRowList<T> rows;
+    /**Called with the old position of each element after setAll() reorders the list*/
+    private final Consumer<int[]> reorderListener;
+
+    /** Constructor. Creates an observable list over a row list.
+     * @param rows List holding the elements
+     * @param reorderListener Called with the old position of the element placed at each new position after setAll()
+     * reorders the list*/
+    InventoryList(LazyRowList<T> rows, Consumer<int[]> reorderListener) {
+        this.rows = rows;
+        this.reorderListener = reorderListener;
+    }
+
+    /** Runs several changes to the list and publishes them to listeners as a single change event.
+     * @param changes Changes to make*/
+    void batch(Runnable changes) {
+        beginChange();
+        try {
+            changes.run();
+        } finally {
+            endChange();
+        }
+    }
+
+    /** Rearranges the list without building unread rows and publishes the permutation to listeners.
+     * The reorder listener is not called.
+     * @param order Old position of the element placed at each new position*/
+    void permute(int[] order) {
+        if (order.length != size()) {
+            throw new IllegalArgumentException("Order has " + order.length + " positions but the list has " + size());
+        }
+        int[] newPositions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            newPositions[order[i]] = i;
+        }
+        beginChange();
+        try {
+            rows.permute(order);
+            nextPermutation(0, order.length, newPositions);
+        } finally {
+            endChange();
+        }
+    }
+
+    /** Replaces the contents of the list.
+     * If the new contents hold exactly the current elements in another order, the list is permuted in place and the
+     * reorder listener is called instead of removing and re-adding every element.
+     * @param col New contents of the list
+     * @return Returns true*/
+    @Override
+    public boolean setAll(Collection<? extends T> col) {
+        int[] order = orderOf(col);
+        if (order == null) {
+            return super.setAll(col);
+        }
+        permute(order);
+        reorderListener.accept(order);
+        return true;
+    }
+
+    /** Works out how the current elements are rearranged by new contents.
+     * @param col New contents of the list
+     * @return Returns the old position of each new element, or null if the new contents are not a reordering of the
+     * current elements*/
+    private int[] orderOf(Collection<? extends T> col) {
+        int size = size();
+        if (col.size() != size || size == 0) {
+            return null;
+        }
+        Map<Object, Integer> positions = new IdentityHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            if (positions.put(get(i), i) != null) {
+                return null;        //An element held twice cannot be told apart from its copy
+            }
+        }
+        int[] order = new int[size];
+        int next = 0;
+        for (T element : col) {
+            Integer old = positions.remove(element);
+            if (old == null) {
+                return null;
+            }
+            order[next++] = old;
+        }
+        return order;
+    }
+
+    @Override
+    public T get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    protected void doAdd(int index, T element) {
+        rows.add(index, element);
+    }
+
+    @Override
+    protected T doSet(int index, T element) {
+        return rows.set(index, element);
+    }
+
+    @Override
+    protected T doRemove(int index) {
+        return rows.remove(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return rows.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return rows.lastIndexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return rows.contains(o);
+    }
+}
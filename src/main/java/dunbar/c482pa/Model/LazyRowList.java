@@ -0,0 +1,470 @@
+package dunbar.c482pa.Model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/** The LazyRowList class is a list whose elements are built from the rows of a snapshot only when they are read.
+ * After load() the list holds one reference per snapshot row, and an element object is created the first time its
+ * position is read. Each row is materialized at most once, so repeated reads return the same object. Elements
+ * added or set after loading are stored directly. Used as the backing list of the Inventory observable lists.
+ * <p>The list is changed by one thread at a time, but rows may be built by several threads reading it at once, as
+ * under the Inventory read lock. Rows are built while holding the list's monitor and published to the row cache with
+ * release semantics, so a reader either finds a fully built element or builds the row itself.</p>
+ * @param <T> Type of the list elements */
+class LazyRowList<T> extends AbstractList<T> implements RandomAccess {
+    /**Reads and writes elements of rowCache with acquire and release semantics*/
+    private static final VarHandle CACHED = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /** Holds the contents of the list at one moment, for writing a new snapshot or scanning the list off the lock
+     * that guards it.
+     * @param <T> Type of the list elements */
+    static final class Capture<T> {
+        /**Element at each position, or null if the position still refers to an unmaterialized snapshot row*/
+        final Object[] items;
+        /**Snapshot row at each position, or -1 if the position holds an element added after loading*/
+        final int[] rows;
+        /**Number of positions captured*/
+        final int size;
+
+        /** Constructor. Creates a capture of the list contents.
+         * @param items Element at each position, or null for unmaterialized rows
+         * @param rows Snapshot row at each position, or -1
+         * @param size Number of positions captured*/
+        private Capture(Object[] items, int[] rows, int size) {
+            this.items = items;
+            this.rows = rows;
+            this.size = size;
+        }
+
+        /** Retrieves the element at a position, if it has been materialized.
+         * @param index Position to read
+         * @return Returns the element, or null if the position still refers to a snapshot row*/
+        @SuppressWarnings("unchecked")
+        T item(int index) {
+            return (T) items[index];
+        }
+
+        /** Finds the positions whose element or unread row matches a filter, without building any row.
+         * @param itemFilter Tests an element that had been built or added
+         * @param rowFilter Tests the snapshot row of a position that had not been read
+         * @param limit Maximum number of positions to return
+         * @return Returns the matching positions in list order*/
+        int[] matching(Predicate<? super T> itemFilter, IntPredicate rowFilter, int limit) {
+            int[] found = new int[Math.min(size, 16)];
+            int count = 0;
+            for (int i = 0; i < size && count < limit; i++) {
+                T item = item(i);
+                if (item != null ? itemFilter.test(item) : rowFilter.test(rows[i])) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = i;
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        /** Copies two fields of a range of positions into primitive columns, reading the fields of unread rows
+         * without building them, so that the columns can be aggregated in one tight loop.
+         * @param from First position to copy
+         * @param to Position after the last one to copy
+         * @param itemLong Reads the long field of an element that had been built or added
+         * @param rowLong Reads the long field of the snapshot row of a position that had not been read
+         * @param itemInt Reads the int field of an element that had been built or added
+         * @param rowInt Reads the int field of the snapshot row of a position that had not been read
+         * @param longs Receives the long field of each position, starting at index 0
+         * @param ints Receives the int field of each position, starting at index 0*/
+        void columns(int from, int to, ToLongFunction<? super T> itemLong, IntToLongFunction rowLong,
+                     ToIntFunction<? super T> itemInt, IntUnaryOperator rowInt, long[] longs, int[] ints) {
+            for (int i = from; i < to; i++) {
+                T item = item(i);
+                if (item != null) {
+                    longs[i - from] = itemLong.applyAsLong(item);
+                    ints[i - from] = itemInt.applyAsInt(item);
+                }
+                else {
+                    longs[i - from] = rowLong.applyAsLong(rows[i]);
+                    ints[i - from] = rowInt.applyAsInt(rows[i]);
+                }
+            }
+        }
+    }
+
+    /**Builds the element for a snapshot row*/
+    private IntFunction<T> loader;
+    /**Elements already built, indexed by snapshot row*/
+    private Object[] rowCache = new Object[0];
+    /**Element stored at each position, or null if the position refers to a snapshot row*/
+    private Object[] items = new Object[10];
+    /**Snapshot row referred to at each position, or -1 if the position holds an element directly*/
+    private int[] rows = new int[10];
+    /**Number of elements in the list*/
+    private int size = 0;
+
+    /** Replaces the contents of the list with references to every row of a snapshot.
+     * No element is built until its position is read.
+     * @param rowCount Number of rows in the snapshot
+     * @param loader Builds the element for a snapshot row*/
+    void load(int rowCount, IntFunction<T> loader) {
+        this.loader = loader;
+        this.rowCache = new Object[rowCount];
+        this.items = new Object[Math.max(10, rowCount)];
+        this.rows = new int[items.length];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = i;
+        }
+        this.size = rowCount;
+    }
+
+    /** Retrieves the element built from a snapshot row, building it if it has not been read yet.
+     * The row does not need to still be in the list. Safe to call from several threads at once; a row is built by
+     * one of them while holding the list's monitor.
+     * @param row Snapshot row to read
+     * @return Returns the element for the row*/
+    @SuppressWarnings("unchecked")
+    T row(int row) {
+        Object element = cached(row);
+        if (element == null) {
+            synchronized (this) {
+                element = cached(row);
+                if (element == null) {
+                    element = loader.apply(row);
+                    CACHED.setRelease(rowCache, row, element);
+                }
+            }
+        }
+        return (T) element;
+    }
+
+    /** Reads the element built from a snapshot row without building it.
+     * @param row Snapshot row to read
+     * @return Returns the element, or null if the row has not been built*/
+    private Object cached(int row) {
+        return CACHED.getAcquire(rowCache, row);
+    }
+
+    /** Copies the current positions of the list without building any unread rows.
+     * @return Returns a capture of the list contents*/
+    Capture<T> capture() {
+        Object[] capturedItems = Arrays.copyOf(items, size);
+        int[] capturedRows = Arrays.copyOf(rows, size);
+        for (int i = 0; i < size; i++) {
+            //Rows that were read since loading are captured as elements, since their objects may have been changed
+            if (capturedItems[i] == null) {
+                capturedItems[i] = cached(capturedRows[i]);
+            }
+        }
+        return new Capture<>(capturedItems, capturedRows, size);
+    }
+
+    /** Rearranges the positions of the list without building unread rows.
+     * @param order Old position of the element placed at each new position*/
+    void permute(int[] order) {
+        Object[] permutedItems = new Object[items.length];
+        int[] permutedRows = new int[rows.length];
+        for (int i = 0; i < size; i++) {
+            permutedItems[i] = items[order[i]];
+            permutedRows[i] = rows[order[i]];
+        }
+        items = permutedItems;
+        rows = permutedRows;
+        modCount++;
+    }
+
+    /** Finds every position holding one of a set of elements, without building unread rows.
+     * @param targets Elements to search for
+     * @return Returns the matching positions in ascending order*/
+    int[] indexesOf(Set<?> targets) {
+        int[] found = new int[16];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Object element = items[i] != null ? items[i] : cached(rows[i]);
+            if (element != null && targets.contains(element)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = i;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /** Builds every unread row between two positions with a single call of a batch loader, so that a page of rows
+     * costs one call instead of one per row.
+     * @param from First position to build
+     * @param to Position after the last one to build
+     * @param batchLoader Builds the elements for an array of snapshot rows, returned in the same order*/
+    void prefetch(int from, int to, Function<int[], List<T>> batchLoader) {
+        int[] unread = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (items[i] == null && cached(rows[i]) == null) {
+                unread[count++] = rows[i];
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        List<T> built = batchLoader.apply(Arrays.copyOf(unread, count));
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                if (cached(unread[i]) == null) {
+                    CACHED.setRelease(rowCache, unread[i], built.get(i));
+                }
+            }
+        }
+    }
+
+    /** Finds the elements matching a filter, testing unread rows without building them.
+     * Only the matching rows are built.
+     * @param elementFilter Tests an element that has been built or added
+     * @param rowFilter Tests the snapshot row of a position that has not been read
+     * @param limit Maximum number of matches to return
+     * @return Returns the matching elements in list order*/
+    List<T> matching(Predicate<? super T> elementFilter, IntPredicate rowFilter, int limit) {
+        List<T> matches = new ArrayList<>();
+        for (int i = 0; i < size && matches.size() < limit; i++) {
+            T element = built(i);
+            if (element != null ? elementFilter.test(element) : rowFilter.test(rows[i])) {
+                matches.add(get(i));
+            }
+        }
+        return matches;
+    }
+
+    /** Works out the order that sorts the list by a numeric key, reading the key of unread rows without building
+     * them. The keys are copied into a primitive column and the positions are sorted as a primitive array, so no key
+     * or position is boxed. The sort is stable.
+     * @param elementKey Reads the key of an element that has been built or added
+     * @param rowKey Reads the key of the snapshot row of a position that has not been read
+     * @param ascending True to sort in ascending order, false for descending
+     * @return Returns the old position of the element placed at each new position, or null if the list is already
+     * in that order*/
+    int[] sortOrder(ToLongFunction<? super T> elementKey, IntToLongFunction rowKey, boolean ascending) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            T element = built(i);
+            keys[i] = element != null ? elementKey.applyAsLong(element) : rowKey.applyAsLong(rows[i]);
+        }
+        return ascending ? sortPositions((a, b) -> Long.compare(keys[a], keys[b]))
+                : sortPositions((a, b) -> Long.compare(keys[b], keys[a]));
+    }
+
+    /** Works out the order that sorts the list by a text key, as sortOrder() does for numeric keys.
+     * Null keys come first, as in a TableView column.
+     * @param elementKey Reads the key of an element that has been built or added
+     * @param rowKey Reads the key of the snapshot row of a position that has not been read
+     * @param ascending True to sort in ascending order, false for descending
+     * @return Returns the old position of the element placed at each new position, or null if the list is already
+     * in that order*/
+    int[] sortOrderByText(Function<? super T, String> elementKey, IntFunction<String> rowKey, boolean ascending) {
+        String[] keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            T element = built(i);
+            keys[i] = element != null ? elementKey.apply(element) : rowKey.apply(rows[i]);
+        }
+        return ascending ? sortPositions((a, b) -> compareText(keys[a], keys[b]))
+                : sortPositions((a, b) -> compareText(keys[b], keys[a]));
+    }
+
+    /** Compares two text keys, placing null first.
+     * @param key First key, or null
+     * @param other Second key, or null
+     * @return Returns a negative number, zero or a positive number as the first key is below, equal to or above the
+     * second*/
+    private static int compareText(String key, String other) {
+        if (key == null || other == null) {
+            return key == null ? (other == null ? 0 : -1) : 1;
+        }
+        return key.compareTo(other);
+    }
+
+    /** Sorts the positions of the list with a bottom-up merge sort, which is stable. Runs that are already in order
+     * are not merged, so sorting a list that is already sorted only compares neighbouring positions.
+     * @param compare Compares the keys at two old positions
+     * @return Returns the old position of the element placed at each new position, or null if no position moved*/
+    private int[] sortPositions(IntBinaryOperator compare) {
+        int[] from = new int[size];
+        int[] to = new int[size];
+        for (int i = 0; i < size; i++) {
+            from[i] = i;
+        }
+        for (int width = 1; width < size; width *= 2) {
+            for (int left = 0; left < size; left += 2 * width) {
+                int middle = Math.min(left + width, size);
+                int right = Math.min(left + 2 * width, size);
+                if (middle == right || compare.applyAsInt(from[middle - 1], from[middle]) <= 0) {
+                    System.arraycopy(from, left, to, left, right - left);
+                    continue;
+                }
+                int i = left;
+                int j = middle;
+                for (int k = left; k < right; k++) {
+                    if (i < middle && (j >= right || compare.applyAsInt(from[i], from[j]) <= 0)) {
+                        to[k] = from[i++];
+                    }
+                    else {
+                        to[k] = from[j++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        for (int i = 0; i < size; i++) {
+            if (from[i] != i) {
+                return from;
+            }
+        }
+        return null;
+    }
+
+    /** Retrieves the element at a position if it exists as an object, without building an unread row.
+     * @param index Position to read
+     * @return Returns the element, or null if the position refers to a snapshot row that has not been read*/
+    @SuppressWarnings("unchecked")
+    private T built(int index) {
+        Object element = items[index];
+        return (T) (element != null ? element : cached(rows[index]));
+    }
+
+    /** Retrieves the snapshot row a position refers to, if that row has not been read.
+     * @param index Position to check
+     * @return Returns the snapshot row, or -1 if the element at the position exists as an object*/
+    int unreadRow(int index) {
+        checkIndex(index);
+        return items[index] == null && cached(rows[index]) == null ? rows[index] : -1;
+    }
+
+    /** Checks whether a position has been read or holds an element added after loading.
+     * @param index Position to check
+     * @return Returns true if the element at the position exists as an object, otherwise returns false*/
+    boolean isMaterialized(int index) {
+        checkIndex(index);
+        return items[index] != null || cached(rows[index]) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index);
+        Object element = items[index];
+        return element != null ? (T) element : row(rows[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T previous = get(index);
+        items[index] = element;
+        rows[index] = -1;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == items.length) {
+            int capacity = items.length + (items.length >> 1) + 1;
+            items = Arrays.copyOf(items, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+        System.arraycopy(items, index, items, index + 1, size - index);
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        items[index] = element;
+        rows[index] = -1;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T previous = get(index);
+        int moved = size - index - 1;
+        System.arraycopy(items, index + 1, items, index, moved);
+        System.arraycopy(rows, index + 1, rows, index, moved);
+        size--;
+        items[size] = null;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        int moved = size - toIndex;
+        System.arraycopy(items, toIndex, items, fromIndex, moved);
+        System.arraycopy(rows, toIndex, rows, fromIndex, moved);
+        Arrays.fill(items, size - (toIndex - fromIndex), size, null);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, size);
+    }
+
+    /** Finds the first position of an element without building unread rows.
+     * An unread row cannot hold an object the caller already has, so only built elements are compared.
+     * @param o Element to search for
+     * @return Returns the first position of the element, or -1 if it is not in the list*/
+    @Override
+    public int indexOf(Object o) {
+        for (int i = 0; i < size; i++) {
+            Object element = items[i] != null ? items[i] : cached(rows[i]);
+            if (element != null && element.equals(o)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Finds the last position of an element without building unread rows.
+     * @param o Element to search for
+     * @return Returns the last position of the element, or -1 if it is not in the list*/
+    @Override
+    public int lastIndexOf(Object o) {
+        for (int i = size - 1; i >= 0; i--) {
+            Object element = items[i] != null ? items[i] : cached(rows[i]);
+            if (element != null && element.equals(o)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /** Checks that a position is inside the list.
+     * @param index Position to check*/
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
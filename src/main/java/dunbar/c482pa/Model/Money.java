@@ -0,0 +1,153 @@
+package dunbar.c482pa.Model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/** The Money class holds the fixed-point representation of prices: a whole number of cents stored in a long.
+ * Prices are parsed straight from their decimal text, so a price such as 0.29 is 29 cents rather than the nearest
+ * double, and sums of prices are exact instead of accumulating rounding error. The valuation kernels multiply and
+ * add primitive columns in plain counted loops with no calls or branches, which the JIT compiles to vector
+ * instructions where the processor supports them. Totals are exact while they fit in a long, which holds over
+ * 92 quadrillion dollars. */
+public final class Money {
+    /**Number of cents in one dollar*/
+    public static final long CENTS_PER_UNIT = 100;
+
+    /** Prevents instantiation of this utility class. */
+    private Money() {
+    }
+
+    /** Parses a price typed as a decimal number into cents.
+     * Digits past the second decimal place are truncated, rounding down, as prices always have been. Plain decimals
+     * are parsed without creating any objects; exponent notation is also accepted.
+     * @param text Price such as "12", "12.5" or "12.50", surrounding spaces allowed
+     * @return Returns the price in cents
+     * @throws NumberFormatException if the text is not a decimal number or the price does not fit in a long*/
+    public static long parseCents(String text) {
+        String trimmed = text.trim();
+        int length = trimmed.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (trimmed.charAt(i) == '-' || trimmed.charAt(i) == '+')) {
+            negative = trimmed.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        for (; i < length && isDigit(trimmed.charAt(i)); i++, digits++) {
+            if (units > (Long.MAX_VALUE - 9) / 10) {
+                throw new NumberFormatException("Price is too large: " + text);
+            }
+            units = units * 10 + (trimmed.charAt(i) - '0');
+        }
+        long cents = 0;
+        boolean truncated = false;
+        if (i < length && trimmed.charAt(i) == '.') {
+            i++;
+            for (int place = 0; i < length && isDigit(trimmed.charAt(i)); i++, digits++, place++) {
+                int digit = trimmed.charAt(i) - '0';
+                if (place == 0) {
+                    cents = 10L * digit;
+                }
+                else if (place == 1) {
+                    cents += digit;
+                }
+                else if (digit != 0) {
+                    truncated = true;
+                }
+            }
+        }
+        if (i < length || digits == 0) {
+            return parseExponent(text, trimmed);
+        }
+        try {
+            //Negative prices are built below zero, so the lowest long, which has no positive counterpart, is accepted
+            long whole = Math.multiplyExact(negative ? -units : units, CENTS_PER_UNIT);
+            return negative ? Math.subtractExact(whole, cents + (truncated ? 1 : 0)) : Math.addExact(whole, cents);
+        } catch (ArithmeticException tooLarge) {
+            throw new NumberFormatException("Price is too large: " + text);
+        }
+    }
+
+    /** Parses a price the plain decimal parser did not accept, such as one in exponent notation.
+     * @param text Text as given, for the error message
+     * @param trimmed Text without surrounding spaces
+     * @return Returns the price in cents, rounded down*/
+    private static long parseExponent(String text, String trimmed) {
+        try {
+            return new BigDecimal(trimmed).setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+        } catch (ArithmeticException tooLarge) {
+            throw new NumberFormatException("Price is too large: " + text);
+        } catch (NumberFormatException notDecimal) {
+            throw new NumberFormatException("Not a price: " + text);
+        }
+    }
+
+    /** Checks whether a character is an ASCII digit.
+     * @param c Character to check
+     * @return Returns true for 0 to 9, otherwise returns false*/
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Converts cents to the price shown in tables and accepted by the double based constructors.
+     * Converting the result back with fromDouble() returns the same number of cents.
+     * @param cents Price in cents
+     * @return Returns the price in dollars*/
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    /** Converts a price in dollars to the nearest whole number of cents.
+     * Used for prices given as doubles, which are already meant to have at most two decimal places.
+     * @param price Price in dollars
+     * @return Returns the price in cents*/
+    public static long fromDouble(double price) {
+        return Math.round(price * CENTS_PER_UNIT);
+    }
+
+    /** Formats cents as a decimal price with exactly two decimal places, such as "12.50", without exponent notation.
+     * The result is accepted by parseCents().
+     * @param cents Price in cents
+     * @return Returns the formatted price*/
+    public static String format(long cents) {
+        StringBuilder text = new StringBuilder(24);
+        if (cents < 0) {
+            text.append('-');
+        }
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        int fraction = (int) Math.abs(cents % CENTS_PER_UNIT);
+        text.append(units).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+
+    /** Adds up price times count over the first positions of two columns, such as price and stock for a valuation.
+     * @param cents Price of each item in cents
+     * @param counts Number of units of each item
+     * @param count Number of positions to add up
+     * @return Returns the total value in cents*/
+    public static long total(long[] cents, int[] counts, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += cents[i] * counts[i];
+        }
+        return total;
+    }
+
+    /** Adds up price times quantity over the first positions of two columns, such as the exploded quantities of a
+     * bill of materials and the prices of its parts.
+     * @param cents Price of each item in cents
+     * @param quantities Number of units of each item
+     * @param count Number of positions to add up
+     * @return Returns the total value in cents*/
+    public static long total(long[] cents, long[] quantities, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += cents[i] * quantities[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,215 @@
+package dunbar.c482pa.Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/** The NGramIndex class is an inverted trigram index used for case-insensitive substring searches on names.
+ * Every indexed item is broken into the overlapping three character sequences of its name lower cased in the root
+ * locale, so matches do not depend on the default locale, and each sequence maps to the set of items containing it. A substring query only checks the items found in every posting
+ * set of its own trigrams. Items keep the order they were added in, so results come back in the same order as a
+ * linear scan of the source list would return them.
+ * @param <T> Type of the items being indexed */
+public class NGramIndex<T> {
+    /**Length of the character sequences used as index keys*/
+    private static final int GRAM = 3;
+
+    /** Holds the indexed form of a single item. */
+    private static class Entry<T> {
+        /**Item being indexed*/
+        private final T item;
+        /**Lower case name the item was indexed under*/
+        private final String key;
+        /**Position of the item relative to the other indexed items*/
+        private long ordinal;
+
+        /** Constructor. Creates an entry for an indexed item.
+         * @param item Item being indexed
+         * @param key Lower case name the item was indexed under
+         * @param ordinal Position of the item relative to the other indexed items*/
+        private Entry(T item, String key, long ordinal) {
+            this.item = item;
+            this.key = key;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**Retrieves the name to index for an item*/
+    private final Function<T, String> nameOf;
+    /**Entries keyed by the item they index*/
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    /**Entries in the order their items were added*/
+    private final TreeMap<Long, Entry<T>> inOrder = new TreeMap<>();
+    /**Posting sets keyed by trigram*/
+    private final Map<String, Set<Entry<T>>> postings = new HashMap<>();
+    /**Ordinal handed to the next item added*/
+    private long nextOrdinal = 0;
+
+    /** Constructor. Creates an empty index.
+     * @param nameOf Function that retrieves the name to index for an item*/
+    public NGramIndex(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+    }
+
+    /** Adds an item to the index after all previously added items.
+     * @param item Item to index*/
+    public void add(T item) {
+        insert(item, nextOrdinal++);
+    }
+
+    /** Replaces an item in the index with another item, keeping the original item's position.
+     * If the old item is not indexed, the new item is added at the end.
+     * @param oldItem Item being replaced
+     * @param newItem Item taking its place*/
+    public void replace(T oldItem, T newItem) {
+        Entry<T> old = entries.get(oldItem);
+        if (old == null) {
+            add(newItem);
+            return;
+        }
+        remove(oldItem);
+        insert(newItem, old.ordinal);
+    }
+
+    /** Removes an item from the index.
+     * @param item Item to remove
+     * @return Returns true if the item was indexed, otherwise returns false*/
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        inOrder.remove(entry.ordinal);
+        for (String gram : grams(entry.key)) {
+            Set<Entry<T>> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(entry);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Renumbers the indexed items so that searches return them in a new order.
+     * Items that are not in the list keep their relative order after the listed items.
+     * @param items Indexed items in their new order*/
+    public void reorder(List<T> items) {
+        Set<Entry<T>> placed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Entry<T>> order = new ArrayList<>(entries.size());
+        for (T item : items) {
+            Entry<T> entry = entries.get(item);
+            if (entry != null && placed.add(entry)) {
+                order.add(entry);
+            }
+        }
+        for (Entry<T> entry : inOrder.values()) {
+            if (placed.add(entry)) {
+                order.add(entry);
+            }
+        }
+        inOrder.clear();
+        nextOrdinal = 0;
+        for (Entry<T> entry : order) {
+            entry.ordinal = nextOrdinal++;
+            inOrder.put(entry.ordinal, entry);
+        }
+    }
+
+    /** Finds every item whose name contains the query, ignoring case.
+     * Queries shorter than a trigram are answered by scanning the indexed names.
+     * @param query Text to search for
+     * @return Returns the matching items in the order they were added*/
+    public List<T> search(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<T> results = new ArrayList<>();
+
+        if (needle.length() < GRAM) {
+            for (Entry<T> entry : inOrder.values()) {
+                if (entry.key.contains(needle)) {
+                    results.add(entry.item);
+                }
+            }
+            return results;
+        }
+
+        //Collects the posting sets for the query trigrams and walks the smallest one, checking it against the rest
+        List<Set<Entry<T>>> sets = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Entry<T>> posting = postings.get(gram);
+            if (posting == null) {
+                return results;
+            }
+            sets.add(posting);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        List<Entry<T>> matches = new ArrayList<>();
+        for (Entry<T> candidate : sets.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < sets.size() && inAll; i++) {
+                inAll = sets.get(i).contains(candidate);
+            }
+            //The trigrams can all be present without being adjacent, so the candidate is checked directly
+            if (inAll && candidate.key.contains(needle)) {
+                matches.add(candidate);
+            }
+        }
+        matches.sort(Comparator.comparingLong(entry -> entry.ordinal));
+        for (Entry<T> match : matches) {
+            results.add(match.item);
+        }
+        return results;
+    }
+
+    /** Retrieves the number of indexed items.
+     * @return Returns the number of indexed items*/
+    public int size() {
+        return entries.size();
+    }
+
+    /** Removes every item from the index. */
+    public void clear() {
+        entries.clear();
+        inOrder.clear();
+        postings.clear();
+        nextOrdinal = 0;
+    }
+
+    /** Indexes an item at a given position.
+     * @param item Item to index
+     * @param ordinal Position of the item relative to the other indexed items*/
+    private void insert(T item, long ordinal) {
+        if (entries.containsKey(item)) {
+            remove(item);
+        }
+        String name = nameOf.apply(item);
+        Entry<T> entry = new Entry<>(item, name == null ? "" : name.toLowerCase(Locale.ROOT), ordinal);
+        entries.put(item, entry);
+        inOrder.put(ordinal, entry);
+        for (String gram : grams(entry.key)) {
+            postings.computeIfAbsent(gram, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(entry);
+        }
+    }
+
+    /** Breaks a string into its distinct trigrams.
+     * @param text Lower case text to break up
+     * @return Returns the distinct trigrams of the text, or an empty set if the text is shorter than a trigram*/
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
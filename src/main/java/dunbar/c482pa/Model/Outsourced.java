@@ -2,10 +2,16 @@ package dunbar.c482pa.Model;
 
 /** The Outsourced class is a subclass of the abstract class Part that tracks outsourced items.
  *  It adds a field for the company used to manufacture a part, as well as the other Part fields.
- *  Provides methods for accessing and setting the outsource company. */
+ *  Provides methods for accessing and setting the outsource company. Company names are canonicalized through a
+ *  shared pool, so parts from the same supplier share one String and one supplier ID. */
 public class Outsourced extends Part{
+    /**Company names of every outsourced part created, numbered with supplier IDs*/
+    private static final StringPool SUPPLIERS = new StringPool(false);
+
     /**Name of the company that manufactures an outsourced part*/
     private String companyName;
+    /**ID of the company name in the supplier pool, or -1 if there is no company name*/
+    private int supplierId;
 
     /**Constructor for Outsourced Objects.
      * Invokes the Part constructor and sets the initial value for the companyName field.
@@ -18,7 +24,35 @@ public class Outsourced extends Part{
      * @param companyName Name of the company used to manufacture the part*/
     public Outsourced(int id, String name, double price, int stock, int min, int max, String companyName) {
         super(id, name, price, stock, min, max);
-        this.companyName = companyName;
+        setSupplier(companyName);
+    }
+
+    /**Constructor for Outsourced Objects with an exact price, used by ofCents().
+     * @param id ID number of the part
+     * @param name Name of the part
+     * @param priceCents Price of the part in whole cents
+     * @param stock Number of parts in inventory
+     * @param min Minimum number of parts required to be kept in inventory
+     * @param max Maximum number of parts allowed to be kept in inventory
+     * @param companyName Name of the company used to manufacture the part*/
+    private Outsourced(int id, String name, long priceCents, int stock, int min, int max, String companyName) {
+        super(id, name, priceCents, stock, min, max);
+        setSupplier(companyName);
+    }
+
+    /**Creates an Outsourced part from an exact price, such as one parsed by Money.parseCents(), without passing it
+     * through a double.
+     * @param id ID number of the part
+     * @param name Name of the part
+     * @param priceCents Price of the part in whole cents
+     * @param stock Number of parts in inventory
+     * @param min Minimum number of parts required to be kept in inventory
+     * @param max Maximum number of parts allowed to be kept in inventory
+     * @param companyName Name of the company used to manufacture the part
+     * @return Returns the new part*/
+    public static Outsourced ofCents(int id, String name, long priceCents, int stock, int min, int max, String companyName) {
+
+        return new Outsourced(id, name, priceCents, stock, min, max, companyName);
     }
 
     /**Retrieves the name of the company used to manufacture the part.
@@ -30,7 +64,28 @@ public class Outsourced extends Part{
     /** Sets the name of the company used to manufacture the part.
      * @param companyName the name of the company used to manufacture the part*/
     public void setCompanyName(String companyName) {
-        this.companyName = companyName;
+        setSupplier(companyName);
+    }
+
+    /** Retrieves the ID of the company used to manufacture the part.
+     * Parts from the same company have the same supplier ID, so parts can be grouped or filtered by supplier with an
+     * int comparison.
+     * @return Returns the supplier ID, or -1 if the part has no company name*/
+    public int getSupplierId() {
+        return supplierId;
+    }
+
+    /** Retrieves the pool of company names, which maps supplier IDs to names and back.
+     * @return Returns the supplier pool shared by every outsourced part*/
+    public static StringPool getSuppliers() {
+        return SUPPLIERS;
+    }
+
+    /** Stores a company name as its pooled instance and supplier ID.
+     * @param companyName Name of the company, or null*/
+    private void setSupplier(String companyName) {
+        this.supplierId = companyName == null ? -1 : SUPPLIERS.id(companyName);
+        this.companyName = companyName == null ? null : SUPPLIERS.get(supplierId);
     }
 
 }
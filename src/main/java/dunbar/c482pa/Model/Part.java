@@ -1,5 +1,13 @@
 package dunbar.c482pa.Model;
 
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Supplied class Part.java
  */
@@ -9,17 +17,49 @@ package dunbar.c482pa.Model;
  * @author Colin Dunbar
  */
 public abstract class Part {
+    private static final VarHandle STOCK_STATE;
+    private static final VarHandle STOCK_REFRESH_PENDING;
+    private static final VarHandle ALERT_PENDING;
+    private static final VarHandle GROUP_PENDING;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STOCK_STATE = lookup.findVarHandle(Part.class, "stockState", long.class);
+            STOCK_REFRESH_PENDING = lookup.findVarHandle(Part.class, "stockRefreshPending", boolean.class);
+            ALERT_PENDING = lookup.findVarHandle(Part.class, "alertPending", boolean.class);
+            GROUP_PENDING = lookup.findVarHandle(Part.class, "groupPending", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
     private int id;
     private String name;
-    private double price;
-    private int stock;
+    private long priceCents;     //Price in whole cents, see Money
+    private volatile long stockState;   //Stock and reserved amount, packed by StockState
     private int min;
     private int max;
+    private ReadOnlyObjectWrapper<Integer> idProperty;
+    private ReadOnlyStringWrapper nameProperty;
+    private ReadOnlyObjectWrapper<Double> priceProperty;
+    private volatile ReadOnlyObjectWrapper<Integer> stockProperty;
+    private volatile boolean stockRefreshPending;
+    private volatile boolean alertPending;     //True while queued to have the stock alert checked
+    private volatile boolean groupPending;     //True while queued to have its machine or supplier totals updated
+    private PartGroupIndex.Member groupMember;     //How the part is counted in its group, see PartGroupIndex
     public Part(int id, String name, double price, int stock, int min, int max) {
+        this(id, name, Money.fromDouble(price), stock, min, max);
+    }
+
+    /**
+     * Creates a part with an exact price. Package-private, so subclasses outside the package never have an int price
+     * bound to this constructor instead of the one taking dollars.
+     * @param priceCents the price in whole cents
+     */
+    Part(int id, String name, long priceCents, int stock, int min, int max) {
         this.id = id;
         this.name = name;
-        this.price = price;
-        this.stock = stock;
+        this.priceCents = priceCents;
+        this.stockState = StockState.pack(stock, 0);
         this.min = min;
         this.max = max;
     }
@@ -36,6 +76,19 @@ public abstract class Part {
      */
     public void setId(int id) {
         this.id = id;
+        if (idProperty != null) {
+            idProperty.set(id);
+        }
+    }
+
+    /**
+     * @return the id as an observable property, created on first use and updated by setId
+     */
+    public ReadOnlyObjectProperty<Integer> idProperty() {
+        if (idProperty == null) {
+            idProperty = new ReadOnlyObjectWrapper<>(this, "id", id);
+        }
+        return idProperty.getReadOnlyProperty();
     }
 
     /**
@@ -50,34 +103,236 @@ public abstract class Part {
      */
     public void setName(String name) {
         this.name = name;
+        if (nameProperty != null) {
+            nameProperty.set(name);
+        }
+    }
+
+    /**
+     * @return the name as an observable property, created on first use and updated by setName
+     */
+    public ReadOnlyStringProperty nameProperty() {
+        if (nameProperty == null) {
+            nameProperty = new ReadOnlyStringWrapper(this, "name", name);
+        }
+        return nameProperty.getReadOnlyProperty();
     }
 
     /**
      * @return the price
      */
     public double getPrice() {
-        return price;
+        return Money.toDouble(priceCents);
     }
 
     /**
-     * @param price the price to set
+     * @param price the price to set, rounded to the nearest cent
      */
     public void setPrice(double price) {
-        this.price = price;
+        setPriceCents(Money.fromDouble(price));
+    }
+
+    /**
+     * @return the price in whole cents, exact
+     */
+    public long getPriceCents() {
+        return priceCents;
     }
 
     /**
-     * @return the stock
+     * @param priceCents the price to set, in whole cents
+     */
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+        if (priceProperty != null) {
+            priceProperty.set(Money.toDouble(priceCents));
+        }
+        Inventory.priceChanged(this);
+    }
+
+    /**
+     * @return the price as an observable property, created on first use and updated by setPrice
+     */
+    public ReadOnlyObjectProperty<Double> priceProperty() {
+        if (priceProperty == null) {
+            priceProperty = new ReadOnlyObjectWrapper<>(this, "price", Money.toDouble(priceCents));
+        }
+        return priceProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * @return the stock, including stock reserved for orders
      */
     public int getStock() {
-        return stock;
+        return StockState.stock(stockState);
     }
 
     /**
-     * @param stock the stock to set
+     * @param stock the stock to set; stock reserved for orders stays reserved
      */
     public void setStock(int stock) {
-        this.stock = stock;
+        long state;
+        do {
+            state = stockState;
+        } while (!STOCK_STATE.compareAndSet(this, state, StockState.withStock(state, stock)));
+        stockChanged();
+    }
+
+    /**
+     * @return the amount of stock reserved for orders
+     */
+    public int getReserved() {
+        return StockState.reserved(stockState);
+    }
+
+    /**
+     * @return the stock as an observable property, created on first use and updated on the JavaFX Application
+     * Thread whenever the stock changes
+     */
+    public ReadOnlyObjectProperty<Integer> stockProperty() {
+        if (stockProperty == null) {
+            stockProperty = new ReadOnlyObjectWrapper<>(this, "stock", getStock());
+        }
+        return stockProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Reserves stock for an order, leaving at least min units unreserved.
+     * @param quantity the amount to reserve, greater than zero
+     * @return true if the stock was reserved
+     */
+    boolean reserveStock(int quantity) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.reserve(state, quantity, min);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        return true;
+    }
+
+    /**
+     * Removes reserved stock from the stock.
+     * @param quantity the reserved amount to take, greater than zero
+     * @return true if that much was reserved and has been taken
+     */
+    boolean commitStock(int quantity) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.commit(state, quantity);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        stockChanged();
+        return true;
+    }
+
+    /**
+     * Returns reserved stock to the unreserved stock.
+     * @param quantity the reserved amount to release, greater than zero
+     * @return true if that much was reserved and has been released
+     */
+    boolean releaseStock(int quantity) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.release(state, quantity);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        return true;
+    }
+
+    /**
+     * Adds to or removes from the stock within min and max.
+     * @param delta the amount added, or removed if negative
+     * @return true if the stock was changed
+     */
+    boolean adjustStock(int delta) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.adjust(state, delta, min, max);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        stockChanged();
+        return true;
+    }
+
+    /**
+     * Shows a stock change in the stock property and reports it to the stock alerts. Changes made off the JavaFX
+     * Application Thread are shown by one update per pulse.
+     */
+    private void stockChanged() {
+        Inventory.stockChanged(this);
+        ReadOnlyObjectWrapper<Integer> property = stockProperty;
+        if (property == null) {
+            return;
+        }
+        if (FxListMirror.canUpdateUi()) {
+            property.set(getStock());
+        }
+        else if (STOCK_REFRESH_PENDING.compareAndSet(this, false, true)) {
+            Platform.runLater(() -> {
+                stockRefreshPending = false;
+                property.set(getStock());
+            });
+        }
+    }
+
+    /**
+     * Marks the part as queued to have its stock alert checked.
+     * @return true if the part was not already queued
+     */
+    boolean markAlertPending() {
+        return ALERT_PENDING.compareAndSet(this, false, true);
+    }
+
+    /**
+     * Marks the part as no longer queued, before its stock alert is checked.
+     */
+    void alertEvaluated() {
+        alertPending = false;
+    }
+
+    /**
+     * Marks the part as queued to have its group totals updated.
+     * @return true if the part was not already queued
+     */
+    boolean markGroupPending() {
+        return GROUP_PENDING.compareAndSet(this, false, true);
+    }
+
+    /**
+     * Marks the part as no longer queued, before its group totals are updated.
+     */
+    void groupEvaluated() {
+        groupPending = false;
+    }
+
+    /**
+     * @return how the part is counted in its machine or supplier group, or null if it is not counted
+     */
+    PartGroupIndex.Member groupMember() {
+        return groupMember;
+    }
+
+    /**
+     * @param groupMember how the part is counted in its machine or supplier group, or null
+     */
+    void setGroupMember(PartGroupIndex.Member groupMember) {
+        this.groupMember = groupMember;
     }
 
     /**
@@ -92,6 +347,7 @@ public abstract class Part {
      */
     public void setMin(int min) {
         this.min = min;
+        Inventory.limitsChanged(this);
     }
 
     /**
@@ -106,6 +362,7 @@ public abstract class Part {
      */
     public void setMax(int max) {
         this.max = max;
+        Inventory.limitsChanged(this);
     }
 
 }
\ No newline at end of file
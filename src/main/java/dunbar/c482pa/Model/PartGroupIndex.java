@@ -0,0 +1,332 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** The PartGroupIndex class indexes the parts in the inventory by the machine that makes them and by the supplier
+ * that sells them, and keeps the number of parts, the stock and the value of each machine and supplier.
+ * Inventory reports every part added, replaced and removed, and every stock or price change. As in
+ * StockAlertMonitor, changes reported by the lock-free stock methods are queued and applied by whichever thread
+ * finds the index free, and each part remembers the stock and value it is counted with, so applying a change only
+ * adds the difference. Queries apply the queue first, so their totals include every change that finished before
+ * them, and they run in time proportional to the groups or parts they return. Parts loaded from a snapshot are
+ * counted from their columns without being built.
+ * <p>A part is counted in the group of the machine ID or supplier it had when it was added; the edit windows replace
+ * parts rather than changing them, which moves them to their new group.</p> */
+final class PartGroupIndex {
+    /** Parts of one machine or supplier and their totals. */
+    private static final class Group {
+        /**Number of parts in the group with each part ID*/
+        final IntIntHashMap members = new IntIntHashMap(16, 0);
+        /**Number of parts in the group*/
+        int count = 0;
+        /**Sum of the stock of the parts*/
+        long stock = 0;
+        /**Sum of price times stock over the parts, in cents*/
+        long value = 0;
+
+        /** Adds a part to the group.
+         * @param id ID of the part
+         * @param stock Stock of the part
+         * @param value Value of the stock in cents*/
+        void add(int id, int stock, long value) {
+            members.addTo(id, 1);
+            count++;
+            this.stock += stock;
+            this.value += value;
+        }
+
+        /** Removes a part from the group.
+         * @param id ID of the part
+         * @param stock Stock the part was counted with
+         * @param value Value the part was counted with*/
+        void remove(int id, int stock, long value) {
+            members.addTo(id, -1);
+            count--;
+            this.stock -= stock;
+            this.value -= value;
+        }
+
+        /** Copies the totals of the group.
+         * @return Returns the totals*/
+        PartGroupTotals totals() {
+            return new PartGroupTotals(count, stock, value);
+        }
+    }
+
+    /** Group, stock and value a built part is counted with. Held by the part while it is counted. */
+    static final class Member {
+        /**Group the part is counted in*/
+        private final Group group;
+        /**Stock the part is counted with*/
+        private int stock;
+        /**Value the part is counted with, in cents*/
+        private long value;
+
+        /** Constructor. Records how a part is counted.
+         * @param group Group the part is counted in
+         * @param stock Stock the part is counted with
+         * @param value Value the part is counted with*/
+        private Member(Group group, int stock, long value) {
+            this.group = group;
+            this.stock = stock;
+            this.value = value;
+        }
+    }
+
+    /**Parts whose stock or price changed, waiting to be applied*/
+    private final ConcurrentLinkedQueue<Part> changed = new ConcurrentLinkedQueue<>();
+    /**Held by the thread changing the groups*/
+    private final ReentrantLock lock = new ReentrantLock();
+    /**Group of each machine ID*/
+    private final IntHashMap<Group> machines = new IntHashMap<>();      //Guarded by lock
+    /**Group of each supplier ID*/
+    private final IntHashMap<Group> suppliers = new IntHashMap<>();     //Guarded by lock
+    /**Snapshot rows counted from their columns that have not been built*/
+    private final BitSet countedRows = new BitSet();                    //Guarded by lock
+
+    /** Counts a part that was added to the inventory.
+     * @param part Part that was added*/
+    void added(Part part) {
+        lock.lock();
+        try {
+            Group group = groupOf(part);
+            if (group != null) {
+                int stock = part.getStock();
+                long value = part.getPriceCents() * stock;
+                group.add(part.getId(), stock, value);
+                part.setGroupMember(new Member(group, stock, value));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops counting a part that was removed from the inventory.
+     * @param part Part that was removed*/
+    void removed(Part part) {
+        lock.lock();
+        try {
+            Member member = part.groupMember();
+            if (member != null) {
+                member.group.remove(part.getId(), member.stock, member.value);
+                part.setGroupMember(null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Counts a snapshot row that has not been built, from its columns.
+     * @param row Snapshot row
+     * @param inHouse True for an in-house part, false for an outsourced part
+     * @param location Machine ID of an in-house part, or supplier ID of an outsourced part
+     * @param id ID of the part
+     * @param stock Stock of the part
+     * @param priceCents Price of the part in cents*/
+    void rowLoaded(int row, boolean inHouse, int location, int id, int stock, long priceCents) {
+        lock.lock();
+        try {
+            if (inHouse || location >= 0) {
+                group(inHouse ? machines : suppliers, location).add(id, stock, priceCents * stock);
+                countedRows.set(row);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Hands the count of a snapshot row to the part built from it, so later changes to the part update the row's
+     * group. Rows that were not counted from their columns are ignored.
+     * @param row Snapshot row that was built
+     * @param part Part built from the row*/
+    void rowBuilt(int row, Part part) {
+        lock.lock();
+        try {
+            if (countedRows.get(row)) {
+                countedRows.clear(row);
+                int stock = part.getStock();
+                part.setGroupMember(new Member(groupOf(part), stock, part.getPriceCents() * stock));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Reports that the stock or price of a part may have changed. Safe to call from any thread.
+     * @param part Part that changed*/
+    void partChanged(Part part) {
+        if (part.markGroupPending()) {
+            changed.add(part);
+            applyQueued();
+        }
+    }
+
+    /** Applies every queued change, unless another thread is already changing the groups.
+     * The queue is checked again after the lock is released, so a change queued while the other thread was
+     * finishing is never left waiting. */
+    private void applyQueued() {
+        while (!changed.isEmpty() && !lock.isHeldByCurrentThread() && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Applies every queued change. Called while holding the lock. */
+    private void drain() {
+        Part part;
+        while ((part = changed.poll()) != null) {
+            part.groupEvaluated();      //Cleared first, so a change made while it is applied is queued again
+            Member member = part.groupMember();
+            if (member != null) {
+                int stock = part.getStock();
+                long value = part.getPriceCents() * stock;
+                member.group.stock += stock - member.stock;
+                member.group.value += value - member.value;
+                member.stock = stock;
+                member.value = value;
+            }
+        }
+    }
+
+    /** Stops counting every part and row, before the index is rebuilt. Parts that were counted keep their count,
+     * which is only read again once they are added again. */
+    void clear() {
+        lock.lock();
+        try {
+            changed.clear();
+            machines.clear();
+            suppliers.clear();
+            countedRows.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Retrieves the totals of the parts made on a machine.
+     * @param machineId Machine ID
+     * @return Returns the totals, which are zero if no part is made on the machine*/
+    PartGroupTotals machineTotals(int machineId) {
+        return totals(machines, machineId);
+    }
+
+    /** Retrieves the totals of the parts bought from a supplier.
+     * @param supplierId Supplier ID from the supplier pool
+     * @return Returns the totals, which are zero if no part is bought from the supplier*/
+    PartGroupTotals supplierTotals(int supplierId) {
+        return totals(suppliers, supplierId);
+    }
+
+    /** Retrieves the totals of every machine that makes at least one part.
+     * @return Returns the totals keyed by machine ID*/
+    Map<Integer, PartGroupTotals> machineTotals() {
+        return allTotals(machines);
+    }
+
+    /** Retrieves the totals of every supplier that sells at least one part.
+     * @return Returns the totals keyed by supplier ID*/
+    Map<Integer, PartGroupTotals> supplierTotals() {
+        return allTotals(suppliers);
+    }
+
+    /** Retrieves the IDs of the parts made on a machine.
+     * @param machineId Machine ID
+     * @return Returns the part IDs in ascending order*/
+    int[] machineMembers(int machineId) {
+        return members(machines, machineId);
+    }
+
+    /** Retrieves the IDs of the parts bought from a supplier.
+     * @param supplierId Supplier ID from the supplier pool
+     * @return Returns the part IDs in ascending order*/
+    int[] supplierMembers(int supplierId) {
+        return members(suppliers, supplierId);
+    }
+
+    /** Retrieves the totals of one group after applying the queued changes.
+     * @param groups Groups of the machines or suppliers
+     * @param key Machine or supplier ID
+     * @return Returns the totals of the group*/
+    private PartGroupTotals totals(IntHashMap<Group> groups, int key) {
+        lock.lock();
+        try {
+            drain();
+            Group group = groups.get(key);
+            return group == null ? PartGroupTotals.EMPTY : group.totals();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Retrieves the totals of every group after applying the queued changes.
+     * @param groups Groups of the machines or suppliers
+     * @return Returns the totals keyed by machine or supplier ID*/
+    private Map<Integer, PartGroupTotals> allTotals(IntHashMap<Group> groups) {
+        lock.lock();
+        try {
+            drain();
+            Map<Integer, PartGroupTotals> totals = new HashMap<>();
+            for (int key : groups.keys()) {
+                Group group = groups.get(key);
+                if (group.count > 0) {
+                    totals.put(key, group.totals());
+                }
+            }
+            return totals;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Retrieves the part IDs of one group.
+     * @param groups Groups of the machines or suppliers
+     * @param key Machine or supplier ID
+     * @return Returns the part IDs in ascending order*/
+    private int[] members(IntHashMap<Group> groups, int key) {
+        lock.lock();
+        try {
+            Group group = groups.get(key);
+            if (group == null) {
+                return new int[0];
+            }
+            int[] ids = group.members.keys();
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Finds the group a part belongs in, creating it if needed.
+     * @param part Part to place
+     * @return Returns the group of the part's machine or supplier, or null for an outsourced part without a company*/
+    private Group groupOf(Part part) {
+        if (part instanceof InHouse) {
+            return group(machines, ((InHouse) part).getMachineID());
+        }
+        if (part instanceof Outsourced && ((Outsourced) part).getSupplierId() >= 0) {
+            return group(suppliers, ((Outsourced) part).getSupplierId());
+        }
+        return null;
+    }
+
+    /** Retrieves a group, creating it if needed.
+     * @param groups Groups of the machines or suppliers
+     * @param key Machine or supplier ID
+     * @return Returns the group*/
+    private static Group group(IntHashMap<Group> groups, int key) {
+        Group group = groups.get(key);
+        if (group == null) {
+            group = new Group();
+            groups.put(key, group);
+        }
+        return group;
+    }
+}
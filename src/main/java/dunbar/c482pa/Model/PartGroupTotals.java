@@ -0,0 +1,49 @@
+package dunbar.c482pa.Model;
+
+/** The PartGroupTotals class holds the totals of a group of parts, such as the parts made on one machine or bought
+ * from one supplier: how many parts the group holds, their combined stock and the exact value of that stock.
+ * Totals never change once created; a query returns new totals each time. */
+public final class PartGroupTotals {
+    /**Totals of a group without parts*/
+    static final PartGroupTotals EMPTY = new PartGroupTotals(0, 0, 0);
+
+    /**Number of parts in the group*/
+    private final int partCount;
+    /**Sum of the stock of the parts*/
+    private final long stock;
+    /**Sum of price times stock over the parts, in cents*/
+    private final long valuationCents;
+
+    /** Constructor. Creates the totals of a group.
+     * @param partCount Number of parts in the group
+     * @param stock Sum of the stock of the parts
+     * @param valuationCents Sum of price times stock over the parts, in cents*/
+    PartGroupTotals(int partCount, long stock, long valuationCents) {
+        this.partCount = partCount;
+        this.stock = stock;
+        this.valuationCents = valuationCents;
+    }
+
+    /** Retrieves the number of parts in the group.
+     * @return Returns the number of parts*/
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /** Retrieves the combined stock of the parts in the group.
+     * @return Returns the sum of the stock of the parts*/
+    public long getStock() {
+        return stock;
+    }
+
+    /** Retrieves the exact value of the stock of the parts in the group.
+     * @return Returns the sum of price times stock over the parts, in cents*/
+    public long getValuationCents() {
+        return valuationCents;
+    }
+
+    @Override
+    public String toString() {
+        return partCount + " parts, " + stock + " in stock, valued at " + Money.format(valuationCents);
+    }
+}
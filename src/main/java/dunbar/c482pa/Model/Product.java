@@ -1,24 +1,84 @@
 package dunbar.c482pa.Model;
 
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /** This class allows for related parts to be associated into Product objects, enabling inventory tracking of completely assembled items. */
 public class Product {
-    /**List of parts associated with a particular product*/
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    /**Compare-and-set access to stockState*/
+    private static final VarHandle STOCK_STATE;
+    /**Compare-and-set access to stockRefreshPending*/
+    private static final VarHandle STOCK_REFRESH_PENDING;
+    /**Compare-and-set access to alertPending*/
+    private static final VarHandle ALERT_PENDING;
+    /**Atomic access to rollupVersion*/
+    private static final VarHandle ROLLUP_VERSION;
+    /**Atomic access to explosionVersion*/
+    private static final VarHandle EXPLOSION_VERSION;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STOCK_STATE = lookup.findVarHandle(Product.class, "stockState", long.class);
+            STOCK_REFRESH_PENDING = lookup.findVarHandle(Product.class, "stockRefreshPending", boolean.class);
+            ALERT_PENDING = lookup.findVarHandle(Product.class, "alertPending", boolean.class);
+            ROLLUP_VERSION = lookup.findVarHandle(Product.class, "rollupVersion", int.class);
+            EXPLOSION_VERSION = lookup.findVarHandle(Product.class, "explosionVersion", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    /**Parts associated with the product and their quantities, replaced on every change*/
+    private volatile BillOfMaterials<Part> billOfMaterials = BillOfMaterials.NO_PARTS;
+    /**Products used as sub-assemblies of the product and their quantities, replaced under the Inventory write lock*/
+    private volatile BillOfMaterials<Product> subAssemblies = BillOfMaterials.NO_PRODUCTS;
+    /**List of the parts associated with the product, or null until first requested*/
+    private AssociatedPartList associatedParts;
     /**Unique product ID number*/
     private int id;
     /**Product name*/
     private String name;
-    /**Product price*/
-    private double price;
-    /**Amount of a product in stock*/
-    private int stock;
+    /**Product price in whole cents, see Money*/
+    private long priceCents;
+    /**Amount of a product in stock, packed by StockState and changed by compare-and-set*/
+    private volatile long stockState;
     /**Minimum required amount of product to be kept in stock*/
     private int min;
     /**Maximum amount of a product allowed to be kept in stock*/
     private int max;
+    /**True while the product is stored in the Inventory allProducts list*/
+    private volatile boolean stored = false;
+    /**Observable ID used by table columns, or null until first requested*/
+    private ReadOnlyObjectWrapper<Integer> idProperty;
+    /**Observable name used by table columns, or null until first requested*/
+    private ReadOnlyStringWrapper nameProperty;
+    /**Observable price used by table columns, or null until first requested*/
+    private ReadOnlyObjectWrapper<Double> priceProperty;
+    /**Observable stock used by table columns, or null until first requested*/
+    private volatile ReadOnlyObjectWrapper<Integer> stockProperty;
+    /**True while an update of stockProperty is waiting for the JavaFX Application Thread*/
+    private volatile boolean stockRefreshPending;
+    /**True while the product is queued to have its stock alert checked*/
+    private volatile boolean alertPending;
+    /**Last computed rollup of the associated parts, or null until first requested*/
+    private volatile ProductRollup rollup;
+    /**Number of times the rollup was invalidated; a rollup computed under an older count is stale*/
+    private volatile int rollupVersion;
+    /**Last computed explosion of one unit, or null until first requested*/
+    private volatile BomExplosion explosion;
+    /**Number of times the explosion was invalidated; an explosion computed under an older count is stale*/
+    private volatile int explosionVersion;
 
     /** Constructor. Creates a Product object using the provided arguments.
      * @param id ID number of the product
@@ -28,14 +88,39 @@ public class Product {
      * @param min Minimum required inventory of the product
      * @param max Maximum required inventory of the product*/
     public Product(int id, String name, double price, int stock, int min, int max) {
+        this(id, name, Money.fromDouble(price), stock, min, max);
+    }
+
+    /** Constructor. Creates a Product object with an exact price, used by ofCents().
+     * @param id ID number of the product
+     * @param name Name of the product
+     * @param priceCents Price of the product in whole cents
+     * @param stock Current inventory of the product
+     * @param min Minimum required inventory of the product
+     * @param max Maximum required inventory of the product*/
+    private Product(int id, String name, long priceCents, int stock, int min, int max) {
         this.id = id;
         this.name = name;
-        this.price = price;
-        this.stock = stock;
+        this.priceCents = priceCents;
+        this.stockState = StockState.pack(stock, 0);
         this.min = min;
         this.max = max;
     }
 
+    /** Creates a Product from an exact price, such as one parsed by Money.parseCents(), without passing it through a
+     * double.
+     * @param id ID number of the product
+     * @param name Name of the product
+     * @param priceCents Price of the product in whole cents
+     * @param stock Current inventory of the product
+     * @param min Minimum required inventory of the product
+     * @param max Maximum required inventory of the product
+     * @return Returns the new product*/
+    public static Product ofCents(int id, String name, long priceCents, int stock, int min, int max) {
+
+        return new Product(id, name, priceCents, stock, min, max);
+    }
+
     /** Retrieves the ID number of a product.
      * @return Returns the product ID*/
     public int getId() {
@@ -48,6 +133,19 @@ public class Product {
     public void setId(int id) {
 
         this.id = id;
+        if (idProperty != null) {
+            idProperty.set(id);
+        }
+    }
+
+    /** Retrieves the ID number of a product as an observable property.
+     * The property is created the first time it is requested and is updated by setId().
+     * @return Returns the product ID property*/
+    public ReadOnlyObjectProperty<Integer> idProperty() {
+        if (idProperty == null) {
+            idProperty = new ReadOnlyObjectWrapper<>(this, "id", id);
+        }
+        return idProperty.getReadOnlyProperty();
     }
 
     /** Retrieves the name of a product.
@@ -62,34 +160,191 @@ public class Product {
     public void setName(String name) {
 
         this.name = name;
+        if (nameProperty != null) {
+            nameProperty.set(name);
+        }
+    }
+
+    /** Retrieves the name of a product as an observable property.
+     * The property is created the first time it is requested and is updated by setName().
+     * @return Returns the product name property*/
+    public ReadOnlyStringProperty nameProperty() {
+        if (nameProperty == null) {
+            nameProperty = new ReadOnlyStringWrapper(this, "name", name);
+        }
+        return nameProperty.getReadOnlyProperty();
     }
 
     /** Retrieves the price for a product.
      * @return Returns the price of the product*/
     public double getPrice() {
 
-        return price;
+        return Money.toDouble(priceCents);
     }
 
     /** Sets the price of a product.
-     * @param price Price of the product*/
+     * @param price Price of the product, rounded to the nearest cent*/
     public void setPrice(double price) {
 
-        this.price = price;
+        setPriceCents(Money.fromDouble(price));
+    }
+
+    /** Retrieves the exact price for a product.
+     * @return Returns the price of the product in whole cents*/
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /** Sets the price of a product in whole cents.
+     * @param priceCents Price of the product in cents*/
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+        if (priceProperty != null) {
+            priceProperty.set(Money.toDouble(priceCents));
+        }
+        Inventory.priceChanged(this);
+    }
+
+    /** Retrieves the price of a product as an observable property.
+     * The property is created the first time it is requested and is updated by setPrice().
+     * @return Returns the product price property*/
+    public ReadOnlyObjectProperty<Double> priceProperty() {
+        if (priceProperty == null) {
+            priceProperty = new ReadOnlyObjectWrapper<>(this, "price", Money.toDouble(priceCents));
+        }
+        return priceProperty.getReadOnlyProperty();
     }
 
     /** Retrieves the amount of a product in stock.
      * @return Returns the amount of the product in stock*/
     public int getStock() {
 
-        return stock;
+        return StockState.stock(stockState);
     }
 
     /** Sets the amount of a product in stock.
      * @param stock Current inventory of the product*/
     public void setStock(int stock) {
+        long state;
+        do {
+            state = stockState;
+        } while (!STOCK_STATE.compareAndSet(this, state, StockState.withStock(state, stock)));
+        stockChanged();
+    }
+
+    /** Retrieves the amount of a product in stock as an observable property.
+     * The property is created the first time it is requested and is updated on the JavaFX Application Thread
+     * whenever the stock changes.
+     * @return Returns the product stock property*/
+    public ReadOnlyObjectProperty<Integer> stockProperty() {
+        if (stockProperty == null) {
+            stockProperty = new ReadOnlyObjectWrapper<>(this, "stock", getStock());
+        }
+        return stockProperty.getReadOnlyProperty();
+    }
+
+    /** Retrieves the amount of a product's stock reserved for products being built from it.
+     * @return Returns the reserved amount, which is included in getStock()*/
+    int getReserved() {
 
-        this.stock = stock;
+        return StockState.reserved(stockState);
+    }
+
+    /** Reserves stock for building an assembly that uses the product, leaving at least min units unreserved.
+     * @param quantity Amount to reserve, greater than zero
+     * @return Returns true if the stock was reserved, otherwise returns false*/
+    boolean reserveStock(int quantity) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.reserve(state, quantity, min);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        return true;
+    }
+
+    /** Removes reserved stock from the stock, once the assembly using it is built.
+     * @param quantity Reserved amount to take, greater than zero
+     * @return Returns true if that much was reserved and has been taken, otherwise returns false*/
+    boolean commitStock(int quantity) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.commit(state, quantity);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        stockChanged();
+        return true;
+    }
+
+    /** Returns reserved stock to the unreserved stock, when the assembly using it cannot be built.
+     * @param quantity Reserved amount to release, greater than zero
+     * @return Returns true if that much was reserved and has been released, otherwise returns false*/
+    boolean releaseStock(int quantity) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.release(state, quantity);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        return true;
+    }
+
+    /** Adds to or removes from the amount of a product in stock without locking.
+     * Removals cannot take the unreserved stock below min, and additions cannot take it above max.
+     * @param delta Amount added, or removed if negative
+     * @return Returns true if the stock was changed, otherwise returns false*/
+    boolean adjustStock(int delta) {
+        long state;
+        long next;
+        do {
+            state = stockState;
+            next = StockState.adjust(state, delta, min, max);
+            if (next == StockState.REJECTED) {
+                return false;
+            }
+        } while (!STOCK_STATE.compareAndSet(this, state, next));
+        stockChanged();
+        return true;
+    }
+
+    /** Shows a stock change in the stock property and reports it to the stock alerts.
+     * Changes made off the JavaFX Application Thread are shown by one update per pulse.*/
+    private void stockChanged() {
+        Inventory.stockChanged(this);
+        ReadOnlyObjectWrapper<Integer> property = stockProperty;
+        if (property == null) {
+            return;
+        }
+        if (FxListMirror.canUpdateUi()) {
+            property.set(getStock());
+        }
+        else if (STOCK_REFRESH_PENDING.compareAndSet(this, false, true)) {
+            Platform.runLater(() -> {
+                stockRefreshPending = false;
+                property.set(getStock());
+            });
+        }
+    }
+
+    /** Marks the product as queued to have its stock alert checked.
+     * @return Returns true if the product was not already queued, otherwise returns false*/
+    boolean markAlertPending() {
+        return ALERT_PENDING.compareAndSet(this, false, true);
+    }
+
+    /** Marks the product as no longer queued, before its stock alert is checked. */
+    void alertEvaluated() {
+        alertPending = false;
     }
 
     /** Retrieves the minimum required inventory for a product.
@@ -104,6 +359,7 @@ public class Product {
     public void setMin(int min) {
 
         this.min = min;
+        Inventory.limitsChanged(this);
     }
 
     /** Retrieves the maximum allowable inventory for a product.
@@ -118,29 +374,344 @@ public class Product {
     public void setMax(int max) {
 
         this.max = max;
+        Inventory.limitsChanged(this);
     }
 
     /** Associates a Part with a product.
-     * Done by adding the Part object to the associatedParts list for the Product.
+     * Done by adding one unit of the part to the product's bill of materials.
      * @param part Part to be associated with the product*/
     public void addAssociatedPart(Part part) {
 
-        associatedParts.add(part);
+        addAssociatedPart(part, 1);
+    }
+
+    /** Associates several units of a Part with a product.
+     * A part already associated with the product has its quantity raised, so it is still stored once.
+     * @param part Part to be associated with the product
+     * @param quantity Number of units of the part used by one product, greater than zero*/
+    public void addAssociatedPart(Part part, int quantity) {
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be greater than zero: " + quantity);
+        }
+        changeAssociations(new int[]{part.getId()}, new Part[]{part}, new int[]{quantity});
+    }
+
+    /** Associates several parts with a product.
+     * Each listed part adds one unit, as addAssociatedPart() would, and the associatedParts list is updated with a
+     * single change event.
+     * @param parts Parts to be associated with the product, in order*/
+    public void addAssociatedParts(Collection<? extends Part> parts) {
+        if(parts.isEmpty()){
+            return;
+        }
+        IntIntHashMap changeOf = new IntIntHashMap(parts.size(), -1);
+        int[] ids = new int[parts.size()];
+        Part[] partObjects = new Part[ids.length];
+        int[] deltas = new int[ids.length];
+        int changes = 0;
+        for(Part part : parts){
+            int change = changeOf.get(part.getId());
+            if(change < 0){
+                change = changes++;
+                changeOf.put(part.getId(), change);
+                ids[change] = part.getId();
+            }
+            partObjects[change] = part;
+            deltas[change]++;
+        }
+        changeAssociations(Arrays.copyOf(ids, changes), Arrays.copyOf(partObjects, changes), Arrays.copyOf(deltas, changes));
+    }
+
+    /** Associates several parts with a product, each with its quantity, as a single change.
+     * Used when a product is read back from the log, a snapshot or an import file, where associations are stored as
+     * (part ID, quantity) pairs.
+     * @param ids IDs of the parts to associate
+     * @param partObjects Part stored under each ID, or null for a part only known by its ID, which is kept in the
+     *                    bill as it was when the product was written
+     * @param quantities Number of units of each part, greater than zero*/
+    void addAssociatedUnits(int[] ids, Part[] partObjects, int[] quantities) {
+        if(ids.length > 0){
+            changeAssociations(ids, partObjects, quantities);
+        }
     }
 
     /** Disassociates a part from a product.
-     * Done by removing the part from the associatedParts list for the product.
+     * Done by removing one unit of the part, found by its ID, from the product's bill of materials.
      * @param part Part to be removed from the product
      * @return Returns true if the part has been disassociated from the product, otherwise returns false*/
     public boolean deleteAssociatedPart(Part part) {
-        return associatedParts.remove(part);
 
+        return removeAssociatedUnits(part.getId(), 1) > 0;
+    }
+
+    /** Disassociates several units of a part from a product.
+     * @param part Part to be removed from the product, found by its ID
+     * @param quantity Number of units to remove, greater than zero
+     * @return Returns the number of units removed, which is less than the quantity if fewer were associated*/
+    public int deleteAssociatedPart(Part part, int quantity) {
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be greater than zero: " + quantity);
+        }
+        return removeAssociatedUnits(part.getId(), quantity);
+    }
+
+    /** Disassociates several parts from a product.
+     * Each listed part removes one unit, as deleteAssociatedPart() would, and the associatedParts list is updated
+     * with a single change event.
+     * @param parts Parts to be removed from the product
+     * @return Returns the number of associations that were removed*/
+    public int deleteAssociatedParts(Collection<? extends Part> parts) {
+        if(parts.isEmpty()){
+            return 0;
+        }
+        IntIntHashMap changeOf = new IntIntHashMap(parts.size(), -1);
+        int[] ids = new int[parts.size()];
+        int[] deltas = new int[ids.length];
+        int changes = 0;
+        for(Part part : parts){
+            int change = changeOf.get(part.getId());
+            if(change < 0){
+                change = changes++;
+                changeOf.put(part.getId(), change);
+                ids[change] = part.getId();
+            }
+            deltas[change]--;
+        }
+        return changeAssociations(Arrays.copyOf(ids, changes), new Part[changes], Arrays.copyOf(deltas, changes));
+    }
+
+    /** Removes units of a part from the product by part ID. Used when replaying the log, where only the ID is known.
+     * @param partId ID of the part to remove
+     * @param quantity Number of units to remove, greater than zero
+     * @return Returns the number of units removed*/
+    int removeAssociatedUnits(int partId, int quantity) {
+
+        return changeAssociations(new int[]{partId}, new Part[1], new int[]{-quantity});
+    }
+
+    /** Retrieves the number of units of a part associated with a product.
+     * @param partId ID of the part
+     * @return Returns the quantity of the part used by one product, or 0 if the part is not associated with it*/
+    public int getAssociatedQuantity(int partId) {
+
+        return billOfMaterials.quantityOf(partId);
+    }
+
+    /** Retrieves the parts associated with the product as (part ID, quantity) entries.
+     * The bill never changes, so it can be read on any thread without locking.
+     * @return Returns the current bill of materials*/
+    BillOfMaterials<Part> billOfMaterials() {
+
+        return billOfMaterials;
+    }
+
+    /** Retrieves the cost, buildable units and min stock risk rolled up from the associated parts and sub-assemblies.
+     * The rollup is kept until a part of the product changes price or stock through the Inventory, a sub-assembly
+     * changes stock or rollup, or the associated parts or sub-assemblies change, so repeated reads are constant time. Safe to call from any thread.
+     * @return Returns the current rollup of the product*/
+    public ProductRollup getRollup() {
+        ProductRollup current = rollup;
+        int version = rollupVersion;
+        if(current != null && current.version() == version){
+            return current;
+        }
+        current = ProductRollup.of(this, version);
+        rollup = current;
+        return current;
+    }
+
+    /** Marks the rollup as stale, so the next getRollup() call computes it again.
+     * Called after a change to an associated part or to the associated parts, once the change is visible. */
+    void invalidateRollup() {
+
+        ROLLUP_VERSION.getAndAdd(this, 1);
+    }
+
+    /** Uses another product as a sub-assembly of this product, as a gear set is used in a transmission.
+     * A product already used as a sub-assembly has its quantity raised.
+     * @param product Product to use as a sub-assembly
+     * @param quantity Number of units of the sub-assembly used by one product, greater than zero
+     * @throws IllegalArgumentException if the sub-assembly is this product or already contains it at any depth*/
+    public void addSubAssembly(Product product, int quantity) {
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be greater than zero: " + quantity);
+        }
+        Inventory.changeSubAssemblies(this, new int[]{product.getId()}, new Product[]{product}, new int[]{quantity});
+    }
+
+    /** Removes units of a sub-assembly from the product.
+     * @param product Sub-assembly to remove, found by its ID
+     * @param quantity Number of units to remove, greater than zero
+     * @return Returns the number of units removed, which is less than the quantity if fewer were used*/
+    public int deleteSubAssembly(Product product, int quantity) {
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be greater than zero: " + quantity);
+        }
+        return changeSubAssemblyUnits(product.getId(), -quantity);
+    }
+
+    /** Adds or removes units of a sub-assembly by product ID. Used when replaying the log, where only the ID is known.
+     * @param productId ID of the sub-assembly
+     * @param delta Units added, or removed if negative
+     * @return Returns the number of units added or removed*/
+    int changeSubAssemblyUnits(int productId, int delta) {
+
+        return Inventory.changeSubAssemblies(this, new int[]{productId}, new Product[1], new int[]{delta});
+    }
+
+    /** Retrieves the number of units of a sub-assembly used by the product.
+     * @param productId ID of the sub-assembly
+     * @return Returns the quantity of the sub-assembly used by one product, or 0 if it is not used*/
+    public int getSubAssemblyQuantity(int productId) {
+
+        return subAssemblies.quantityOf(productId);
+    }
+
+    /** Retrieves the products used as sub-assemblies of the product.
+     * @return Returns an unmodifiable list holding each sub-assembly once, in the order they were first added*/
+    public List<Product> getAllSubAssemblies() {
+        BillOfMaterials<Product> bill = subAssemblies;
+        List<Product> products = new ArrayList<>(bill.size());
+        for(int i = 0; i < bill.size(); i++){
+            Product product = bill.item(i);
+            if(product != null){
+                products.add(product);
+            }
+        }
+        return Collections.unmodifiableList(products);
+    }
+
+    /** Retrieves the sub-assemblies of the product as (product ID, quantity) entries.
+     * @return Returns the current bill of sub-assemblies*/
+    BillOfMaterials<Product> subAssemblies() {
+
+        return subAssemblies;
+    }
+
+    /** Replaces the sub-assemblies of the product. Called by Inventory under its lock, after checking for cycles.
+     * @param bill New bill of sub-assemblies*/
+    void setSubAssemblies(BillOfMaterials<Product> bill) {
+        subAssemblies = bill;
+        invalidateRollup();
+        invalidateExplosion();
+    }
+
+    /** Retrieves the flattened part requirements of one unit, exploding the product if its memoized explosion is stale.
+     * @param path IDs of the products being exploded above this one
+     * @return Returns the explosion of one unit*/
+    BomExplosion explosion(int[] path) {
+        BomExplosion current = explosion;
+        int version = explosionVersion;
+        if(current != null && current.version() == version){
+            return current;
+        }
+        current = BomExplosion.of(this, version, path);
+        explosion = current;
+        return current;
+    }
+
+    /** Marks the memoized explosion as stale, so the next explosion() call computes it again.
+     * Called after the parts or sub-assemblies of this product, or of one of its sub-assemblies, change. */
+    void invalidateExplosion() {
+
+        EXPLOSION_VERSION.getAndAdd(this, 1);
+    }
+
+    /** Applies changes to the bill of materials, updates the associatedParts list and records the change.
+     * Changes to one product are applied one at a time, so they reach the log in the order they were made.
+     * @param ids IDs of the parts to change
+     * @param partObjects Part object of each change that adds units
+     * @param deltas Units added, or removed if negative, parallel to ids
+     * @return Returns the number of units added or removed*/
+    private synchronized int changeAssociations(int[] ids, Part[] partObjects, int[] deltas) {
+        BillOfMaterials<Part> old = billOfMaterials;
+        BillOfMaterials<Part> changed = old.change(ids, partObjects, deltas);
+        if(changed == old){
+            return 0;
+        }
+        billOfMaterials = changed;
+        invalidateRollup();
+        invalidateExplosion();
+        if(associatedParts != null){
+            associatedParts.publish(old, changed);
+        }
+        Inventory.associationsChanged(this, ids, deltas);
+        int units = 0;
+        for(int delta : deltas){
+            units += Math.abs(delta);
+        }
+        return units;
+    }
+
+    /** Checks whether the product is stored in the Inventory.
+     * Used to decide whether changes to the associated parts need to be persisted.
+     * @return Returns true if the product is in the allProducts list, otherwise returns false*/
+    boolean isStored() {
+
+        return stored;
+    }
+
+    /** Marks whether the product is stored in the Inventory. Set by Inventory when the product is added or removed.
+     * @param stored True if the product is in the allProducts list*/
+    void setStored(boolean stored) {
+
+        this.stored = stored;
     }
 
     /** Retrieves the list of parts associated with a product.
+     * The list is a read-only view of the bill of materials in which a part appears once per unit, grouped by part
+     * in the order the parts were first associated. Elements are built as they are read, so the list holds no copies
+     * of the parts however large the quantities are. A part that was deleted from the Inventory before the product
+     * was last loaded is only known by its ID, and its units are listed as null.
      * @return Returns an Observable List associatedParts consisting of all parts associated with the product. */
-    public ObservableList<Part> getAllAssociatedParts(){
-
+    public synchronized ObservableList<Part> getAllAssociatedParts(){
+        if(associatedParts == null){
+            associatedParts = new AssociatedPartList();
+        }
         return associatedParts;
     }
-}
\ No newline at end of file
+
+    /** Read-only list of the associated parts, with each part repeated once per unit. */
+    private final class AssociatedPartList extends ObservableListBase<Part> {
+        @Override
+        public Part get(int index) {
+            BillOfMaterials<Part> bill = billOfMaterials;
+            if(index < 0 || index >= bill.units()){
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bill.units());
+            }
+            return bill.item(bill.entryOfUnit(index));
+        }
+
+        @Override
+        public int size() {
+            return billOfMaterials.units();
+        }
+
+        /** Reports a change of the bill of materials to the listeners of the list.
+         * Entries keep their order, entries removed from the bill have no units left, and new entries are appended.
+         * @param old Bill before the change
+         * @param changed Bill after the change*/
+        void publish(BillOfMaterials<Part> old, BillOfMaterials<Part> changed) {
+            beginChange();
+            try {
+                int position = 0;
+                for(int entry = 0; entry < old.size(); entry++){
+                    int before = old.quantity(entry);
+                    int after = changed.quantityOf(old.partId(entry));
+                    if(after < before){
+                        nextRemove(position + after, Collections.nCopies(before - after, old.item(entry)));
+                    }
+                    else if(after > before){
+                        nextAdd(position + before, position + after);
+                    }
+                    position += after;
+                }
+                if(position < changed.units()){
+                    nextAdd(position, changed.units());
+                }
+            } finally {
+                endChange();
+            }
+        }
+    }
+}
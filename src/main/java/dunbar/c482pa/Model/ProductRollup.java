@@ -0,0 +1,130 @@
+package dunbar.c482pa.Model;
+
+/** The ProductRollup class holds figures rolled up from the associated parts and sub-assemblies of a product.
+ * A rollup is computed from the product's bills of materials in time proportional to the number of distinct parts
+ * and sub-assemblies, reusing the kept rollups of the sub-assemblies, and is kept by the product until one of its
+ * parts changes price or stock, a sub-assembly changes stock or rollup, or its bills change, so reading it again is
+ * constant time. Inventory invalidates only the products that use a changed part or product, found through the
+ * reverse part-to-product and sub-assembly indexes. Rollups never change once computed. */
+public final class ProductRollup {
+    /**Sum of price times quantity over the associated parts, plus the part cost of each sub-assembly times its quantity, in cents*/
+    private final long totalPartCostCents;
+    /**Number of products that can be built from the unreserved stock above the min of each part and sub-assembly*/
+    private final int buildableUnits;
+    /**Number of associated parts and sub-assemblies whose stock is at or below their min*/
+    private final int partsAtMinStock;
+    /**Number of associated part and sub-assembly IDs that no longer resolve to an item in the Inventory*/
+    private final int missingParts;
+    /**Invalidation count of the product when the rollup was computed*/
+    private final int version;
+
+    /** Constructor. Creates a rollup from computed figures.
+     * @param totalPartCostCents Part cost of one product, in cents
+     * @param buildableUnits Number of products that can be built
+     * @param partsAtMinStock Number of associated parts and sub-assemblies at or below their min stock
+     * @param missingParts Number of associated part and sub-assembly IDs not in the Inventory
+     * @param version Invalidation count of the product when the rollup was computed*/
+    private ProductRollup(long totalPartCostCents, int buildableUnits, int partsAtMinStock, int missingParts, int version) {
+        this.totalPartCostCents = totalPartCostCents;
+        this.buildableUnits = buildableUnits;
+        this.partsAtMinStock = partsAtMinStock;
+        this.missingParts = missingParts;
+        this.version = version;
+    }
+
+    /** Computes the rollup of a product from the parts and sub-assemblies currently stored in the Inventory.
+     * Building a product takes the stock of its sub-assemblies without building them, so they limit the buildable
+     * units by their own stock, while their cost is the part cost of their own rollups. Parts and sub-assemblies that
+     * are no longer stored are priced from the object last associated with the product and leave nothing buildable.
+     * @param product Product to roll up
+     * @param version Invalidation count of the product, read before its bills, parts and sub-assemblies
+     * @return Returns the computed rollup*/
+    static ProductRollup of(Product product, int version) {
+        BillOfMaterials<Part> bill = product.billOfMaterials();
+        BillOfMaterials<Product> subAssemblies = product.subAssemblies();
+        long cost = 0;
+        long buildable = bill.size() == 0 && subAssemblies.size() == 0 ? Integer.MAX_VALUE : Long.MAX_VALUE;
+        int atMin = 0;
+        int missing = 0;
+        for (int i = 0; i < bill.size(); i++) {
+            int quantity = bill.quantity(i);
+            Part part = Inventory.lookupPart(bill.partId(i));
+            if (part == null) {
+                Part associated = bill.item(i);
+                cost += associated != null ? associated.getPriceCents() * quantity : 0;
+                buildable = 0;
+                missing++;
+                continue;
+            }
+            cost += part.getPriceCents() * quantity;
+            int stock = part.getStock();
+            if (stock <= part.getMin()) {
+                atMin++;
+            }
+            long spare = (long) stock - part.getReserved() - part.getMin();
+            buildable = Math.min(buildable, Math.max(0, spare) / quantity);
+        }
+        for (int i = 0; i < subAssemblies.size(); i++) {
+            int quantity = subAssemblies.quantity(i);
+            Product child = Inventory.lookupProduct(subAssemblies.partId(i));
+            if (child == null) {
+                Product used = subAssemblies.item(i);
+                cost += used != null ? used.getRollup().getTotalPartCostCents() * quantity : 0;
+                buildable = 0;
+                missing++;
+                continue;
+            }
+            cost += child.getRollup().getTotalPartCostCents() * quantity;
+            int stock = child.getStock();
+            if (stock <= child.getMin()) {
+                atMin++;
+            }
+            long spare = (long) stock - child.getReserved() - child.getMin();
+            buildable = Math.min(buildable, Math.max(0, spare) / quantity);
+        }
+        return new ProductRollup(cost, (int) Math.min(buildable, Integer.MAX_VALUE), atMin, missing, version);
+    }
+
+    /** Retrieves the total cost of the parts used by one product, directly or through its sub-assemblies.
+     * @return Returns the sum of price times quantity over the associated parts and the parts of the sub-assemblies*/
+    public double getTotalPartCost() {
+        return Money.toDouble(totalPartCostCents);
+    }
+
+    /** Retrieves the exact total cost of the parts used by one product, directly or through its sub-assemblies.
+     * @return Returns the sum of price times quantity over the associated parts and the parts of the sub-assemblies, in cents*/
+    public long getTotalPartCostCents() {
+        return totalPartCostCents;
+    }
+
+    /** Retrieves the number of products that could be built now, as Inventory.buildProduct() would allow.
+     * @return Returns the number of products the unreserved stock above the min of each part and sub-assembly is
+     * enough for, or Integer.MAX_VALUE if the product has neither associated parts nor sub-assemblies*/
+    public int getBuildableUnits() {
+        return buildableUnits;
+    }
+
+    /** Retrieves the number of associated parts and sub-assemblies at risk of running short.
+     * @return Returns the number of distinct associated parts and sub-assemblies whose stock is at or below their min*/
+    public int getPartsAtMinStock() {
+        return partsAtMinStock;
+    }
+
+    /** Retrieves the number of associated parts and sub-assemblies that are no longer in the Inventory.
+     * @return Returns the number of distinct associated part and sub-assembly IDs that do not resolve to an item*/
+    public int getMissingParts() {
+        return missingParts;
+    }
+
+    /** Checks whether any associated part or sub-assembly is at or below its min stock or missing.
+     * @return Returns true if a part or sub-assembly is at or below its min stock or missing, otherwise returns false*/
+    public boolean isAtMinStockRisk() {
+        return partsAtMinStock > 0 || missingParts > 0;
+    }
+
+    /** Retrieves the invalidation count of the product when the rollup was computed.
+     * @return Returns the count, which no longer matches the product's once the rollup is stale*/
+    int version() {
+        return version;
+    }
+}
@@ -0,0 +1,290 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+
+/** The RangeIndex class is an ordered index of (value, ID) pairs, used to find the items whose value lies between two
+ * bounds without scanning every item.
+ * It is a two level B+-tree: the pairs are kept in order in leaves of primitive arrays, and the first pairs of the
+ * leaves are binary searched to find a leaf. A range is found in logarithmic time
+ * and read in time proportional to its size; adding or removing a pair moves at most one leaf's worth of entries.
+ * Neither values nor IDs are boxed. The same pair can be held more than once, as when two items share an ID and a
+ * value. Not thread-safe. */
+final class RangeIndex {
+    /**Maximum number of pairs in a leaf*/
+    private static final int LEAF_CAPACITY = 512;
+    /**Number of pairs put in each leaf by load(), leaving room for additions before leaves split*/
+    private static final int LOAD_FILL = LEAF_CAPACITY - 32;
+
+    /**Values of each leaf, in ascending order of (value, ID)*/
+    private long[][] leafValues = new long[1][LEAF_CAPACITY];
+    /**IDs of each leaf, parallel to leafValues*/
+    private int[][] leafIds = new int[1][LEAF_CAPACITY];
+    /**Number of pairs in each leaf*/
+    private int[] leafSizes = new int[1];
+    /**Number of leaves in use; there is always at least one, which is empty only when the index is*/
+    private int leafCount = 1;
+    /**Total number of pairs*/
+    private int size = 0;
+
+    /** Retrieves the number of pairs in the index.
+     * @return Returns the number of pairs*/
+    int size() {
+        return size;
+    }
+
+    /** Adds a pair.
+     * @param value Value of the item
+     * @param id ID of the item*/
+    void add(long value, int id) {
+        int leaf = leafFor(value, id);
+        if (leafSizes[leaf] == LEAF_CAPACITY) {
+            split(leaf);
+            if (compare(value, id, leafValues[leaf + 1][0], leafIds[leaf + 1][0]) >= 0) {
+                leaf++;
+            }
+        }
+        int count = leafSizes[leaf];
+        int position = upperBound(leaf, value, id);
+        System.arraycopy(leafValues[leaf], position, leafValues[leaf], position + 1, count - position);
+        System.arraycopy(leafIds[leaf], position, leafIds[leaf], position + 1, count - position);
+        leafValues[leaf][position] = value;
+        leafIds[leaf][position] = id;
+        leafSizes[leaf]++;
+        size++;
+    }
+
+    /** Removes one copy of a pair.
+     * @param value Value the item was added with
+     * @param id ID of the item
+     * @return Returns true if the pair was found, otherwise returns false*/
+    boolean remove(long value, int id) {
+        int leaf = leafFor(value, id);
+        int count = leafSizes[leaf];
+        int position = lowerBound(leaf, value, id);
+        if (position == count || leafValues[leaf][position] != value || leafIds[leaf][position] != id) {
+            return false;
+        }
+        System.arraycopy(leafValues[leaf], position + 1, leafValues[leaf], position, count - position - 1);
+        System.arraycopy(leafIds[leaf], position + 1, leafIds[leaf], position, count - position - 1);
+        leafSizes[leaf]--;
+        size--;
+        if (leafSizes[leaf] == 0 && leafCount > 1) {
+            removeLeaf(leaf);
+        }
+        return true;
+    }
+
+    /** Finds the IDs of the pairs whose value lies between two bounds.
+     * @param low Lowest value to include
+     * @param high Highest value to include
+     * @return Returns the IDs in ascending order of (value, ID), with an ID repeated if it was added more than once*/
+    int[] ids(long low, long high) {
+        int[] found = new int[16];
+        int count = 0;
+        if (low > high) {
+            return new int[0];
+        }
+        int leaf = leafFor(low, Integer.MIN_VALUE);
+        int position = lowerBound(leaf, low, Integer.MIN_VALUE);
+        for (; leaf < leafCount; leaf++, position = 0) {
+            long[] values = leafValues[leaf];
+            int[] ids = leafIds[leaf];
+            int end = leafSizes[leaf];
+            for (; position < end; position++) {
+                if (values[position] > high) {
+                    return Arrays.copyOf(found, count);
+                }
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = ids[position];
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /** Replaces the contents of the index with a batch of pairs, sorting them once instead of adding them one at a
+     * time. The arrays are sorted in place.
+     * @param values Values of the items
+     * @param ids IDs of the items, parallel to values
+     * @param count Number of pairs to load from the start of the arrays*/
+    void load(long[] values, int[] ids, int count) {
+        sort(values, ids, count);
+        int leaves = Math.max(1, (count + LOAD_FILL - 1) / LOAD_FILL);
+        leafValues = new long[leaves][];
+        leafIds = new int[leaves][];
+        leafSizes = new int[leaves];
+        for (int leaf = 0; leaf < leaves; leaf++) {
+            int from = leaf * LOAD_FILL;
+            int length = Math.min(LOAD_FILL, count - from);
+            leafValues[leaf] = new long[LEAF_CAPACITY];
+            leafIds[leaf] = new int[LEAF_CAPACITY];
+            if (length > 0) {
+                System.arraycopy(values, from, leafValues[leaf], 0, length);
+                System.arraycopy(ids, from, leafIds[leaf], 0, length);
+                leafSizes[leaf] = length;
+            }
+        }
+        leafCount = leaves;
+        size = count;
+    }
+
+    /** Removes every pair and frees the leaves. */
+    void clear() {
+        leafValues = new long[1][LEAF_CAPACITY];
+        leafIds = new int[1][LEAF_CAPACITY];
+        leafSizes = new int[1];
+        leafCount = 1;
+        size = 0;
+    }
+
+    /** Finds the leaf a pair belongs in: the last leaf whose first pair is not above it.
+     * If copies of the pair span several leaves, this is the last of them, which always holds a copy.
+     * @param value Value of the pair
+     * @param id ID of the pair
+     * @return Returns the index of the leaf*/
+    private int leafFor(long value, int id) {
+        int lowLeaf = 1;
+        int highLeaf = leafCount - 1;
+        int found = 0;
+        while (lowLeaf <= highLeaf) {
+            int middle = (lowLeaf + highLeaf) >>> 1;
+            if (compare(leafValues[middle][0], leafIds[middle][0], value, id) <= 0) {
+                found = middle;
+                lowLeaf = middle + 1;
+            }
+            else {
+                highLeaf = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /** Finds the first position in a leaf whose pair is not below a pair.
+     * @param leaf Leaf to search
+     * @param value Value of the pair
+     * @param id ID of the pair
+     * @return Returns the position, which is the leaf size if every pair is below*/
+    private int lowerBound(int leaf, long value, int id) {
+        long[] values = leafValues[leaf];
+        int[] ids = leafIds[leaf];
+        int low = 0;
+        int high = leafSizes[leaf];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(values[middle], ids[middle], value, id) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** Finds the first position in a leaf whose pair is above a pair, where a copy of the pair is inserted.
+     * @param leaf Leaf to search
+     * @param value Value of the pair
+     * @param id ID of the pair
+     * @return Returns the position, which is the leaf size if no pair is above*/
+    private int upperBound(int leaf, long value, int id) {
+        long[] values = leafValues[leaf];
+        int[] ids = leafIds[leaf];
+        int low = 0;
+        int high = leafSizes[leaf];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(values[middle], ids[middle], value, id) <= 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** Splits a full leaf into two half full leaves.
+     * @param leaf Leaf to split*/
+    private void split(int leaf) {
+        if (leafCount == leafSizes.length) {
+            int capacity = leafCount * 2;
+            leafValues = Arrays.copyOf(leafValues, capacity);
+            leafIds = Arrays.copyOf(leafIds, capacity);
+            leafSizes = Arrays.copyOf(leafSizes, capacity);
+        }
+        System.arraycopy(leafValues, leaf + 1, leafValues, leaf + 2, leafCount - leaf - 1);
+        System.arraycopy(leafIds, leaf + 1, leafIds, leaf + 2, leafCount - leaf - 1);
+        System.arraycopy(leafSizes, leaf + 1, leafSizes, leaf + 2, leafCount - leaf - 1);
+        int half = LEAF_CAPACITY / 2;
+        leafValues[leaf + 1] = new long[LEAF_CAPACITY];
+        leafIds[leaf + 1] = new int[LEAF_CAPACITY];
+        System.arraycopy(leafValues[leaf], half, leafValues[leaf + 1], 0, LEAF_CAPACITY - half);
+        System.arraycopy(leafIds[leaf], half, leafIds[leaf + 1], 0, LEAF_CAPACITY - half);
+        leafSizes[leaf + 1] = LEAF_CAPACITY - half;
+        leafSizes[leaf] = half;
+        leafCount++;
+    }
+
+    /** Removes an empty leaf.
+     * @param leaf Leaf to remove*/
+    private void removeLeaf(int leaf) {
+        System.arraycopy(leafValues, leaf + 1, leafValues, leaf, leafCount - leaf - 1);
+        System.arraycopy(leafIds, leaf + 1, leafIds, leaf, leafCount - leaf - 1);
+        System.arraycopy(leafSizes, leaf + 1, leafSizes, leaf, leafCount - leaf - 1);
+        leafCount--;
+        leafValues[leafCount] = null;
+        leafIds[leafCount] = null;
+    }
+
+    /** Compares two pairs by value, then by ID.
+     * @param value Value of the first pair
+     * @param id ID of the first pair
+     * @param otherValue Value of the second pair
+     * @param otherId ID of the second pair
+     * @return Returns a negative number, zero or a positive number as the first pair is below, equal to or above the
+     * second*/
+    private static int compare(long value, int id, long otherValue, int otherId) {
+        int byValue = Long.compare(value, otherValue);
+        return byValue != 0 ? byValue : Integer.compare(id, otherId);
+    }
+
+    /** Sorts parallel arrays of pairs by value, then by ID, with a bottom-up merge sort.
+     * @param values Values of the pairs
+     * @param ids IDs of the pairs
+     * @param count Number of pairs to sort from the start of the arrays*/
+    private static void sort(long[] values, int[] ids, int count) {
+        long[] valuesFrom = values;
+        int[] idsFrom = ids;
+        long[] valuesTo = new long[count];
+        int[] idsTo = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int left = 0; left < count; left += 2 * width) {
+                int middle = Math.min(left + width, count);
+                int right = Math.min(left + 2 * width, count);
+                int i = left;
+                int j = middle;
+                for (int k = left; k < right; k++) {
+                    if (i < middle && (j >= right || compare(valuesFrom[i], idsFrom[i], valuesFrom[j], idsFrom[j]) <= 0)) {
+                        valuesTo[k] = valuesFrom[i];
+                        idsTo[k] = idsFrom[i++];
+                    }
+                    else {
+                        valuesTo[k] = valuesFrom[j];
+                        idsTo[k] = idsFrom[j++];
+                    }
+                }
+            }
+            long[] swapValues = valuesFrom;
+            valuesFrom = valuesTo;
+            valuesTo = swapValues;
+            int[] swapIds = idsFrom;
+            idsFrom = idsTo;
+            idsTo = swapIds;
+        }
+        if (valuesFrom != values) {
+            System.arraycopy(valuesFrom, 0, values, 0, count);
+            System.arraycopy(idsFrom, 0, ids, 0, count);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/** The RangeIndexSet class keeps the stock, price and headroom range indexes of the parts or of the products.
+ * The indexes are only built the first time a range is searched, so an inventory that is never searched by range
+ * pays nothing for them; from then on Inventory reports every item added, replaced or removed and every stock or
+ * price change, and only the reported item is moved within the indexes. As in PartGroupIndex, changes reported by
+ * the lock-free stock methods are queued and applied by whichever thread finds the indexes free, and searches apply
+ * the queue first. Each indexed item is remembered with the values it was indexed with, as NGramIndex remembers its
+ * entries, so its old pairs can be found again. Snapshot rows that have not been read are indexed from their
+ * columns without being built. The items are indexed from a copy taken under the caller's lock, and items added,
+ * removed or built from rows while the copy is sorted are queued and applied once the build finishes, so writers
+ * never wait for a build.
+ * <p>The minimum stock is read when an item is indexed or its stock, price or min changes, so the setters of every
+ * indexed field report the item through changed().</p>
+ * @param <T> Part or Product */
+final class RangeIndexSet<T> {
+    /** Values an item was indexed with. */
+    private static final class Indexed {
+        /**ID of the item*/
+        final int id;
+        /**Stock the item was indexed with*/
+        int stock;
+        /**Price the item was indexed with, in cents*/
+        long priceCents;
+        /**Minimum stock the item was indexed with*/
+        int min;
+
+        /** Constructor. Records the values of an item.
+         * @param id ID of the item
+         * @param stock Amount in stock
+         * @param priceCents Price in cents
+         * @param min Minimum stock*/
+        Indexed(int id, int stock, long priceCents, int min) {
+            this.id = id;
+            this.stock = stock;
+            this.priceCents = priceCents;
+            this.min = min;
+        }
+    }
+
+    /** Collects the items and rows an index set is built from. Only used while building. */
+    final class Loader {
+        /**Values collected for each field, indexed by field ordinal*/
+        private final long[][] values = new long[FIELDS.length][];
+        /**IDs collected, shared by every field*/
+        private int[] ids;
+        /**Number of pairs collected*/
+        private int count = 0;
+
+        /** Constructor. Creates a loader sized for the expected number of items.
+         * @param expected Number of items and rows expected*/
+        private Loader(int expected) {
+            int capacity = Math.max(16, expected);
+            for (int field = 0; field < FIELDS.length; field++) {
+                values[field] = new long[capacity];
+            }
+            ids = new int[capacity];
+        }
+
+        /** Indexes an item that has been built.
+         * @param item Item to index*/
+        void add(T item) {
+            Indexed indexed = read(item);
+            entries.put(item, indexed);
+            collect(indexed.id, indexed.stock, indexed.priceCents, indexed.min);
+        }
+
+        /** Indexes a snapshot row that has not been read, from its columns.
+         * @param row Snapshot row
+         * @param id ID of the item in the row
+         * @param stock Stock of the row
+         * @param priceCents Price of the row in cents
+         * @param min Minimum stock of the row*/
+        void addRow(int row, int id, int stock, long priceCents, int min) {
+            indexedRows.set(row);
+            collect(id, stock, priceCents, min);
+        }
+
+        /** Appends the pairs of one item.
+         * @param id ID of the item
+         * @param stock Amount in stock
+         * @param priceCents Price in cents
+         * @param min Minimum stock*/
+        private void collect(int id, int stock, long priceCents, int min) {
+            if (count == ids.length) {
+                for (int field = 0; field < FIELDS.length; field++) {
+                    values[field] = Arrays.copyOf(values[field], count * 2);
+                }
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            for (int field = 0; field < FIELDS.length; field++) {
+                values[field][count] = RangeQuery.value(FIELDS[field], stock, priceCents, min);
+            }
+            ids[count++] = id;
+        }
+
+        /** Sorts the collected pairs into the indexes. */
+        private void finish() {
+            for (int field = 0; field < FIELDS.length; field++) {
+                indexes[field].load(values[field], field == FIELDS.length - 1 ? ids : ids.clone(), count);
+            }
+        }
+    }
+
+    /**Fields indexed, in ordinal order*/
+    private static final RangeQuery.Field[] FIELDS = RangeQuery.Field.values();
+
+    /**Reads the ID of an item*/
+    private final ToIntFunction<T> idOf;
+    /**Reads the stock of an item*/
+    private final ToIntFunction<T> stockOf;
+    /**Reads the price of an item in cents*/
+    private final ToLongFunction<T> priceOf;
+    /**Reads the minimum stock of an item*/
+    private final ToIntFunction<T> minOf;
+    /**Index of each field, indexed by field ordinal*/
+    private final RangeIndex[] indexes = new RangeIndex[FIELDS.length];  //Guarded by lock
+    /**Values each indexed item was indexed with*/
+    private final Map<T, Indexed> entries = new IdentityHashMap<>();    //Guarded by lock
+    /**Snapshot rows indexed from their columns that have not been built*/
+    private final BitSet indexedRows = new BitSet();                    //Guarded by lock
+    /**Items whose stock or price changed, waiting to be applied*/
+    private final ConcurrentLinkedQueue<T> changed = new ConcurrentLinkedQueue<>();
+    /**Items added, removed or built from rows while the indexes were being built, in the order reported*/
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    /**Held by the thread changing the indexes*/
+    private final ReentrantLock lock = new ReentrantLock();
+    /**True once the indexes are built, until they are cleared*/
+    private volatile boolean built = false;
+    /**True while the copied items are being indexed, so items added, removed or built from rows are queued*/
+    private volatile boolean building = false;
+
+    /** Constructor. Creates an index set that is not built yet.
+     * @param idOf Reads the ID of an item
+     * @param stockOf Reads the stock of an item
+     * @param priceOf Reads the price of an item in cents
+     * @param minOf Reads the minimum stock of an item*/
+    RangeIndexSet(ToIntFunction<T> idOf, ToIntFunction<T> stockOf, ToLongFunction<T> priceOf, ToIntFunction<T> minOf) {
+        this.idOf = idOf;
+        this.stockOf = stockOf;
+        this.priceOf = priceOf;
+        this.minOf = minOf;
+        for (int field = 0; field < FIELDS.length; field++) {
+            indexes[field] = new RangeIndex();
+        }
+    }
+
+    /** Checks whether the indexes are built and being kept up to date.
+     * @return Returns true if the indexes are built, otherwise returns false*/
+    boolean isBuilt() {
+        return built;
+    }
+
+    /** Builds the indexes from every stored item and unread row, unless another thread already built them.
+     * The guard must be a lock that keeps items from being added or removed; it is only held while the items are
+     * copied, and the copy is indexed without it. Items added, removed or built from rows after the copy, and stock
+     * and price changes made while building, are applied once the build finishes.
+     * @param guard Lock that guards adding and removing items, such as the Inventory read lock
+     * @param capture Copies every stored item and unread row, called holding the guard, and returns what hands the
+     * copy to the loader*/
+    void build(Lock guard, Supplier<Consumer<Loader>> capture) {
+        Consumer<Loader> source;
+        while (true) {
+            guard.lock();
+            try {
+                if (built) {
+                    return;
+                }
+                if (lock.tryLock()) {
+                    built = true;       //Set first, so a change made after the copy is queued
+                    building = true;
+                    entries.clear();
+                    indexedRows.clear();
+                    source = capture.get();
+                    break;
+                }
+            } finally {
+                guard.unlock();
+            }
+            lock.lock();        //Waits without the guard for the thread holding the lock, then checks again
+            lock.unlock();
+        }
+        try {
+            Loader loader = new Loader(16);
+            source.accept(loader);
+            loader.finish();
+            building = false;
+            runPending();
+            drain();
+        } finally {
+            lock.unlock();
+        }
+        applyQueued();
+    }
+
+    /** Drops the indexes, so they are built again the next time a range is searched. */
+    void clear() {
+        lock.lock();
+        try {
+            built = false;
+            changed.clear();
+            pending.clear();
+            entries.clear();
+            indexedRows.clear();
+            for (RangeIndex index : indexes) {
+                index.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Indexes an item that was added to the inventory. Ignored while the indexes are not built.
+     * @param item Item that was added*/
+    void added(T item) {
+        if (!built) {
+            return;
+        }
+        membershipChanged(() -> {
+            Indexed indexed = read(item);
+            entries.put(item, indexed);
+            insert(indexed);
+        });
+    }
+
+    /** Removes an item that was removed from the inventory from the indexes. Ignored while the indexes are not built.
+     * @param item Item that was removed*/
+    void removed(T item) {
+        if (!built) {
+            return;
+        }
+        membershipChanged(() -> {
+            Indexed indexed = entries.remove(item);
+            if (indexed != null) {
+                delete(indexed);
+            }
+        });
+    }
+
+    /** Hands the pairs of a snapshot row to the item built from it, so later changes to the item move them.
+     * Rows that were not indexed from their columns are ignored.
+     * @param row Snapshot row that was built
+     * @param item Item built from the row*/
+    void rowBuilt(int row, T item) {
+        if (!built) {
+            return;
+        }
+        membershipChanged(() -> {
+            if (indexedRows.get(row)) {
+                indexedRows.clear(row);
+                entries.put(item, read(item));     //Just built from the row, so its values are the row's
+            }
+        });
+    }
+
+    /** Applies a change to the indexed items, or queues it for the end of the build if the indexes are being built.
+     * The build flag is checked again after queuing, so a change queued while a build was finishing is never left
+     * waiting.
+     * @param change Applies the change, called holding the lock*/
+    private void membershipChanged(Runnable change) {
+        pending.add(change);
+        if (!building) {
+            lock.lock();
+            try {
+                runPending();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Applies the queued membership changes in the order they were reported. Called while holding the lock. */
+    private void runPending() {
+        Runnable change;
+        while ((change = pending.poll()) != null) {
+            change.run();
+        }
+    }
+
+    /** Reports that the stock or price of an item may have changed. Safe to call from any thread.
+     * @param item Item that changed*/
+    void changed(T item) {
+        if (built) {
+            changed.add(item);
+            applyQueued();
+        }
+    }
+
+    /** Finds the IDs of the items whose field lies between the bounds of a query, after applying the queued changes.
+     * @param query Range to search
+     * @return Returns the IDs in ascending order of value, then ID*/
+    int[] ids(RangeQuery query) {
+        lock.lock();
+        try {
+            drain();
+            return indexes[query.getField().ordinal()].ids(query.getLow(), query.getHigh());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Applies every queued change, unless another thread is already changing the indexes.
+     * The queue is checked again after the lock is released, so a change queued while the other thread was
+     * finishing is never left waiting. */
+    private void applyQueued() {
+        while (!changed.isEmpty() && !lock.isHeldByCurrentThread() && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Applies every queued change, moving the pairs of each item whose values changed. Called while holding the
+     * lock. An item queued more than once is only moved the first time. */
+    private void drain() {
+        T item;
+        while ((item = changed.poll()) != null) {
+            Indexed indexed = entries.get(item);
+            if (indexed == null) {
+                continue;
+            }
+            int stock = stockOf.applyAsInt(item);
+            long priceCents = priceOf.applyAsLong(item);
+            int min = minOf.applyAsInt(item);
+            if (stock != indexed.stock || priceCents != indexed.priceCents || min != indexed.min) {
+                delete(indexed);
+                indexed.stock = stock;
+                indexed.priceCents = priceCents;
+                indexed.min = min;
+                insert(indexed);
+            }
+        }
+    }
+
+    /** Reads the current values of an item.
+     * @param item Item to read
+     * @return Returns the values*/
+    private Indexed read(T item) {
+        return new Indexed(idOf.applyAsInt(item), stockOf.applyAsInt(item), priceOf.applyAsLong(item), minOf.applyAsInt(item));
+    }
+
+    /** Adds the pairs of an item to every index.
+     * @param indexed Values of the item*/
+    private void insert(Indexed indexed) {
+        for (int field = 0; field < FIELDS.length; field++) {
+            indexes[field].add(RangeQuery.value(FIELDS[field], indexed.stock, indexed.priceCents, indexed.min), indexed.id);
+        }
+    }
+
+    /** Removes the pairs of an item from every index.
+     * @param indexed Values the item was indexed with*/
+    private void delete(Indexed indexed) {
+        for (int field = 0; field < FIELDS.length; field++) {
+            indexes[field].remove(RangeQuery.value(FIELDS[field], indexed.stock, indexed.priceCents, indexed.min), indexed.id);
+        }
+    }
+}
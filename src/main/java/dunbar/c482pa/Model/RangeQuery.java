@@ -0,0 +1,181 @@
+package dunbar.c482pa.Model;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** The RangeQuery class is a search for the parts or products whose stock, price or headroom lies between two bounds.
+ * Headroom is the stock above the minimum, so a negative headroom means the item is short. Bounds are inclusive and
+ * whole numbers; price bounds are in cents. A query is written in a search box as a field, an operator and a number,
+ * such as "stock&lt;5", "price&gt;=10" or "headroom&lt;0", or as a field followed by "=" and two numbers separated by
+ * "..", such as "stock=10..20". Field names ignore case and prices are typed in dollars. */
+public final class RangeQuery {
+    /** The Field enum names the values a range query can search. */
+    public enum Field {
+        /**Amount in stock*/
+        STOCK,
+        /**Price in cents*/
+        PRICE,
+        /**Amount in stock minus the minimum*/
+        HEADROOM
+    }
+
+    /**Field, operator and operand of a typed query*/
+    private static final Pattern COMPARISON = Pattern.compile("\\s*([A-Za-z]+)\\s*(<=|>=|<|>|=)\\s*([-+]?[0-9.]+)\\s*");
+    /**Field and both bounds of a typed between query*/
+    private static final Pattern BETWEEN = Pattern.compile("\\s*([A-Za-z]+)\\s*=\\s*([-+]?[0-9.]+)\\s*\\.\\.\\s*([-+]?[0-9.]+)\\s*");
+
+    /**Field searched*/
+    private final Field field;
+    /**Lowest value matched*/
+    private final long low;
+    /**Highest value matched*/
+    private final long high;
+
+    /** Constructor. Creates a query for the values between two bounds.
+     * @param field Field to search
+     * @param low Lowest value matched
+     * @param high Highest value matched*/
+    private RangeQuery(Field field, long low, long high) {
+        this.field = field;
+        this.low = low;
+        this.high = high;
+    }
+
+    /** Creates a query for the values between two bounds, both included.
+     * @param field Field to search
+     * @param low Lowest value matched, in cents for PRICE
+     * @param high Highest value matched, in cents for PRICE
+     * @return Returns the query, which matches nothing if low is above high*/
+    public static RangeQuery between(Field field, long low, long high) {
+        if (field == null) {
+            throw new IllegalArgumentException("Field must not be null");
+        }
+        return new RangeQuery(field, low, high);
+    }
+
+    /** Parses a query typed in a search box.
+     * @param text Text of the search box
+     * @return Returns the query, or null if the text is not a range query and should be searched as a name or ID*/
+    public static RangeQuery parse(String text) {
+        Matcher between = BETWEEN.matcher(text);
+        if (between.matches()) {
+            Field field = field(between.group(1));
+            if (field == null) {
+                return null;
+            }
+            try {
+                return new RangeQuery(field, operand(field, between.group(2)), operand(field, between.group(3)));
+            } catch (NumberFormatException notNumber) {
+                return null;
+            }
+        }
+        Matcher comparison = COMPARISON.matcher(text);
+        if (!comparison.matches()) {
+            return null;
+        }
+        Field field = field(comparison.group(1));
+        if (field == null) {
+            return null;
+        }
+        long value;
+        try {
+            value = operand(field, comparison.group(3));
+        } catch (NumberFormatException notNumber) {
+            return null;
+        }
+        switch (comparison.group(2)) {
+            case "<":
+                return value == Long.MIN_VALUE ? new RangeQuery(field, 1, 0) : new RangeQuery(field, Long.MIN_VALUE, value - 1);
+            case "<=":
+                return new RangeQuery(field, Long.MIN_VALUE, value);
+            case ">":
+                return value == Long.MAX_VALUE ? new RangeQuery(field, 1, 0) : new RangeQuery(field, value + 1, Long.MAX_VALUE);
+            case ">=":
+                return new RangeQuery(field, value, Long.MAX_VALUE);
+            default:
+                return new RangeQuery(field, value, value);
+        }
+    }
+
+    /** Finds the field named in a typed query.
+     * @param name Field name, in any case
+     * @return Returns the field, or null if the name is not a field*/
+    private static Field field(String name) {
+        try {
+            return Field.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException notField) {
+            return null;
+        }
+    }
+
+    /** Parses a number typed in a query.
+     * @param field Field the number is compared with
+     * @param text Number, in dollars for PRICE
+     * @return Returns the number, in cents for PRICE
+     * @throws NumberFormatException if the text is not a number of the field*/
+    private static long operand(Field field, String text) {
+        return field == Field.PRICE ? Money.parseCents(text) : Long.parseLong(text);
+    }
+
+    /** Retrieves the field searched.
+     * @return Returns the field*/
+    public Field getField() {
+        return field;
+    }
+
+    /** Retrieves the lowest value matched.
+     * @return Returns the lower bound, in cents for PRICE*/
+    public long getLow() {
+        return low;
+    }
+
+    /** Retrieves the highest value matched.
+     * @return Returns the upper bound, in cents for PRICE*/
+    public long getHigh() {
+        return high;
+    }
+
+    /** Checks whether a value lies between the bounds.
+     * @param value Value of the field
+     * @return Returns true if the value is matched, otherwise returns false*/
+    public boolean matches(long value) {
+        return value >= low && value <= high;
+    }
+
+    /** Checks whether a part is matched by the query.
+     * @param part Part to check
+     * @return Returns true if the part's field lies between the bounds, otherwise returns false*/
+    public boolean matches(Part part) {
+        return matches(value(field, part.getStock(), part.getPriceCents(), part.getMin()));
+    }
+
+    /** Checks whether a product is matched by the query.
+     * @param product Product to check
+     * @return Returns true if the product's field lies between the bounds, otherwise returns false*/
+    public boolean matches(Product product) {
+        return matches(value(field, product.getStock(), product.getPriceCents(), product.getMin()));
+    }
+
+    /** Works out the value of a field.
+     * @param field Field to read
+     * @param stock Amount in stock
+     * @param priceCents Price in cents
+     * @param min Minimum stock
+     * @return Returns the value of the field*/
+    static long value(Field field, int stock, long priceCents, int min) {
+        switch (field) {
+            case STOCK:
+                return stock;
+            case PRICE:
+                return priceCents;
+            default:
+                return (long) stock - min;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return field.name().toLowerCase(Locale.ROOT) + "=" + low + ".." + high;
+    }
+}
@@ -0,0 +1,176 @@
+package dunbar.c482pa.Model;
+
+import java.util.Objects;
+
+/** The StockAlert class describes a part or product whose stock is outside its min and max.
+ * Alerts are ordered by priority: every shortfall below min comes before any excess above max, larger shortfalls and
+ * excesses come first, and parts come before products with the same amount. Alerts never change once created; a new
+ * alert replaces the old one when the stock changes. */
+public final class StockAlert implements Comparable<StockAlert> {
+    /** Kind of stock violation. */
+    public enum Level {
+        /**Stock is below the minimum required inventory*/
+        BELOW_MIN,
+        /**Stock is above the maximum inventory*/
+        ABOVE_MAX
+    }
+
+    /**True if the alert is for a product, false if it is for a part*/
+    private final boolean product;
+    /**ID of the part or product*/
+    private final int id;
+    /**Name of the part or product when the alert was raised*/
+    private final String name;
+    /**Stock when the alert was raised*/
+    private final int stock;
+    /**Minimum required inventory*/
+    private final int min;
+    /**Maximum inventory*/
+    private final int max;
+    /**Kind of violation*/
+    private final Level level;
+    /**Units missing below min, or units in excess of max*/
+    private final long amount;
+
+    /** Constructor. Creates an alert for stock outside its min and max.
+     * @param product True for a product, false for a part
+     * @param id ID of the part or product
+     * @param name Name of the part or product
+     * @param stock Amount in stock
+     * @param min Minimum required inventory
+     * @param max Maximum inventory
+     * @param level Kind of violation
+     * @param amount Units missing below min, or units in excess of max*/
+    private StockAlert(boolean product, int id, String name, int stock, int min, int max, Level level, long amount) {
+        this.product = product;
+        this.id = id;
+        this.name = name;
+        this.stock = stock;
+        this.min = min;
+        this.max = max;
+        this.level = level;
+        this.amount = amount;
+    }
+
+    /** Checks stock against its min and max.
+     * @param product True for a product, false for a part
+     * @param id ID of the part or product
+     * @param name Name of the part or product
+     * @param stock Amount in stock
+     * @param min Minimum required inventory
+     * @param max Maximum inventory
+     * @return Returns the alert for the stock, or null if the stock is within min and max*/
+    static StockAlert of(boolean product, int id, String name, int stock, int min, int max) {
+        if (stock < min) {
+            return new StockAlert(product, id, name, stock, min, max, Level.BELOW_MIN, (long) min - stock);
+        }
+        if (stock > max) {
+            return new StockAlert(product, id, name, stock, min, max, Level.ABOVE_MAX, (long) stock - max);
+        }
+        return null;
+    }
+
+    /** Checks the stock of a part.
+     * @param part Part to check
+     * @return Returns the alert for the part, or null if its stock is within min and max*/
+    static StockAlert of(Part part) {
+        return of(false, part.getId(), part.getName(), part.getStock(), part.getMin(), part.getMax());
+    }
+
+    /** Checks the stock of a product.
+     * @param product Product to check
+     * @return Returns the alert for the product, or null if its stock is within min and max*/
+    static StockAlert of(Product product) {
+        return of(true, product.getId(), product.getName(), product.getStock(), product.getMin(), product.getMax());
+    }
+
+    /** Checks whether the alert is for a product.
+     * @return Returns true for a product, false for a part*/
+    public boolean isProduct() {
+        return product;
+    }
+
+    /** Retrieves the ID of the part or product.
+     * @return Returns the ID*/
+    public int getId() {
+        return id;
+    }
+
+    /** Retrieves the name of the part or product.
+     * @return Returns the name when the alert was raised*/
+    public String getName() {
+        return name;
+    }
+
+    /** Retrieves the stock that raised the alert.
+     * @return Returns the amount in stock*/
+    public int getStock() {
+        return stock;
+    }
+
+    /** Retrieves the minimum required inventory.
+     * @return Returns the min*/
+    public int getMin() {
+        return min;
+    }
+
+    /** Retrieves the maximum inventory.
+     * @return Returns the max*/
+    public int getMax() {
+        return max;
+    }
+
+    /** Retrieves the kind of violation.
+     * @return Returns BELOW_MIN or ABOVE_MAX*/
+    public Level getLevel() {
+        return level;
+    }
+
+    /** Retrieves the size of the violation.
+     * @return Returns the units missing below min, or the units in excess of max*/
+    public long getAmount() {
+        return amount;
+    }
+
+    /** Orders alerts by priority, most urgent first.
+     * Alerts for the same part or product with the same violation compare as equal.
+     * @param other Alert to compare with
+     * @return Returns a negative number if this alert comes first, zero if neither does, otherwise a positive number*/
+    @Override
+    public int compareTo(StockAlert other) {
+        if (level != other.level) {
+            return level.compareTo(other.level);
+        }
+        if (amount != other.amount) {
+            return Long.compare(other.amount, amount);
+        }
+        if (product != other.product) {
+            return product ? 1 : -1;
+        }
+        return Integer.compare(id, other.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StockAlert)) {
+            return false;
+        }
+        StockAlert other = (StockAlert) o;
+        return product == other.product && id == other.id && stock == other.stock && min == other.min
+                && max == other.max && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(product, id, name, stock, min, max);
+    }
+
+    @Override
+    public String toString() {
+        return (product ? "Product " : "Part ") + id + " (" + name + ") " + (level == Level.BELOW_MIN
+                ? amount + " below min " + min : amount + " above max " + max);
+    }
+}
@@ -0,0 +1,251 @@
+package dunbar.c482pa.Model;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** The StockAlertMonitor class keeps the list of parts and products whose stock is outside their min and max.
+ * The list is not rebuilt by scanning the inventory. Instead, Inventory reports every stock change and every part or
+ * product added, replaced or removed. Only the reported item is checked again, and its alert is moved within the
+ * list ordered by priority: its position is found by binary search, and the array list then shifts the alerts after
+ * it, so a move takes time proportional to the number of alerts shown, not to the size of the inventory.
+ * Reports come from any thread, including the lock-free stock methods, so they are queued and checked by whichever
+ * thread finds the monitor free. An item already waiting in the queue is not queued again. As in FxListMirror, the
+ * list is only changed on the JavaFX Application Thread once the application window starts, and changes from other
+ * threads are shown in one update per pulse. */
+final class StockAlertMonitor extends ObservableListBase<StockAlert> {
+    /** Alerts read from snapshot rows that were loaded without being built. */
+    private static final class LoadedAlerts {
+        /**Alerts of the loaded parts and products, in priority order*/
+        final List<StockAlert> alerts;
+
+        /** Constructor. Wraps the alerts of a loaded snapshot.
+         * @param alerts Alerts in priority order*/
+        LoadedAlerts(List<StockAlert> alerts) {
+            this.alerts = alerts;
+        }
+    }
+
+    /** Alert of an item known without looking it up, reported while the indexes are stale. */
+    private static final class KnownAlert {
+        /**True for a product, false for a part*/
+        final boolean product;
+        /**ID of the part or product*/
+        final int id;
+        /**Alert of the item, or null if it has none or was removed*/
+        final StockAlert alert;
+
+        /** Constructor. Records the alert of an item.
+         * @param product True for a product, false for a part
+         * @param id ID of the part or product
+         * @param alert Alert of the item, or null*/
+        KnownAlert(boolean product, int id, StockAlert alert) {
+            this.product = product;
+            this.id = id;
+            this.alert = alert;
+        }
+    }
+
+    /**Parts, products, known alerts and loaded snapshots waiting to be checked*/
+    private final ConcurrentLinkedQueue<Object> changed = new ConcurrentLinkedQueue<>();
+    /**Held by the thread checking the queued items*/
+    private final ReentrantLock checking = new ReentrantLock();
+    /**Current alert of each part ID*/
+    private final IntHashMap<StockAlert> partAlerts = new IntHashMap<>();        //Guarded by checking
+    /**Current alert of each product ID*/
+    private final IntHashMap<StockAlert> productAlerts = new IntHashMap<>();     //Guarded by checking
+    /**Alerts shown by the list, in priority order*/
+    private final List<StockAlert> shown = new ArrayList<>();
+    /**Alert replacements waiting to be shown, each holding the old alert or null and the new alert or null*/
+    private final List<StockAlert[]> pending = new ArrayList<>();  //Guarded by itself
+    /**True while showing the pending replacements is scheduled on the JavaFX Application Thread*/
+    private boolean flushScheduled = false;                          //Guarded by pending
+
+    /** Reports that the stock of a part may have changed, or that a part was added, replaced or removed.
+     * @param part Part that changed*/
+    void partChanged(Part part) {
+        if (part.markAlertPending()) {
+            changed.add(part);
+            checkQueued();
+        }
+    }
+
+    /** Reports that the stock of a product may have changed, or that a product was added, replaced or removed.
+     * @param product Product that changed*/
+    void productChanged(Product product) {
+        if (product.markAlertPending()) {
+            changed.add(product);
+            checkQueued();
+        }
+    }
+
+    /** Reports that a part was added or removed while the indexes are stale, so that its alert is checked from the
+     * part itself instead of being looked up.
+     * @param part Part that was added or removed
+     * @param stored True if the part was added, false if it was removed*/
+    void partStored(Part part, boolean stored) {
+        changed.add(new KnownAlert(false, part.getId(), stored ? StockAlert.of(part) : null));
+        checkQueued();
+    }
+
+    /** Reports that a product was added or removed while the indexes are stale, so that its alert is checked from the
+     * product itself instead of being looked up.
+     * @param product Product that was added or removed
+     * @param stored True if the product was added, false if it was removed*/
+    void productStored(Product product, boolean stored) {
+        changed.add(new KnownAlert(true, product.getId(), stored ? StockAlert.of(product) : null));
+        checkQueued();
+    }
+
+    /** Adds the alerts of parts and products loaded from a snapshot without building them.
+     * @param alerts Alerts of the loaded rows, in any order*/
+    void loaded(List<StockAlert> alerts) {
+        if (!alerts.isEmpty()) {
+            Collections.sort(alerts);       //Appended in order, so each one lands at the end of the list
+            changed.add(new LoadedAlerts(alerts));
+            checkQueued();
+        }
+    }
+
+    /** Checks every queued item, unless another thread is already doing so.
+     * The queue is checked again after the lock is released, so an item queued while the other thread was finishing
+     * is never left waiting. Parts and products are left queued while a snapshot was loaded and the thread holds the
+     * Inventory read or write lock, as in the middle of a change, since looking them up would rebuild the indexes; Inventory checks
+     * them again once the indexes are rebuilt. */
+    void checkQueued() {
+        while (!changed.isEmpty() && !checking.isHeldByCurrentThread() && checking.tryLock()) {
+            List<Object> waiting = null;
+            try {
+                List<StockAlert[]> edits = new ArrayList<>();
+                Object item;
+                while ((item = changed.poll()) != null) {
+                    if (item instanceof LoadedAlerts) {
+                        for (StockAlert alert : ((LoadedAlerts) item).alerts) {
+                            IntHashMap<StockAlert> alerts = alert.isProduct() ? productAlerts : partAlerts;
+                            if (!alerts.containsKey(alert.getId())) {     //The first row with an ID is the one looked up
+                                replace(alerts, alert.getId(), alert, edits);
+                            }
+                        }
+                    }
+                    else if (item instanceof KnownAlert) {
+                        KnownAlert known = (KnownAlert) item;
+                        replace(known.product ? productAlerts : partAlerts, known.id, known.alert, edits);
+                    }
+                    else if (!Inventory.canLookUpWithoutRebuild()) {
+                        if (waiting == null) {
+                            waiting = new ArrayList<>();
+                        }
+                        waiting.add(item);
+                    }
+                    else if (item instanceof Part) {
+                        Part part = (Part) item;
+                        part.alertEvaluated();      //Cleared first, so a change made during the check is queued again
+                        Part stored = Inventory.lookupPart(part.getId());
+                        replace(partAlerts, part.getId(), stored == null ? null : StockAlert.of(stored), edits);
+                    }
+                    else {
+                        Product product = (Product) item;
+                        product.alertEvaluated();
+                        Product stored = Inventory.lookupProduct(product.getId());
+                        replace(productAlerts, product.getId(), stored == null ? null : StockAlert.of(stored), edits);
+                    }
+                }
+                if (waiting != null) {
+                    changed.addAll(waiting);
+                }
+                if (!edits.isEmpty()) {
+                    enqueue(edits);
+                }
+            } finally {
+                checking.unlock();
+            }
+            if (waiting != null) {
+                return;
+            }
+        }
+    }
+
+    /** Replaces the current alert of an ID and records the replacement if the alert changed.
+     * @param alerts Current alerts of the parts or the products
+     * @param id ID of the part or product
+     * @param alert New alert, or null if the stock is within min and max or the item is gone
+     * @param edits Recorded replacements*/
+    private static void replace(IntHashMap<StockAlert> alerts, int id, StockAlert alert, List<StockAlert[]> edits) {
+        StockAlert old = alert == null ? alerts.remove(id) : alerts.get(id);
+        if (alert == null ? old == null : alert.equals(old)) {
+            return;
+        }
+        if (alert != null) {
+            alerts.put(id, alert);
+        }
+        edits.add(new StockAlert[]{old, alert});
+    }
+
+    /** Queues recorded replacements and shows them now, or schedules showing them on the JavaFX Application Thread.
+     * Called while holding the checking lock, so replacements shown at once are never shown by two threads together.
+     * @param edits Replacements to queue, in order*/
+    private void enqueue(List<StockAlert[]> edits) {
+        boolean now = FxListMirror.canUpdateUi();
+        synchronized (pending) {
+            pending.addAll(edits);
+            if (!now) {
+                if (flushScheduled) {
+                    return;
+                }
+                flushScheduled = true;
+            }
+        }
+        if (now) {
+            flush();
+        }
+        else {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /** Shows every pending replacement as one change event.
+     * Each old alert is found and each new alert is placed by binary search over the list, then removed or inserted
+     * by shifting the alerts after it. */
+    private void flush() {
+        List<StockAlert[]> edits;
+        synchronized (pending) {
+            edits = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (edits.isEmpty()) {
+            return;
+        }
+        beginChange();
+        try {
+            for (StockAlert[] edit : edits) {
+                if (edit[0] != null) {
+                    int index = Collections.binarySearch(shown, edit[0]);
+                    shown.remove(index);
+                    nextRemove(index, edit[0]);
+                }
+                if (edit[1] != null) {
+                    int index = -Collections.binarySearch(shown, edit[1]) - 1;
+                    shown.add(index, edit[1]);
+                    nextAdd(index, index + 1);
+                }
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public StockAlert get(int index) {
+        return shown.get(index);
+    }
+
+    @Override
+    public int size() {
+        return shown.size();
+    }
+}
@@ -0,0 +1,99 @@
+package dunbar.c482pa.Model;
+
+/** The StockState class packs the stock of a part or product and the amount of it reserved for orders into one long.
+ * Keeping both counts in one value lets Part and Product change them together with a single compare-and-set, so
+ * stock can be reserved, sold and restocked from many threads at once without locking and without lost updates.
+ * The stock is held in the high 32 bits and the reserved amount in the low 32 bits. Each transition checks the
+ * min and max of the item and returns REJECTED instead of a new state if the change is not allowed. */
+final class StockState {
+    /**Returned by a transition that is not allowed; no valid state has a negative reserved amount*/
+    static final long REJECTED = pack(0, -1);
+
+    /** Prevents instantiation of this utility class. */
+    private StockState() {
+    }
+
+    /** Packs a stock and a reserved amount into a state.
+     * @param stock Amount in stock
+     * @param reserved Amount of the stock reserved for orders
+     * @return Returns the packed state*/
+    static long pack(int stock, int reserved) {
+        return ((long) stock << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    /** Retrieves the amount in stock from a state.
+     * @param state Packed state
+     * @return Returns the amount in stock, including reserved stock*/
+    static int stock(long state) {
+        return (int) (state >> 32);
+    }
+
+    /** Retrieves the reserved amount from a state.
+     * @param state Packed state
+     * @return Returns the amount of stock reserved for orders*/
+    static int reserved(long state) {
+        return (int) state;
+    }
+
+    /** Reserves stock, leaving at least min units that are not reserved.
+     * @param state Current state
+     * @param quantity Amount to reserve, greater than zero
+     * @param min Minimum stock of the item
+     * @return Returns the new state, or REJECTED if too little unreserved stock is left or the reserved amount would
+     * not fit in an int*/
+    static long reserve(long state, int quantity, int min) {
+        long reserved = (long) reserved(state) + quantity;
+        if (reserved > Integer.MAX_VALUE || stock(state) - reserved < min) {
+            return REJECTED;
+        }
+        return pack(stock(state), (int) reserved);
+    }
+
+    /** Removes reserved stock from the stock, as when a reserved order ships.
+     * @param state Current state
+     * @param quantity Amount to take, greater than zero
+     * @return Returns the new state, or REJECTED if less than the quantity is reserved*/
+    static long commit(long state, int quantity) {
+        if (reserved(state) < quantity) {
+            return REJECTED;
+        }
+        return pack(stock(state) - quantity, reserved(state) - quantity);
+    }
+
+    /** Returns reserved stock to the unreserved stock, as when a reserved order is cancelled.
+     * @param state Current state
+     * @param quantity Amount to release, greater than zero
+     * @return Returns the new state, or REJECTED if less than the quantity is reserved*/
+    static long release(long state, int quantity) {
+        if (reserved(state) < quantity) {
+            return REJECTED;
+        }
+        return pack(stock(state), reserved(state) - quantity);
+    }
+
+    /** Adds to or removes from the stock. Removals must leave at least min units that are not reserved, and
+     * additions must not take the stock above max.
+     * @param state Current state
+     * @param delta Amount added, or removed if negative
+     * @param min Minimum stock of the item
+     * @param max Maximum stock of the item
+     * @return Returns the new state, or REJECTED if the change would pass min or max*/
+    static long adjust(long state, int delta, int min, int max) {
+        long stock = (long) stock(state) + delta;
+        if (delta < 0 && stock - reserved(state) < min) {
+            return REJECTED;
+        }
+        if (delta > 0 && stock > max) {
+            return REJECTED;
+        }
+        return pack((int) stock, reserved(state));
+    }
+
+    /** Replaces the stock and keeps the reserved amount.
+     * @param state Current state
+     * @param stock New amount in stock
+     * @return Returns the new state*/
+    static long withStock(long state, int stock) {
+        return pack(stock, reserved(state));
+    }
+}
@@ -0,0 +1,96 @@
+package dunbar.c482pa.Model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** The StringPool class canonicalizes strings that repeat across many items, such as the company names of
+ * outsourced parts, so each distinct value is held once and is numbered with a small int ID.
+ * Interning a string returns the instance first added for it, so pooled values can be compared by identity or by
+ * ID instead of character by character. A pool can fold case, in which case strings differing only in case share
+ * the ID and the spelling that was added first. IDs start at 0 and are handed out in the order strings are first
+ * added; strings are never removed, so an ID stays valid for the life of the pool. All methods are thread-safe, and
+ * looking up a string already in the pool does not lock. */
+public final class StringPool {
+    /**True if strings differing only in case are treated as the same string*/
+    private final boolean foldCase;
+    /**ID of each pooled string, keyed by the string or its lower case form*/
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    /**Pooled string of each ID; replaced, never changed in place, when it grows*/
+    private volatile String[] strings = new String[16];
+    /**Number of strings in the pool*/
+    private int size = 0;     //Only changed while holding the pool's lock
+
+    /** Constructor. Creates an empty pool.
+     * @param foldCase True to treat strings that differ only in case as the same string*/
+    public StringPool(boolean foldCase) {
+        this.foldCase = foldCase;
+    }
+
+    /** Retrieves the canonical instance of a string, adding the string to the pool if it is new.
+     * @param text String to intern, or null
+     * @return Returns the pooled string equal to the text, ignoring case if the pool folds case, or null if text is null*/
+    public String intern(String text) {
+        return text == null ? null : get(id(text));
+    }
+
+    /** Retrieves the ID of a string, adding the string to the pool if it is new.
+     * @param text String to look up, not null
+     * @return Returns the ID of the string*/
+    public int id(String text) {
+        String key = key(text);
+        Integer id = ids.get(key);
+        return id != null ? id : add(text, key);
+    }
+
+    /** Retrieves the ID of a string without adding it to the pool.
+     * @param text String to look up, or null
+     * @return Returns the ID of the string, or -1 if the string is not in the pool*/
+    public int find(String text) {
+        if (text == null) {
+            return -1;
+        }
+        Integer id = ids.get(key(text));
+        return id != null ? id : -1;
+    }
+
+    /** Retrieves a pooled string by ID.
+     * @param id ID returned by id() or find()
+     * @return Returns the pooled string*/
+    public String get(int id) {
+        return strings[id];
+    }
+
+    /** Retrieves the number of distinct strings in the pool.
+     * @return Returns the number of IDs handed out*/
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Adds a string that was not found in the pool, unless another thread added it first.
+     * The string is stored before its ID is published, so any thread that finds the ID can read the string.
+     * @param text String to add
+     * @param key Key of the string
+     * @return Returns the ID of the string*/
+    private synchronized int add(String text, String key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        String[] current = strings;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = text;
+        strings = current;
+        ids.put(key, size);
+        return size++;
+    }
+
+    /** Works out the key a string is pooled under.
+     * @param text String to look up
+     * @return Returns the lower case string if the pool folds case, otherwise the string itself*/
+    private String key(String text) {
+        return foldCase ? text.toLowerCase(Locale.ROOT) : text;
+    }
+}
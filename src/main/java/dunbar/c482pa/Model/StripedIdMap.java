@@ -0,0 +1,121 @@
+package dunbar.c482pa.Model;
+
+import java.util.concurrent.locks.StampedLock;
+
+/** The StripedIdMap class is a map from part or product ID to item that can be read from any thread.
+ * The IDs are spread over a fixed number of stripes, each an IntHashMap guarded by its own StampedLock. A lookup
+ * first reads its stripe without locking and only takes the stripe's read lock if a write to the same stripe
+ * overlapped the read, so lookups never block writers, and a writer only blocks the rare lookup of an ID in the
+ * stripe it is changing. Used by Inventory for the part and product ID indexes.
+ * @param <T> Type of the items stored in the map */
+final class StripedIdMap<T> {
+    /** One stripe of the map. */
+    private static final class Stripe<T> {
+        /**Guards map*/
+        final StampedLock lock = new StampedLock();
+        /**Entries of the IDs that fall in this stripe*/
+        IntHashMap<T> map;
+
+        /** Constructor. Creates an empty stripe.
+         * @param expectedSize Number of entries the stripe is expected to hold*/
+        Stripe(int expectedSize) {
+            map = new IntHashMap<>(expectedSize);
+        }
+    }
+
+    /**Stripes of the map*/
+    private final Stripe<T>[] stripes;
+    /**Number of bits of the mixed ID used to choose a stripe*/
+    private final int stripeBits;
+
+    /** Constructor. Creates an empty map with enough stripes for the number of processors. */
+    @SuppressWarnings("unchecked")
+    StripedIdMap() {
+        int count = Integer.highestOneBit(Math.min(256, Math.max(16, Runtime.getRuntime().availableProcessors() * 4)) - 1) << 1;
+        stripeBits = Integer.numberOfTrailingZeros(count);
+        stripes = (Stripe<T>[]) new Stripe<?>[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(16);
+        }
+    }
+
+    /** Chooses the stripe of an ID.
+     * Uses the high bits of the mixed ID, so the stripe does not depend on the low bits each IntHashMap probes with.
+     * @param id ID to place
+     * @return Returns the stripe holding the ID*/
+    private Stripe<T> stripe(int id) {
+        return stripes[(id * 0x9E3779B9) >>> (32 - stripeBits)];
+    }
+
+    /** Retrieves the item stored for an ID. Safe to call from any thread.
+     * @param id ID to search for
+     * @return Returns the item stored for the ID, or null if the ID is not in the map*/
+    T get(int id) {
+        Stripe<T> stripe = stripe(id);
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T item = stripe.map.get(id);
+                if (stripe.lock.validate(stamp)) {
+                    return item;
+                }
+            } catch (RuntimeException overlappedWrite) {
+                //A write resized or reshuffled the table during the read; the read is repeated under the lock
+            }
+        }
+        stamp = stripe.lock.readLock();
+        try {
+            return stripe.map.get(id);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /** Checks whether the map holds an item for an ID.
+     * @param id ID to search for
+     * @return Returns true if the ID is in the map, otherwise returns false*/
+    boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    /** Stores an item for an ID, replacing any previous item.
+     * @param id ID to store the item under
+     * @param item Item to store, not null
+     * @return Returns the previous item for the ID, or null if there was none*/
+    T put(int id, T item) {
+        Stripe<T> stripe = stripe(id);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return stripe.map.put(id, item);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Removes the item stored for an ID.
+     * @param id ID to remove
+     * @return Returns the item that was removed, or null if the ID was not in the map*/
+    T remove(int id) {
+        Stripe<T> stripe = stripe(id);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return stripe.map.remove(id);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Removes every entry and sizes the stripes for a number of entries about to be added.
+     * @param expectedSize Number of entries the map is expected to hold*/
+    void clear(int expectedSize) {
+        int perStripe = expectedSize / stripes.length + 1;
+        for (Stripe<T> stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.map = new IntHashMap<>(perStripe);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ module dunbar.c482pa {
             
                             
 
+    exports dunbar.c482pa;
     exports dunbar.c482pa.Model;
     opens dunbar.c482pa.Model to javafx.fxml;
     exports dunbar.c482pa.Controllers;
@@ -0,0 +1,112 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests that a bill of materials keeps one entry per item with its quantity, in the order items were first added,
+ * and that changing it leaves the original bill untouched.
+ * The parts are never stored in the Inventory, so each entry shows the part object it was added with. */
+class BillOfMaterialsTest {
+
+    @Test
+    void mergesRepeatedItemsInFirstAddedOrder() {
+        Part bolt = InHouse.ofCents(830_001, "Bolt", 10, 5, 0, 10, 1);
+        Part nut = InHouse.ofCents(830_002, "Nut", 5, 5, 0, 10, 1);
+        int[] deltas = {2, 1, 3};
+        BillOfMaterials<Part> bill = BillOfMaterials.NO_PARTS.change(new int[]{830_001, 830_002, 830_001}, new Part[]{bolt, nut, bolt}, deltas);
+
+        assertEquals(0, BillOfMaterials.NO_PARTS.size());
+        assertArrayEquals(new int[]{2, 1, 3}, deltas);
+        assertEquals(2, bill.size());
+        assertEquals(6, bill.units());
+        assertEquals(830_001, bill.partId(0));
+        assertEquals(5, bill.quantity(0));
+        assertSame(bolt, bill.item(0));
+        assertEquals(830_002, bill.partId(1));
+        assertSame(nut, bill.item(1));
+        assertEquals(1, bill.quantityOf(830_002));
+        assertEquals(0, bill.quantityOf(839_999));
+        assertEquals(-1, bill.indexOf(839_999));
+
+        //Units 0-4 are bolts and unit 5 is the nut
+        assertEquals(0, bill.entryOfUnit(0));
+        assertEquals(0, bill.entryOfUnit(4));
+        assertEquals(1, bill.entryOfUnit(5));
+        assertEquals(5, bill.firstUnit(1));
+        assertEquals(6, bill.firstUnit(2));
+    }
+
+    @Test
+    void limitsRemovalsToTheUnitsInTheBill() {
+        Part cam = InHouse.ofCents(831_001, "Cam", 10, 5, 0, 10, 1);
+        Part pin = InHouse.ofCents(831_002, "Pin", 10, 5, 0, 10, 1);
+        BillOfMaterials<Part> bill = BillOfMaterials.NO_PARTS.change(new int[]{831_001, 831_002}, new Part[]{cam, pin}, new int[]{3, 2});
+
+        int[] deltas = {-1, -5};
+        BillOfMaterials<Part> removed = bill.change(new int[]{831_001, 831_002}, new Part[2], deltas);
+        assertArrayEquals(new int[]{-1, -2}, deltas);
+        assertEquals(1, removed.size());
+        assertEquals(2, removed.quantityOf(831_001));
+        assertEquals(-1, removed.indexOf(831_002));
+        assertEquals(3, bill.quantityOf(831_001));
+        assertEquals(2, bill.quantityOf(831_002));
+
+        //Re-adding a removed item appends it after the kept ones
+        BillOfMaterials<Part> readded = removed.change(new int[]{831_002}, new Part[]{pin}, new int[]{1});
+        assertEquals(831_002, readded.partId(1));
+    }
+
+    @Test
+    void returnsTheSameBillWhenNothingChanges() {
+        Part gear = InHouse.ofCents(832_001, "Gear", 10, 5, 0, 10, 1);
+        BillOfMaterials<Part> bill = BillOfMaterials.NO_PARTS.change(new int[]{832_001}, new Part[]{gear}, new int[]{1});
+
+        int[] deltas = {-4, 0};
+        assertSame(bill, bill.change(new int[]{839_998, 832_001}, new Part[2], deltas));
+        assertArrayEquals(new int[]{0, 0}, deltas);
+        assertSame(bill, bill.change(new int[0], new Part[0], new int[0]));
+    }
+
+    @Test
+    void rejectsQuantitiesAboveTheIntRange() {
+        Part shim = InHouse.ofCents(833_001, "Shim", 1, 5, 0, 10, 1);
+        BillOfMaterials<Part> bill = BillOfMaterials.NO_PARTS.change(new int[]{833_001}, new Part[]{shim}, new int[]{Integer.MAX_VALUE});
+
+        assertThrows(IllegalArgumentException.class, () -> bill.change(new int[]{833_001}, new Part[]{shim}, new int[]{1}));
+        assertEquals(Integer.MAX_VALUE, bill.quantityOf(833_001));
+    }
+
+    @Test
+    void findsEntriesOfLargeBills() {
+        int count = 40;
+        int[] ids = new int[count];
+        int[] counts = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 834_000 + 3 * i;
+            counts[i] = i + 1;
+        }
+        BillOfMaterials<Part> bill = BillOfMaterials.NO_PARTS.withEntries(ids, counts);
+
+        assertEquals(count, bill.size());
+        assertEquals(count * (count + 1) / 2, bill.units());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, bill.indexOf(ids[i]));
+            assertEquals(i + 1, bill.quantityOf(ids[i]));
+            assertEquals(-1, bill.indexOf(ids[i] + 1));
+            assertNull(bill.item(i));
+            assertEquals(i, bill.entryOfUnit(bill.firstUnit(i)));
+        }
+
+        int[] deltas = {-count, 5};
+        BillOfMaterials<Part> changed = bill.change(new int[]{ids[count - 1], 834_001}, new Part[2], deltas);
+        assertEquals(count, changed.size());
+        assertEquals(-1, changed.indexOf(ids[count - 1]));
+        assertEquals(count - 1, changed.indexOf(834_001));
+        assertEquals(5, changed.quantityOf(834_001));
+    }
+}
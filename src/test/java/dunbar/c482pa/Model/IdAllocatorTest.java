@@ -0,0 +1,120 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests that IdAllocator hands out the lowest free ID, including IDs kept in its overflow map. */
+class IdAllocatorTest {
+
+    @Test
+    void allocatesFromOne() {
+        IdAllocator ids = new IdAllocator();
+        assertEquals(1, ids.peek());
+        assertEquals(1, ids.allocate());
+        assertEquals(2, ids.allocate());
+        assertEquals(3, ids.peek());
+    }
+
+    @Test
+    void skipsIdsInUse() {
+        IdAllocator ids = new IdAllocator();
+        ids.markUsed(1);
+        ids.markUsed(2);
+        ids.markUsed(4);
+        assertEquals(3, ids.allocate());
+        assertEquals(5, ids.allocate());
+    }
+
+    @Test
+    void releasedIdsAreReused() {
+        IdAllocator ids = new IdAllocator();
+        for (int i = 0; i < 10; i++) {
+            ids.allocate();
+        }
+        ids.release(7);
+        ids.release(4);
+        assertFalse(ids.isUsed(4));
+        assertEquals(4, ids.allocate());
+        assertEquals(7, ids.allocate());
+        assertEquals(11, ids.allocate());
+    }
+
+    @Test
+    void idsBelowOneAreIgnored() {
+        IdAllocator ids = new IdAllocator();
+        ids.markUsed(0);
+        ids.markUsed(-5);
+        ids.release(-5);
+        assertFalse(ids.isUsed(0));
+        assertFalse(ids.isUsed(-5));
+        assertEquals(1, ids.peek());
+    }
+
+    @Test
+    void largeIdsAreCountedInTheOverflowMap() {
+        IdAllocator ids = new IdAllocator();
+        int large = Integer.MAX_VALUE - 1;
+        ids.markUsed(large);
+        ids.markUsed(large);
+        assertTrue(ids.isUsed(large));
+        ids.release(large);
+        assertTrue(ids.isUsed(large));
+        ids.release(large);
+        assertFalse(ids.isUsed(large));
+        assertEquals(1, ids.peek());
+    }
+
+    @Test
+    void lowestFreeMovesPastTheBitsetIntoTheOverflowMap() {
+        IdAllocator ids = new IdAllocator();
+        int limit = 1 << 24;
+        for (int id = 1; id < limit; id++) {
+            ids.markUsed(id);
+        }
+        ids.markUsed(limit);
+        ids.markUsed(limit + 1);
+        assertEquals(limit + 2, ids.peek());
+        ids.release(limit);
+        assertEquals(limit, ids.allocate());
+    }
+
+    @Test
+    void clearFreesEveryId() {
+        IdAllocator ids = new IdAllocator();
+        ids.markUsed(1);
+        ids.markUsed(Integer.MAX_VALUE);
+        ids.clear();
+        assertFalse(ids.isUsed(1));
+        assertFalse(ids.isUsed(Integer.MAX_VALUE));
+        assertEquals(1, ids.peek());
+    }
+
+    @Test
+    void concurrentAllocationsAreUnique() throws InterruptedException {
+        IdAllocator ids = new IdAllocator();
+        Set<Integer> allocated = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    allocated.add(ids.allocate());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, allocated.size());
+        assertEquals(40001, ids.peek());
+    }
+}
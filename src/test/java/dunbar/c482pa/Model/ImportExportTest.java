@@ -0,0 +1,75 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Tests that importing a file and exporting the inventory again writes the records back unchanged, including
+ * quoted names, exact prices and associated part quantities.
+ * The Inventory is global state shared by every test in the JVM, so each test uses IDs no other test uses and only
+ * compares the exported records of its own IDs. */
+class ImportExportTest {
+
+    @Test
+    void csvRoundTrip() throws Exception {
+        List<String> records = List.of(
+                "InHouse,800001,Spur Gear,12.50,10,1,50,7,",
+                "Outsourced,800002,\"Bolt, \"\"Hex\"\"\",90071992547409.93,4,0,10,\"Acme, Inc.\",",
+                "InHouse,800003,Écrou 日本,0.05,0,0,0,0,",
+                "Product,800004,Gearbox,30.00,5,1,10,,800001x2;800003",
+                "Product,800005,Empty Box,1.00,0,0,1,,");
+        String file = "type,id,name,price,stock,min,max,location,parts\n" + String.join("\n", records) + "\n";
+
+        InventoryImporter.Result result = InventoryImporter.importFrom(new StringReader(file), InventoryFileFormat.CSV);
+        assertEquals(List.of(), result.getErrors());
+        assertEquals(3, result.getPartsImported());
+        assertEquals(2, result.getProductsImported());
+        assertEquals((1L << 53) + 1, Inventory.lookupPart(800002).getPriceCents());
+        assertEquals(2, Inventory.lookupProduct(800004).getAssociatedQuantity(800001));
+
+        StringWriter out = new StringWriter();
+        InventoryExporter.exportTo(out, InventoryFileFormat.CSV);
+        List<String> exported = out.toString().lines().filter(line -> line.split(",", 3)[1].startsWith("80000")).toList();
+        assertEquals(records, exported);
+    }
+
+    @Test
+    void ndjsonRoundTrip() throws Exception {
+        List<String> records = List.of(
+                "{\"type\":\"InHouse\",\"id\":810001,\"name\":\"Spur Gear\",\"price\":12.50,\"stock\":10,\"min\":1,\"max\":50,\"machineID\":7}",
+                "{\"type\":\"Outsourced\",\"id\":810002,\"name\":\"Bolt \\\"Hex\\\", \\\\ 1\",\"price\":90071992547409.93,\"stock\":4,\"min\":0,\"max\":10,\"companyName\":\"Acme, Inc.\"}",
+                "{\"type\":\"InHouse\",\"id\":810003,\"name\":\"Écrou 日本\",\"price\":0.05,\"stock\":0,\"min\":0,\"max\":0,\"machineID\":0}",
+                "{\"type\":\"Product\",\"id\":810004,\"name\":\"Gearbox\",\"price\":30.00,\"stock\":5,\"min\":1,\"max\":10,\"parts\":[\"810001x2\",\"810003\"]}",
+                "{\"type\":\"Product\",\"id\":810005,\"name\":\"Empty Box\",\"price\":1.00,\"stock\":0,\"min\":0,\"max\":1,\"parts\":[]}");
+        String file = String.join("\n", records) + "\n";
+
+        InventoryImporter.Result result = InventoryImporter.importFrom(new StringReader(file), InventoryFileFormat.NDJSON);
+        assertEquals(List.of(), result.getErrors());
+        assertEquals(3, result.getPartsImported());
+        assertEquals(2, result.getProductsImported());
+        assertEquals("Bolt \"Hex\", \\ 1", Inventory.lookupPart(810002).getName());
+
+        StringWriter out = new StringWriter();
+        InventoryExporter.exportTo(out, InventoryFileFormat.NDJSON);
+        List<String> exported = out.toString().lines().filter(line -> line.contains("\"id\":81000")).toList();
+        assertEquals(records, exported);
+    }
+
+    @Test
+    void rejectsProductsListingUnknownPartsOrBadQuantities() throws Exception {
+        String file = "InHouse,820001,Cam,2.00,5,0,10,3,\n"
+                + "Product,820002,Shaft,9.00,1,0,5,,820001x0\n"
+                + "Product,820003,Lever,9.00,1,0,5,,820001;829999\n"
+                + "Product,820004,Pulley,9.00,1,0,5,,820001 x 3\n";
+
+        InventoryImporter.Result result = InventoryImporter.importFrom(new StringReader(file), InventoryFileFormat.CSV);
+        assertEquals(1, result.getPartsImported());
+        assertEquals(1, result.getProductsImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(3, Inventory.lookupProduct(820004).getAssociatedQuantity(820001));
+    }
+}
@@ -0,0 +1,180 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests that the inventory is recovered after a crash exactly as it was when the crash happened.
+ * Each step runs in its own JVM through JournalScenario, which halts without closing the journal. */
+class InventoryJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysDeletesUpdatesAndSortsToTheSameState() throws Exception {
+        List<String> before = run("edit");
+        assertEquals(List.of(
+                "part 3|Nut|30|1|50|10|7",
+                "part 1|Washer|10|1|50|29|7",
+                "part 4|Drive Gear|6|1|50|1250|8",
+                "product 2|Axle|3|1200|parts|assemblies",
+                "product 1|Gearbox|5|3000|parts 4x2|assemblies 2x1"), before);
+        assertEquals(before, run("read"));
+    }
+
+    @Test
+    void truncatesATornTail() throws Exception {
+        List<String> before = run("edit");
+        Path log = dir.resolve("wal-0.log");
+        long intact = Files.size(log);
+        byte[] corrupt = frame(InventoryJournal.DELETE_PART_BY_ID, out -> {
+            out.writeInt(3);
+            out.writeInt(0);
+        });
+        corrupt[4] ^= 1;        //Flips a checksum bit, as a record torn inside its header would
+        ByteBuffer torn = ByteBuffer.allocate(12).putInt(40).putInt(0).putInt(7);
+        Files.write(log, corrupt, StandardOpenOption.APPEND);
+        Files.write(log, torn.array(), StandardOpenOption.APPEND);
+
+        assertEquals(before, run("read"));
+        assertEquals(intact, Files.size(log));
+        List<String> added = run("add");
+        assertEquals(before.size() + 1, added.size());
+        assertTrue(added.contains("part 99|Added after recovery|4|1|10|" + ((1L << 53) + 1) + "|Late Parts"));
+        assertEquals(added, run("read"));
+    }
+
+    @Test
+    void keepsIntactRecordsOfAnySize() throws Exception {
+        List<String> before = run("edit");
+        Path log = dir.resolve("wal-0.log");
+        int entries = 3_000_000;         //About 24 MiB of part stock entries
+        byte[] built = frame(InventoryJournal.PRODUCT_BUILT, out -> {
+            out.writeInt(1);
+            out.writeInt(9);
+            out.writeInt(entries);
+            for (int i = 1; i <= entries; i++) {
+                out.writeInt(1);
+                out.writeInt(i % 40);
+            }
+            out.writeInt(0);
+        });
+        assertTrue(built.length > (1 << 24));
+        Files.write(log, built, StandardOpenOption.APPEND);
+        Files.write(log, frame(InventoryJournal.PART_STOCK, out -> {
+            out.writeInt(3);
+            out.writeInt(77);
+        }), StandardOpenOption.APPEND);
+        long size = Files.size(log);
+
+        List<String> expected = new ArrayList<>(before);
+        expected.set(0, "part 3|Nut|77|1|50|10|7");
+        expected.set(1, "part 1|Washer|" + entries % 40 + "|1|50|29|7");
+        expected.set(4, "product 1|Gearbox|9|3000|parts 4x2|assemblies 2x1");
+        assertEquals(expected, run("read"));
+        assertEquals(size, Files.size(log));
+    }
+
+    @Test
+    void recoversFromACrashBetweenRotateAndSnapshot() throws Exception {
+        List<String> before = run("edit");
+        Path log = dir.resolve("wal-0.log");
+        byte[] records = Files.readAllBytes(log);
+        int split = frameBoundaries(records).get(frameBoundaries(records).size() / 2);
+        Files.write(log, Arrays.copyOf(records, split));
+        Files.write(dir.resolve("wal-1.log"), Arrays.copyOfRange(records, split, records.length));
+        //The crash left the snapshot of generation 1 half written, without its trailer
+        ByteBuffer snapshot = ByteBuffer.allocate(256).putInt(ColumnarSnapshot.MAGIC).putInt(1);
+        Files.write(dir.resolve("snapshot-1.dat"), snapshot.array());
+        Files.write(dir.resolve("snapshot-2.dat.tmp"), snapshot.array());
+
+        assertEquals(before, run("read"));
+        assertFalse(Files.exists(dir.resolve("snapshot-2.dat.tmp")));
+        List<String> added = run("add");
+        assertTrue(Files.size(dir.resolve("wal-1.log")) > records.length - split);
+        assertEquals(added, run("read"));
+    }
+
+    @Test
+    void keepsAssociationsWithDeletedParts() throws Exception {
+        List<String> before = run("orphan");
+        assertEquals(List.of("product 7|Bench Clamp|1|650|parts 5x2|assemblies"), before);
+        assertEquals(before, run("read"));
+    }
+
+    @Test
+    void loadsTheSnapshotAndReplaysTheNewerLog() throws Exception {
+        List<String> before = run("checkpoint");
+        assertTrue(Files.exists(dir.resolve("snapshot-1.dat")));
+        assertFalse(Files.exists(dir.resolve("wal-0.log")));
+        assertTrue(before.get(0).contains("|Renamed|"));
+        assertEquals("product 1|Engine|2|12000|parts 1000000x3|assemblies", before.get(before.size() - 1));
+        assertEquals(before, run("read"));
+    }
+
+    /** Runs a JournalScenario step on the data directory in a new JVM.
+     * @param step Step to run
+     * @return Returns the parts and products printed by the step, one per line*/
+    private List<String> run(String step) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("jdk.module.path", "") + File.pathSeparator + System.getProperty("java.class.path");
+        Process process = new ProcessBuilder(java, "-cp", classPath, JournalScenario.class.getName(), step, dir.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), step + " did not finish");
+        assertEquals(0, process.exitValue(), step + " failed");
+        return output.lines().toList();
+    }
+
+    /** Frames a log record the way the journal writes it: body length, CRC32 of the body, then the body.
+     * @param type Record type
+     * @param writer Writes the fields of the record
+     * @return Returns the framed record*/
+    private static byte[] frame(byte type, InventoryJournal.RecordWriter writer) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(type);
+        writer.write(out);
+        out.flush();
+        byte[] payload = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(8 + payload.length).putInt(payload.length).putInt((int) crc.getValue()).put(payload).array();
+    }
+
+    /** Finds where each record of a log starts.
+     * @param records Contents of the log
+     * @return Returns the offset of every record*/
+    private static List<Integer> frameBoundaries(byte[] records) {
+        List<Integer> starts = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        for (int offset = 0; offset < records.length; offset += 8 + buffer.getInt(offset)) {
+            starts.add(offset);
+        }
+        return starts;
+    }
+}
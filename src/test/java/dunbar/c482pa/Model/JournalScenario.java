@@ -0,0 +1,137 @@
+package dunbar.c482pa.Model;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Runs one step of a journal test in its own JVM, since the Inventory is global state and a journal can only be
+ * recovered into an empty Inventory. Each step opens the journal in a directory, changes the Inventory, prints every
+ * part and product in list order and then halts the JVM without closing the journal, as a crash would.
+ * Run with a step name and a data directory. */
+final class JournalScenario {
+    /** Prevents instantiation of this utility class. */
+    private JournalScenario() {
+    }
+
+    /** Runs a step.
+     * @param args Step name and data directory*/
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args[1]);
+        Inventory.openJournal(dir);
+        switch (args[0]) {
+            case "edit":
+                edit();
+                break;
+            case "checkpoint":
+                checkpoint(dir);
+                break;
+            case "orphan":
+                orphan();
+                break;
+            case "add":
+                //A price a double cannot hold exactly, so recovery only matches if cents are logged as they are
+                Inventory.addPart(Outsourced.ofCents(99, "Added after recovery", (1L << 53) + 1, 4, 1, 10, "Late Parts"));
+                break;
+            default:
+                break;
+        }
+        System.out.print(state());
+        System.out.flush();
+        Runtime.getRuntime().halt(0);
+    }
+
+    /** Adds, replaces, deletes and sorts parts and products, including equal parts held twice and parts that share
+     * an ID, whose deletes must be replayed on the same position. */
+    private static void edit() {
+        InHouse washer = new InHouse(1, "Washer", 0.29, 10, 1, 50, 7);
+        Outsourced bolt = new Outsourced(2, "Bolt", 1.25, 20, 1, 50, "Bolts-R-Us");
+        InHouse nut = new InHouse(3, "Nut", 0.10, 30, 1, 50, 7);
+        InHouse spareNut = new InHouse(3, "Nut", 0.15, 5, 1, 50, 9);
+        Inventory.addParts(List.of(washer, bolt, nut, spareNut));
+        Inventory.addPart(washer);
+        Inventory.addPart(new InHouse(4, "Gear", 9.99, 4, 1, 50, 8));
+        Inventory.sortParts(InventoryColumn.NAME, true);
+        Inventory.deletePart(washer);
+        Inventory.deletePart(spareNut);
+        Inventory.updatePart(Inventory.getAllParts().indexOf(Inventory.lookupPart(4)), new InHouse(4, "Drive Gear", 12.50, 6, 1, 50, 8));
+        Inventory.sortParts(InventoryColumn.STOCK, false);
+        Inventory.adjustStock(2, -3);
+
+        Product gearbox = new Product(1, "Gearbox", 30.00, 5, 1, 10);
+        Product axle = new Product(2, "Axle", 12.00, 3, 1, 10);
+        Product hub = new Product(3, "Hub", 8.00, 2, 1, 10);
+        Inventory.addProducts(List.of(gearbox, axle, hub));
+        gearbox.addAssociatedPart(Inventory.lookupPart(4), 2);
+        gearbox.addSubAssembly(axle, 1);
+        Inventory.sortProducts(InventoryColumn.NAME, true);
+        Inventory.deleteProducts(List.of(hub));
+        Inventory.deleteParts(List.of(bolt));
+    }
+
+    /** Deletes a part used by a product, then replaces the product with a copy that still uses the deleted part, so
+     * the logged product lists a part ID that no longer resolves to a part. */
+    private static void orphan() {
+        InHouse spring = new InHouse(5, "Spring", 0.40, 12, 1, 50, 2);
+        Product clamp = new Product(7, "Clamp", 6.00, 1, 0, 10);
+        Inventory.addPart(spring);
+        clamp.addAssociatedPart(spring, 2);
+        Inventory.addProduct(clamp);
+        Inventory.deletePart(spring);
+        Product renamed = new Product(7, "Bench Clamp", 6.50, 1, 0, 10);
+        renamed.addAssociatedPart(spring, 2);
+        Inventory.updateProduct(0, renamed);
+    }
+
+    /** Adds parts in batches until a checkpoint has rotated the log and its snapshot has replaced the first log,
+     * then changes the inventory further, so recovery loads the snapshot and replays the newer log. A product using
+     * several units of a part is added first, so its associations are read back from the snapshot. */
+    private static void checkpoint(Path dir) throws InterruptedException {
+        InHouse crank = new InHouse(1_000_000, "Crank", 4.75, 8, 0, 100, 3);
+        Product engine = new Product(1, "Engine", 120.00, 2, 0, 10);
+        Inventory.addPart(crank);
+        engine.addAssociatedPart(crank, 3);
+        Inventory.addProduct(engine);
+        int id = 1;
+        while (!Files.exists(dir.resolve("snapshot-1.dat"))) {
+            List<Part> batch = new ArrayList<>();
+            for (int i = 0; i < 5000; i++, id++) {
+                batch.add(new InHouse(id, "Bearing " + id, id % 100 + 0.25, id % 40, 0, 100, id % 12));
+            }
+            Inventory.addParts(batch);
+        }
+        while (Files.exists(dir.resolve("wal-0.log"))) {
+            Thread.sleep(10);       //The first log is deleted once the snapshot is complete
+        }
+        Inventory.sortParts(InventoryColumn.STOCK, true);
+        Inventory.deletePart(Inventory.lookupPart(7));
+        Inventory.updatePart(0, new InHouse(Inventory.getAllParts().get(0).getId(), "Renamed", 1.00, 1, 0, 100, 1));
+    }
+
+    /** Describes every part and product in list order, one per line.
+     * @return Returns the description*/
+    static String state() {
+        StringBuilder text = new StringBuilder();
+        for (Part part : Inventory.getAllParts()) {
+            text.append("part ").append(part.getId()).append('|').append(part.getName()).append('|').append(part.getStock())
+                    .append('|').append(part.getMin()).append('|').append(part.getMax()).append('|').append(part.getPriceCents())
+                    .append('|').append(part instanceof InHouse ? ((InHouse) part).getMachineID() : ((Outsourced) part).getCompanyName())
+                    .append('\n');
+        }
+        for (Product product : Inventory.getAllProducts()) {
+            text.append("product ").append(product.getId()).append('|').append(product.getName()).append('|')
+                    .append(product.getStock()).append('|').append(product.getPriceCents()).append("|parts");
+            BillOfMaterials<Part> bill = product.billOfMaterials();
+            for (int i = 0; i < bill.size(); i++) {
+                text.append(' ').append(bill.partId(i)).append('x').append(bill.quantity(i));
+            }
+            text.append("|assemblies");
+            for (Product assembly : product.getAllSubAssemblies()) {
+                text.append(' ').append(assembly.getId()).append('x').append(product.getSubAssemblyQuantity(assembly.getId()));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
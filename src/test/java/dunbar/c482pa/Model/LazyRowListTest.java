@@ -0,0 +1,120 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** Tests that sorting a lazily loaded list orders it exactly as a stable sort of its elements would, without
+ * building the rows that had not been read. */
+class LazyRowListTest {
+
+    /** Element built from a snapshot row or added after loading, compared by identity. */
+    private static final class Row {
+        /**Numeric sort key*/
+        final long number;
+        /**Text sort key, or null*/
+        final String text;
+
+        /** Constructor.
+         * @param number Numeric sort key
+         * @param text Text sort key, or null*/
+        Row(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+
+    @Test
+    void sortsStablyWithoutBuildingUnreadRows() {
+        Random random = new Random(20261018L);
+        for (int round = 0; round < 500; round++) {
+            int rowCount = random.nextInt(60);
+            long[] numbers = new long[rowCount];
+            String[] texts = new String[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                //Few distinct keys, so that stability is tested on many ties
+                numbers[row] = random.nextInt(5) - 2;
+                texts[row] = randomText(random);
+            }
+            int[] builds = new int[1];
+            LazyRowList<Row> list = new LazyRowList<>();
+            list.load(rowCount, row -> {
+                builds[0]++;
+                return new Row(numbers[row], texts[row]);
+            });
+            for (int i = 0; i < rowCount; i++) {
+                if (random.nextInt(3) == 0) {
+                    list.get(i);
+                }
+            }
+            for (int added = random.nextInt(5); added > 0; added--) {
+                list.add(random.nextInt(list.size() + 1), new Row(random.nextInt(5) - 2, randomText(random)));
+            }
+            int built = builds[0];
+
+            boolean byText = random.nextBoolean();
+            boolean ascending = random.nextBoolean();
+            int[] order = byText ? list.sortOrderByText(row -> row.text, row -> texts[row], ascending)
+                    : list.sortOrder(row -> row.number, row -> numbers[row], ascending);
+            assertEquals(built, builds[0]);
+
+            List<Row> before = new ArrayList<>(list);
+            Comparator<Integer> byKey = byText
+                    ? Comparator.comparing(i -> before.get(i).text, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                    : Comparator.comparingLong(i -> before.get(i).number);
+            int[] stable = IntStream.range(0, before.size()).boxed()
+                    .sorted(ascending ? byKey : byKey.reversed())
+                    .mapToInt(Integer::intValue).toArray();
+            if (IntStream.range(0, stable.length).allMatch(i -> stable[i] == i)) {
+                assertNull(order);
+                continue;
+            }
+            assertArrayEquals(stable, order);
+
+            list.permute(order);
+            for (int i = 0; i < order.length; i++) {
+                assertSame(before.get(order[i]), list.get(i));
+            }
+        }
+    }
+
+    @Test
+    void capturesUnreadRowsWithoutBuildingThem() {
+        int[] builds = new int[1];
+        LazyRowList<Row> list = new LazyRowList<>();
+        list.load(4, row -> {
+            builds[0]++;
+            return new Row(row, "row " + row);
+        });
+        Row read = list.get(2);
+        Row added = new Row(-1, "added");
+        list.add(0, added);
+
+        LazyRowList.Capture<Row> capture = list.capture();
+        assertEquals(1, builds[0]);
+        assertEquals(5, capture.size);
+        assertSame(added, capture.item(0));
+        assertNull(capture.item(1));
+        assertSame(read, capture.item(3));
+        assertEquals(3, capture.rows[4]);
+        assertArrayEquals(new int[]{0, 3, 4}, capture.matching(row -> row.number != 0, row -> row == 3, 5));
+        assertArrayEquals(new int[]{0}, capture.matching(row -> row.number != 0, row -> row == 3, 1));
+        assertEquals(1, builds[0]);
+    }
+
+    /** Makes a text key of one of a few letters, or null.
+     * @param random Source of randomness
+     * @return Returns the key*/
+    private static String randomText(Random random) {
+        return random.nextInt(6) == 0 ? null : String.valueOf((char) ('a' + random.nextInt(4)));
+    }
+}
@@ -0,0 +1,87 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests parsing, rounding and formatting of prices in cents. */
+class MoneyTest {
+
+    @Test
+    void parsesPlainDecimals() {
+        assertEquals(1200, Money.parseCents("12"));
+        assertEquals(1250, Money.parseCents("12.5"));
+        assertEquals(1250, Money.parseCents(" 12.50 "));
+        assertEquals(29, Money.parseCents("0.29"));
+        assertEquals(50, Money.parseCents(".5"));
+        assertEquals(1200, Money.parseCents("12."));
+        assertEquals(1200, Money.parseCents("+12"));
+        assertEquals(-1250, Money.parseCents("-12.5"));
+    }
+
+    @Test
+    void extraDigitsRoundDown() {
+        assertEquals(1299, Money.parseCents("12.999"));
+        assertEquals(1200, Money.parseCents("12.001"));
+        assertEquals(1200, Money.parseCents("12.000"));
+        assertEquals(-1300, Money.parseCents("-12.999"));
+        assertEquals(-1201, Money.parseCents("-12.001"));
+        assertEquals(-1200, Money.parseCents("-12.000"));
+    }
+
+    @Test
+    void parsesExponents() {
+        assertEquals(150000, Money.parseCents("1.5e3"));
+        assertEquals(150000, Money.parseCents("1.5E+3"));
+        assertEquals(12, Money.parseCents("1.25e-1"));
+        assertEquals(-13, Money.parseCents("-1.25e-1"));
+        assertEquals(0, Money.parseCents("1e-5"));
+    }
+
+    @Test
+    void rejectsTextThatIsNotAPrice() {
+        assertThrows(NumberFormatException.class, () -> Money.parseCents(""));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("."));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("-"));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("12.5.0"));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("$12"));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("twelve"));
+    }
+
+    @Test
+    void rejectsPricesThatDoNotFitInALong() {
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("100000000000000000000"));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("1e30"));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> Money.parseCents("-92233720368547758.09"));
+        assertEquals(Long.MAX_VALUE, Money.parseCents("92233720368547758.07"));
+        assertEquals(Long.MIN_VALUE, Money.parseCents("-92233720368547758.08"));
+    }
+
+    @Test
+    void formatIsParsedBack() {
+        assertEquals("12.50", Money.format(1250));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("-12.50", Money.format(-1250));
+        for (long cents : new long[] {0, 1, -1, 99, 1250, -1250, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(cents, Money.parseCents(Money.format(cents)));
+        }
+    }
+
+    @Test
+    void doublesRoundToNearestCent() {
+        assertEquals(29, Money.fromDouble(0.29));
+        assertEquals(1005, Money.fromDouble(10.05));
+        assertEquals(1005, Money.fromDouble(Money.toDouble(1005)));
+        assertEquals(-29, Money.fromDouble(-0.29));
+    }
+
+    @Test
+    void totalsMultiplyAndAdd() {
+        assertEquals(2 * 150 + 3 * 25, Money.total(new long[] {150, 25, 999}, new int[] {2, 3, 7}, 2));
+        assertEquals(4 * 10 + 5 * 20, Money.total(new long[] {10, 20}, new long[] {4, 5}, 2));
+        assertEquals(0, Money.total(new long[0], new int[0], 0));
+    }
+}
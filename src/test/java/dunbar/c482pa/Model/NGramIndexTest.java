@@ -0,0 +1,121 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Tests that the trigram index finds exactly what a case-insensitive scan of the names would, in the same order,
+ * as items are added, renamed, removed and reordered. */
+class NGramIndexTest {
+    /**Characters names are made of, including letters whose case folding changes their length and a surrogate pair*/
+    private static final String[] ALPHABET = {"a", "b", "c", "A", "B", "C", " ", "-", "1", "é", "É", "ß", "İ", "ı",
+            "Σ", "ς", "日", "本", "🔧"};
+
+    /** Item with a name, compared by identity as parts and products are in the index. */
+    private static final class Named {
+        /**Name of the item*/
+        final String name;
+
+        /** Constructor.
+         * @param name Name of the item*/
+        Named(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    @Test
+    void matchesAScanOfTheNames() {
+        Random random = new Random(20261018L);
+        NGramIndex<Named> index = new NGramIndex<>(named -> named.name);
+        List<Named> items = new ArrayList<>();
+        for (int step = 0; step < 4000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || items.isEmpty()) {
+                Named item = new Named(randomName(random));
+                items.add(item);
+                index.add(item);
+            }
+            else if (action < 6) {
+                int position = random.nextInt(items.size());
+                Named renamed = new Named(randomName(random));
+                index.replace(items.get(position), renamed);
+                items.set(position, renamed);
+            }
+            else if (action < 8) {
+                index.remove(items.remove(random.nextInt(items.size())));
+            }
+            else if (action == 8) {
+                Collections.shuffle(items, random);
+                index.reorder(items);
+            }
+            else {
+                Named moved = items.remove(random.nextInt(items.size()));
+                items.add(moved);
+                index.add(moved);       //Adding an indexed item again moves it to the end
+            }
+            assertEquals(items.size(), index.size());
+            String query = random.nextBoolean() || items.isEmpty() ? randomName(random) : slice(random, items);
+            assertEquals(scan(items, query), index.search(query), "query \"" + query + "\"");
+        }
+    }
+
+    @Test
+    void answersShortQueriesAndQueriesWithoutAnIndexedTrigram() {
+        NGramIndex<Named> index = new NGramIndex<>(named -> named.name);
+        List<Named> items = List.of(new Named("Gear"), new Named("gearbox"), new Named(null), new Named("SPUR GEAR"));
+        items.forEach(index::add);
+        for (String query : new String[]{"", "g", "GE", "ear", "EAR", "box", "r g", "zzz", "gearboxes"}) {
+            assertEquals(scan(items, query), index.search(query), "query \"" + query + "\"");
+        }
+    }
+
+    /** Finds the items whose name contains a query ignoring case by checking every name.
+     * @param items Items in order
+     * @param query Text to search for
+     * @return Returns the matching items in order*/
+    private static List<Named> scan(List<Named> items, String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Named> matches = new ArrayList<>();
+        for (Named item : items) {
+            String name = item.name == null ? "" : item.name;
+            if (name.toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+
+    /** Makes a name of up to ten symbols from the alphabet.
+     * @param random Source of randomness
+     * @return Returns the name*/
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int length = random.nextInt(11); length > 0; length--) {
+            name.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return name.toString();
+    }
+
+    /** Takes part of the name of an item, often shorter than a trigram, with its case flipped at random.
+     * @param random Source of randomness
+     * @param items Items to take a name from
+     * @return Returns the part of the name*/
+    private static String slice(Random random, List<Named> items) {
+        String name = items.get(random.nextInt(items.size())).name;
+        int from = random.nextInt(name.length() + 1);
+        int to = from + random.nextInt(Math.min(5, name.length() - from + 1));
+        String part = name.substring(from, to);
+        return random.nextBoolean() ? part.toUpperCase(Locale.ROOT) : part;
+    }
+}
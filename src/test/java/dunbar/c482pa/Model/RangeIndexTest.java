@@ -0,0 +1,140 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests RangeIndex against a sorted list of pairs, across leaf splits and removals. */
+class RangeIndexTest {
+
+    @Test
+    void boundsAreInclusive() {
+        RangeIndex index = new RangeIndex();
+        index.add(5, 1);
+        index.add(10, 2);
+        index.add(15, 3);
+        assertArrayEquals(new int[] {1, 2, 3}, index.ids(5, 15));
+        assertArrayEquals(new int[] {2}, index.ids(6, 14));
+        assertArrayEquals(new int[] {2}, index.ids(10, 10));
+        assertArrayEquals(new int[0], index.ids(11, 14));
+        assertArrayEquals(new int[0], index.ids(15, 5));
+    }
+
+    @Test
+    void extremeBoundsMatchEverything() {
+        RangeIndex index = new RangeIndex();
+        index.add(Long.MIN_VALUE, 1);
+        index.add(0, 2);
+        index.add(Long.MAX_VALUE, 3);
+        assertArrayEquals(new int[] {1, 2, 3}, index.ids(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertArrayEquals(new int[] {1}, index.ids(Long.MIN_VALUE, Long.MIN_VALUE));
+        assertArrayEquals(new int[] {3}, index.ids(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void equalValuesAreOrderedById() {
+        RangeIndex index = new RangeIndex();
+        index.add(7, 9);
+        index.add(7, 3);
+        index.add(7, 5);
+        assertArrayEquals(new int[] {3, 5, 9}, index.ids(7, 7));
+    }
+
+    @Test
+    void duplicatePairsAreRemovedOneAtATime() {
+        RangeIndex index = new RangeIndex();
+        index.add(4, 1);
+        index.add(4, 1);
+        assertArrayEquals(new int[] {1, 1}, index.ids(4, 4));
+        assertTrue(index.remove(4, 1));
+        assertArrayEquals(new int[] {1}, index.ids(4, 4));
+        assertTrue(index.remove(4, 1));
+        assertFalse(index.remove(4, 1));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removeOfMissingPairFails() {
+        RangeIndex index = new RangeIndex();
+        index.add(4, 1);
+        assertFalse(index.remove(4, 2));
+        assertFalse(index.remove(5, 1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void matchesSortedPairsAcrossSplitsAndRemovals() {
+        Random random = new Random(42);
+        RangeIndex index = new RangeIndex();
+        List<long[]> pairs = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long value = random.nextInt(200) - 100;
+            int id = random.nextInt(1000);
+            index.add(value, id);
+            pairs.add(new long[] {value, id});
+        }
+        for (int i = 0; i < 4000; i++) {
+            long[] pair = pairs.remove(random.nextInt(pairs.size()));
+            assertTrue(index.remove(pair[0], (int) pair[1]));
+        }
+        assertEquals(pairs.size(), index.size());
+        for (int i = 0; i < 50; i++) {
+            long low = random.nextInt(240) - 120;
+            long high = low + random.nextInt(60);
+            assertArrayEquals(expected(pairs, low, high), index.ids(low, high));
+        }
+    }
+
+    @Test
+    void loadMatchesAddingOneAtATime() {
+        Random random = new Random(7);
+        int count = 3000;
+        long[] values = new long[count];
+        int[] ids = new int[count];
+        List<long[]> pairs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(500);
+            ids[i] = random.nextInt(100);
+            pairs.add(new long[] {values[i], ids[i]});
+        }
+        RangeIndex index = new RangeIndex();
+        index.load(values, ids, count);
+        assertEquals(count, index.size());
+        assertArrayEquals(expected(pairs, Long.MIN_VALUE, Long.MAX_VALUE), index.ids(Long.MIN_VALUE, Long.MAX_VALUE));
+        index.add(250, 50);
+        pairs.add(new long[] {250, 50});
+        assertArrayEquals(expected(pairs, 200, 300), index.ids(200, 300));
+    }
+
+    @Test
+    void clearEmptiesTheIndex() {
+        RangeIndex index = new RangeIndex();
+        for (int i = 0; i < 1000; i++) {
+            index.add(i, i);
+        }
+        index.clear();
+        assertEquals(0, index.size());
+        assertArrayEquals(new int[0], index.ids(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    /** Finds the IDs of the pairs between two bounds by sorting every pair.
+     * @param pairs Value and ID of each pair
+     * @param low Lowest value to include
+     * @param high Highest value to include
+     * @return Returns the IDs in ascending order of (value, ID)*/
+    private static int[] expected(List<long[]> pairs, long low, long high) {
+        return pairs.stream()
+                .filter(pair -> pair[0] >= low && pair[0] <= high)
+                .sorted((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]))
+                .mapToInt(pair -> (int) pair[1])
+                .toArray();
+    }
+}
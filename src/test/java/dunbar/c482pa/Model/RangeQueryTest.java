@@ -0,0 +1,90 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests parsing of typed range queries and the bounds they match. */
+class RangeQueryTest {
+
+    @Test
+    void parsesComparisons() {
+        assertBounds(RangeQuery.parse("stock<5"), RangeQuery.Field.STOCK, Long.MIN_VALUE, 4);
+        assertBounds(RangeQuery.parse("stock<=5"), RangeQuery.Field.STOCK, Long.MIN_VALUE, 5);
+        assertBounds(RangeQuery.parse("stock>5"), RangeQuery.Field.STOCK, 6, Long.MAX_VALUE);
+        assertBounds(RangeQuery.parse("stock>=5"), RangeQuery.Field.STOCK, 5, Long.MAX_VALUE);
+        assertBounds(RangeQuery.parse("stock=5"), RangeQuery.Field.STOCK, 5, 5);
+        assertBounds(RangeQuery.parse("headroom<0"), RangeQuery.Field.HEADROOM, Long.MIN_VALUE, -1);
+    }
+
+    @Test
+    void parsesBetweenAndIgnoresCaseAndSpaces() {
+        assertBounds(RangeQuery.parse("  Stock = 10 .. 20 "), RangeQuery.Field.STOCK, 10, 20);
+        assertBounds(RangeQuery.parse("HEADROOM>=-3"), RangeQuery.Field.HEADROOM, -3, Long.MAX_VALUE);
+    }
+
+    @Test
+    void parsesPricesInDollars() {
+        assertBounds(RangeQuery.parse("price>=10"), RangeQuery.Field.PRICE, 1000, Long.MAX_VALUE);
+        assertBounds(RangeQuery.parse("price=1.5..2.25"), RangeQuery.Field.PRICE, 150, 225);
+    }
+
+    @Test
+    void comparisonsAtTheLimitsMatchNothing() {
+        RangeQuery below = RangeQuery.parse("stock<" + Long.MIN_VALUE);
+        RangeQuery above = RangeQuery.parse("stock>" + Long.MAX_VALUE);
+        assertFalse(below.matches(Long.MIN_VALUE));
+        assertFalse(above.matches(Long.MAX_VALUE));
+    }
+
+    @Test
+    void rejectsTextThatIsNotAQuery() {
+        assertNull(RangeQuery.parse("Drive Gear"));
+        assertNull(RangeQuery.parse("12"));
+        assertNull(RangeQuery.parse("weight<5"));
+        assertNull(RangeQuery.parse("stock<"));
+        assertNull(RangeQuery.parse("stock<<5"));
+        assertNull(RangeQuery.parse("stock<1.5"));
+        assertNull(RangeQuery.parse("stock<1.2.3"));
+        assertNull(RangeQuery.parse("stock=1..x"));
+        assertNull(RangeQuery.parse("stock<99999999999999999999"));
+        assertNull(RangeQuery.parse("price<1..2"));
+    }
+
+    @Test
+    void betweenRequiresAField() {
+        assertThrows(IllegalArgumentException.class, () -> RangeQuery.between(null, 0, 1));
+    }
+
+    @Test
+    void boundsAreInclusive() {
+        RangeQuery query = RangeQuery.between(RangeQuery.Field.STOCK, 10, 20);
+        assertTrue(query.matches(10));
+        assertTrue(query.matches(20));
+        assertFalse(query.matches(9));
+        assertFalse(query.matches(21));
+        assertFalse(RangeQuery.between(RangeQuery.Field.STOCK, 20, 10).matches(15));
+    }
+
+    @Test
+    void headroomIsStockAboveMin() {
+        assertEquals(-2, RangeQuery.value(RangeQuery.Field.HEADROOM, 3, 0, 5));
+        assertEquals(Integer.MAX_VALUE - (long) Integer.MIN_VALUE,
+                RangeQuery.value(RangeQuery.Field.HEADROOM, Integer.MAX_VALUE, 0, Integer.MIN_VALUE));
+    }
+
+    /** Checks the field and bounds of a parsed query.
+     * @param query Parsed query
+     * @param field Expected field
+     * @param low Expected lower bound
+     * @param high Expected upper bound*/
+    private static void assertBounds(RangeQuery query, RangeQuery.Field field, long low, long high) {
+        assertEquals(field, query.getField());
+        assertEquals(low, query.getLow());
+        assertEquals(high, query.getHigh());
+    }
+}
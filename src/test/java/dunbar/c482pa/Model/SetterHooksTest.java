@@ -0,0 +1,61 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests that the setters of stored parts and products reach the rollups and range indexes kept by the Inventory.
+ * The Inventory is global state shared by every test in the JVM, so each test uses IDs no other test uses. */
+class SetterHooksTest {
+
+    @Test
+    void partSettersInvalidateRollups() {
+        Part pin = InHouse.ofCents(770_001, "Pin", 30, 20, 2, 100, 1);
+        Inventory.addPart(pin);
+        Product hinge = Product.ofCents(770_002, "Hinge", 500, 0, 0, 10);
+        Inventory.addProduct(hinge);
+        hinge.addAssociatedPart(pin, 3);
+        assertEquals(6, hinge.getRollup().getBuildableUnits());
+        assertEquals(90, hinge.getRollup().getTotalPartCostCents());
+
+        pin.setMin(8);
+        assertEquals(4, hinge.getRollup().getBuildableUnits());
+        pin.setPriceCents(35);
+        assertEquals(105, hinge.getRollup().getTotalPartCostCents());
+        pin.setStock(5);
+        assertEquals(0, hinge.getRollup().getBuildableUnits());
+        assertEquals(1, hinge.getRollup().getPartsAtMinStock());
+    }
+
+    @Test
+    void productSettersInvalidateAssemblyRollups() {
+        Product leg = Product.ofCents(780_001, "Leg", 900, 12, 0, 50);
+        Product table = Product.ofCents(780_002, "Table", 15000, 0, 0, 10);
+        Inventory.addProducts(List.of(leg, table));
+        table.addSubAssembly(leg, 4);
+        assertEquals(3, table.getRollup().getBuildableUnits());
+
+        leg.setMin(4);
+        assertEquals(2, table.getRollup().getBuildableUnits());
+        leg.setStock(20);
+        assertEquals(4, table.getRollup().getBuildableUnits());
+    }
+
+    @Test
+    void minSettersMoveItemsInTheHeadroomIndex() {
+        Part rivet = InHouse.ofCents(790_001, "Rivet", 5, 10, 0, 100, 1);
+        Product panel = Product.ofCents(790_002, "Panel", 700, 10, 0, 100);
+        Inventory.addPart(rivet);
+        Inventory.addProduct(panel);
+        assertTrue(Inventory.lookupParts(RangeQuery.parse("headroom=-9000007")).isEmpty());
+        assertTrue(Inventory.lookupProducts(RangeQuery.parse("headroom=-9000007")).isEmpty());
+
+        rivet.setMin(9_000_017);
+        panel.setMin(9_000_017);
+        assertEquals(List.of(rivet), Inventory.lookupParts(RangeQuery.parse("headroom=-9000007")));
+        assertEquals(List.of(panel), Inventory.lookupProducts(RangeQuery.parse("headroom=-9000007")));
+    }
+}
@@ -0,0 +1,75 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Tests the StockState transitions at the min, max and int limits. */
+class StockStateTest {
+
+    @Test
+    void packKeepsStockAndReserved() {
+        long state = StockState.pack(-5, Integer.MAX_VALUE);
+        assertEquals(-5, StockState.stock(state));
+        assertEquals(Integer.MAX_VALUE, StockState.reserved(state));
+    }
+
+    @Test
+    void reserveLeavesMinUnreserved() {
+        long state = StockState.pack(10, 0);
+        long reserved = StockState.reserve(state, 8, 2);
+        assertEquals(10, StockState.stock(reserved));
+        assertEquals(8, StockState.reserved(reserved));
+        assertEquals(StockState.REJECTED, StockState.reserve(state, 9, 2));
+        assertEquals(StockState.REJECTED, StockState.reserve(reserved, 1, 2));
+    }
+
+    @Test
+    void reserveRejectsOverflow() {
+        long state = StockState.pack(Integer.MAX_VALUE, Integer.MAX_VALUE - 1);
+        assertEquals(Integer.MAX_VALUE, StockState.reserved(StockState.reserve(state, 1, 0)));
+        assertEquals(StockState.REJECTED, StockState.reserve(state, 2, Integer.MIN_VALUE));
+        assertEquals(StockState.REJECTED, StockState.reserve(StockState.pack(0, 1), Integer.MAX_VALUE, Integer.MIN_VALUE));
+    }
+
+    @Test
+    void commitTakesReservedStock() {
+        long state = StockState.pack(10, 4);
+        long committed = StockState.commit(state, 4);
+        assertEquals(6, StockState.stock(committed));
+        assertEquals(0, StockState.reserved(committed));
+        assertEquals(StockState.REJECTED, StockState.commit(state, 5));
+    }
+
+    @Test
+    void releaseReturnsReservedStock() {
+        long state = StockState.pack(10, 4);
+        long released = StockState.release(state, 3);
+        assertEquals(10, StockState.stock(released));
+        assertEquals(1, StockState.reserved(released));
+        assertEquals(StockState.REJECTED, StockState.release(state, 5));
+        assertEquals(StockState.REJECTED, StockState.release(StockState.pack(10, 0), 1));
+    }
+
+    @Test
+    void adjustChecksMinAgainstUnreservedStock() {
+        long state = StockState.pack(10, 4);
+        assertEquals(7, StockState.stock(StockState.adjust(state, -3, 3, 20)));
+        assertEquals(StockState.REJECTED, StockState.adjust(state, -4, 3, 20));
+    }
+
+    @Test
+    void adjustChecksMax() {
+        long state = StockState.pack(10, 4);
+        assertEquals(20, StockState.stock(StockState.adjust(state, 10, 0, 20)));
+        assertEquals(StockState.REJECTED, StockState.adjust(state, 11, 0, 20));
+        assertEquals(4, StockState.reserved(StockState.adjust(state, 10, 0, 20)));
+    }
+
+    @Test
+    void withStockKeepsReserved() {
+        long state = StockState.withStock(StockState.pack(10, 4), 50);
+        assertEquals(50, StockState.stock(state));
+        assertEquals(4, StockState.reserved(state));
+    }
+}
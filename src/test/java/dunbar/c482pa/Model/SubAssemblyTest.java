@@ -0,0 +1,119 @@
+package dunbar.c482pa.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests that building, rolling up and exploding a product follow its sub-assemblies.
+ * The Inventory is global state shared by every test in the JVM, so each test uses IDs no other test uses. */
+class SubAssemblyTest {
+
+    @Test
+    void buildTakesSubAssemblyStock() {
+        Inventory.addPart(InHouse.ofCents(710_001, "Gear", 250, 20, 2, 100, 1));
+        Product gearSet = Product.ofCents(710_002, "Gear Set", 1000, 5, 1, 50);
+        Product transmission = Product.ofCents(710_003, "Transmission", 9000, 0, 0, 10);
+        Inventory.addProducts(List.of(gearSet, transmission));
+        transmission.addAssociatedPart(Inventory.lookupPart(710_001), 3);
+        transmission.addSubAssembly(gearSet, 2);
+
+        assertTrue(Inventory.buildProduct(710_003, 2));
+        assertEquals(2, transmission.getStock());
+        assertEquals(1, gearSet.getStock());
+        assertEquals(14, Inventory.lookupPart(710_001).getStock());
+
+        //One more unit would leave the gear set below its min, so nothing changes
+        assertFalse(Inventory.buildProduct(710_003, 1));
+        assertEquals(2, transmission.getStock());
+        assertEquals(1, gearSet.getStock());
+        assertEquals(14, Inventory.lookupPart(710_001).getStock());
+        assertEquals(0, gearSet.getReserved());
+        assertEquals(0, Inventory.lookupPart(710_001).getReserved());
+    }
+
+    @Test
+    void rollupIncludesSubAssemblies() {
+        Inventory.addPart(InHouse.ofCents(720_001, "Spoke", 40, 50, 0, 100, 1));
+        Product wheel = Product.ofCents(720_002, "Wheel", 3000, 9, 1, 50);
+        Product cart = Product.ofCents(720_003, "Cart", 20000, 0, 0, 10);
+        Inventory.addProducts(List.of(wheel, cart));
+        wheel.addAssociatedPart(Inventory.lookupPart(720_001), 10);
+        cart.addSubAssembly(wheel, 4);
+
+        ProductRollup rollup = cart.getRollup();
+        assertEquals(1600, rollup.getTotalPartCostCents());
+        assertEquals(2, rollup.getBuildableUnits());
+        assertEquals(0, rollup.getPartsAtMinStock());
+
+        //Changes below the cart reach its kept rollup
+        assertTrue(Inventory.adjustProductStock(720_002, 4));
+        assertEquals(3, cart.getRollup().getBuildableUnits());
+        assertTrue(Inventory.adjustStock(720_001, -50));
+        assertEquals(1, wheel.getRollup().getPartsAtMinStock());
+        wheel.addAssociatedPart(Inventory.lookupPart(720_001), 1);
+        assertEquals(1760, cart.getRollup().getTotalPartCostCents());
+    }
+
+    @Test
+    void productOfOnlyEmptyStockSubAssembliesIsNotBuildable() {
+        Product frame = Product.ofCents(730_001, "Frame", 500, 0, 0, 10);
+        Product bike = Product.ofCents(730_002, "Bike", 9000, 0, 0, 10);
+        Inventory.addProducts(List.of(frame, bike));
+        bike.addSubAssembly(frame, 1);
+
+        assertEquals(0, bike.getRollup().getBuildableUnits());
+        assertEquals(1, bike.getRollup().getPartsAtMinStock());
+        assertFalse(Inventory.buildProduct(730_002, 1));
+        assertEquals(Integer.MAX_VALUE, frame.getRollup().getBuildableUnits());
+    }
+
+    @Test
+    void explodesNestedSubAssemblies() {
+        Inventory.addPart(InHouse.ofCents(740_001, "Bolt", 10, 100, 0, 1000, 1));
+        Inventory.addPart(InHouse.ofCents(740_002, "Plate", 200, 100, 0, 1000, 1));
+        Product bracket = Product.ofCents(740_003, "Bracket", 500, 0, 0, 10);
+        Product shelf = Product.ofCents(740_004, "Shelf", 1500, 0, 0, 10);
+        Product rack = Product.ofCents(740_005, "Rack", 9000, 0, 0, 10);
+        Inventory.addProducts(List.of(bracket, shelf, rack));
+        bracket.addAssociatedPart(Inventory.lookupPart(740_001), 2);
+        shelf.addAssociatedPart(Inventory.lookupPart(740_002), 1);
+        shelf.addSubAssembly(bracket, 2);
+        rack.addAssociatedPart(Inventory.lookupPart(740_001), 8);
+        rack.addSubAssembly(shelf, 3);
+
+        BomExplosion explosion = Inventory.explode(740_005, 2);
+        assertEquals(2, explosion.size());
+        assertEquals(2 * (8 + 3 * 2 * 2), explosion.getQuantityOf(740_001));
+        assertEquals(2 * 3, explosion.getQuantityOf(740_002));
+
+        bracket.addAssociatedPart(Inventory.lookupPart(740_001), 1);
+        assertEquals(2 * (8 + 3 * 2 * 3), Inventory.explode(740_005, 2).getQuantityOf(740_001));
+    }
+
+    @Test
+    void rejectsCycles() {
+        Product inner = Product.ofCents(750_001, "Inner", 100, 0, 0, 10);
+        Product outer = Product.ofCents(750_002, "Outer", 100, 0, 0, 10);
+        Inventory.addProducts(List.of(inner, outer));
+        outer.addSubAssembly(inner, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> inner.addSubAssembly(outer, 1));
+        assertThrows(IllegalArgumentException.class, () -> inner.addSubAssembly(inner, 1));
+        assertEquals(0, inner.getSubAssemblyQuantity(750_002));
+    }
+
+    @Test
+    void explosionRejectsACycleThatBypassedTheInventory() {
+        Product first = Product.ofCents(760_001, "First", 100, 0, 0, 10);
+        Product second = Product.ofCents(760_002, "Second", 100, 0, 0, 10);
+        first.setSubAssemblies(BillOfMaterials.NO_PRODUCTS.change(new int[]{760_002}, new Product[]{second}, new int[]{1}));
+        second.setSubAssemblies(BillOfMaterials.NO_PRODUCTS.change(new int[]{760_001}, new Product[]{first}, new int[]{1}));
+
+        assertThrows(IllegalStateException.class, () -> first.explosion(new int[0]));
+    }
+}